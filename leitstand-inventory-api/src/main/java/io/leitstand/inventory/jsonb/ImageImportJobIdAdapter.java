@@ -0,0 +1,22 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.jsonb;
+
+import javax.json.bind.adapter.JsonbAdapter;
+
+import io.leitstand.inventory.service.ImageImportJobId;
+
+public class ImageImportJobIdAdapter implements JsonbAdapter<ImageImportJobId,String> {
+
+	@Override
+	public String adaptToJson(ImageImportJobId obj) throws Exception {
+		return ImageImportJobId.toString(obj);
+	}
+
+	@Override
+	public ImageImportJobId adaptFromJson(String obj) throws Exception {
+		return ImageImportJobId.valueOf(obj);
+	}
+
+}
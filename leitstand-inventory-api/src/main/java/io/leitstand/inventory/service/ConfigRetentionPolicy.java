@@ -0,0 +1,143 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+import static io.leitstand.commons.model.BuilderUtil.assertNotInvalidated;
+
+import javax.json.bind.annotation.JsonbProperty;
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+
+import io.leitstand.commons.model.ValueObject;
+
+/**
+ * A retention policy for superseded element configuration revisions.
+ * <p>
+ * A policy applies to all configurations with the specified name of all elements with the specified role.
+ * A policy without element role applies to all elements and a policy without configuration name applies to all configurations.
+ * The most specific policy takes precedence if multiple policies apply to a configuration,
+ * whereby a policy for a configuration name is more specific than a policy for an element role.
+ * <p>
+ * A superseded revision is removed unless it
+ * <ul>
+ * 	<li>is one of the <code>keep_last</code> latest revisions of the configuration,</li>
+ *  <li>is younger than <code>keep_all_days</code> days or</li>
+ *  <li>is the latest revision of its day and younger than <code>keep_daily_days</code> days.</li>
+ * </ul>
+ * For example, a policy with <code>keep_last</code> 10, <code>keep_all_days</code> 7 and <code>keep_daily_days</code> 365
+ * keeps the last 10 revisions, all revisions of the last week, one revision per day for the last year
+ * and removes all other superseded revisions.
+ * Active and candidate configurations are never removed.
+ */
+public class ConfigRetentionPolicy extends ValueObject {
+
+	public static Builder newConfigRetentionPolicy() {
+		return new Builder();
+	}
+
+	public static class Builder {
+
+		private ConfigRetentionPolicy policy = new ConfigRetentionPolicy();
+
+		public Builder withElementRole(ElementRoleName elementRole) {
+			assertNotInvalidated(getClass(), policy);
+			policy.elementRole = elementRole;
+			return this;
+		}
+
+		public Builder withConfigName(ElementConfigName configName) {
+			assertNotInvalidated(getClass(), policy);
+			policy.configName = configName;
+			return this;
+		}
+
+		public Builder withKeepLast(int keepLast) {
+			assertNotInvalidated(getClass(), policy);
+			policy.keepLast = keepLast;
+			return this;
+		}
+
+		public Builder withKeepAllDays(Integer days) {
+			assertNotInvalidated(getClass(), policy);
+			policy.keepAllDays = days;
+			return this;
+		}
+
+		public Builder withKeepDailyDays(Integer days) {
+			assertNotInvalidated(getClass(), policy);
+			policy.keepDailyDays = days;
+			return this;
+		}
+
+		public ConfigRetentionPolicy build() {
+			try {
+				assertNotInvalidated(getClass(), policy);
+				return policy;
+			} finally {
+				this.policy = null;
+			}
+		}
+	}
+
+	@Valid
+	@JsonbProperty("element_role")
+	private ElementRoleName elementRole;
+
+	@Valid
+	@JsonbProperty("config_name")
+	private ElementConfigName configName;
+
+	@Min(value=0, message="{keep_last.invalid}")
+	@JsonbProperty("keep_last")
+	private int keepLast;
+
+	@Min(value=0, message="{keep_all_days.invalid}")
+	@JsonbProperty("keep_all_days")
+	private Integer keepAllDays;
+
+	@Min(value=0, message="{keep_daily_days.invalid}")
+	@JsonbProperty("keep_daily_days")
+	private Integer keepDailyDays;
+
+	/**
+	 * Returns the element role this policy applies to.
+	 * @return the element role or <code>null</code> if this policy applies to all elements.
+	 */
+	public ElementRoleName getElementRole() {
+		return elementRole;
+	}
+
+	/**
+	 * Returns the configuration name this policy applies to.
+	 * @return the configuration name or <code>null</code> if this policy applies to all configurations.
+	 */
+	public ElementConfigName getConfigName() {
+		return configName;
+	}
+
+	/**
+	 * Returns the number of latest revisions to be retained.
+	 * @return the number of latest revisions to be retained.
+	 */
+	public int getKeepLast() {
+		return keepLast;
+	}
+
+	/**
+	 * Returns the number of days for which all revisions are retained.
+	 * @return the number of days or <code>null</code> if not specified.
+	 */
+	public Integer getKeepAllDays() {
+		return keepAllDays;
+	}
+
+	/**
+	 * Returns the number of days for which the latest revision of each day is retained.
+	 * @return the number of days or <code>null</code> if not specified.
+	 */
+	public Integer getKeepDailyDays() {
+		return keepDailyDays;
+	}
+
+}
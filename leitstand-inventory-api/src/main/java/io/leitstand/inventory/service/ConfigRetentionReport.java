@@ -0,0 +1,172 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+import static io.leitstand.commons.model.BuilderUtil.assertNotInvalidated;
+
+import java.util.Date;
+
+import javax.json.bind.annotation.JsonbProperty;
+
+import io.leitstand.commons.model.ValueObject;
+
+/**
+ * Summary of a configuration retention run.
+ * @see ConfigRetentionPolicy
+ */
+public class ConfigRetentionReport extends ValueObject {
+
+	public static Builder newConfigRetentionReport() {
+		return new Builder();
+	}
+
+	public static class Builder {
+
+		private ConfigRetentionReport report = new ConfigRetentionReport();
+
+		public Builder withNode(String node) {
+			assertNotInvalidated(getClass(), report);
+			report.node = node;
+			return this;
+		}
+
+		public Builder withDateStarted(Date dateStarted) {
+			assertNotInvalidated(getClass(), report);
+			report.dateStarted = new Date(dateStarted.getTime());
+			return this;
+		}
+
+		public Builder withDuration(long duration) {
+			assertNotInvalidated(getClass(), report);
+			report.duration = duration;
+			return this;
+		}
+
+		public Builder withRemovedRevisions(int removedRevisions) {
+			assertNotInvalidated(getClass(), report);
+			report.removedRevisions = removedRevisions;
+			return this;
+		}
+
+		public Builder withMaterializedRevisions(int materializedRevisions) {
+			assertNotInvalidated(getClass(), report);
+			report.materializedRevisions = materializedRevisions;
+			return this;
+		}
+
+		public Builder withRemovedBlobs(int removedBlobs) {
+			assertNotInvalidated(getClass(), report);
+			report.removedBlobs = removedBlobs;
+			return this;
+		}
+
+		public Builder withBatches(int batches) {
+			assertNotInvalidated(getClass(), report);
+			report.batches = batches;
+			return this;
+		}
+
+		public Builder withFailed(boolean failed) {
+			assertNotInvalidated(getClass(), report);
+			report.failed = failed;
+			return this;
+		}
+
+		public ConfigRetentionReport build() {
+			try {
+				assertNotInvalidated(getClass(), report);
+				return report;
+			} finally {
+				this.report = null;
+			}
+		}
+	}
+
+	private String node;
+
+	@JsonbProperty("date_started")
+	private Date dateStarted;
+
+	@JsonbProperty("duration_ms")
+	private long duration;
+
+	@JsonbProperty("removed_revisions")
+	private int removedRevisions;
+
+	@JsonbProperty("materialized_revisions")
+	private int materializedRevisions;
+
+	@JsonbProperty("removed_blobs")
+	private int removedBlobs;
+
+	private int batches;
+
+	private boolean failed;
+
+	/**
+	 * Returns the ID of the application node that has executed the retention run.
+	 * @return the ID of the application node.
+	 */
+	public String getNode() {
+		return node;
+	}
+
+	public Date getDateStarted() {
+		if(dateStarted == null) {
+			return null;
+		}
+		return new Date(dateStarted.getTime());
+	}
+
+	/**
+	 * Returns the duration of the retention run in milliseconds.
+	 * @return the duration in milliseconds.
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * Returns the number of removed configuration revisions.
+	 * @return the number of removed configuration revisions.
+	 */
+	public int getRemovedRevisions() {
+		return removedRevisions;
+	}
+
+	/**
+	 * Returns the number of delta revisions that were stored as snapshot,
+	 * because their base revision has been removed.
+	 * @return the number of materialized revisions.
+	 */
+	public int getMaterializedRevisions() {
+		return materializedRevisions;
+	}
+
+	/**
+	 * Returns the number of removed configuration blobs.
+	 * @return the number of removed configuration blobs.
+	 */
+	public int getRemovedBlobs() {
+		return removedBlobs;
+	}
+
+	/**
+	 * Returns the number of executed delete batches.
+	 * @return the number of executed delete batches.
+	 */
+	public int getBatches() {
+		return batches;
+	}
+
+	/**
+	 * Returns whether the run was aborted due to an error.
+	 * Changes made by completed batches are retained.
+	 * @return <code>true</code> if the run failed, <code>false</code> otherwise.
+	 */
+	public boolean isFailed() {
+		return failed;
+	}
+
+}
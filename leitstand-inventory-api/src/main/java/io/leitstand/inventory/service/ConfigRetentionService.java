@@ -0,0 +1,50 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+import java.util.List;
+
+/**
+ * A stateless and transactional service to manage the retention policies of element configurations.
+ * @see ConfigRetentionPolicy
+ */
+public interface ConfigRetentionService {
+
+	/**
+	 * Returns all configuration retention policies.
+	 * @return all configuration retention policies.
+	 */
+	List<ConfigRetentionPolicy> getRetentionPolicies();
+
+	/**
+	 * Returns the retention policy for the specified element role and configuration name.
+	 * @param elementRole the element role or <code>null</code> for a policy that applies to all element roles.
+	 * @param configName the configuration name or <code>null</code> for a policy that applies to all configurations.
+	 * @return the retention policy
+	 */
+	ConfigRetentionPolicy getRetentionPolicy(ElementRoleName elementRole,
+											 ElementConfigName configName);
+
+	/**
+	 * Stores a retention policy. An existing policy for the same element role and configuration name is replaced.
+	 * @param policy the retention policy
+	 * @return <code>true</code> if a new policy was created, <code>false</code> if an existing policy was updated.
+	 */
+	boolean storeRetentionPolicy(ConfigRetentionPolicy policy);
+
+	/**
+	 * Removes the retention policy for the specified element role and configuration name.
+	 * @param elementRole the element role or <code>null</code> for a policy that applies to all element roles.
+	 * @param configName the configuration name or <code>null</code> for a policy that applies to all configurations.
+	 */
+	void removeRetentionPolicy(ElementRoleName elementRole,
+							   ElementConfigName configName);
+
+	/**
+	 * Returns the report of the last retention run.
+	 * @return the report of the last retention run or <code>null</code> if no run has been completed yet.
+	 */
+	ConfigRetentionReport getLastRetentionReport();
+
+}
@@ -0,0 +1,121 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+import static io.leitstand.commons.model.BuilderUtil.assertNotInvalidated;
+
+/**
+ * The line-based difference between two revisions of an element configuration.
+ * <p>
+ * The difference is conveyed in unified diff format with three lines of context,
+ * without the file header lines.
+ * @see ElementConfigService#getElementConfigDiff(ElementId, ElementConfigId, ElementConfigId)
+ */
+public class ElementConfigDiff extends BaseElementEnvelope {
+
+	public static Builder newElementConfigDiff() {
+		return new Builder();
+	}
+	
+	public static class Builder extends BaseElementEnvelopeBuilder<ElementConfigDiff, Builder>{
+		
+		protected Builder() {
+			super(new ElementConfigDiff());
+		}
+		
+		public Builder withConfigName(ElementConfigName configName) {
+			assertNotInvalidated(getClass(), object);
+			object.configName = configName;
+			return this;
+		}
+		
+		public Builder withBaseConfigId(ElementConfigId baseConfigId) {
+			assertNotInvalidated(getClass(), object);
+			object.baseConfigId = baseConfigId;
+			return this;
+		}
+
+		public Builder withBaseContentHash(String baseContentHash) {
+			assertNotInvalidated(getClass(), object);
+			object.baseContentHash = baseContentHash;
+			return this;
+		}
+
+		public Builder withTargetConfigId(ElementConfigId targetConfigId) {
+			assertNotInvalidated(getClass(), object);
+			object.targetConfigId = targetConfigId;
+			return this;
+		}
+		
+		public Builder withTargetContentHash(String targetContentHash) {
+			assertNotInvalidated(getClass(), object);
+			object.targetContentHash = targetContentHash;
+			return this;
+		}
+		
+		public Builder withLinesAdded(int linesAdded) {
+			assertNotInvalidated(getClass(), object);
+			object.linesAdded = linesAdded;
+			return this;
+		}
+		
+		public Builder withLinesRemoved(int linesRemoved) {
+			assertNotInvalidated(getClass(), object);
+			object.linesRemoved = linesRemoved;
+			return this;
+		}
+		
+		public Builder withDiff(String diff) {
+			assertNotInvalidated(getClass(), object);
+			object.diff = diff;
+			return this;
+		}
+	}
+	
+	private ElementConfigName configName;
+	private ElementConfigId baseConfigId;
+	private String baseContentHash;
+	private ElementConfigId targetConfigId;
+	private String targetContentHash;
+	private int linesAdded;
+	private int linesRemoved;
+	private String diff;
+	
+	public ElementConfigName getConfigName() {
+		return configName;
+	}
+	
+	public ElementConfigId getBaseConfigId() {
+		return baseConfigId;
+	}
+	
+	public String getBaseContentHash() {
+		return baseContentHash;
+	}
+	
+	public ElementConfigId getTargetConfigId() {
+		return targetConfigId;
+	}
+	
+	public String getTargetContentHash() {
+		return targetContentHash;
+	}
+	
+	public int getLinesAdded() {
+		return linesAdded;
+	}
+	
+	public int getLinesRemoved() {
+		return linesRemoved;
+	}
+	
+	/**
+	 * Returns the hunks of the unified diff.
+	 * @return the unified diff hunks or an empty string if both revisions are equal.
+	 */
+	public String getDiff() {
+		return diff;
+	}
+	
+}
@@ -0,0 +1,79 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+import static io.leitstand.commons.model.BuilderUtil.assertNotInvalidated;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An element configuration matching a configuration search query.
+ * @see ElementConfigSearchService
+ */
+public class ElementConfigMatch extends BaseElementEnvelope {
+
+	public static Builder newElementConfigMatch() {
+		return new Builder();
+	}
+	
+	public static class Builder extends BaseElementEnvelopeBuilder<ElementConfigMatch, Builder>{
+		
+		protected Builder() {
+			super(new ElementConfigMatch());
+		}
+		
+		public Builder withConfigId(ElementConfigId configId) {
+			assertNotInvalidated(getClass(), object);
+			object.configId = configId;
+			return this;
+		}
+
+		public Builder withConfigName(ElementConfigName configName) {
+			assertNotInvalidated(getClass(), object);
+			object.configName = configName;
+			return this;
+		}
+
+		public Builder withConfigState(ConfigurationState configState) {
+			assertNotInvalidated(getClass(), object);
+			object.configState = configState;
+			return this;
+		}
+
+		public Builder withLines(List<Integer> lines) {
+			assertNotInvalidated(getClass(), object);
+			object.lines = new ArrayList<>(lines);
+			return this;
+		}
+		
+	}
+	
+	private ElementConfigId configId;
+	private ElementConfigName configName;
+	private ConfigurationState configState;
+	private List<Integer> lines;
+	
+	public ElementConfigId getConfigId() {
+		return configId;
+	}
+	
+	public ElementConfigName getConfigName() {
+		return configName;
+	}
+	
+	public ConfigurationState getConfigState() {
+		return configState;
+	}
+	
+	/**
+	 * Returns the numbers of the matching lines, starting with 1 for the first line of the configuration.
+	 * @return the ascending numbers of the matching lines.
+	 */
+	public List<Integer> getLines() {
+		return unmodifiableList(lines);
+	}
+	
+}
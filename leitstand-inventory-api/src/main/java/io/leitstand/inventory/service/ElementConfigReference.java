@@ -62,6 +62,18 @@ public class ElementConfigReference extends CompositeValue {
 			return this;
 		}
 		
+		public Builder withContentHash(String contentHash) {
+			assertNotInvalidated(getClass(), ref);
+			ref.contentHash = contentHash;
+			return this;
+		}
+		
+		public Builder withContentLength(Long contentLength) {
+			assertNotInvalidated(getClass(), ref);
+			ref.contentLength = contentLength;
+			return this;
+		}
+		
 		public ElementConfigReference build() {
 			try {
 				assertNotInvalidated(getClass(), ref);
@@ -80,6 +92,8 @@ public class ElementConfigReference extends CompositeValue {
 	private String comment;
 	private Date dateModified;
 	private String contentType;
+	private String contentHash;
+	private Long contentLength;
 	
 	public ElementConfigId getConfigId() {
 		return configId;
@@ -111,4 +125,17 @@ public class ElementConfigReference extends CompositeValue {
 	public String getContentType() {
 		return contentType;
 	}
+
+	public String getContentHash() {
+		return contentHash;
+	}
+	
+	/**
+	 * Returns the length of the UTF-8 encoded configuration in bytes,
+	 * if the length is known without restoring the configuration.
+	 * @return the content length or <code>null</code> if the length is unknown.
+	 */
+	public Long getContentLength() {
+		return contentLength;
+	}
 }
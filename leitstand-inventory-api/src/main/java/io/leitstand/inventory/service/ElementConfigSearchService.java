@@ -0,0 +1,33 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+import java.util.List;
+
+/**
+ * A stateless and transactional service to search the element configurations of all elements.
+ * <p>
+ * The search is backed by an inverted index over all active and candidate configurations.
+ * A term is a case-insensitive sequence of letters, digits and the characters <code>_.:/-</code>,
+ * e.g. an IP address, an interface name or an access list name.
+ */
+public interface ElementConfigSearchService {
+
+	/**
+	 * Searches all configurations containing all terms of the given query.
+	 * The matching configurations are ordered by element name and configuration name.
+	 * The returned line numbers refer to the lines containing all terms 
+	 * or to the lines containing any term, if no line contains all terms.
+	 * @param query the search query
+	 * @param configState the configuration state or <code>null</code> to search active and candidate configurations.
+	 * @param offset the number of matches to be skipped
+	 * @param limit the maximum number of returned matches
+	 * @return the matching configurations or an empty list if no configuration matches the query.
+	 */
+	List<ElementConfigMatch> searchElementConfigs(String query, 
+												  ConfigurationState configState, 
+												  int offset, 
+												  int limit);
+	
+}
@@ -3,6 +3,10 @@
  */
 package io.leitstand.inventory.service;
 
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.function.Consumer;
+
 import javax.ws.rs.core.MediaType;
 
 /**
@@ -32,6 +36,50 @@ public interface ElementConfigService {
 	ElementConfig getActiveElementConfig(ElementName elementName, 
 								   		 ElementConfigName configName);
 
+	/**
+	 * Passes the <em>ACTIVE</em> configuration with the given name of every element of the specified group to the given consumer.
+	 * The configurations are read by a single query and passed in order of the element name.
+	 * Elements without an active configuration of the given name are skipped.
+	 * The configuration content is passed as string exactly as stored, i.e. JSON configurations are not parsed.
+	 * @param groupId the element group ID
+	 * @param configName the name of the configuration
+	 * @param consumer the consumer of the configurations
+	 * @see ConfigurationState#ACTIVE
+	 */
+	void processActiveElementConfigs(ElementGroupId groupId,
+									 ElementConfigName configName,
+									 Consumer<ElementConfig> consumer);
+
+	/**
+	 * Passes the <em>ACTIVE</em> configuration with the given name of every element of the specified group to the given consumer.
+	 * The configurations are read by a single query and passed in order of the element name.
+	 * Elements without an active configuration of the given name are skipped.
+	 * The configuration content is passed as string exactly as stored, i.e. JSON configurations are not parsed.
+	 * @param groupType the element group type
+	 * @param groupName the element group name
+	 * @param configName the name of the configuration
+	 * @param consumer the consumer of the configurations
+	 * @see ConfigurationState#ACTIVE
+	 */
+	void processActiveElementConfigs(ElementGroupType groupType,
+									 ElementGroupName groupName,
+									 ElementConfigName configName,
+									 Consumer<ElementConfig> consumer);
+
+	/**
+	 * Passes the <em>ACTIVE</em> configuration with the given name of every element of the specified role to the given consumer.
+	 * The configurations are read by a single query and passed in order of the element name.
+	 * Elements without an active configuration of the given name are skipped.
+	 * The configuration content is passed as string exactly as stored, i.e. JSON configurations are not parsed.
+	 * @param roleName the element role name
+	 * @param configName the name of the configuration
+	 * @param consumer the consumer of the configurations
+	 * @see ConfigurationState#ACTIVE
+	 */
+	void processActiveElementConfigs(ElementRoleName roleName,
+									 ElementConfigName configName,
+									 Consumer<ElementConfig> consumer);
+
 	
 	/**
 	 * Returns the element configuration for the specified element.
@@ -51,6 +99,28 @@ public interface ElementConfigService {
 								   ElementConfigId configId);
 
 	
+	/**
+	 * Returns the line-based difference between two revisions of an element configuration.
+	 * @param elementId the element ID
+	 * @param baseConfigId the ID of the base revision or <code>null</code> to compare against the active revision of the same configuration
+	 * @param targetConfigId the ID of the target revision
+	 * @return the difference between the base and the target revision
+	 */
+	ElementConfigDiff getElementConfigDiff(ElementId elementId,
+										   ElementConfigId baseConfigId,
+										   ElementConfigId targetConfigId);
+
+	/**
+	 * Returns the line-based difference between two revisions of an element configuration.
+	 * @param elementName the element name
+	 * @param baseConfigId the ID of the base revision or <code>null</code> to compare against the active revision of the same configuration
+	 * @param targetConfigId the ID of the target revision
+	 * @return the difference between the base and the target revision
+	 */
+	ElementConfigDiff getElementConfigDiff(ElementName elementName,
+										   ElementConfigId baseConfigId,
+										   ElementConfigId targetConfigId);
+	
 	/**
 	 * Stores an element configuration for the specified element.
 	 * @param element the element ID
@@ -92,6 +162,102 @@ public interface ElementConfigService {
 							   					String config,
 							   					String comment);
 	
+	/**
+	 * Stores an element configuration read from a stream for the specified element.
+	 * The configuration is decoded with the charset of the content type and UTF-8 is assumed if no charset is specified.
+	 * @param elementId the element ID
+	 * @param configName the name of the configuration
+	 * @param contentType the configuration content type.
+	 * @param configState the configuration state
+	 * @param config the element configuration stream
+	 * @param comment a brief description of the configuration change.
+	 * @return storage result with a pointer to the config and a creation flag 
+	 * 		   which is set to <code>true</code> when a new configuration was created and 
+	 * 		   <code>false</code> if an existing configuration was updated 
+	 */
+	StoreElementConfigResult storeElementConfig(ElementId elementId, 
+							   					ElementConfigName configName, 
+							   					MediaType contentType,
+							   					ConfigurationState configState,
+							   					InputStream config,
+							   					String comment);
+
+	/**
+	 * Stores an element configuration read from a stream for the specified element.
+	 * The configuration is decoded with the charset of the content type and UTF-8 is assumed if no charset is specified.
+	 * @param elementName the element name
+	 * @param configName the name of the configuration
+	 * @param contentType the configuration content type.
+	 * @param configState the configuration state
+	 * @param config the element configuration stream
+	 * @param comment a brief description of the configuration change.
+	 * @return storage result with a pointer to the config and a creation flag 
+	 * 		   which is set to <code>true</code> when a new configuration was created and 
+	 * 		   <code>false</code> if an existing configuration was updated 
+	 */
+	StoreElementConfigResult storeElementConfig(ElementName elementName, 
+							   					ElementConfigName configName, 
+							   					MediaType contentType,
+							   					ConfigurationState configState,
+							   					InputStream config,
+							   					String comment);
+	
+	/**
+	 * Returns the metadata of an element configuration without the configuration itself.
+	 * @param elementId the element ID
+	 * @param configId the element configuration ID
+	 * @return the element configuration metadata
+	 */
+	ElementConfigReference getElementConfigReference(ElementId elementId,
+													 ElementConfigId configId);
+
+	/**
+	 * Returns the metadata of an element configuration without the configuration itself.
+	 * @param elementName the element name
+	 * @param configId the element configuration ID
+	 * @return the element configuration metadata
+	 */
+	ElementConfigReference getElementConfigReference(ElementName elementName,
+													 ElementConfigId configId);
+	
+	/**
+	 * Returns the version of the configurations of the specified element.
+	 * The version changes whenever the element or any of its configurations is modified.
+	 * @param elementId the element ID
+	 * @return the version of the element configurations
+	 */
+	String getElementConfigsVersion(ElementId elementId);
+
+	/**
+	 * Returns the version of the configurations of the specified element.
+	 * The version changes whenever the element or any of its configurations is modified.
+	 * @param elementName the element name
+	 * @return the version of the element configurations
+	 */
+	String getElementConfigsVersion(ElementName elementName);
+	
+	/**
+	 * Writes an element configuration to the specified writer.
+	 * The configuration is streamed from the database if possible.
+	 * @param elementId the element ID
+	 * @param configId the element configuration ID
+	 * @param writer the writer to write the configuration to.
+	 */
+	void writeElementConfig(ElementId elementId,
+							ElementConfigId configId,
+							Writer writer);
+
+	/**
+	 * Writes an element configuration to the specified writer.
+	 * The configuration is streamed from the database if possible.
+	 * @param elementName the element name
+	 * @param configId the element configuration ID
+	 * @param writer the writer to write the configuration to.
+	 */
+	void writeElementConfig(ElementName elementName,
+							ElementConfigId configId,
+							Writer writer);
+	
 	/**
 	 * Removes an element configuration.
 	 * An <em>active</em> configuration cannot be removed.
@@ -0,0 +1,19 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+/** 
+ * An enumeration of the supported element search filter modes.
+ * Name and alias filters are case-insensitive.
+ * @see ElementService#searchElements(String, ElementFilterMode, String, int)
+ */
+public enum ElementFilterMode {
+	/** Matches all elements whose name or alias starts with the filter string.*/
+	PREFIX,
+	/** Matches all elements whose name or alias contains the filter string.*/
+	SUBSTRING,
+	/** Matches all elements that are tagged with the filter string.*/
+	TAG;
+	
+}
@@ -114,6 +114,8 @@ public interface ElementPhysicalInterfaceService {
 
 	/**
 	 * Updates all physical interfaces of the specified element in one go.
+	 * Physical interfaces missing in the given list are removed, unless logical interfaces are assigned to them.
+	 * Events are only fired for added, modified and removed physical interfaces.
 	 * @param elementId - the element ID
 	 * @param ifcs - the list of physical interfaces
 	 * @throws EntityNotFoundException if the specified element does not exist
@@ -122,7 +124,9 @@ public interface ElementPhysicalInterfaceService {
 	
 	/**
 	 * Updates all physical interfaces of the specified element in one go.
-	 * @param elementId - the element ID
+	 * Physical interfaces missing in the given list are removed, unless logical interfaces are assigned to them.
+	 * Events are only fired for added, modified and removed physical interfaces.
+	 * @param elementName - the element name
 	 * @param ifcs - the list of physical interfaces
 	 * @throws EntityNotFoundException if the specified element does not exist
 	 */
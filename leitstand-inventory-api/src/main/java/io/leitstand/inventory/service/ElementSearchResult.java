@@ -0,0 +1,66 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+import static io.leitstand.commons.model.BuilderUtil.assertNotInvalidated;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.List;
+
+/**
+ * A page of an element search result.
+ * <p>
+ * The elements are ordered by group name and element name. 
+ * The <code>next</code> cursor points to the next page and is <code>null</code> if this page is the last page.
+ */
+public class ElementSearchResult {
+
+	public static Builder newElementSearchResult() {
+		return new Builder();
+	}
+	
+	public static class Builder {
+		
+		private ElementSearchResult result = new ElementSearchResult();
+		
+		public Builder withElements(List<ElementSettings> elements) {
+			assertNotInvalidated(getClass(), result);
+			result.elements = unmodifiableList(elements);
+			return this;
+		}
+		
+		public Builder withNext(String next) {
+			assertNotInvalidated(getClass(), result);
+			result.next = next;
+			return this;
+		}
+		
+		public ElementSearchResult build() {
+			try {
+				assertNotInvalidated(getClass(), result);
+				return result;
+			} finally {
+				this.result = null;
+			}
+		}
+	}
+	
+	private List<ElementSettings> elements = emptyList();
+	
+	private String next;
+	
+	public List<ElementSettings> getElements() {
+		return elements;
+	}
+	
+	/**
+	 * Returns the cursor to fetch the next page or <code>null</code> if no more elements exist.
+	 * @return the cursor to fetch the next page.
+	 */
+	public String getNext() {
+		return next;
+	}
+	
+}
@@ -4,6 +4,7 @@
 package io.leitstand.inventory.service;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * A stateless and transactional service to query for elements.
@@ -25,6 +26,28 @@ public interface ElementService {
 	 */
 	List<ElementSettings> findElements(String filter, int offset, int items);
 	
+	/**
+	 * Searches elements by element name, element alias or element tag and returns a page of the matching elements 
+	 * ordered by group name and element name.
+	 * Unlike {@link #findElements(String, int, int)}, the search is answered from an index and does not scan all elements.
+	 * <p>
+	 * The index is maintained per application node. 
+	 * Modifications made on the same node are searchable once the modifying transaction has completed.
+	 * Elements added, renamed, moved or retagged on another node are searchable after at most five minutes, 
+	 * when the index is rebuilt. 
+	 * Elements removed on another node are never returned, but can make a page contain fewer elements than the limit.
+	 * </p>
+	 * @param filter the filter string or an empty string to match all elements
+	 * @param mode the filter mode
+	 * @param cursor the <code>next</code> cursor of the previous page or <code>null</code> to fetch the first page
+	 * @param limit the maximum number of returned elements
+	 * @return the matching elements
+	 */
+	ElementSearchResult searchElements(String filter, 
+									   ElementFilterMode mode, 
+									   String cursor, 
+									   int limit);
+	
 	void removeElement(ElementId elementId);
 
 	void removeElement(ElementName elementName);
@@ -32,6 +55,15 @@ public interface ElementService {
 	void updateElementOperationalState(ElementId id, OperationalState state);
 	
 	void updateElementOperationalState(ElementName name, OperationalState state);
+	
+	/**
+	 * Updates the operational states of multiple elements at once.
+	 * Only elements whose operational state has changed are updated and
+	 * all changes are announced by a single event.
+	 * Unknown elements are skipped.
+	 * @param states the operational states by element ID, element name or element alias
+	 */
+	void updateElementOperationalStates(Map<String,OperationalState> states);
 
 
 	void forceRemoveElement(ElementId elementId);
@@ -3,6 +3,8 @@
  */
 package io.leitstand.inventory.service;
 
+import java.util.function.Consumer;
+
 /**
  * A service to export image settings.
  */
@@ -25,9 +27,48 @@ public interface ImageExportService {
 							  Version version);
 	
 	/**
-	 * Imports an image export.
+	 * Passes all images matching the specified criteria to the given consumer, ordered by image name and image ID.
+	 * The images are read page by page, such that the matching images are never held in memory at once.
+	 * @param filter - an optional filter expression for element name, element type, vendor name and model name 
+	 * @param role - an optional filter for images of a certain element role.
+	 * @param type - an optional image type
+	 * @param state - an optional image state
+	 * @param version - an optional image version
+	 * @param consumer - the consumer of the matching images
+	 */
+	void processImages(String filter,
+					   ElementRoleName role,
+					   ImageType type,
+					   ImageState state,
+					   Version version,
+					   Consumer<ImageInfo> consumer);
+	
+	/**
+	 * Imports an image export and waits until all images have been processed.
+	 * The export is imported in chunks, whereby each chunk is imported in its own transaction.
+	 * @param export - the image export to be imported
+	 * @return the completed import job, including the chunks that could not be imported
+	 * @see #startImageImport(ImagesExport)
+	 */
+	ImageImportJob importImages(ImagesExport export);
+	
+	/**
+	 * Starts an asynchronous import of an image export.
+	 * The export is imported in chunks, whereby each chunk is imported in its own transaction.
+	 * Chunks are imported in parallel.
 	 * @param export - the image export to be imported
+	 * @return the started import job
+	 */
+	ImageImportJob startImageImport(ImagesExport export);
+	
+	/**
+	 * Returns the progress of an import job.
+	 * Import jobs are kept in memory by the node that runs the import.
+	 * Hence, the progress must be polled from the node that has started the import.
+	 * @param jobId - the import job ID
+	 * @return the import job
+	 * @throws EntityNotFoundException if the import job does not exist, has already been discarded or was started by another node.
 	 */
-	void importImages(ImagesExport export);
+	ImageImportJob getImageImportJob(ImageImportJobId jobId);
 	
 }
@@ -0,0 +1,22 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+/** 
+ * An enumeration of the supported image search filter modes.
+ * @see ImageService#searchImages(String, ImageFilterMode, ElementRoleName, ImageType, ImageState, Version, String, int)
+ */
+public enum ImageFilterMode {
+	/** Matches all images whose name starts with the filter string.*/
+	PREFIX,
+	/** Matches all images whose name is equal to the filter string.*/
+	EXACT,
+	/** 
+	 * Matches all images whose platform vendor, platform model, element role, element name or image name 
+	 * matches the filter regular expression. 
+	 * Regular expressions cannot be answered from an index and shall only be used when a prefix search is insufficient.
+	 */
+	REGEX;
+	
+}
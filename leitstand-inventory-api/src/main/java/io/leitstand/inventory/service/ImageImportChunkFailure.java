@@ -0,0 +1,91 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+import static io.leitstand.commons.model.BuilderUtil.assertNotInvalidated;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.json.bind.annotation.JsonbProperty;
+
+import io.leitstand.commons.model.ValueObject;
+
+/**
+ * A chunk of an image import job that could not be imported.
+ * @see ImageImportJob
+ */
+public class ImageImportChunkFailure extends ValueObject {
+
+	public static Builder newImageImportChunkFailure() {
+		return new Builder();
+	}
+	
+	public static class Builder {
+		
+		private ImageImportChunkFailure failure = new ImageImportChunkFailure();
+		
+		public Builder withChunk(int chunk) {
+			assertNotInvalidated(getClass(), failure);
+			failure.chunk = chunk;
+			return this;
+		}
+		
+		public Builder withImages(List<ImageId> images) {
+			assertNotInvalidated(getClass(), failure);
+			failure.images = unmodifiableList(new ArrayList<>(images));
+			return this;
+		}
+		
+		public Builder withMessage(String message) {
+			assertNotInvalidated(getClass(), failure);
+			failure.message = message;
+			return this;
+		}
+		
+		public ImageImportChunkFailure build() {
+			try {
+				assertNotInvalidated(getClass(), failure);
+				return failure;
+			} finally {
+				this.failure = null;
+			}
+		}
+	}
+	
+	private int chunk;
+	
+	@JsonbProperty("image_ids")
+	private List<ImageId> images = emptyList();
+	
+	private String message;
+	
+	/**
+	 * Returns the zero-based index of the failed chunk.
+	 * @return the index of the failed chunk.
+	 */
+	public int getChunk() {
+		return chunk;
+	}
+	
+	/**
+	 * Returns the IDs of the images of the failed chunk. 
+	 * None of these images has been imported.
+	 * @return the IDs of the images of the failed chunk.
+	 */
+	public List<ImageId> getImages() {
+		return images;
+	}
+	
+	/**
+	 * Returns the error message of the failed chunk.
+	 * @return the error message.
+	 */
+	public String getMessage() {
+		return message;
+	}
+	
+}
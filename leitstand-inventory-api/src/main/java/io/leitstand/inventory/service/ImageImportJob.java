@@ -0,0 +1,207 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+import static io.leitstand.commons.model.BuilderUtil.assertNotInvalidated;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.json.bind.annotation.JsonbProperty;
+
+import io.leitstand.commons.model.ValueObject;
+
+/**
+ * The progress of an image import job.
+ * <p>
+ * An import job splits an {@link ImagesExport} into chunks of images. 
+ * Every chunk is imported in its own transaction, such that a failed chunk does not affect the other chunks.
+ * </p>
+ * @see ImageExportService#startImageImport(ImagesExport)
+ */
+public class ImageImportJob extends ValueObject {
+
+	public static Builder newImageImportJob() {
+		return new Builder();
+	}
+	
+	public static class Builder {
+		
+		private ImageImportJob job = new ImageImportJob();
+		
+		public Builder withJobId(ImageImportJobId jobId) {
+			assertNotInvalidated(getClass(), job);
+			job.jobId = jobId;
+			return this;
+		}
+		
+		public Builder withJobState(ImageImportJobState state) {
+			assertNotInvalidated(getClass(), job);
+			job.jobState = state;
+			return this;
+		}
+		
+		public Builder withDateStarted(Date dateStarted) {
+			assertNotInvalidated(getClass(), job);
+			job.dateStarted = new Date(dateStarted.getTime());
+			return this;
+		}
+		
+		public Builder withDateCompleted(Date dateCompleted) {
+			assertNotInvalidated(getClass(), job);
+			job.dateCompleted = dateCompleted != null ? new Date(dateCompleted.getTime()) : null;
+			return this;
+		}
+		
+		public Builder withChunkSize(int chunkSize) {
+			assertNotInvalidated(getClass(), job);
+			job.chunkSize = chunkSize;
+			return this;
+		}
+		
+		public Builder withChunks(int chunks) {
+			assertNotInvalidated(getClass(), job);
+			job.chunks = chunks;
+			return this;
+		}
+		
+		public Builder withCompletedChunks(int completedChunks) {
+			assertNotInvalidated(getClass(), job);
+			job.completedChunks = completedChunks;
+			return this;
+		}
+		
+		public Builder withImages(int images) {
+			assertNotInvalidated(getClass(), job);
+			job.images = images;
+			return this;
+		}
+		
+		public Builder withImportedImages(int importedImages) {
+			assertNotInvalidated(getClass(), job);
+			job.importedImages = importedImages;
+			return this;
+		}
+		
+		public Builder withFailures(List<ImageImportChunkFailure> failures) {
+			assertNotInvalidated(getClass(), job);
+			job.failures = unmodifiableList(new ArrayList<>(failures));
+			return this;
+		}
+		
+		public ImageImportJob build() {
+			try {
+				assertNotInvalidated(getClass(), job);
+				return job;
+			} finally {
+				this.job = null;
+			}
+		}
+	}
+	
+	@JsonbProperty("job_id")
+	private ImageImportJobId jobId;
+	
+	@JsonbProperty("job_state")
+	private ImageImportJobState jobState;
+	
+	@JsonbProperty("date_started")
+	private Date dateStarted;
+	
+	@JsonbProperty("date_completed")
+	private Date dateCompleted;
+	
+	@JsonbProperty("chunk_size")
+	private int chunkSize;
+	
+	private int chunks;
+	
+	@JsonbProperty("completed_chunks")
+	private int completedChunks;
+	
+	private int images;
+	
+	@JsonbProperty("imported_images")
+	private int importedImages;
+	
+	private List<ImageImportChunkFailure> failures = emptyList();
+	
+	public ImageImportJobId getJobId() {
+		return jobId;
+	}
+	
+	public ImageImportJobState getJobState() {
+		return jobState;
+	}
+	
+	public Date getDateStarted() {
+		if(dateStarted == null) {
+			return null;
+		}
+		return new Date(dateStarted.getTime());
+	}
+	
+	/**
+	 * Returns when the import job has been completed.
+	 * @return the completion date or <code>null</code> if the job is still running.
+	 */
+	public Date getDateCompleted() {
+		if(dateCompleted == null) {
+			return null;
+		}
+		return new Date(dateCompleted.getTime());
+	}
+	
+	/**
+	 * Returns the maximum number of images of a chunk.
+	 * @return the maximum number of images of a chunk.
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+	
+	/**
+	 * Returns the total number of chunks.
+	 * @return the total number of chunks.
+	 */
+	public int getChunks() {
+		return chunks;
+	}
+	
+	/**
+	 * Returns the number of processed chunks, including the failed chunks.
+	 * @return the number of processed chunks.
+	 */
+	public int getCompletedChunks() {
+		return completedChunks;
+	}
+	
+	/**
+	 * Returns the total number of images to be imported.
+	 * @return the total number of images.
+	 */
+	public int getImages() {
+		return images;
+	}
+	
+	/**
+	 * Returns the number of successfully imported images.
+	 * @return the number of imported images.
+	 */
+	public int getImportedImages() {
+		return importedImages;
+	}
+	
+	/**
+	 * Returns the failed chunks ordered by their chunk index.
+	 * @return the failed chunks or an empty list if no chunk failed.
+	 */
+	public List<ImageImportChunkFailure> getFailures() {
+		return failures;
+	}
+	
+}
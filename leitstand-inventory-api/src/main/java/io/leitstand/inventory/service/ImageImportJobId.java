@@ -0,0 +1,60 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+import java.util.UUID;
+
+import javax.json.bind.annotation.JsonbTypeAdapter;
+
+import io.leitstand.commons.model.Scalar;
+import io.leitstand.inventory.jsonb.ImageImportJobIdAdapter;
+
+/**
+ * A unique identifier of an image import job.
+ * <p>
+ * The image import job ID is compatible to the UUIDv4 format.
+ * </p>
+ * @see ImageImportJob
+ */
+@JsonbTypeAdapter(ImageImportJobIdAdapter.class)
+public class ImageImportJobId extends Scalar<String>{
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates an <code>ImageImportJobId</code> from the specified string.
+	 * @param id the import job ID
+	 * @return the <code>ImageImportJobId</code> or <code>null</code> if the specified string is <code>null</code> or empty.
+	 */
+	public static ImageImportJobId valueOf(String id) {
+		return fromString(id,ImageImportJobId::new);
+	}
+
+	/**
+	 * Returns a random import job ID.
+	 * @return a random import job ID.
+	 */
+	public static ImageImportJobId randomImageImportJobId() {
+		return new ImageImportJobId(UUID.randomUUID().toString());
+	}
+	
+	private String value;
+	
+	/**
+	 * Creates an <code>ImageImportJobId</code>.
+	 * @param jobId the import job ID.
+	 */
+	public ImageImportJobId(String jobId){
+		this.value = jobId;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getValue() {
+		return value;
+	}
+	
+}
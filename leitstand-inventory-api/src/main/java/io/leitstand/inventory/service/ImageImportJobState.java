@@ -0,0 +1,24 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+/**
+ * An enumeration of the states of an image import job.
+ * @see ImageImportJob
+ */
+public enum ImageImportJobState {
+
+	/** The import job is in progress.*/
+	RUNNING,
+	
+	/** All chunks of the import job have been imported.*/
+	COMPLETED,
+	
+	/** 
+	 * The import job has been completed, but at least one chunk could not be imported. 
+	 * All other chunks have been imported.
+	 */
+	FAILED
+	
+}
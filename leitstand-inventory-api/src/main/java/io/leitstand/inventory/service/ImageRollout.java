@@ -0,0 +1,153 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+import static io.leitstand.commons.model.BuilderUtil.assertNotInvalidated;
+
+import io.leitstand.commons.model.ValueObject;
+
+/**
+ * The number of elements of an element group that have installed an image.
+ * @see ImageRolloutMatrix
+ */
+public class ImageRollout extends ValueObject {
+
+	public static Builder newImageRollout() {
+		return new Builder();
+	}
+	
+	public static class Builder {
+		
+		private ImageRollout rollout = new ImageRollout();
+		
+		public Builder withImageId(ImageId imageId) {
+			assertNotInvalidated(getClass(), rollout);
+			rollout.imageId = imageId;
+			return this;
+		}
+		
+		public Builder withImageType(ImageType imageType) {
+			assertNotInvalidated(getClass(), rollout);
+			rollout.imageType = imageType;
+			return this;
+		}
+		
+		public Builder withImageState(ImageState imageState) {
+			assertNotInvalidated(getClass(), rollout);
+			rollout.imageState = imageState;
+			return this;
+		}
+		
+		public Builder withImageVersion(Version imageVersion) {
+			assertNotInvalidated(getClass(), rollout);
+			rollout.imageVersion = imageVersion;
+			return this;
+		}
+		
+		public Builder withElementRole(ElementRoleName elementRole) {
+			assertNotInvalidated(getClass(), rollout);
+			rollout.elementRole = elementRole;
+			return this;
+		}
+		
+		public Builder withGroupId(ElementGroupId groupId) {
+			assertNotInvalidated(getClass(), rollout);
+			rollout.groupId = groupId;
+			return this;
+		}
+		
+		public Builder withGroupName(ElementGroupName groupName) {
+			assertNotInvalidated(getClass(), rollout);
+			rollout.groupName = groupName;
+			return this;
+		}
+		
+		public Builder withGroupType(ElementGroupType groupType) {
+			assertNotInvalidated(getClass(), rollout);
+			rollout.groupType = groupType;
+			return this;
+		}
+		
+		public Builder withActiveCount(int activeCount) {
+			assertNotInvalidated(getClass(), rollout);
+			rollout.activeCount = activeCount;
+			return this;
+		}
+		
+		public Builder withCachedCount(int cachedCount) {
+			assertNotInvalidated(getClass(), rollout);
+			rollout.cachedCount = cachedCount;
+			return this;
+		}
+		
+		public ImageRollout build() {
+			try {
+				assertNotInvalidated(getClass(), rollout);
+				return rollout;
+			} finally {
+				this.rollout = null;
+			}
+		}
+	}
+	
+	private ImageId imageId;
+	private ImageType imageType;
+	private ImageState imageState;
+	private Version imageVersion;
+	private ElementRoleName elementRole;
+	private ElementGroupId groupId;
+	private ElementGroupName groupName;
+	private ElementGroupType groupType;
+	private int activeCount;
+	private int cachedCount;
+	
+	public ImageId getImageId() {
+		return imageId;
+	}
+	
+	public ImageType getImageType() {
+		return imageType;
+	}
+	
+	public ImageState getImageState() {
+		return imageState;
+	}
+	
+	public Version getImageVersion() {
+		return imageVersion;
+	}
+	
+	public ElementRoleName getElementRole() {
+		return elementRole;
+	}
+	
+	public ElementGroupId getGroupId() {
+		return groupId;
+	}
+	
+	public ElementGroupName getGroupName() {
+		return groupName;
+	}
+	
+	public ElementGroupType getGroupType() {
+		return groupType;
+	}
+	
+	/**
+	 * Returns the number of elements of the group running the image.
+	 * @return the number of elements running the image.
+	 */
+	public int getActiveCount() {
+		return activeCount;
+	}
+	
+	/**
+	 * Returns the number of elements of the group having the image in their local cache.
+	 * @return the number of elements caching the image.
+	 */
+	public int getCachedCount() {
+		return cachedCount;
+	}
+	
+}
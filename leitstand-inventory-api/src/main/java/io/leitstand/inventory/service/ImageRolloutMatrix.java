@@ -0,0 +1,66 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+import static io.leitstand.commons.model.BuilderUtil.assertNotInvalidated;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.leitstand.commons.model.ValueObject;
+
+/**
+ * The rollout of all versions of an image across all element groups.
+ * <p>
+ * The matrix contains an entry for every image version and element group with at least one element
+ * that is running or caching the image. Entries are ordered by element role, image type, image version and group name.
+ * </p>
+ * @see ImageRollout
+ */
+public class ImageRolloutMatrix extends ValueObject {
+
+	public static Builder newImageRolloutMatrix() {
+		return new Builder();
+	}
+	
+	public static class Builder {
+		
+		private ImageRolloutMatrix matrix = new ImageRolloutMatrix();
+		
+		public Builder withImageName(ImageName imageName) {
+			assertNotInvalidated(getClass(), matrix);
+			matrix.imageName = imageName;
+			return this;
+		}
+		
+		public Builder withRollouts(List<ImageRollout> rollouts) {
+			assertNotInvalidated(getClass(), matrix);
+			matrix.rollouts = unmodifiableList(new ArrayList<>(rollouts));
+			return this;
+		}
+		
+		public ImageRolloutMatrix build() {
+			try {
+				assertNotInvalidated(getClass(), matrix);
+				return matrix;
+			} finally {
+				this.matrix = null;
+			}
+		}
+	}
+	
+	private ImageName imageName;
+	private List<ImageRollout> rollouts = emptyList();
+	
+	public ImageName getImageName() {
+		return imageName;
+	}
+	
+	public List<ImageRollout> getRollouts() {
+		return rollouts;
+	}
+	
+}
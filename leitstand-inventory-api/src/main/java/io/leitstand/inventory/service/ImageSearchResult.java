@@ -0,0 +1,66 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.service;
+
+import static io.leitstand.commons.model.BuilderUtil.assertNotInvalidated;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.List;
+
+/**
+ * A page of an image search result.
+ * <p>
+ * The images are ordered by image name. 
+ * The <code>next</code> cursor points to the next page and is <code>null</code> if this page is the last page.
+ */
+public class ImageSearchResult {
+
+	public static Builder newImageSearchResult() {
+		return new Builder();
+	}
+	
+	public static class Builder {
+		
+		private ImageSearchResult result = new ImageSearchResult();
+		
+		public Builder withImages(List<ImageReference> images) {
+			assertNotInvalidated(getClass(), result);
+			result.images = unmodifiableList(images);
+			return this;
+		}
+		
+		public Builder withNext(String next) {
+			assertNotInvalidated(getClass(), result);
+			result.next = next;
+			return this;
+		}
+		
+		public ImageSearchResult build() {
+			try {
+				assertNotInvalidated(getClass(), result);
+				return result;
+			} finally {
+				this.result = null;
+			}
+		}
+	}
+	
+	private List<ImageReference> images = emptyList();
+	
+	private String next;
+	
+	public List<ImageReference> getImages() {
+		return images;
+	}
+	
+	/**
+	 * Returns the cursor to fetch the next page or <code>null</code> if no more images exist.
+	 * @return the cursor to fetch the next page.
+	 */
+	public String getNext() {
+		return next;
+	}
+	
+}
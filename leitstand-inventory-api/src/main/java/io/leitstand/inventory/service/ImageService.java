@@ -24,12 +24,51 @@ public interface ImageService {
 									Version version, 
 									int limit);
 	
+	/**
+	 * Searches images by image name and returns a page of the matching images ordered by image name.
+	 * @param filter the image name filter or an empty string to match all images
+	 * @param mode the filter mode
+	 * @param role the optional element role filter
+	 * @param type the optional image type filter
+	 * @param state the optional image state filter
+	 * @param version the optional image version filter
+	 * @param cursor the <code>next</code> cursor of the previous page or <code>null</code> to fetch the first page
+	 * @param limit the maximum number of returned images
+	 * @return the matching images
+	 */
+	ImageSearchResult searchImages(String filter,
+								   ImageFilterMode mode,
+								   ElementRoleName role,
+								   ImageType type,
+								   ImageState state,
+								   Version version,
+								   String cursor,
+								   int limit);
+	
 	RoleImages findRoleImages(ElementRoleName role);
 	
 	void updateImageState(ImageId id, 
 						  ImageState state);
 	ImageStatistics getImageStatistics(ImageId id);
 	
+	/**
+	 * Returns the number of elements per element group running or caching a version of an image.
+	 * @param imageName the image name
+	 * @param role the optional element role filter
+	 * @param type the optional image type filter
+	 * @return the rollout of all versions of the image
+	 */
+	ImageRolloutMatrix getImageRolloutMatrix(ImageName imageName,
+											 ElementRoleName role,
+											 ImageType type);
+	
+	/**
+	 * Recounts the elements per element group running or caching an image.
+	 * The counters are maintained incrementally and need only be rebuilt
+	 * if they were modified outside of the inventory.
+	 */
+	void rebuildImageRollouts();
+	
 	ImageMetaData getImageMetaData();
 
 }
@@ -51,6 +51,18 @@ public enum ReasonCode implements Reason{
 	
 	/** The image cannot be removed.*/
 	IVT0204E_IMAGE_NOT_REMOVABLE, 
+	
+	/** The image search cursor is malformed.*/
+	IVT0205E_IMAGE_SEARCH_CURSOR_INVALID,
+	
+	/** The requested image import job does not exist.*/
+	IVT0206E_IMAGE_IMPORT_JOB_NOT_FOUND,
+	
+	/** The maximum number of images to be returned is not positive.*/
+	IVT0207E_IMAGE_LIMIT_INVALID,
+	
+	/** The image rollout counters have been rebuilt.*/
+	IVT0208I_IMAGE_ROLLOUTS_REBUILT,
 
 	/** The requested element does not exist.*/
 	IVT0300E_ELEMENT_NOT_FOUND,
@@ -76,6 +88,12 @@ public enum ReasonCode implements Reason{
 	/** An element with the given name already exists.*/
 	IVT0307E_ELEMENT_NAME_ALREADY_IN_USE,
 	
+	/** The element search cursor is invalid.*/
+	IVT0308E_ELEMENT_SEARCH_CURSOR_INVALID,
+	
+	/** The operational states of multiple elements have been updated.*/
+	IVT0309I_ELEMENT_OPERATIONAL_STATES_UPDATED,
+	
 	/** The requested hardware module of an element does not exist.*/
 	IVT0310E_ELEMENT_MODULE_NOT_FOUND,
 
@@ -103,6 +121,18 @@ public enum ReasonCode implements Reason{
 	/** Removed the config with all its revisions.*/
 	IVT0337I_ELEMENT_CONFIG_REMOVED,
 	
+	/** The configuration retention policy has been stored.*/
+	IVT0335I_CONFIG_RETENTION_POLICY_STORED,
+	
+	/** The configuration retention policy has been removed.*/
+	IVT0336I_CONFIG_RETENTION_POLICY_REMOVED,
+	
+	/** The requested configuration retention policy does not exist.*/
+	IVT0338E_CONFIG_RETENTION_POLICY_NOT_FOUND,
+	
+	/** The offset or the limit of an element configuration search is invalid.*/
+	IVT0339E_ELEMENT_CONFIG_SEARCH_RANGE_INVALID,
+	
 	/** The service does not exist on the specified element.*/
 	IVT0320E_ELEMENT_SERVICE_NOT_FOUND,
 
@@ -187,6 +217,9 @@ public enum ReasonCode implements Reason{
 	/** The package revision does already exist.*/
 	IVT0511E_PACKAGE_VERSION_EXISTS, 
 	
+	/** The package versions of an image could not be created due to concurrent modifications.*/
+	IVT0512E_PACKAGE_VERSIONS_NOT_CREATED,
+	
 	/** The requested metric does not exist!.*/
 	IVT0600E_METRIC_NOT_FOUND, 
 	
@@ -308,7 +341,28 @@ public enum ReasonCode implements Reason{
 	IVT8001I_HEARTBEAT_WATCHDOG_STOPPED,
 	
 	/** The heart beats watchdog reported a problem.*/
-	IVT8002E_HEARTBEAT_WATCHDOG_FAILED;
+	IVT8002E_HEARTBEAT_WATCHDOG_FAILED,
+	
+	/** The configuration retention engine completed a run.*/
+	IVT8003I_CONFIG_RETENTION_COMPLETED,
+	
+	/** The configuration retention engine reported a problem.*/
+	IVT8004E_CONFIG_RETENTION_FAILED,
+	
+	/** The missing configuration head pointers have been initialized.*/
+	IVT8005I_CONFIG_HEADS_INITIALIZED,
+	
+	/** The reference entity catalog has been loaded.*/
+	IVT8006I_REFERENCE_CATALOG_LOADED,
+	
+	/** An image import job has been completed.*/
+	IVT8007I_IMAGE_IMPORT_COMPLETED,
+	
+	/** A chunk of an image import job could not be imported.*/
+	IVT8008E_IMAGE_IMPORT_CHUNK_FAILED,
+	
+	/** The image rollout counters have been initialized.*/
+	IVT8009I_IMAGE_ROLLOUTS_INITIALIZED;
 	
 
 	private static final ResourceBundle MESSAGES = getBundle("InventoryMessages");
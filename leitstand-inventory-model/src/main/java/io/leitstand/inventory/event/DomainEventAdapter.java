@@ -27,6 +27,13 @@ public class DomainEventAdapter {
 				 .build());
 	}
 	
+	public void publishElementEvent(@Observes ElementOperationalStatesChangedEvent event) {
+		bus.fire(newDomainEvent()
+				 .withTopicName(topicName("element"))
+				 .withPayload(event)
+				 .build());
+	}
+	
 	public void publishElementEvent(@Observes DnsZoneEvent event) {
 		bus.fire(newDomainEvent()
 				 .withTopicName(topicName("element"))
@@ -0,0 +1,67 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.event;
+
+import static io.leitstand.commons.model.BuilderUtil.assertNotInvalidated;
+
+import io.leitstand.commons.model.ValueObject;
+import io.leitstand.inventory.service.ElementGroupId;
+import io.leitstand.inventory.service.ElementGroupName;
+import io.leitstand.inventory.service.ElementGroupType;
+
+public class ElementGroupEvent extends ValueObject{
+
+	protected static class ElementGroupEventBuilder<T extends ElementGroupEvent,B extends ElementGroupEventBuilder<T,B>>{
+		
+		protected T event;
+		
+		protected ElementGroupEventBuilder(T event) {
+			this.event = event;
+		}
+		
+		public B withGroupId(ElementGroupId groupId) {
+			assertNotInvalidated(getClass(), event);
+			((ElementGroupEvent)event).groupId = groupId;
+			return (B) this;
+		}
+		
+		public B withGroupType(ElementGroupType groupType) {
+			assertNotInvalidated(getClass(), event);
+			((ElementGroupEvent)event).groupType = groupType;
+			return (B) this;
+		}
+		
+		public B withGroupName(ElementGroupName groupName) {
+			assertNotInvalidated(getClass(), event);
+			((ElementGroupEvent)event).groupName = groupName;
+			return (B) this;
+		}
+		
+		public T build() {
+			try {
+				assertNotInvalidated(getClass(), event);
+				return event;
+			} finally {
+				this.event = null;
+			}
+		}
+	}
+	
+	private ElementGroupId groupId;
+	private ElementGroupType groupType;
+	private ElementGroupName groupName;
+	
+	public ElementGroupId getGroupId() {
+		return groupId;
+	}
+	
+	public ElementGroupType getGroupType() {
+		return groupType;
+	}
+	
+	public ElementGroupName getGroupName() {
+		return groupName;
+	}
+
+}
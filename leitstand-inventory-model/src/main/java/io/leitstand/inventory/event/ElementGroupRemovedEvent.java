@@ -0,0 +1,18 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.event;
+
+public class ElementGroupRemovedEvent extends ElementGroupEvent{
+
+	public static Builder newElementGroupRemovedEvent() {
+		return new Builder();
+	}
+	
+	public static class Builder extends ElementGroupEventBuilder<ElementGroupRemovedEvent,Builder> {
+		protected Builder() {
+			super(new ElementGroupRemovedEvent());
+		}
+	}
+	
+}
@@ -0,0 +1,34 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.event;
+
+import static io.leitstand.commons.model.BuilderUtil.assertNotInvalidated;
+
+import io.leitstand.inventory.service.ElementGroupName;
+
+public class ElementGroupRenamedEvent extends ElementGroupEvent{
+
+	public static Builder newElementGroupRenamedEvent() {
+		return new Builder();
+	}
+	
+	public static class Builder extends ElementGroupEventBuilder<ElementGroupRenamedEvent,Builder> {
+		protected Builder() {
+			super(new ElementGroupRenamedEvent());
+		}
+		
+		public Builder withPreviousGroupName(ElementGroupName previousGroupName) {
+			assertNotInvalidated(getClass(), event);
+			event.previousGroupName = previousGroupName;
+			return this;
+		}
+	}
+	
+	private ElementGroupName previousGroupName;
+	
+	public ElementGroupName getPreviousGroupName() {
+		return previousGroupName;
+	}
+	
+}
@@ -0,0 +1,55 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.event;
+
+import static io.leitstand.commons.model.BuilderUtil.assertNotInvalidated;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.leitstand.commons.model.ValueObject;
+
+/**
+ * Announces the operational state changes of multiple elements at once,
+ * e.g. all elements that have been declared detached by a heartbeat watchdog sweep.
+ */
+public class ElementOperationalStatesChangedEvent extends ValueObject {
+
+	public static Builder newElementOperationalStatesChangedEvent() {
+		return new Builder();
+	}
+	
+	public static class Builder {
+		
+		private ElementOperationalStatesChangedEvent object = new ElementOperationalStatesChangedEvent();
+		
+		protected Builder() {
+			// Use factory method
+		}
+		
+		public Builder withChanges(List<ElementOperationalStateChangedEvent> changes) {
+			assertNotInvalidated(getClass(), object);
+			object.changes = unmodifiableList(new ArrayList<>(changes));
+			return this;
+		}
+		
+		public ElementOperationalStatesChangedEvent build() {
+			try {
+				assertNotInvalidated(getClass(), object);
+				return object;
+			} finally {
+				this.object = null;
+			}
+		}
+	}
+	
+	private List<ElementOperationalStateChangedEvent> changes = emptyList();
+	
+	public List<ElementOperationalStateChangedEvent> getChanges() {
+		return changes;
+	}
+	
+}
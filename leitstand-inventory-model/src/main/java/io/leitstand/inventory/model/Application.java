@@ -13,6 +13,7 @@ import javax.persistence.Entity;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
 import io.leitstand.commons.model.AbstractEntity;
 import io.leitstand.commons.model.Query;
@@ -20,7 +21,9 @@ import io.leitstand.inventory.jpa.ApplicationNameConverter;
 import io.leitstand.inventory.service.ApplicationName;
 
 @Entity
-@Table(schema="inventory", name="application")
+@Table(schema="inventory", 
+	   name="application",
+	   uniqueConstraints=@UniqueConstraint(columnNames={"name"}))
 @NamedQueries({
 	@NamedQuery(name="Application.findAll", query="SELECT a FROM Application a"),
 	@NamedQuery(name="Application.findByName", query="SELECT a FROM Application a WHERE a.name=:name")
@@ -0,0 +1,185 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.persistence.FetchType.LAZY;
+import static javax.persistence.LockModeType.PESSIMISTIC_READ;
+import static javax.persistence.LockModeType.PESSIMISTIC_WRITE;
+import static javax.persistence.TemporalType.TIMESTAMP;
+
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.Basic;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+
+import io.leitstand.commons.model.Query;
+import io.leitstand.commons.model.Update;
+
+/**
+ * A content-addressed element configuration.
+ * <p>
+ * A <code>ConfigBlob</code> is identified by the SHA-256 digest of its content.
+ * Element configuration revisions with the same content refer to the same blob, 
+ * regardless of the element they belong to.
+ * Blobs that are not referenced by any revision are removed.
+ * A blob is locked when a revision refers to it and when it is removed, 
+ * such that a blob cannot be removed while a pending transaction stores a revision referring to the blob.
+ * @see Element_Config
+ * @see ConfigBlobStore
+ */
+@Entity
+@Table(schema="inventory", name="config_blob")
+@NamedQuery(name="ConfigBlob.findBlobs",
+			query="SELECT b FROM ConfigBlob b WHERE b.digest IN :digests ORDER BY b.digest")
+@NamedQuery(name="ConfigBlob.removeUnreferencedBlobs",
+			query="DELETE FROM ConfigBlob b WHERE b.digest IN :digests AND NOT EXISTS (SELECT c FROM Element_Config c WHERE c.blob=b)")
+@NamedQuery(name="ConfigBlob.findUnreferencedBlobs",
+			query="SELECT b.digest FROM ConfigBlob b WHERE b.tscreated < :createdBefore AND NOT EXISTS (SELECT c FROM Element_Config c WHERE c.blob=b)")
+public class ConfigBlob implements Serializable{
+
+	private static final long serialVersionUID = 1L;
+	
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	
+	/**
+	 * Computes the SHA-256 digest of an element configuration.
+	 * The digest is computed from the UTF-8 encoded configuration.
+	 * @param content the element configuration
+	 * @return the hex-encoded SHA-256 digest
+	 */
+	public static String digest(String content) {
+		MessageDigest digest = newMessageDigest();
+		if(content != null) {
+			digest.update(content.getBytes(UTF_8));
+		}
+		return hex(digest.digest());
+	}
+	
+	/**
+	 * Creates a new SHA-256 message digest to compute the digest of a configuration incrementally.
+	 * @return a new SHA-256 message digest
+	 * @see #hex(byte[])
+	 */
+	static MessageDigest newMessageDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform implementation must support SHA-256.
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Returns the hex-encoded representation of a digest.
+	 * @param hash the digest
+	 * @return the hex-encoded digest
+	 */
+	static String hex(byte[] hash) {
+		char[] hex = new char[hash.length*2];
+		for(int i=0; i < hash.length; i++) {
+			hex[2*i]   = HEX[(hash[i] >> 4) & 0x0F];
+			hex[2*i+1] = HEX[hash[i] & 0x0F];
+		}
+		return new String(hex);
+	}
+
+	public static Query<ConfigBlob> findBlob(String digest){
+		return em -> em.find(ConfigBlob.class, digest);
+	}
+	
+	/**
+	 * Returns the blob with the given digest and locks the blob until the current transaction ends.
+	 * A locked blob cannot be removed before the revision referring to the blob is committed.
+	 * @param digest the digest of the blob
+	 * @return the locked blob or <code>null</code> if the blob does not exist.
+	 * @see #lockBlobs(Collection)
+	 */
+	public static Query<ConfigBlob> findBlobForReference(String digest){
+		return em -> em.find(ConfigBlob.class, digest, PESSIMISTIC_READ);
+	}
+	
+	/**
+	 * Locks the blobs with the given digests until the current transaction ends.
+	 * The blobs are locked in the order of their digests to avoid deadlocks between concurrent removals.
+	 * A transaction about to refer to a locked blob waits until the lock is released 
+	 * and does not find the blob, if the blob has been removed in the meantime.
+	 * @param digests the digests of the blobs
+	 * @return the locked blobs
+	 * @see #findBlobForReference(String)
+	 */
+	public static Query<List<ConfigBlob>> lockBlobs(Collection<String> digests){
+		return em -> em.createNamedQuery("ConfigBlob.findBlobs", ConfigBlob.class)
+					   .setParameter("digests", digests)
+					   .setLockMode(PESSIMISTIC_WRITE)
+					   .getResultList();
+	}
+	
+	/**
+	 * Removes all blobs with the given digests that are not referenced by any element configuration revision.
+	 * @param digests the digests of the candidate blobs
+	 * @return the number of removed blobs
+	 */
+	public static Update removeUnreferencedBlobs(Collection<String> digests) {
+		return em -> em.createNamedQuery("ConfigBlob.removeUnreferencedBlobs", int.class)
+					   .setParameter("digests", digests)
+					   .executeUpdate();
+	}
+	
+	/**
+	 * Returns the digests of blobs that are not referenced by any element configuration revision.
+	 * Such blobs remain when the transaction that created the referring revision has been rolled back.
+	 * @param createdBefore only blobs created before this date are considered, 
+	 * 		  in order to skip blobs referred by revisions of pending transactions.
+	 * @param limit the maximum number of returned digests
+	 * @return the digests of unreferenced blobs.
+	 */
+	public static Query<List<String>> findUnreferencedBlobs(Date createdBefore, int limit){
+		return em -> em.createNamedQuery("ConfigBlob.findUnreferencedBlobs",String.class)
+					   .setParameter("createdBefore", createdBefore, TIMESTAMP)
+					   .setMaxResults(limit)
+					   .getResultList();
+	}
+	
+	@Id
+	private String digest;
+	
+	@Basic(fetch=LAZY)
+	private String content;
+	
+	@Temporal(TIMESTAMP)
+	private Date tscreated;
+	
+	protected ConfigBlob() {
+		// JPA
+	}
+	
+	public ConfigBlob(String digest, String content) {
+		this.digest = digest;
+		this.content = content;
+		this.tscreated = new Date();
+	}
+	
+	public String getDigest() {
+		return digest;
+	}
+	
+	public String getContent() {
+		return content;
+	}
+	
+	public Date getDateCreated() {
+		return new Date(tscreated.getTime());
+	}
+	
+}
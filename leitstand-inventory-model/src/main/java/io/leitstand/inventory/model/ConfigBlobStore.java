@@ -0,0 +1,129 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.ConfigBlob.findBlobForReference;
+import static io.leitstand.inventory.model.ConfigBlob.findUnreferencedBlobs;
+import static io.leitstand.inventory.model.ConfigBlob.lockBlobs;
+import static io.leitstand.inventory.model.ConfigBlob.removeUnreferencedBlobs;
+import static io.leitstand.inventory.model.DigestedConfig.digestedConfig;
+import static io.leitstand.inventory.model.Element_Config.isStoredContent;
+import static java.lang.String.format;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.logging.Logger;
+
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.SubtransactionService;
+
+/**
+ * Stores the content of element configuration revisions.
+ * <p>
+ * The content of a revision is stored in one of the following ways, in order of preference:
+ * <ol>
+ * 	<li>as reference to an existing {@link ConfigBlob} with the same content,</li>
+ *  <li>as delta of the previous revision (see {@link ConfigDelta}), unless another revision has the same content, or</li>
+ *  <li>as reference to a new {@link ConfigBlob}.</li>
+ * </ol>
+ * Content that is stored as delta is not addressable by its digest. 
+ * Hence, a new blob is created as soon as the same content is stored a second time, 
+ * regardless of the element it is stored for.
+ * Storing content that already exists in the inventory therefore costs at most one delta and one blob
+ * and a pointer write for every further revision with the same content.
+ * The referenced blob is locked until the transaction ends, to prevent a concurrent transaction from removing the blob.
+ */
+@Dependent
+class ConfigBlobStore {
+	
+	private static final Logger LOG = Logger.getLogger(ConfigBlobStore.class.getName());
+
+	private Repository repository;
+	private SubtransactionService inventory;
+	
+	@Inject
+	protected ConfigBlobStore(@Inventory Repository repository,
+							  @Inventory SubtransactionService inventory) {
+		this.repository = repository;
+		this.inventory = inventory;
+	}
+	
+	/**
+	 * Stores the content of an element configuration revision.
+	 * The configuration is only loaded if no blob with the same digest exists.
+	 * @param config the element configuration revision
+	 * @param previous the previous revision of the element configuration or <code>null</code> if no previous revision exists.
+	 * @param content the configuration and its SHA-256 digest
+	 */
+	void storeConfig(Element_Config config, 
+					 Element_Config previous, 
+					 DigestedConfig content) {
+		String digest = content.getDigest();
+		ConfigBlob blob = repository.execute(findBlobForReference(digest));
+		if(blob == null) {
+			// Content stored by another revision becomes shared and is therefore stored as blob.
+			if(previous != null 
+			   && !repository.execute(isStoredContent(digest)) 
+			   && config.storeDelta(previous, content.getConfig())) {
+				return;
+			}
+			blob = inventory.run(new StoreConfigBlobFlow(digest, content.getConfig()));
+			if(blob == null) {
+				LOG.fine(() -> format("Attempt to create configuration blob %s failed. Store %s configuration of element %s inline.",
+									  digest,
+									  config.getName(),
+									  config.getElement().getElementName()));
+				config.storeSnapshot(content.getConfig());
+				return;
+			}
+		}
+		config.storeSnapshot(blob);
+	}
+	
+	/**
+	 * Stores a revision, that is stored as delta of a revision being removed, as snapshot.
+	 * @param config the revision to be materialized.
+	 */
+	void materialize(Element_Config config) {
+		if(config.isDeltaRevision()) {
+			storeConfig(config, 
+						null, 
+						digestedConfig(config.getConfig()));
+		}
+	}
+	
+	/**
+	 * Removes blobs that are no longer referenced by any element configuration revision.
+	 * @param digests the digests of blobs that have been referenced by removed revisions.
+	 * @return the number of removed blobs
+	 */
+	int removeUnreferenced(Collection<String> digests) {
+		if(digests.isEmpty()) {
+			return 0;
+		}
+		// Write pending changes to the database to detect all remaining blob references.
+		repository.flush();
+		// Wait for pending transactions referring to the blobs and 
+		// prevent new references until the unreferenced blobs are removed.
+		repository.execute(lockBlobs(digests));
+		int count = repository.execute(removeUnreferencedBlobs(digests));
+		LOG.fine(() -> format("Removed %d unreferenced configuration blobs.",count));
+		return count;
+	}
+	
+	/**
+	 * Removes blobs that are not referenced by any element configuration revision, 
+	 * regardless of whether they have been referenced by a removed revision.
+	 * @param createdBefore only blobs created before this date are removed
+	 * @param limit the maximum number of blobs to be removed
+	 * @return the number of removed blobs
+	 */
+	int removeOrphanedBlobs(Date createdBefore, int limit) {
+		return removeUnreferenced(repository.execute(findUnreferencedBlobs(createdBefore, limit)));
+	}
+	
+}
@@ -0,0 +1,244 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static java.lang.Integer.parseInt;
+import static java.lang.Math.max;
+import static java.util.Arrays.copyOfRange;
+import static java.util.Collections.reverse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes and applies line-based deltas between two revisions of an element configuration.
+ * <p>
+ * A delta is a sequence of operations applied to the lines of the base revision:
+ * <ul>
+ * 	<li><code>=n</code> copies the next <code>n</code> lines of the base revision</li>
+ *  <li><code>-n</code> skips the next <code>n</code> lines of the base revision</li>
+ *  <li><code>+n</code> inserts the subsequent <code>n</code> characters of the delta</li>
+ * </ul>
+ * Every operation is terminated by a newline character.
+ * Lines retain their line terminator, hence applying a delta restores the revision character by character.
+ * </p>
+ * @see Element_Config
+ */
+final class ConfigDelta {
+
+	private static final char COPY = '=';
+	private static final char SKIP = '-';
+	private static final char INSERT = '+';
+
+	/**
+	 * Upper bound of the edit distance being computed.
+	 * A larger edit distance indicates a substantial rewrite that is stored as snapshot anyway.
+	 */
+	static final int MAX_EDIT_DISTANCE = 1024;
+
+	/**
+	 * Computes the delta to derive the target configuration from the base configuration.
+	 * @param base the base configuration
+	 * @param target the target configuration
+	 * @return the delta or <code>null</code> if the edit distance exceeds the {@link #MAX_EDIT_DISTANCE}.
+	 */
+	static String encodeDelta(String base, String target) {
+		List<String> a = lines(base);
+		List<String> b = lines(target);
+
+		// Trim common prefix and suffix to reduce the problem size.
+		int prefix = 0;
+		while(prefix < a.size() && prefix < b.size() && a.get(prefix).equals(b.get(prefix))) {
+			prefix++;
+		}
+		int suffix = 0;
+		while(suffix < a.size() - prefix &&
+			  suffix < b.size() - prefix &&
+			  a.get(a.size()-1-suffix).equals(b.get(b.size()-1-suffix))) {
+			suffix++;
+		}
+
+		List<String> as = a.subList(prefix, a.size()-suffix);
+		List<String> bs = b.subList(prefix, b.size()-suffix);
+		List<Character> edits = editScript(as, bs);
+		if(edits == null) {
+			return null;
+		}
+
+		StringBuilder delta = new StringBuilder();
+		if(prefix > 0) {
+			op(delta,COPY,prefix);
+		}
+		int y = 0;
+		int i = 0;
+		while(i < edits.size()) {
+			char edit = edits.get(i);
+			int n = 0;
+			while(i < edits.size() && edits.get(i) == edit) {
+				n++;
+				i++;
+			}
+			if(edit == INSERT) {
+				StringBuilder text = new StringBuilder();
+				for(String line : bs.subList(y, y+n)) {
+					text.append(line);
+				}
+				op(delta,INSERT,text.length());
+				delta.append(text);
+				y+=n;
+			} else if(edit == SKIP) {
+				op(delta,SKIP,n);
+			} else {
+				op(delta,COPY,n);
+				y+=n;
+			}
+		}
+		if(suffix > 0) {
+			op(delta,COPY,suffix);
+		}
+		return delta.toString();
+	}
+
+	/**
+	 * Applies a delta to the base configuration.
+	 * @param base the base configuration
+	 * @param delta the delta computed by {@link #encodeDelta(String, String)}
+	 * @return the restored configuration
+	 */
+	static String applyDelta(String base, String delta) {
+		List<String> lines = lines(base);
+		StringBuilder config = new StringBuilder(max(delta.length(),base != null ? base.length() : 0));
+		int line = 0;
+		int pos = 0;
+		while(pos < delta.length()) {
+			char op = delta.charAt(pos);
+			int eol = delta.indexOf('\n', pos);
+			if(eol < 0) {
+				throw new IllegalStateException("Malformed configuration delta at position "+pos);
+			}
+			int n = parseInt(delta.substring(pos+1, eol));
+			pos = eol+1;
+			switch(op) {
+				case COPY:
+					for(String l : lines.subList(line, line+n)) {
+						config.append(l);
+					}
+					line+=n;
+					break;
+				case SKIP:
+					line+=n;
+					break;
+				case INSERT:
+					config.append(delta, pos, pos+n);
+					pos+=n;
+					break;
+				default:
+					throw new IllegalStateException("Unknown configuration delta operation "+op);
+			}
+		}
+		return config.toString();
+	}
+
+	private static void op(StringBuilder delta, char op, int n) {
+		delta.append(op)
+			 .append(n)
+			 .append('\n');
+	}
+
+	/**
+	 * Splits a configuration into its lines. Every line retains its terminator.
+	 * @param config the configuration
+	 * @return the lines of the configuration
+	 */
+	static List<String> lines(String config){
+		List<String> lines = new ArrayList<>();
+		if(config == null) {
+			return lines;
+		}
+		int start = 0;
+		for(int i=0; i < config.length(); i++) {
+			if(config.charAt(i) == '\n') {
+				lines.add(config.substring(start, i+1));
+				start = i+1;
+			}
+		}
+		if(start < config.length()) {
+			lines.add(config.substring(start));
+		}
+		return lines;
+	}
+
+	/**
+	 * Computes the shortest edit script by means of the Myers algorithm.
+	 * @return the edit script or <code>null</code> if the edit distance exceeds the {@link #MAX_EDIT_DISTANCE}.
+	 */
+	private static List<Character> editScript(List<String> a, List<String> b){
+		int n = a.size();
+		int m = b.size();
+		int maxD = Math.min(n+m, MAX_EDIT_DISTANCE);
+		int offset = maxD+1;
+		int[] v = new int[2*maxD+3];
+		List<int[]> trace = new ArrayList<>();
+		for(int d=0; d <= maxD; d++) {
+			// Record the furthest reaching paths of the previous round.
+			trace.add(copyOfRange(v, offset-d, offset+d+1));
+			for(int k=-d; k <= d; k+=2) {
+				int x;
+				if(k == -d || (k != d && v[offset+k-1] < v[offset+k+1])) {
+					x = v[offset+k+1];
+				} else {
+					x = v[offset+k-1]+1;
+				}
+				int y = x-k;
+				while(x < n && y < m && a.get(x).equals(b.get(y))) {
+					x++;
+					y++;
+				}
+				v[offset+k] = x;
+				if(x >= n && y >= m) {
+					return backtrack(trace,n,m);
+				}
+			}
+		}
+		return null;
+	}
+
+	private static List<Character> backtrack(List<int[]> trace, int n, int m){
+		List<Character> edits = new ArrayList<>();
+		int x = n;
+		int y = m;
+		for(int d=trace.size()-1; d > 0; d--) {
+			int[] v = trace.get(d);
+			int k = x-y;
+			int prevK;
+			// v holds the paths of round d-1, indexed from -d to d.
+			if(k == -d || (k != d && v[d+k-1] < v[d+k+1])) {
+				prevK = k+1;
+			} else {
+				prevK = k-1;
+			}
+			int prevX = v[d+prevK];
+			int prevY = prevX-prevK;
+			while(x > prevX && y > prevY) {
+				edits.add(COPY);
+				x--;
+				y--;
+			}
+			edits.add(prevK == k+1 ? INSERT : SKIP);
+			x = prevX;
+			y = prevY;
+		}
+		while(x > 0 && y > 0) {
+			edits.add(COPY);
+			x--;
+			y--;
+		}
+		reverse(edits);
+		return edits;
+	}
+
+	private ConfigDelta() {
+		// No instances allowed
+	}
+}
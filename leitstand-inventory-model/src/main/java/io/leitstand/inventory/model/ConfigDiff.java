@@ -0,0 +1,261 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.ConfigDelta.lines;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the line-based difference between two revisions of an element configuration in unified diff format.
+ * <p>
+ * The shortest edit script is computed by the linear space refinement of the Myers algorithm,
+ * which recursively splits the problem at the middle snake of the edit graph.
+ * Hence the memory consumption is linear in the number of lines, 
+ * regardless of the edit distance between both revisions.
+ * </p>
+ * @see ConfigDiffCache
+ */
+final class ConfigDiff {
+
+	/** Number of unmodified lines shown before and after a modification. */
+	static final int CONTEXT = 3;
+	
+	/**
+	 * Computes the difference between the base and the target configuration.
+	 * @param base the base configuration
+	 * @param target the target configuration
+	 * @return the difference between both configurations
+	 */
+	static ConfigDiff diff(String base, String target) {
+		List<String> a = lines(base);
+		List<String> b = lines(target);
+		
+		// Compare line numbers instead of strings.
+		Map<String,Integer> ids = new HashMap<>();
+		int[] x = new int[a.size()];
+		for(int i=0; i < x.length; i++) {
+			x[i] = ids.computeIfAbsent(a.get(i), k -> ids.size());
+		}
+		int[] y = new int[b.size()];
+		for(int i=0; i < y.length; i++) {
+			y[i] = ids.computeIfAbsent(b.get(i), k -> ids.size());
+		}
+		
+		EditScript script = new EditScript(x,y);
+		script.compare(0, x.length, 0, y.length);
+		return script.unifiedDiff(a, b);
+	}
+	
+	private final String hunks;
+	private final int linesAdded;
+	private final int linesRemoved;
+	
+	private ConfigDiff(String hunks, int linesAdded, int linesRemoved) {
+		this.hunks = hunks;
+		this.linesAdded = linesAdded;
+		this.linesRemoved = linesRemoved;
+	}
+	
+	/**
+	 * Returns the hunks of the unified diff.
+	 * @return the hunks of the unified diff or an empty string if both configurations are equal.
+	 */
+	String getHunks() {
+		return hunks;
+	}
+	
+	int getLinesAdded() {
+		return linesAdded;
+	}
+	
+	int getLinesRemoved() {
+		return linesRemoved;
+	}
+	
+	private static final class EditScript {
+		
+		private final int[] a;
+		private final int[] b;
+		private final boolean[] removed;
+		private final boolean[] added;
+		private final int[] forward;
+		private final int[] backward;
+		private final int offset;
+		
+		EditScript(int[] a, int[] b){
+			this.a = a;
+			this.b = b;
+			this.removed = new boolean[a.length];
+			this.added = new boolean[b.length];
+			this.offset = a.length+b.length+1;
+			this.forward = new int[2*offset+1];
+			this.backward = new int[2*offset+1];
+		}
+
+		void compare(int aLo, int aHi, int bLo, int bHi) {
+			// Skip common prefix and suffix.
+			while(aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) {
+				aLo++;
+				bLo++;
+			}
+			while(aLo < aHi && bLo < bHi && a[aHi-1] == b[bHi-1]) {
+				aHi--;
+				bHi--;
+			}
+			if(aLo == aHi) {
+				for(int j=bLo; j < bHi; j++) {
+					added[j] = true;
+				}
+				return;
+			}
+			if(bLo == bHi) {
+				for(int i=aLo; i < aHi; i++) {
+					removed[i] = true;
+				}
+				return;
+			}
+			int[] snake = middleSnake(aLo, aHi, bLo, bHi);
+			compare(aLo, snake[0], bLo, snake[1]);
+			compare(snake[2], aHi, snake[3], bHi);
+		}
+		
+		/**
+		 * Finds the middle snake of the shortest edit script.
+		 * @return the start and end coordinates of the middle snake.
+		 */
+		private int[] middleSnake(int aLo, int aHi, int bLo, int bHi) {
+			int n = aHi-aLo;
+			int m = bHi-bLo;
+			int delta = n-m;
+			boolean odd = (delta & 1) != 0;
+			forward[offset+1] = 0;
+			backward[offset+1] = 0;
+			for(int d=0; d <= (n+m+1)/2; d++) {
+				for(int k=-d; k <= d; k+=2) {
+					int x;
+					if(k == -d || (k != d && forward[offset+k-1] < forward[offset+k+1])) {
+						x = forward[offset+k+1];
+					} else {
+						x = forward[offset+k-1]+1;
+					}
+					int y = x-k;
+					int xs = x;
+					int ys = y;
+					while(x < n && y < m && a[aLo+x] == b[bLo+y]) {
+						x++;
+						y++;
+					}
+					forward[offset+k] = x;
+					if(odd && k >= delta-(d-1) && k <= delta+(d-1) && x + backward[offset+delta-k] >= n) {
+						return new int[] {aLo+xs,bLo+ys,aLo+x,bLo+y};
+					}
+				}
+				for(int k=-d; k <= d; k+=2) {
+					int x;
+					if(k == -d || (k != d && backward[offset+k-1] < backward[offset+k+1])) {
+						x = backward[offset+k+1];
+					} else {
+						x = backward[offset+k-1]+1;
+					}
+					int y = x-k;
+					int xs = x;
+					int ys = y;
+					while(x < n && y < m && a[aHi-1-x] == b[bHi-1-y]) {
+						x++;
+						y++;
+					}
+					backward[offset+k] = x;
+					if(!odd && delta-k >= -d && delta-k <= d && x + forward[offset+delta-k] >= n) {
+						return new int[] {aHi-x,bHi-y,aHi-xs,bHi-ys};
+					}
+				}
+			}
+			throw new IllegalStateException("No middle snake found");
+		}
+		
+		ConfigDiff unifiedDiff(List<String> aLines, List<String> bLines) {
+			// Collect the modified ranges as {aStart, aEnd, bStart, bEnd}.
+			List<int[]> changes = new ArrayList<>();
+			int i = 0;
+			int j = 0;
+			int linesAdded = 0;
+			int linesRemoved = 0;
+			while(i < a.length || j < b.length) {
+				if(i < a.length && j < b.length && !removed[i] && !added[j]) {
+					i++;
+					j++;
+					continue;
+				}
+				int[] change = {i,i,j,j};
+				while(i < a.length && removed[i]) {
+					i++;
+				}
+				while(j < b.length && added[j]) {
+					j++;
+				}
+				change[1] = i;
+				change[3] = j;
+				linesRemoved += i-change[0];
+				linesAdded += j-change[2];
+				changes.add(change);
+			}
+			
+			StringBuilder diff = new StringBuilder();
+			int c = 0;
+			while(c < changes.size()) {
+				// Merge changes with overlapping context into a single hunk.
+				int last = c;
+				while(last+1 < changes.size() && changes.get(last+1)[0] - changes.get(last)[1] <= 2*CONTEXT) {
+					last++;
+				}
+				int[] first = changes.get(c);
+				int aStart = max(0, first[0]-CONTEXT);
+				int bStart = first[2] - (first[0]-aStart);
+				int aEnd = min(a.length, changes.get(last)[1]+CONTEXT);
+				int bEnd = changes.get(last)[3] + (aEnd-changes.get(last)[1]);
+				header(diff, aStart, aEnd-aStart, bStart, bEnd-bStart);
+				int pos = aStart;
+				for(int h=c; h <= last; h++) {
+					int[] change = changes.get(h);
+					append(diff, ' ', aLines, pos, change[0]);
+					append(diff, '-', aLines, change[0], change[1]);
+					append(diff, '+', bLines, change[2], change[3]);
+					pos = change[1];
+				}
+				append(diff, ' ', aLines, pos, aEnd);
+				c = last+1;
+			}
+			return new ConfigDiff(diff.toString(), linesAdded, linesRemoved);
+		}
+
+		private static void header(StringBuilder diff, int aStart, int aLength, int bStart, int bLength) {
+			diff.append("@@ -")
+				.append(aLength == 0 ? aStart : aStart+1)
+				.append(',')
+				.append(aLength)
+				.append(" +")
+				.append(bLength == 0 ? bStart : bStart+1)
+				.append(',')
+				.append(bLength)
+				.append(" @@\n");
+		}
+		
+		private static void append(StringBuilder diff, char op, List<String> lines, int from, int to) {
+			for(String line : lines.subList(from, to)) {
+				diff.append(op)
+					.append(line);
+				if(!line.endsWith("\n")) {
+					diff.append("\n\\ No newline at end of file\n");
+				}
+			}
+		}
+	}
+	
+}
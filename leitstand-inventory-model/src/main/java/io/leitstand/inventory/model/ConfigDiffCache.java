@@ -0,0 +1,68 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * A bounded cache of configuration differences.
+ * <p>
+ * The cache is keyed by the content hashes of the base and the target configuration.
+ * Since revisions are immutable with respect to their content, cached differences never become stale.
+ * The least recently used difference is evicted when the cache holds {@link #CAPACITY} differences.
+ * </p>
+ * @see ConfigDiff
+ */
+@ApplicationScoped
+public class ConfigDiffCache {
+
+	static final int CAPACITY = 256;
+	
+	private final Map<String,ConfigDiff> diffs = new LinkedHashMap<String,ConfigDiff>(CAPACITY, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String,ConfigDiff> eldest) {
+			return size() > CAPACITY;
+		}
+	};
+	
+	/**
+	 * Returns the cached difference or computes and caches the difference if no cached difference exists.
+	 * The difference is computed outside the lock of the cache.
+	 * @param baseHash the content hash of the base configuration
+	 * @param targetHash the content hash of the target configuration
+	 * @param diff computes the difference
+	 * @return the difference between both configurations
+	 */
+	ConfigDiff diff(String baseHash, String targetHash, Supplier<ConfigDiff> diff) {
+		if(baseHash == null || targetHash == null) {
+			// Legacy revisions without content hash
+			return diff.get();
+		}
+		String key = baseHash+":"+targetHash;
+		synchronized(diffs) {
+			ConfigDiff cached = diffs.get(key);
+			if(cached != null) {
+				return cached;
+			}
+		}
+		ConfigDiff computed = diff.get();
+		synchronized(diffs) {
+			diffs.put(key, computed);
+		}
+		return computed;
+	}
+	
+	int size() {
+		synchronized(diffs) {
+			return diffs.size();
+		}
+	}
+	
+}
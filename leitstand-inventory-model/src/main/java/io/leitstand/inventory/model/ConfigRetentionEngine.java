@@ -0,0 +1,214 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.service.ConfigRetentionReport.newConfigRetentionReport;
+import static io.leitstand.inventory.service.ReasonCode.IVT8003I_CONFIG_RETENTION_COMPLETED;
+import static io.leitstand.inventory.service.ReasonCode.IVT8004E_CONFIG_RETENTION_FAILED;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.lang.Thread.currentThread;
+import static java.lang.Thread.sleep;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import io.leitstand.commons.ShutdownListener;
+import io.leitstand.commons.StartupListener;
+import io.leitstand.inventory.model.ConfigRetentionEngineService.ConfigSeries;
+import io.leitstand.inventory.service.ConfigRetentionReport;
+import io.leitstand.inventory.service.ElementConfigId;
+
+/**
+ * Removes superseded element configuration revisions in accordance with the configured retention policies.
+ * <p>
+ * The engine runs once per hour. Revisions are removed in batches of {@link #BATCH_SIZE} revisions,
+ * whereby each batch is removed in its own transaction.
+ * Afterwards, configuration blobs that are not referenced by any revision are removed.
+ * Only the node holding the {@link ConfigRetentionLease} runs the retention, 
+ * such that the nodes of a cluster do not process the same revisions concurrently.
+ * All other nodes skip their run.
+ * The report of the last run executed by this node is available via {@link #getLastReport()}.
+ * @see Config_RetentionPolicy
+ */
+@ApplicationScoped
+public class ConfigRetentionEngine implements Runnable, StartupListener, ShutdownListener{
+
+	private static final Logger LOG = Logger.getLogger(ConfigRetentionEngine.class.getName());
+
+	static final int BATCH_SIZE = 100;
+
+	private static final long RUN_INTERVAL = HOURS.toMillis(1);
+
+	/** The lease outlasts the run interval, such that the node holding the lease keeps the lease from run to run.*/
+	private static final long LEASE_DURATION = 2 * RUN_INTERVAL;
+
+	/** Blobs younger than this are not removed, as the referring revision might not be committed yet.*/
+	private static final long ORPHANED_BLOB_GRACE_PERIOD = HOURS.toMillis(1);
+
+	@Resource
+	private ManagedExecutorService pool;
+
+	@Inject
+	private ConfigRetentionEngineService service;
+
+	private final String node = randomUUID().toString();
+
+	private volatile boolean run;
+
+	private volatile ConfigRetentionReport lastReport;
+
+	protected ConfigRetentionEngine() {
+		// CDI
+	}
+
+	ConfigRetentionEngine(ConfigRetentionEngineService service){
+		this.service = service;
+	}
+
+	@Override
+	public void onStartup() {
+		this.run = true;
+		pool.execute(this);
+	}
+
+	@Override
+	public void onShutdown() {
+		this.run = false;
+		try {
+			service.releaseLease(node);
+		} catch (Exception e) {
+			LOG.fine(() -> format("Cannot release configuration retention lease of node %s: %s", 
+								  node, 
+								  e.getMessage()));
+		}
+	}
+
+	@Override
+	public void run() {
+		long next = currentTimeMillis();
+		while(run) {
+			if(currentTimeMillis() >= next) {
+				runRetention();
+				next = currentTimeMillis() + RUN_INTERVAL;
+			}
+			try {
+				sleep(SECONDS.toMillis(60));
+			} catch (InterruptedException e) {
+				currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Runs the retention policies and removes all unreferenced configuration blobs,
+	 * provided that this node holds the retention lease.
+	 * @return the report of this run or <code>null</code> if another node holds the retention lease.
+	 */
+	ConfigRetentionReport runRetention() {
+		Date started = new Date();
+		try {
+			if(!acquireLease()) {
+				LOG.fine(() -> format("Configuration retention skipped on node %s, because another node runs the retention.",
+									  node));
+				return null;
+			}
+		} catch (Exception e) {
+			LOG.fine(() -> format("Cannot acquire configuration retention lease on node %s: %s", 
+								  node, 
+								  e.getMessage()));
+			return null;
+		}
+		int removedRevisions = 0;
+		int materializedRevisions = 0;
+		int removedBlobs = 0;
+		int batches = 0;
+		boolean failed = false;
+		try {
+			List<Config_RetentionPolicy> policies = service.getRetentionPolicies();
+			if(!policies.isEmpty()) {
+				for(ConfigSeries series : service.findConfigSeries()) {
+					if(!acquireLease()) {
+						// Lease has expired and was acquired by another node.
+						throw new IllegalStateException(format("Configuration retention lease of node %s was lost",node));
+					}
+					List<ElementConfigId> removable = service.selectRemovableRevisions(series,
+																					   policies,
+																					   started);
+					// Revisions are ordered from latest to oldest.
+					// Removing the latest revisions first avoids materializing revisions that are removed by a subsequent batch.
+					for(int i=0; i < removable.size(); i+=BATCH_SIZE) {
+						ConfigRetentionReport batch = service.removeRevisions(removable.subList(i,
+																								min(i+BATCH_SIZE,removable.size())));
+						removedRevisions += batch.getRemovedRevisions();
+						materializedRevisions += batch.getMaterializedRevisions();
+						removedBlobs += batch.getRemovedBlobs();
+						batches++;
+					}
+				}
+			}
+			Date createdBefore = new Date(started.getTime() - ORPHANED_BLOB_GRACE_PERIOD);
+			int count;
+			do {
+				count = service.removeOrphanedBlobs(createdBefore, BATCH_SIZE);
+				if(count > 0) {
+					removedBlobs += count;
+					batches++;
+				}
+			} while(count == BATCH_SIZE);
+		} catch (Exception e) {
+			failed = true;
+			LOG.warning(() -> format("%s: Configuration retention failed due to %s",
+									 IVT8004E_CONFIG_RETENTION_FAILED.getReasonCode(),
+									 e.getMessage()));
+		}
+		ConfigRetentionReport report = newConfigRetentionReport()
+									   .withNode(node)
+									   .withDateStarted(started)
+									   .withDuration(currentTimeMillis() - started.getTime())
+									   .withRemovedRevisions(removedRevisions)
+									   .withMaterializedRevisions(materializedRevisions)
+									   .withRemovedBlobs(removedBlobs)
+									   .withBatches(batches)
+									   .withFailed(failed)
+									   .build();
+		LOG.info(() -> format("%s: Configuration retention on node %s removed %d revisions and %d blobs in %d batches within %d ms. %d revisions were materialized.",
+							  IVT8003I_CONFIG_RETENTION_COMPLETED.getReasonCode(),
+							  report.getNode(),
+							  report.getRemovedRevisions(),
+							  report.getRemovedBlobs(),
+							  report.getBatches(),
+							  report.getDuration(),
+							  report.getMaterializedRevisions()));
+		this.lastReport = report;
+		return report;
+	}
+
+	private boolean acquireLease() {
+		long now = currentTimeMillis();
+		return service.acquireLease(node, 
+									new Date(now), 
+									new Date(now + LEASE_DURATION));
+	}
+	
+	/**
+	 * Returns the report of the last retention run.
+	 * @return the report of the last retention run or <code>null</code> if no run has been completed yet.
+	 */
+	public ConfigRetentionReport getLastReport() {
+		return lastReport;
+	}
+
+}
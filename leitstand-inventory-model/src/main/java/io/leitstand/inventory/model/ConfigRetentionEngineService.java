@@ -0,0 +1,260 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.commons.db.DatabaseService.prepare;
+import static io.leitstand.inventory.model.Config_RetentionPolicy.findAllRetentionPolicies;
+import static io.leitstand.inventory.model.Config_RetentionPolicy.selectPolicy;
+import static io.leitstand.inventory.model.Element_Config.findRetainedDependentRevisions;
+import static io.leitstand.inventory.model.Element_Config.findRevisionsBlobDigests;
+import static io.leitstand.inventory.model.Element_Config.removeSupersededRevisions;
+import static io.leitstand.inventory.model.Element_ConfigHead.refreshConfigHeads;
+import static io.leitstand.inventory.model.Element_ConfigHead.removeEmptyConfigHeads;
+import static io.leitstand.inventory.service.ConfigRetentionReport.newConfigRetentionReport;
+import static io.leitstand.inventory.service.ConfigurationState.configurationState;
+import static io.leitstand.inventory.service.ElementConfigId.elementConfigId;
+import static io.leitstand.inventory.service.ElementConfigName.elementConfigName;
+import static io.leitstand.inventory.service.ElementRoleName.elementRoleName;
+import static java.lang.String.format;
+import static java.util.Collections.emptyList;
+
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.inject.Inject;
+
+import io.leitstand.commons.db.DatabaseService;
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.model.Service;
+import io.leitstand.inventory.service.ConfigRetentionReport;
+import io.leitstand.inventory.service.ElementConfigId;
+import io.leitstand.inventory.service.ElementConfigName;
+import io.leitstand.inventory.service.ElementRoleName;
+
+/**
+ * Transactional operations of the {@link ConfigRetentionEngine}.
+ * <p>
+ * Every method runs in its own transaction,
+ * so that the engine can remove revisions in small batches without holding long locks.
+ */
+@Service
+public class ConfigRetentionEngineService {
+
+	private static final Logger LOG = Logger.getLogger(ConfigRetentionEngineService.class.getName());
+
+	private static final String LEASE_NAME = "config_retention";
+
+	/**
+	 * A configuration of an element with superseded revisions.
+	 */
+	static final class ConfigSeries {
+
+		private final long elementId;
+		private final ElementRoleName elementRole;
+		private final ElementConfigName configName;
+
+		ConfigSeries(long elementId,
+					 ElementRoleName elementRole,
+					 ElementConfigName configName){
+			this.elementId = elementId;
+			this.elementRole = elementRole;
+			this.configName = configName;
+		}
+
+		long getElementId() {
+			return elementId;
+		}
+
+		ElementRoleName getElementRole() {
+			return elementRole;
+		}
+
+		ElementConfigName getConfigName() {
+			return configName;
+		}
+
+	}
+
+	private Repository repository;
+	private DatabaseService db;
+	private ConfigBlobStore blobs;
+
+	protected ConfigRetentionEngineService() {
+		// CDI
+	}
+
+	@Inject
+	protected ConfigRetentionEngineService(@Inventory Repository repository,
+										   @Inventory DatabaseService db,
+										   ConfigBlobStore blobs) {
+		this.repository = repository;
+		this.db = db;
+		this.blobs = blobs;
+	}
+
+	/**
+	 * Acquires or renews the retention lease of the given node.
+	 * The lease is acquired if no other node holds an unexpired lease.
+	 * @param node the retention engine node ID
+	 * @param now the current date
+	 * @param expires the expiry date of the acquired lease
+	 * @return <code>true</code> if the given node holds the lease, 
+	 * <code>false</code> if another node holds an unexpired lease.
+	 */
+	public boolean acquireLease(String node, Date now, Date expires) {
+		// The lease row is locked, such that only one of many nodes attempting to acquire an expired lease succeeds.
+		if(db.executeUpdate(prepare("UPDATE inventory.config_retention_lease SET node = ?, tsexpires = ? WHERE name = ? AND (node = ? OR tsexpires < ?)",
+									node,
+									expires,
+									LEASE_NAME,
+									node,
+									now)) > 0) {
+			return true;
+		}
+		List<String> holders = db.executeQuery(prepare("SELECT node FROM inventory.config_retention_lease WHERE name = ?", 
+													   LEASE_NAME), 
+											   rs -> rs.getString(1));
+		if(!holders.isEmpty()) {
+			LOG.fine(() -> format("Configuration retention lease is held by node %s.",holders.get(0)));
+			return false;
+		}
+		// A concurrent creation of the lease violates the primary key and rolls back this transaction.
+		db.executeUpdate(prepare("INSERT INTO inventory.config_retention_lease (name, node, tsexpires) VALUES (?,?,?)", 
+								 LEASE_NAME, 
+								 node, 
+								 expires));
+		return true;
+	}
+	
+	/**
+	 * Releases the retention lease of the given node, 
+	 * such that another node can run the configuration retention immediately.
+	 * @param node the retention engine node ID
+	 */
+	public void releaseLease(String node) {
+		db.executeUpdate(prepare("DELETE FROM inventory.config_retention_lease WHERE name = ? AND node = ?",
+								 LEASE_NAME,
+								 node));
+	}
+	
+	public List<Config_RetentionPolicy> getRetentionPolicies(){
+		return repository.execute(findAllRetentionPolicies());
+	}
+
+	/**
+	 * Returns all element configurations with superseded revisions.
+	 * @return all element configurations with superseded revisions.
+	 */
+	public List<ConfigSeries> findConfigSeries(){
+		return db.executeQuery(prepare("SELECT DISTINCT c.element_id, r.name, c.name "+
+									   "FROM inventory.element_config c "+
+									   "JOIN inventory.element e "+
+									   "ON c.element_id = e.id "+
+									   "JOIN inventory.elementrole r "+
+									   "ON e.elementrole_id = r.id "+
+									   "WHERE c.state = 'SUPERSEDED'"),
+							   rs -> new ConfigSeries(rs.getLong(1),
+									   				  elementRoleName(rs.getString(2)),
+									   				  elementConfigName(rs.getString(3))));
+	}
+
+	/**
+	 * Selects the superseded revisions of an element configuration that are not retained by the applicable policy.
+	 * @param series the element configuration
+	 * @param policies all retention policies
+	 * @param now the reference time of the retention run
+	 * @return the IDs of all removable revisions, ordered from latest to oldest.
+	 */
+	public List<ElementConfigId> selectRemovableRevisions(ConfigSeries series,
+														  List<Config_RetentionPolicy> policies,
+														  Date now){
+		Config_RetentionPolicy policy = selectPolicy(policies,
+													 series.getElementRole(),
+													 series.getConfigName());
+		if(policy == null) {
+			return emptyList();
+		}
+		List<ConfigRevision> revisions = db.executeQuery(prepare("SELECT uuid, state, tsmodified "+
+																 "FROM inventory.element_config "+
+																 "WHERE element_id = ? "+
+																 "AND name = ? "+
+																 "ORDER BY tsmodified DESC",
+																 series.getElementId(),
+																 series.getConfigName()),
+														 rs -> new ConfigRevision(elementConfigId(rs.getString(1)),
+																 				  configurationState(rs.getString(2)),
+																 				  rs.getTimestamp(3)));
+		return policy.selectRemovableRevisions(revisions, now);
+	}
+
+	/**
+	 * Removes a batch of superseded revisions.
+	 * Retained revisions stored as delta of a removed revision are materialized,
+	 * the heads of the affected configurations are refreshed
+	 * and blobs that are no longer referenced are removed.
+	 * @param ids the IDs of the revisions to be removed
+	 * @return the statistics of the removed batch
+	 */
+	public ConfigRetentionReport removeRevisions(List<ElementConfigId> ids) {
+		List<Element_Config> dependents = repository.execute(findRetainedDependentRevisions(ids));
+		for(Element_Config dependent : dependents) {
+			blobs.materialize(dependent);
+		}
+		repository.flush();
+		List<String> digests = repository.execute(findRevisionsBlobDigests(ids));
+		configsModified(ids);
+		int removed = repository.execute(removeSupersededRevisions(ids));
+		// Heads must not point to removed revisions.
+		db.executeUpdate(removeEmptyConfigHeads(ids));
+		db.executeUpdate(refreshConfigHeads(ids));
+		int removedBlobs = blobs.removeUnreferenced(digests);
+		LOG.fine(() -> format("Removed %d superseded configuration revisions and %d configuration blobs. Materialized %d revisions.",
+							  removed,
+							  removedBlobs,
+							  dependents.size()));
+		return newConfigRetentionReport()
+			   .withRemovedRevisions(removed)
+			   .withMaterializedRevisions(dependents.size())
+			   .withRemovedBlobs(removedBlobs)
+			   .withBatches(1)
+			   .build();
+	}
+
+	private void configsModified(List<ElementConfigId> ids) {
+		StringBuilder params = new StringBuilder();
+		List<Object> args = new LinkedList<>();
+		for(ElementConfigId id : ids) {
+			params.append(args.isEmpty() ? "?" : ",?");
+			args.add(id.toString());
+		}
+		// The configuration version is kept in a dedicated row to not lock the element rows.
+		db.executeUpdate(prepare("UPDATE inventory.element_config_version "+
+								 "SET modcount = modcount + 1 "+
+								 "WHERE element_id IN (SELECT element_id "+
+								 					  "FROM inventory.element_config "+
+								 					  "WHERE uuid IN ("+params+"))",
+								 args));
+		// Create the version of elements whose configurations were stored before the versions were introduced.
+		db.executeUpdate(prepare("INSERT INTO inventory.element_config_version (element_id, modcount) "+
+								 "SELECT DISTINCT c.element_id, 1 "+
+								 "FROM inventory.element_config c "+
+								 "WHERE c.uuid IN ("+params+") "+
+								 "AND NOT EXISTS (SELECT 1 FROM inventory.element_config_version v "+
+								 				 "WHERE v.element_id = c.element_id)",
+								 args));
+	}
+
+	/**
+	 * Removes a batch of configuration blobs that are not referenced by any revision.
+	 * @param createdBefore only blobs created before this date are removed
+	 * @param limit the maximum number of blobs to be removed
+	 * @return the number of removed blobs
+	 */
+	public int removeOrphanedBlobs(Date createdBefore, int limit) {
+		return blobs.removeOrphanedBlobs(createdBefore, limit);
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static javax.persistence.TemporalType.TIMESTAMP;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+
+/**
+ * The lease of the node running the {@link ConfigRetentionEngine}.
+ * <p>
+ * Only the node holding an unexpired lease runs the configuration retention,
+ * such that the nodes of a cluster do not remove the same revisions concurrently.
+ * The node holding the lease renews the lease before every configuration it processes.
+ * When the node fails to renew its lease, the lease expires and the next node starting a retention run acquires the lease.
+ * </p>
+ * @see ConfigRetentionEngineService#acquireLease(String, Date, Date)
+ */
+@Entity
+@Table(schema="inventory", name="config_retention_lease")
+public class ConfigRetentionLease implements Serializable{
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	private String name;
+	
+	private String node;
+
+	@Temporal(TIMESTAMP)
+	private Date tsexpires;
+
+	protected ConfigRetentionLease() {
+		// JPA
+	}
+
+	public String getName() {
+		return name;
+	}
+	
+	public String getNode() {
+		return node;
+	}
+
+	public Date getDateExpires() {
+		return new Date(tsexpires.getTime());
+	}
+
+}
@@ -0,0 +1,41 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import java.util.Date;
+
+import io.leitstand.inventory.service.ConfigurationState;
+import io.leitstand.inventory.service.ElementConfigId;
+
+/**
+ * The metadata of an element configuration revision being evaluated by a retention policy.
+ * @see Config_RetentionPolicy#selectRemovableRevisions(java.util.List, Date)
+ */
+final class ConfigRevision {
+
+	private final ElementConfigId configId;
+	private final ConfigurationState configState;
+	private final Date dateModified;
+
+	ConfigRevision(ElementConfigId configId,
+				   ConfigurationState configState,
+				   Date dateModified) {
+		this.configId = configId;
+		this.configState = configState;
+		this.dateModified = new Date(dateModified.getTime());
+	}
+
+	ElementConfigId getConfigId() {
+		return configId;
+	}
+
+	ConfigurationState getConfigState() {
+		return configState;
+	}
+
+	Date getDateModified() {
+		return new Date(dateModified.getTime());
+	}
+
+}
@@ -0,0 +1,22 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+/**
+ * Enumeration of the storage modes of an element configuration revision.
+ * <p>
+ * A <code>SNAPSHOT</code> revision stores the full configuration,
+ * whereas a <code>DELTA</code> revision stores the differences to its base revision only.
+ * @see Element_Config
+ * @see ConfigDelta
+ */
+public enum ConfigRevisionStorage {
+
+	/** The revision stores the full configuration.*/
+	SNAPSHOT,
+
+	/** The revision stores the delta to the base revision.*/
+	DELTA;
+
+}
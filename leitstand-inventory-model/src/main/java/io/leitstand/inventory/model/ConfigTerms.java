@@ -0,0 +1,119 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static java.util.Locale.ENGLISH;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits element configurations and search queries into terms.
+ * <p>
+ * A term is a case-insensitive sequence of letters, digits and the characters <code>_.:/-</code>,
+ * such that IP addresses, prefixes, interface names and dotted identifiers form a single term.
+ * Leading and trailing punctuation is removed and terms are truncated to {@link #MAX_TERM_LENGTH} characters.
+ * @see Element_ConfigTerm
+ */
+final class ConfigTerms {
+
+	static final int MAX_TERM_LENGTH = 64;
+
+	/**
+	 * Returns the terms of a configuration along with the numbers of the lines they occur in.
+	 * Lines are numbered starting with 1.
+	 * @param config the configuration
+	 * @return the terms and their ascending line numbers in order of first occurrence.
+	 */
+	static Map<String,List<Integer>> indexTerms(String config){
+		Map<String,List<Integer>> terms = new LinkedHashMap<>();
+		if(config == null) {
+			return terms;
+		}
+		int line = 1;
+		int start = -1;
+		for(int i=0; i <= config.length(); i++) {
+			char c = i < config.length() ? config.charAt(i) : '\n';
+			if(isTermChar(c)) {
+				if(start < 0) {
+					start = i;
+				}
+				continue;
+			}
+			if(start >= 0) {
+				String term = term(config,start,i);
+				if(term != null) {
+					List<Integer> lines = terms.computeIfAbsent(term, k -> new ArrayList<>());
+					if(lines.isEmpty() || lines.get(lines.size()-1) != line) {
+						lines.add(line);
+					}
+				}
+				start = -1;
+			}
+			if(c == '\n') {
+				line++;
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * Returns the distinct terms of a search query.
+	 * @param query the search query
+	 * @return the distinct terms of the query in order of occurrence.
+	 */
+	static Set<String> queryTerms(String query){
+		Set<String> terms = new LinkedHashSet<>();
+		if(query == null) {
+			return terms;
+		}
+		int start = -1;
+		for(int i=0; i <= query.length(); i++) {
+			if(i < query.length() && isTermChar(query.charAt(i))) {
+				if(start < 0) {
+					start = i;
+				}
+				continue;
+			}
+			if(start >= 0) {
+				String term = term(query,start,i);
+				if(term != null) {
+					terms.add(term);
+				}
+				start = -1;
+			}
+		}
+		return terms;
+	}
+
+	private static boolean isTermChar(char c) {
+		return Character.isLetterOrDigit(c) || isPunctuation(c);
+	}
+
+	private static boolean isPunctuation(char c) {
+		return c == '_' || c == '.' || c == ':' || c == '/' || c == '-';
+	}
+
+	private static String term(String s, int start, int end) {
+		while(start < end && isPunctuation(s.charAt(start)) && s.charAt(start) != '_') {
+			start++;
+		}
+		while(end > start && isPunctuation(s.charAt(end-1)) && s.charAt(end-1) != '_') {
+			end--;
+		}
+		if(start == end) {
+			return null;
+		}
+		return s.substring(start, Math.min(end, start+MAX_TERM_LENGTH)).toLowerCase(ENGLISH);
+	}
+
+	private ConfigTerms() {
+		// No instances allowed
+	}
+
+}
@@ -0,0 +1,200 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.commons.model.ObjectUtil.isDifferent;
+import static io.leitstand.inventory.service.ConfigurationState.SUPERSEDED;
+import static java.util.concurrent.TimeUnit.DAYS;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import io.leitstand.commons.model.AbstractEntity;
+import io.leitstand.commons.model.Query;
+import io.leitstand.inventory.jpa.ElementConfigNameConverter;
+import io.leitstand.inventory.jpa.ElementRoleNameConverter;
+import io.leitstand.inventory.service.ElementConfigId;
+import io.leitstand.inventory.service.ElementConfigName;
+import io.leitstand.inventory.service.ElementRoleName;
+
+/**
+ * A retention policy for superseded element configuration revisions.
+ * <p>
+ * The policy refers to the element role by name, such that a policy can be defined before the role exists
+ * and does not prevent a role from being removed.
+ * @see io.leitstand.inventory.service.ConfigRetentionPolicy
+ * @see ConfigRetentionEngine
+ */
+@Entity
+@Table(schema="inventory",
+	   name="config_retention_policy",
+	   uniqueConstraints=@UniqueConstraint(columnNames={"elementrole_name","config_name"}))
+@NamedQuery(name="Config_RetentionPolicy.findAll",
+			query="SELECT p FROM Config_RetentionPolicy p ORDER BY p.elementRole, p.configName")
+public class Config_RetentionPolicy extends AbstractEntity {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final long DAY = DAYS.toMillis(1);
+
+	public static Query<List<Config_RetentionPolicy>> findAllRetentionPolicies(){
+		return em -> em.createNamedQuery("Config_RetentionPolicy.findAll",Config_RetentionPolicy.class)
+					   .getResultList();
+	}
+
+	/**
+	 * Selects the most specific policy that applies to the given configuration.
+	 * @param policies all retention policies
+	 * @param elementRole the element role
+	 * @param configName the configuration name
+	 * @return the most specific policy or <code>null</code> if no policy applies to the configuration.
+	 */
+	static Config_RetentionPolicy selectPolicy(List<Config_RetentionPolicy> policies,
+											   ElementRoleName elementRole,
+											   ElementConfigName configName) {
+		Config_RetentionPolicy selected = null;
+		for(Config_RetentionPolicy policy : policies) {
+			if(policy.appliesTo(elementRole, configName) &&
+			   (selected == null || policy.getSpecificity() > selected.getSpecificity())) {
+				selected = policy;
+			}
+		}
+		return selected;
+	}
+
+	@Convert(converter=ElementRoleNameConverter.class)
+	@Column(name="elementrole_name")
+	private ElementRoleName elementRole;
+
+	@Convert(converter=ElementConfigNameConverter.class)
+	@Column(name="config_name")
+	private ElementConfigName configName;
+
+	@Column(name="keep_last")
+	private int keepLast;
+
+	@Column(name="keep_all_days")
+	private Integer keepAllDays;
+
+	@Column(name="keep_daily_days")
+	private Integer keepDailyDays;
+
+	protected Config_RetentionPolicy() {
+		// JPA
+	}
+
+	public Config_RetentionPolicy(ElementRoleName elementRole,
+								  ElementConfigName configName) {
+		this.elementRole = elementRole;
+		this.configName = configName;
+	}
+
+	public ElementRoleName getElementRole() {
+		return elementRole;
+	}
+
+	public ElementConfigName getConfigName() {
+		return configName;
+	}
+
+	public int getKeepLast() {
+		return keepLast;
+	}
+
+	public void setKeepLast(int keepLast) {
+		this.keepLast = keepLast;
+	}
+
+	public Integer getKeepAllDays() {
+		return keepAllDays;
+	}
+
+	public void setKeepAllDays(Integer keepAllDays) {
+		this.keepAllDays = keepAllDays;
+	}
+
+	public Integer getKeepDailyDays() {
+		return keepDailyDays;
+	}
+
+	public void setKeepDailyDays(Integer keepDailyDays) {
+		this.keepDailyDays = keepDailyDays;
+	}
+
+	/**
+	 * Tests whether this policy is defined for the given element role and configuration name.
+	 * <code>null</code> values denote a policy for all element roles or all configurations respectively.
+	 * @param elementRole the element role
+	 * @param configName the configuration name
+	 * @return <code>true</code> if this policy is defined for the given scope.
+	 */
+	boolean isScope(ElementRoleName elementRole, ElementConfigName configName) {
+		return !isDifferent(this.elementRole, elementRole) && !isDifferent(this.configName, configName);
+	}
+
+	boolean appliesTo(ElementRoleName elementRole, ElementConfigName configName) {
+		return (this.elementRole == null || this.elementRole.equals(elementRole)) &&
+			   (this.configName == null || this.configName.equals(configName));
+	}
+
+	/**
+	 * Returns the specificity of this policy.
+	 * A policy for a configuration name is more specific than a policy for an element role.
+	 * @return the specificity of this policy.
+	 */
+	int getSpecificity() {
+		return (configName != null ? 2 : 0) + (elementRole != null ? 1 : 0);
+	}
+
+	/**
+	 * Tests whether a superseded revision must be retained.
+	 * @param rank the rank of the revision, starting with 0 for the latest revision of the configuration.
+	 * @param age the age of the revision in milliseconds
+	 * @param latestOfDay whether the revision is the latest revision of its day.
+	 * @return <code>true</code> if the revision must be retained, <code>false</code> if it can be removed.
+	 */
+	boolean isRetained(int rank, long age, boolean latestOfDay) {
+		if(rank < keepLast) {
+			return true;
+		}
+		if(keepAllDays != null && age < keepAllDays * DAY) {
+			return true;
+		}
+		return latestOfDay && keepDailyDays != null && age < keepDailyDays * DAY;
+	}
+	
+	/**
+	 * Selects the superseded revisions of a configuration that are not retained by this policy.
+	 * Days are computed in UTC.
+	 * @param revisions all revisions of the configuration, ordered from latest to oldest.
+	 * @param now the reference time to compute the age of a revision
+	 * @return the IDs of the removable revisions, ordered from latest to oldest.
+	 */
+	List<ElementConfigId> selectRemovableRevisions(List<ConfigRevision> revisions, Date now){
+		List<ElementConfigId> removable = new ArrayList<>();
+		Set<Long> days = new HashSet<>();
+		int rank = 0;
+		for(ConfigRevision revision : revisions) {
+			long modified = revision.getDateModified().getTime();
+			boolean latestOfDay = days.add(modified / DAY);
+			if(revision.getConfigState() == SUPERSEDED && 
+			   !isRetained(rank, now.getTime() - modified, latestOfDay)) {
+				removable.add(revision.getConfigId());
+			}
+			rank++;
+		}
+		return removable;
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.Element.findElementById;
+import static io.leitstand.inventory.model.Element_ConfigHead.findConfigHead;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.Flow;
+import io.leitstand.inventory.service.ElementConfigName;
+
+/**
+ * Attempts to create the {@link Element_ConfigHead} of an element configuration in a separate transaction.
+ * <p>
+ * The first revisions of an element configuration can be stored concurrently.
+ * Creating the head in a subtransaction averts that a concurrent creation of the same head
+ * rolls back the transaction that stores the element configuration.
+ * The created head does not point to any revision until the transaction that stores the revision updates the head.
+ */
+class CreateConfigHeadFlow implements Flow<Element_ConfigHead>{
+
+	private Element element;
+	private ElementConfigName configName;
+	
+	/**
+	 * Create a <code>CreateConfigHeadFlow</code>.
+	 * @param element - the element
+	 * @param configName - the configuration name
+	 */
+	CreateConfigHeadFlow(Element element, ElementConfigName configName) {
+		this.element = element;
+		this.configName = configName;
+	}
+	
+	/**
+	 * Creates the head unless the head exists already.
+	 * <p>
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void transaction(Repository repository) {
+		Element attached = repository.execute(findElementById(element.getElementId()));
+		if(attached == null) {
+			// Element has not been committed yet.
+			return;
+		}
+		Element_ConfigHead head = repository.execute(findConfigHead(attached, configName));
+		if(head == null) {
+			repository.add(new Element_ConfigHead(attached, configName));
+		}
+	}
+	
+	/**
+	 * Fetches the head.
+	 * Returns <code>null</code> if the head does not exist.
+	 * @return the attached head entity.
+	 */
+	@Override
+	public Element_ConfigHead resume(Repository repository) {
+		return repository.execute(findConfigHead(element, configName));
+	}
+	
+}
@@ -0,0 +1,58 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.Element.findElementById;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.Flow;
+
+/**
+ * Attempts to create the {@link Element_ConfigVersion} of an element in a separate transaction.
+ * <p>
+ * The first configurations of an element can be stored concurrently.
+ * Creating the counter in a subtransaction averts that a concurrent creation of the same counter
+ * rolls back the transaction that stores the element configuration.
+ */
+class CreateConfigVersionFlow implements Flow<Element_ConfigVersion>{
+
+	private Element element;
+	
+	/**
+	 * Create a <code>CreateConfigVersionFlow</code>.
+	 * @param element - the element
+	 */
+	CreateConfigVersionFlow(Element element) {
+		this.element = element;
+	}
+	
+	/**
+	 * Creates the counter unless the counter exists already.
+	 * <p>
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void transaction(Repository repository) {
+		Element attached = repository.execute(findElementById(element.getElementId()));
+		if(attached == null) {
+			// Element has not been committed yet.
+			return;
+		}
+		Element_ConfigVersion version = repository.find(Element_ConfigVersion.class, attached.getId());
+		if(version == null) {
+			repository.add(new Element_ConfigVersion(attached));
+		}
+	}
+	
+	/**
+	 * Fetches the counter.
+	 * Returns <code>null</code> if the counter does not exist.
+	 * @return the attached counter entity.
+	 */
+	@Override
+	public Element_ConfigVersion resume(Repository repository) {
+		return repository.find(Element_ConfigVersion.class, element.getId());
+	}
+	
+}
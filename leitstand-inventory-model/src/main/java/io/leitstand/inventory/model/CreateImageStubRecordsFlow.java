@@ -0,0 +1,87 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.Image.findByElementAndImageTypeAndVersion;
+import static io.leitstand.inventory.service.ImageId.randomImageId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.Flow;
+import io.leitstand.inventory.service.ElementInstalledImageReference;
+
+/**
+ * Attempts to create stub records for reported but unknown {@link Image images}.
+ * <p>
+ * All stub records are created in a single subtransaction.
+ */
+class CreateImageStubRecordsFlow implements Flow<List<Image>>{
+
+	private Element element;
+	private List<ElementInstalledImageReference> installed;
+	
+	
+	/**
+	 * Create a <code>CreateImageStubRecordsFlow</code>.
+	 * @param element - the element that has reported the unknown images
+	 * @param installed - the data of the unknown images.
+	 */
+	CreateImageStubRecordsFlow(Element element, List<ElementInstalledImageReference> installed) {
+		this.element = element;
+		this.installed = installed;
+	}
+	
+	/**
+	 * Checks whether the images exist and attempts to create an image stub record for every image that does not exist.
+	 * <p>
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void transaction(Repository repository) {
+		// Merge the existing element entity to this transaction.
+		Element attachedElement = repository.merge(element);
+		for(ElementInstalledImageReference data : installed) {
+			Image image = repository.execute(findByElementAndImageTypeAndVersion(attachedElement, 
+																				  data.getImageType(), 
+																				  data.getImageName(),
+																				  data.getImageVersion()));
+			
+			if(image == null) {
+				image = new Image(randomImageId(), 
+								  "net.rtbrick",
+								  data.getImageType(),
+								  data.getImageName(),
+								  attachedElement.getElementRole(),
+								  attachedElement.getPlatform(),
+								  data.getImageVersion());
+				repository.add(image);
+			}
+		}
+	}
+
+
+	/**
+	 * Fetches the requested images. 
+	 * The returned list has the same order as the requested images and 
+	 * contains <code>null</code> for every image that does not exist.
+	 * The images are attached to the resumed transaction.
+	 * This method is called after execution of {@link #transaction(Repository)} to return the attached images to the resumed transaction.
+	 * @return the attached image entities.
+	 */
+	@Override
+	public List<Image> resume(Repository repository) {
+		List<Image> images = new ArrayList<>(installed.size());
+		for(ElementInstalledImageReference data : installed) {
+			images.add(repository.execute(findByElementAndImageTypeAndVersion(element, 
+																			   data.getImageType(), 
+																			   data.getImageName(),
+																			   data.getImageVersion())));
+		}
+		return images;
+	}
+
+	
+}
@@ -8,6 +8,7 @@ import static io.leitstand.commons.messages.MessageFactory.createMessage;
 import static io.leitstand.inventory.event.ElementClonedEvent.newElementClonedEvent;
 import static io.leitstand.inventory.jpa.AdministrativeStateConverter.administrativeStateDbString;
 import static io.leitstand.inventory.jpa.OperationalStateConverter.operationalStateDbString;
+import static io.leitstand.inventory.model.Element_ConfigHead.initializeConfigHeads;
 import static io.leitstand.inventory.service.AdministrativeState.NEW;
 import static io.leitstand.inventory.service.OperationalState.DOWN;
 import static io.leitstand.inventory.service.ReasonCode.IVT0306I_ELEMENT_CLONED;
@@ -117,12 +118,16 @@ public class DefaultCloneElementService implements CloneElementService{
 								 source.getId()));
 
 		// Copy configuration series
-		db.executeUpdate(prepare("INSERT INTO inventory.element_config (element_id, uuid, name, contenttype, config, tsmodified, comment) "+
-								 "SELECT ?, random_uuid(), name, contenttype, config, tsmodified, comment "+
+		// Revisions stored as delta keep referring to the base revision of the source element.
+		// Revisions stored as blob reference the same blob, i.e. the configuration itself is not copied.
+		db.executeUpdate(prepare("INSERT INTO inventory.element_config (element_id, uuid, name, state, contenttype, contenthash, creator, config, storage, blob_digest, base_uuid, delta_depth, tsmodified, comment) "+
+								 "SELECT ?, random_uuid(), name, state, contenttype, contenthash, creator, config, storage, blob_digest, base_uuid, delta_depth, tsmodified, comment "+
 								 "FROM inventory.element_config "+
 								 "WHERE element_id = ?",
 								 id,
 								 source.getId()));
+		// Point to the latest and active revisions of the copied configurations.
+		db.executeUpdate(initializeConfigHeads(id));
 		
 		// Copy installed images
 		db.executeUpdate(prepare("INSERT INTO inventory.element_image (element_id, image_id, image_state) "+
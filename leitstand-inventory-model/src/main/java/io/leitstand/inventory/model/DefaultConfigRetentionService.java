@@ -0,0 +1,150 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.commons.messages.MessageFactory.createMessage;
+import static io.leitstand.inventory.model.Config_RetentionPolicy.findAllRetentionPolicies;
+import static io.leitstand.inventory.service.ConfigRetentionPolicy.newConfigRetentionPolicy;
+import static io.leitstand.inventory.service.ReasonCode.IVT0335I_CONFIG_RETENTION_POLICY_STORED;
+import static io.leitstand.inventory.service.ReasonCode.IVT0336I_CONFIG_RETENTION_POLICY_REMOVED;
+import static io.leitstand.inventory.service.ReasonCode.IVT0338E_CONFIG_RETENTION_POLICY_NOT_FOUND;
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.inject.Inject;
+
+import io.leitstand.commons.EntityNotFoundException;
+import io.leitstand.commons.messages.Messages;
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.model.Service;
+import io.leitstand.inventory.service.ConfigRetentionPolicy;
+import io.leitstand.inventory.service.ConfigRetentionReport;
+import io.leitstand.inventory.service.ConfigRetentionService;
+import io.leitstand.inventory.service.ElementConfigName;
+import io.leitstand.inventory.service.ElementRoleName;
+
+@Service
+public class DefaultConfigRetentionService implements ConfigRetentionService {
+
+	private static final Logger LOG = Logger.getLogger(DefaultConfigRetentionService.class.getName());
+
+	private static final String ALL = "all";
+
+	private Repository repository;
+	private ConfigRetentionEngine engine;
+	private Messages messages;
+
+	protected DefaultConfigRetentionService() {
+		// CDI
+	}
+
+	@Inject
+	protected DefaultConfigRetentionService(@Inventory Repository repository,
+											ConfigRetentionEngine engine,
+											Messages messages) {
+		this.repository = repository;
+		this.engine = engine;
+		this.messages = messages;
+	}
+
+	@Override
+	public List<ConfigRetentionPolicy> getRetentionPolicies() {
+		List<ConfigRetentionPolicy> policies = new LinkedList<>();
+		for(Config_RetentionPolicy policy : repository.execute(findAllRetentionPolicies())) {
+			policies.add(policy(policy));
+		}
+		return unmodifiableList(policies);
+	}
+
+	@Override
+	public ConfigRetentionPolicy getRetentionPolicy(ElementRoleName elementRole,
+													ElementConfigName configName) {
+		Config_RetentionPolicy policy = findPolicy(elementRole, configName);
+		if(policy == null) {
+			LOG.fine(() -> format("%s: Retention policy for %s configurations of %s elements not found.",
+								  IVT0338E_CONFIG_RETENTION_POLICY_NOT_FOUND.getReasonCode(),
+								  scope(configName),
+								  scope(elementRole)));
+			throw new EntityNotFoundException(IVT0338E_CONFIG_RETENTION_POLICY_NOT_FOUND,
+											  scope(elementRole),
+											  scope(configName));
+		}
+		return policy(policy);
+	}
+
+	@Override
+	public boolean storeRetentionPolicy(ConfigRetentionPolicy settings) {
+		Config_RetentionPolicy policy = findPolicy(settings.getElementRole(),
+												   settings.getConfigName());
+		boolean created = false;
+		if(policy == null) {
+			policy = new Config_RetentionPolicy(settings.getElementRole(),
+												settings.getConfigName());
+			repository.add(policy);
+			created = true;
+		}
+		policy.setKeepLast(settings.getKeepLast());
+		policy.setKeepAllDays(settings.getKeepAllDays());
+		policy.setKeepDailyDays(settings.getKeepDailyDays());
+		LOG.fine(() -> format("%s: Retention policy for %s configurations of %s elements stored.",
+							  IVT0335I_CONFIG_RETENTION_POLICY_STORED.getReasonCode(),
+							  scope(settings.getConfigName()),
+							  scope(settings.getElementRole())));
+		messages.add(createMessage(IVT0335I_CONFIG_RETENTION_POLICY_STORED,
+								   scope(settings.getElementRole()),
+								   scope(settings.getConfigName())));
+		return created;
+	}
+
+	@Override
+	public void removeRetentionPolicy(ElementRoleName elementRole,
+									  ElementConfigName configName) {
+		Config_RetentionPolicy policy = findPolicy(elementRole, configName);
+		if(policy != null) {
+			repository.remove(policy);
+			LOG.fine(() -> format("%s: Retention policy for %s configurations of %s elements removed.",
+								  IVT0336I_CONFIG_RETENTION_POLICY_REMOVED.getReasonCode(),
+								  scope(configName),
+								  scope(elementRole)));
+			messages.add(createMessage(IVT0336I_CONFIG_RETENTION_POLICY_REMOVED,
+									   scope(elementRole),
+									   scope(configName)));
+		}
+	}
+
+	@Override
+	public ConfigRetentionReport getLastRetentionReport() {
+		return engine.getLastReport();
+	}
+
+	private Config_RetentionPolicy findPolicy(ElementRoleName elementRole,
+											  ElementConfigName configName) {
+		// The number of policies is small. Filtering in memory avoids comparing nullable query parameters.
+		for(Config_RetentionPolicy policy : repository.execute(findAllRetentionPolicies())) {
+			if(policy.isScope(elementRole, configName)) {
+				return policy;
+			}
+		}
+		return null;
+	}
+
+	private static ConfigRetentionPolicy policy(Config_RetentionPolicy policy) {
+		return newConfigRetentionPolicy()
+			   .withElementRole(policy.getElementRole())
+			   .withConfigName(policy.getConfigName())
+			   .withKeepLast(policy.getKeepLast())
+			   .withKeepAllDays(policy.getKeepAllDays())
+			   .withKeepDailyDays(policy.getKeepDailyDays())
+			   .build();
+	}
+
+	private static Object scope(Object scope) {
+		return scope != null ? scope : ALL;
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.ConfigTerms.queryTerms;
+import static io.leitstand.inventory.model.Element_ConfigTerm.findMatchingConfigs;
+import static io.leitstand.inventory.model.Element_ConfigTerm.findTerms;
+import static io.leitstand.inventory.service.ConfigurationState.ACTIVE;
+import static io.leitstand.inventory.service.ConfigurationState.CANDIDATE;
+import static io.leitstand.inventory.service.ConfigurationState.SUPERSEDED;
+import static io.leitstand.inventory.service.ElementConfigMatch.newElementConfigMatch;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.inject.Inject;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.model.Service;
+import io.leitstand.inventory.service.ConfigurationState;
+import io.leitstand.inventory.service.ElementConfigId;
+import io.leitstand.inventory.service.ElementConfigMatch;
+import io.leitstand.inventory.service.ElementConfigSearchService;
+
+@Service
+public class DefaultElementConfigSearchService implements ElementConfigSearchService {
+
+	private Repository repository;
+
+	protected DefaultElementConfigSearchService() {
+		// CDI
+	}
+
+	@Inject
+	protected DefaultElementConfigSearchService(@Inventory Repository repository) {
+		this.repository = repository;
+	}
+
+	@Override
+	public List<ElementConfigMatch> searchElementConfigs(String query,
+														 ConfigurationState configState,
+														 int offset,
+														 int limit) {
+		Set<String> terms = queryTerms(query);
+		if(terms.isEmpty() || configState == SUPERSEDED) {
+			// Superseded revisions are not indexed.
+			return emptyList();
+		}
+		Collection<ConfigurationState> states = configState != null ? singleton(configState) : asList(ACTIVE,CANDIDATE);
+		List<Element_Config> configs = repository.execute(findMatchingConfigs(terms,
+																			  states,
+																			  offset,
+																			  limit));
+		if(configs.isEmpty()) {
+			return emptyList();
+		}
+
+		List<ElementConfigId> ids = new ArrayList<>(configs.size());
+		for(Element_Config config : configs) {
+			ids.add(config.getConfigId());
+		}
+		Map<ElementConfigId,List<Element_ConfigTerm>> postings = new HashMap<>();
+		for(Element_ConfigTerm term : repository.execute(findTerms(ids, terms))) {
+			postings.computeIfAbsent(term.getConfigId(), k -> new LinkedList<>())
+					.add(term);
+		}
+
+		List<ElementConfigMatch> matches = new LinkedList<>();
+		for(Element_Config config : configs) {
+			Element element = config.getElement();
+			matches.add(newElementConfigMatch()
+						.withGroupId(element.getGroupId())
+						.withGroupName(element.getGroupName())
+						.withGroupType(element.getGroupType())
+						.withElementId(element.getElementId())
+						.withElementName(element.getElementName())
+						.withElementAlias(element.getElementAlias())
+						.withElementRole(element.getElementRoleName())
+						.withConfigId(config.getConfigId())
+						.withConfigName(config.getName())
+						.withConfigState(config.getConfigState())
+						.withLines(matchingLines(postings.get(config.getConfigId())))
+						.build());
+		}
+		return unmodifiableList(matches);
+	}
+
+	/**
+	 * Returns the lines containing all terms or the lines containing any term, if no line contains all terms.
+	 * @param terms the index entries of the search terms
+	 * @return the ascending numbers of the matching lines.
+	 */
+	static List<Integer> matchingLines(List<Element_ConfigTerm> terms){
+		if(terms == null) {
+			return emptyList();
+		}
+		TreeSet<Integer> all = null;
+		TreeSet<Integer> any = new TreeSet<>();
+		for(Element_ConfigTerm term : terms) {
+			List<Integer> lines = term.getLines();
+			any.addAll(lines);
+			if(all == null) {
+				all = new TreeSet<>(lines);
+			} else {
+				all.retainAll(lines);
+			}
+		}
+		if(all == null || all.isEmpty()) {
+			return new ArrayList<>(any);
+		}
+		return new ArrayList<>(all);
+	}
+
+}
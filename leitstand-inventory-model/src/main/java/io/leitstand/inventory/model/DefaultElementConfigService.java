@@ -3,19 +3,36 @@
  */
 package io.leitstand.inventory.model;
 
+import static io.leitstand.inventory.model.DigestedConfig.readConfig;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.ws.rs.core.MediaType.CHARSET_PARAMETER;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
+
 import javax.inject.Inject;
 import javax.ws.rs.core.MediaType;
 
 import io.leitstand.commons.model.Service;
 import io.leitstand.inventory.service.ConfigurationState;
 import io.leitstand.inventory.service.ElementConfig;
+import io.leitstand.inventory.service.ElementConfigDiff;
 import io.leitstand.inventory.service.ElementConfigId;
 import io.leitstand.inventory.service.ElementConfigName;
+import io.leitstand.inventory.service.ElementConfigReference;
 import io.leitstand.inventory.service.ElementConfigRevisions;
 import io.leitstand.inventory.service.ElementConfigService;
 import io.leitstand.inventory.service.ElementConfigs;
+import io.leitstand.inventory.service.ElementGroupId;
+import io.leitstand.inventory.service.ElementGroupName;
+import io.leitstand.inventory.service.ElementGroupType;
 import io.leitstand.inventory.service.ElementId;
 import io.leitstand.inventory.service.ElementName;
+import io.leitstand.inventory.service.ElementRoleName;
 import io.leitstand.inventory.service.StoreElementConfigResult;
 
 @Service
@@ -24,6 +41,12 @@ public class DefaultElementConfigService implements ElementConfigService {
 	@Inject
 	private ElementProvider elements;
 	
+	@Inject
+	private ElementGroupProvider groups;
+	
+	@Inject
+	private ElementRoleProvider roles;
+	
 	@Inject
 	private ElementConfigManager manager;
 	
@@ -35,6 +58,16 @@ public class DefaultElementConfigService implements ElementConfigService {
 		this.elements = elements;
 		this.manager = manager;
 	}
+	
+	DefaultElementConfigService(ElementProvider elements,
+								ElementGroupProvider groups,
+								ElementRoleProvider roles,
+								ElementConfigManager manager){
+		this.elements = elements;
+		this.groups = groups;
+		this.roles = roles;
+		this.manager = manager;
+	}
 
 	@Override
 	public ElementConfigs findElementConfigs(ElementId elementId, 
@@ -53,6 +86,18 @@ public class DefaultElementConfigService implements ElementConfigService {
 	}
 	
 	
+	@Override
+	public String getElementConfigsVersion(ElementId elementId) {
+		Element element = elements.fetchElement(elementId);
+		return manager.getElementConfigsVersion(element);
+	}
+	
+	@Override
+	public String getElementConfigsVersion(ElementName elementName) {
+		Element element = elements.fetchElement(elementName);
+		return manager.getElementConfigsVersion(element);
+	}
+	
 	@Override
 	public ElementConfig getActiveElementConfig(ElementId id, 
 										  ElementConfigName configName) {
@@ -71,6 +116,38 @@ public class DefaultElementConfigService implements ElementConfigService {
 	
 
 
+	@Override
+	public void processActiveElementConfigs(ElementGroupId groupId,
+											ElementConfigName configName,
+											Consumer<ElementConfig> consumer) {
+		ElementGroup group = groups.fetchElementGroup(groupId);
+		manager.processActiveElementConfigs(group, 
+											configName, 
+											consumer);
+	}
+	
+	@Override
+	public void processActiveElementConfigs(ElementGroupType groupType,
+											ElementGroupName groupName,
+											ElementConfigName configName,
+											Consumer<ElementConfig> consumer) {
+		ElementGroup group = groups.fetchElementGroup(groupType,
+													  groupName);
+		manager.processActiveElementConfigs(group, 
+											configName, 
+											consumer);
+	}
+	
+	@Override
+	public void processActiveElementConfigs(ElementRoleName roleName,
+											ElementConfigName configName,
+											Consumer<ElementConfig> consumer) {
+		ElementRole role = roles.fetchElementRole(roleName);
+		manager.processActiveElementConfigs(role, 
+											configName, 
+											consumer);
+	}
+
 	@Override
 	public ElementConfigRevisions getElementConfigRevisions(ElementId elementId, 
 															ElementConfigName configName) {
@@ -149,6 +226,92 @@ public class DefaultElementConfigService implements ElementConfigService {
 										  comment);
 	}
 	
+	@Override
+	public StoreElementConfigResult storeElementConfig(ElementId elementId, 
+													   ElementConfigName configName,
+													   MediaType contentType,
+													   ConfigurationState configState,
+													   InputStream config,
+													   String comment) {
+		Element element = elements.fetchElement(elementId);
+		try(DigestedConfig content = read(config,contentType)){
+			return manager.storeElementConfig(element,
+											  configName,
+											  contentType,
+											  configState,
+											  content,
+											  comment);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	@Override
+	public StoreElementConfigResult storeElementConfig(ElementName elementName, 
+													   ElementConfigName configName,
+													   MediaType contentType,
+													   ConfigurationState configState,
+													   InputStream config,
+													   String comment) {
+		Element element = elements.fetchElement(elementName);
+		try(DigestedConfig content = read(config,contentType)){
+			return manager.storeElementConfig(element,
+											  configName,
+											  contentType,
+											  configState,
+											  content,
+											  comment);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	private static DigestedConfig read(InputStream config, MediaType contentType) {
+		String charset = contentType.getParameters().get(CHARSET_PARAMETER);
+		try {
+			return readConfig(config, 
+							  charset != null ? Charset.forName(charset) : UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	@Override
+	public ElementConfigReference getElementConfigReference(ElementId elementId, 
+															ElementConfigId configId) {
+		Element element = elements.fetchElement(elementId);
+		return manager.getElementConfigReference(element,
+												 configId);
+	}
+	
+	@Override
+	public ElementConfigReference getElementConfigReference(ElementName elementName, 
+															ElementConfigId configId) {
+		Element element = elements.fetchElement(elementName);
+		return manager.getElementConfigReference(element,
+												 configId);
+	}
+	
+	@Override
+	public void writeElementConfig(ElementId elementId, 
+								   ElementConfigId configId, 
+								   Writer writer) {
+		Element element = elements.fetchElement(elementId);
+		manager.writeElementConfig(element,
+								   configId,
+								   writer);
+	}
+	
+	@Override
+	public void writeElementConfig(ElementName elementName, 
+								   ElementConfigId configId, 
+								   Writer writer) {
+		Element element = elements.fetchElement(elementName);
+		manager.writeElementConfig(element,
+								   configId,
+								   writer);
+	}
+	
 	@Override
 	public void setElementConfigComment(ElementId elementId,
 										ElementConfigId configId, 
@@ -185,6 +348,26 @@ public class DefaultElementConfigService implements ElementConfigService {
 										configId);
 	}
 
+	@Override
+	public ElementConfigDiff getElementConfigDiff(ElementId elementId, 
+												  ElementConfigId baseConfigId,
+												  ElementConfigId targetConfigId) {
+		Element element = elements.fetchElement(elementId);
+		return manager.getElementConfigDiff(element, 
+											baseConfigId, 
+											targetConfigId);
+	}
+	
+	@Override
+	public ElementConfigDiff getElementConfigDiff(ElementName elementName, 
+												  ElementConfigId baseConfigId,
+												  ElementConfigId targetConfigId) {
+		Element element = elements.fetchElement(elementName);
+		return manager.getElementConfigDiff(element, 
+											baseConfigId, 
+											targetConfigId);
+	}
+
 	@Override
 	public StoreElementConfigResult editElementConfig(ElementId elementId, 
 													  ElementConfigId configId,
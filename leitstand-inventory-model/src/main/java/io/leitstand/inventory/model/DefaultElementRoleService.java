@@ -45,6 +45,7 @@ public class DefaultElementRoleService implements ElementRoleService {
 		ElementRole role = roles.tryFetchElementRole(name);
 		if(role != null) {
 			manager.removeRole(role);
+			roles.invalidate();
 		}
 	}
 	
@@ -53,6 +54,7 @@ public class DefaultElementRoleService implements ElementRoleService {
 		ElementRole role = roles.tryFetchElementRole(roleId);
 		if(role != null) {
 			manager.removeRole(role);
+			roles.invalidate();
 		}
 	}
 
@@ -66,6 +68,7 @@ public class DefaultElementRoleService implements ElementRoleService {
 		ElementRole role = roles.tryFetchElementRole(settings.getRoleId());
 		if(role != null) {
 			manager.storeElementRole(role, settings);
+			roles.invalidate();
 			return false;
 		}
 		manager.createElementRole(settings);
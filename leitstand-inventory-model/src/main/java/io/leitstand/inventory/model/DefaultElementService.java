@@ -4,12 +4,15 @@
 package io.leitstand.inventory.model;
 
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 
 import io.leitstand.commons.model.Service;
+import io.leitstand.inventory.service.ElementFilterMode;
 import io.leitstand.inventory.service.ElementId;
 import io.leitstand.inventory.service.ElementName;
+import io.leitstand.inventory.service.ElementSearchResult;
 import io.leitstand.inventory.service.ElementService;
 import io.leitstand.inventory.service.ElementSettings;
 import io.leitstand.inventory.service.OperationalState;
@@ -21,6 +24,8 @@ public class DefaultElementService implements ElementService {
 	
 	private ElementManager manager;
 	
+	private ElementOperationalStateManager states;
+	
 	
 	public DefaultElementService() {
 		// EJB constructor
@@ -28,15 +33,25 @@ public class DefaultElementService implements ElementService {
 	
 	@Inject
 	DefaultElementService(ElementManager manager,
-			  			  ElementProvider elements){
+			  			  ElementProvider elements,
+			  			  ElementOperationalStateManager states){
 		this.elements  = elements;
 		this.manager = manager;
+		this.states = states;
 	}
 
 	@Override
 	public List<ElementSettings> findElements(String filter, int offset, int items) {
 		return manager.findElements(filter,offset,items);
 	}
+	
+	@Override
+	public ElementSearchResult searchElements(String filter, 
+											  ElementFilterMode mode, 
+											  String cursor, 
+											  int limit) {
+		return manager.searchElements(filter, mode, cursor, limit);
+	}
 
 	@Override
 	public void removeElement(ElementId elementId) {
@@ -82,5 +97,10 @@ public class DefaultElementService implements ElementService {
 		Element element = elements.fetchElement(name);
 		manager.updateElementOperationalState(element,state);
 	}
+	
+	@Override
+	public void updateElementOperationalStates(Map<String,OperationalState> states) {
+		this.states.updateOperationalStates(states);
+	}
 
 }
\ No newline at end of file
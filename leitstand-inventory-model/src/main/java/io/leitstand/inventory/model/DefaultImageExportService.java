@@ -4,20 +4,22 @@
 package io.leitstand.inventory.model;
 
 import static io.leitstand.inventory.service.ImagesExport.newImagesExport;
-import static java.lang.Integer.MAX_VALUE;
+import static io.leitstand.inventory.service.ReasonCode.IVT0206E_IMAGE_IMPORT_JOB_NOT_FOUND;
 
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
+import io.leitstand.commons.EntityNotFoundException;
 import io.leitstand.inventory.service.ElementRoleName;
 import io.leitstand.inventory.service.ImageExportService;
+import io.leitstand.inventory.service.ImageImportJob;
+import io.leitstand.inventory.service.ImageImportJobId;
 import io.leitstand.inventory.service.ImageInfo;
-import io.leitstand.inventory.service.ImageReference;
-import io.leitstand.inventory.service.ImageService;
 import io.leitstand.inventory.service.ImageState;
 import io.leitstand.inventory.service.ImageType;
 import io.leitstand.inventory.service.ImagesExport;
@@ -26,8 +28,13 @@ import io.leitstand.inventory.service.Version;
 @ApplicationScoped
 public class DefaultImageExportService implements ImageExportService {
 
+	static final int EXPORT_PAGE_SIZE = 100;
+	
+	@Inject
+	private ImageExportReader reader;
+	
 	@Inject
-	private ImageService imageService;
+	private ImageImportEngine importEngine;
 	
 	@Override
 	public ImagesExport exportImages(String filter, 
@@ -36,25 +43,60 @@ public class DefaultImageExportService implements ImageExportService {
 									 ImageState state,
 									 Version version) {
 		List<ImageInfo> images = new LinkedList<>();
-		for(ImageReference ref : imageService.findImages(filter, 
-														 elementRole, 
-														 type, 
-														 state, 
-														 version,
-														 MAX_VALUE)) {
-			images.add(imageService.getImage(ref.getImageId()));
-		}
+		processImages(filter, 
+					  elementRole, 
+					  type, 
+					  state, 
+					  version, 
+					  images::add);
 		return newImagesExport()
 			   .withDateCreated(new Date())
 			   .withImages(images)
 			   .build();
 	}
+	
+	@Override
+	public void processImages(String filter,
+							  ElementRoleName elementRole,
+							  ImageType type,
+							  ImageState state,
+							  Version version,
+							  Consumer<ImageInfo> consumer) {
+		ImageInfo last = null;
+		List<ImageInfo> page;
+		do {
+			page = reader.readImages(filter, 
+									 elementRole, 
+									 type, 
+									 state, 
+									 version, 
+									 last, 
+									 EXPORT_PAGE_SIZE);
+			for(ImageInfo image : page) {
+				consumer.accept(image);
+				last = image;
+			}
+		} while(page.size() == EXPORT_PAGE_SIZE);
+	}
 
 	@Override
-	public void importImages(ImagesExport export) {
-		for(ImageInfo image : export.getImages()) {
-			imageService.storeImage(image);
+	public ImageImportJob importImages(ImagesExport export) {
+		return importEngine.runImport(export.getImages());
+	}
+	
+	@Override
+	public ImageImportJob startImageImport(ImagesExport export) {
+		return importEngine.startImport(export.getImages());
+	}
+	
+	@Override
+	public ImageImportJob getImageImportJob(ImageImportJobId jobId) {
+		ImageImportJob job = importEngine.getImportJob(jobId);
+		if(job == null) {
+			throw new EntityNotFoundException(IVT0206E_IMAGE_IMPORT_JOB_NOT_FOUND, 
+											  jobId);
 		}
+		return job;
 	}
 	
 }
@@ -5,6 +5,7 @@ package io.leitstand.inventory.model;
 
 import static io.leitstand.commons.db.DatabaseService.prepare;
 import static io.leitstand.commons.messages.MessageFactory.createMessage;
+import static io.leitstand.commons.model.Patterns.UUID_PATTERN;
 import static io.leitstand.commons.model.ObjectUtil.optional;
 import static io.leitstand.commons.model.StringUtil.isNonEmptyString;
 import static io.leitstand.inventory.event.ImageAddedEvent.newImageAddedEvent;
@@ -12,7 +13,7 @@ import static io.leitstand.inventory.event.ImageRemovedEvent.newImageRemovedEven
 import static io.leitstand.inventory.event.ImageStateChangedEvent.newImageStateChangedEvent;
 import static io.leitstand.inventory.event.ImageStoredEvent.newImageStoredEvent;
 import static io.leitstand.inventory.jpa.ImageStateConverter.toImageState;
-import static io.leitstand.inventory.model.Application.findAll;
+import static io.leitstand.inventory.model.Application.findByApplicationName;
 import static io.leitstand.inventory.model.Checksum.newChecksum;
 import static io.leitstand.inventory.model.DefaultPackageService.packageVersionInfo;
 import static io.leitstand.inventory.model.ElementRole.findRoleByName;
@@ -22,14 +23,20 @@ import static io.leitstand.inventory.model.Image.findByImageId;
 import static io.leitstand.inventory.model.Image.markAllSuperseded;
 import static io.leitstand.inventory.model.Image.prerelease;
 import static io.leitstand.inventory.model.Image.restoreCandidates;
+import static io.leitstand.inventory.model.Image_Rollout.removeImageRollouts;
 import static io.leitstand.inventory.model.Platform.findByVendor;
 import static io.leitstand.inventory.service.ElementName.elementName;
 import static io.leitstand.inventory.service.ElementPlatformInfo.newPlatformInfo;
 import static io.leitstand.inventory.service.ElementRoleInfo.newElementRoleInfo;
+import static io.leitstand.inventory.service.ImageFilterMode.EXACT;
+import static io.leitstand.inventory.service.ImageFilterMode.REGEX;
 import static io.leitstand.inventory.service.ImageInfo.newImageInfo;
 import static io.leitstand.inventory.service.ImageMetaData.newImageMetaData;
 import static io.leitstand.inventory.service.ImageName.imageName;
 import static io.leitstand.inventory.service.ImageReference.newImageReference;
+import static io.leitstand.inventory.service.ImageRollout.newImageRollout;
+import static io.leitstand.inventory.service.ImageRolloutMatrix.newImageRolloutMatrix;
+import static io.leitstand.inventory.service.ImageSearchResult.newImageSearchResult;
 import static io.leitstand.inventory.service.ImageState.RELEASE;
 import static io.leitstand.inventory.service.ImageState.SUPERSEDED;
 import static io.leitstand.inventory.service.ImageStatistics.newImageStatistics;
@@ -39,14 +46,21 @@ import static io.leitstand.inventory.service.ReasonCode.IVT0201I_IMAGE_STATE_UPD
 import static io.leitstand.inventory.service.ReasonCode.IVT0202I_IMAGE_STORED;
 import static io.leitstand.inventory.service.ReasonCode.IVT0203I_IMAGE_REMOVED;
 import static io.leitstand.inventory.service.ReasonCode.IVT0204E_IMAGE_NOT_REMOVABLE;
+import static io.leitstand.inventory.service.ReasonCode.IVT0205E_IMAGE_SEARCH_CURSOR_INVALID;
+import static io.leitstand.inventory.service.ReasonCode.IVT0208I_IMAGE_ROLLOUTS_REBUILT;
 import static io.leitstand.inventory.service.ReasonCode.IVT0400E_ELEMENT_ROLE_NOT_FOUND;
 import static io.leitstand.inventory.service.RoleImage.newRoleImage;
 import static io.leitstand.inventory.service.RoleImages.newRoleImages;
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Base64.getUrlDecoder;
+import static java.util.Base64.getUrlEncoder;
 import static java.util.EnumSet.allOf;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -59,6 +73,7 @@ import javax.inject.Inject;
 
 import io.leitstand.commons.ConflictException;
 import io.leitstand.commons.EntityNotFoundException;
+import io.leitstand.commons.UnprocessableEntityException;
 import io.leitstand.commons.db.DatabaseService;
 import io.leitstand.commons.messages.Messages;
 import io.leitstand.commons.model.Repository;
@@ -69,17 +84,23 @@ import io.leitstand.inventory.event.ImageEvent.ImageEventBuilder;
 import io.leitstand.inventory.jpa.ImageStateConverter;
 import io.leitstand.inventory.jpa.PlaneConverter;
 import io.leitstand.inventory.service.ApplicationName;
+import io.leitstand.inventory.service.ElementGroupId;
 import io.leitstand.inventory.service.ElementGroupName;
+import io.leitstand.inventory.service.ElementGroupType;
 import io.leitstand.inventory.service.ElementId;
 import io.leitstand.inventory.service.ElementName;
 import io.leitstand.inventory.service.ElementPlatformInfo;
 import io.leitstand.inventory.service.ElementRoleInfo;
 import io.leitstand.inventory.service.ElementRoleName;
+import io.leitstand.inventory.service.ImageFilterMode;
 import io.leitstand.inventory.service.ImageId;
 import io.leitstand.inventory.service.ImageInfo;
 import io.leitstand.inventory.service.ImageMetaData;
 import io.leitstand.inventory.service.ImageName;
 import io.leitstand.inventory.service.ImageReference;
+import io.leitstand.inventory.service.ImageRollout;
+import io.leitstand.inventory.service.ImageRolloutMatrix;
+import io.leitstand.inventory.service.ImageSearchResult;
 import io.leitstand.inventory.service.ImageService;
 import io.leitstand.inventory.service.ImageState;
 import io.leitstand.inventory.service.ImageStatistics;
@@ -94,6 +115,20 @@ public class DefaultImageService implements ImageService {
 	
 	private static final Logger LOG = Logger.getLogger(DefaultImageService.class.getName());
 	
+	private static final int UUID_LENGTH = 36;
+	
+	/** Joins the images with their platform (<code>p</code>), element role (<code>r</code>) and optional element (<code>e</code>).*/
+	static final String FROM_IMAGES = "FROM inventory.image d "+
+									  "JOIN inventory.platform p "+
+									  "ON d.platform_id = p.id "+
+									  "JOIN inventory.elementrole r "+
+									  "ON d.elementrole_id = r.id "+
+									  "LEFT OUTER JOIN inventory.element e "+
+									  "ON d.element_id = e.id ";
+	
+	private static final String SELECT_IMAGES = "SELECT d.uuid, d.tsbuild, d.state, d.type, d.name, d.major, d.minor, d.patch, d.prerelease, e.name, r.name, p.vendor, p.model "+
+		             							FROM_IMAGES;
+	
 	@Inject
 	private Messages messages;
 
@@ -108,6 +143,9 @@ public class DefaultImageService implements ImageService {
 	@Inject
 	private PackageVersionService packages;
 	
+	@Inject
+	private ReferenceCatalog catalog;
+	
 	@Inject
 	private ElementProvider elements;
 	
@@ -118,6 +156,9 @@ public class DefaultImageService implements ImageService {
 	@Inject
 	private Event<ImageEvent> sink;
 	
+	@Inject
+	private ImageRolloutService rollouts;
+	
 	public DefaultImageService(){
 		// EJB
 	}
@@ -134,6 +175,7 @@ public class DefaultImageService implements ImageService {
 		this.db = db;
 		this.messages =messages;
 		this.sink = sink;
+		this.catalog = new ReferenceCatalog();
 	}
 	
 	@Override
@@ -145,23 +187,91 @@ public class DefaultImageService implements ImageService {
 										   int limit) {
 		List<Object> arguments = new LinkedList<>();
 		
-		String sql = "SELECT d.uuid, d.tsbuild, d.state, d.type, d.name, d.major, d.minor, d.patch, d.prerelease, e.name, r.name, p.vendor, p.model "+
-		             "FROM inventory.image d "+
-				     "JOIN inventory.platform p "+
-		             "ON d.platform_id = p.id "+
-				     "JOIN inventory.elementrole r "+
-		             "ON d.elementrole_id = r.id "+
-				     "LEFT OUTER JOIN inventory.element e "+
-		             "ON d.element_id = e.id "+
+		String sql = SELECT_IMAGES+
 				     "WHERE (p.vendor ~ ? OR p.model ~ ? OR r.name ~ ? OR e.name ~ ? OR d.name ~ ?) ";
 		
-		// Add the same filter expression four times, for vendor, model, role, element and image name
+		// Add the same filter expression five times, for vendor, model, role, element and image name
 		arguments.add(filter);
 		arguments.add(filter);
 		arguments.add(filter);
 		arguments.add(filter);
 		arguments.add(filter);
 		
+		sql += filterImages(arguments, role, type, state, version);
+		sql += "ORDER BY r.name, e.name, p.vendor, d.name, p.model LIMIT ?";
+		arguments.add(Integer.valueOf(limit));
+		
+		return db.executeQuery(prepare(sql,arguments),
+							   DefaultImageService::imageReference);
+		
+	}
+	
+	@Override
+	public ImageSearchResult searchImages(String filter, 
+										  ImageFilterMode mode, 
+										  ElementRoleName role, 
+										  ImageType type,
+										  ImageState state, 
+										  Version version, 
+										  String cursor, 
+										  int limit) {
+		if(limit < 1) {
+			return newImageSearchResult().build();
+		}
+		List<Object> arguments = new LinkedList<>();
+		
+		String sql = SELECT_IMAGES+"WHERE 1=1 ";
+		if(isNonEmptyString(filter)) {
+			if(mode == REGEX) {
+				sql += "AND (p.vendor ~ ? OR p.model ~ ? OR r.name ~ ? OR e.name ~ ? OR d.name ~ ?) ";
+				arguments.add(filter);
+				arguments.add(filter);
+				arguments.add(filter);
+				arguments.add(filter);
+				arguments.add(filter);
+			} else if(mode == EXACT) {
+				sql += "AND d.name=? ";
+				arguments.add(filter);
+			} else {
+				sql += "AND d.name LIKE ? ESCAPE '\\' ";
+				arguments.add(escapeLikePattern(filter)+"%");
+			}
+		}
+		
+		if(isNonEmptyString(cursor)) {
+			String[] position = decodeCursor(cursor);
+			// Continue after the last image of the previous page.
+			sql += "AND (d.name, d.uuid) > (?, ?) ";
+			arguments.add(position[1]);
+			arguments.add(position[0]);
+		}
+		
+		sql += filterImages(arguments, role, type, state, version);
+		sql += "ORDER BY d.name, d.uuid LIMIT ?";
+		// Fetch one more image to learn whether a next page exists.
+		arguments.add(Long.valueOf(limit+1L));
+		
+		List<ImageReference> images = db.executeQuery(prepare(sql,arguments),
+													  DefaultImageService::imageReference);
+		String next = null;
+		if(images.size() > limit) {
+			images = images.subList(0, limit);
+			ImageReference last = images.get(limit-1);
+			next = encodeCursor(last.getImageId(), last.getImageName());
+		}
+		
+		return newImageSearchResult()
+			   .withImages(images)
+			   .withNext(next)
+			   .build();
+	}
+	
+	static String filterImages(List<Object> arguments,
+							   ElementRoleName role, 
+							   ImageType type, 
+							   ImageState state, 
+							   Version version) {
+		String sql = "";
 		if(role != null) {
 			sql += "AND r.name=? ";
 			arguments.add(role.toString());
@@ -183,33 +293,62 @@ public class DefaultImageService implements ImageService {
 			arguments.add(Integer.valueOf(version.getMinorLevel()));
 			arguments.add(Integer.valueOf(version.getPatchLevel()));
 			if(isNonEmptyString(version.getPreRelease())) {
-				sql += "AND d.prerelease=?";
+				sql += "AND d.prerelease=? ";
 				arguments.add(version.getPreRelease());
 			}
 		}
-		
-		
-		sql += "ORDER BY r.name, e.name, p.vendor, d.name, p.model";
-		
-		return db.executeQuery(prepare(sql,arguments),
-							   rs -> newImageReference()
-									 .withImageId(new ImageId(rs.getString(1)))
-									 .withBuildDate(rs.getTimestamp(2))
-								     .withImageState(toImageState(rs.getString(3)))
-									 .withImageType(ImageType.imageType(rs.getString(4)))
-									 .withImageName(imageName(rs.getString(5)))
-									 .withImageVersion(new Version(rs.getInt(6),
-											 					   rs.getInt(7),
-											 					   rs.getInt(8),
-											 					   prerelease(rs.getString(9))))
-									 .withElementName(elementName(rs.getString(10)))
-									 .withElementRole(ElementRoleName.valueOf(rs.getString(11)))
-									 .withPlatform(newPlatformInfo()
-												   .withVendorName(rs.getString(12))
-												   .withModelName(rs.getString(13))
-												   .build())
-									 .build());
-		
+		return sql;
+	}
+	
+	private static ImageReference imageReference(ResultSet rs) throws SQLException {
+		return newImageReference()
+			   .withImageId(new ImageId(rs.getString(1)))
+			   .withBuildDate(rs.getTimestamp(2))
+			   .withImageState(toImageState(rs.getString(3)))
+			   .withImageType(ImageType.imageType(rs.getString(4)))
+			   .withImageName(imageName(rs.getString(5)))
+			   .withImageVersion(new Version(rs.getInt(6),
+					 					     rs.getInt(7),
+					 					     rs.getInt(8),
+					 					     prerelease(rs.getString(9))))
+			   .withElementName(elementName(rs.getString(10)))
+			   .withElementRole(ElementRoleName.valueOf(rs.getString(11)))
+			   .withPlatform(newPlatformInfo()
+						     .withVendorName(rs.getString(12))
+						     .withModelName(rs.getString(13))
+						     .build())
+			   .build();
+	}
+	
+	static String escapeLikePattern(String filter) {
+		return filter.replace("\\", "\\\\")
+					 .replace("%", "\\%")
+					 .replace("_", "\\_");
+	}
+	
+	/**
+	 * Encodes the position of an image in the search result.
+	 * The cursor is opaque to clients and consists of the image ID followed by the image name.
+	 * @param id the image ID
+	 * @param name the image name
+	 * @return the URL-safe search cursor
+	 */
+	static String encodeCursor(ImageId id, ImageName name) {
+		return getUrlEncoder().withoutPadding()
+							  .encodeToString((id+name.toString()).getBytes(UTF_8));
+	}
+	
+	static String[] decodeCursor(String cursor) {
+		try {
+			String position = new String(getUrlDecoder().decode(cursor),UTF_8);
+			if(position.length() <= UUID_LENGTH || !position.substring(0,UUID_LENGTH).matches(UUID_PATTERN)) {
+				throw new UnprocessableEntityException(IVT0205E_IMAGE_SEARCH_CURSOR_INVALID, cursor);
+			}
+			return new String[] {position.substring(0,UUID_LENGTH),
+								 position.substring(UUID_LENGTH)};
+		} catch (IllegalArgumentException e) {
+			throw new UnprocessableEntityException(IVT0205E_IMAGE_SEARCH_CURSOR_INVALID, cursor);
+		}
 	}
 
 	@Override
@@ -225,37 +364,21 @@ public class DefaultImageService implements ImageService {
 			element = elements.fetchElement(elementName);
 		}
 		
-		List<PackageVersion> versions = new LinkedList<>();
-		for(PackageVersionInfo info : submission.getPackages()){
-			PackageVersion version = packages.getPackageVersion(info.getOrganization(), 
-																info.getPackageName(), 
-																info.getPackageVersion());
-			if(version == null){
-				version = packages.storePackageVersion(info);
-			} 
-			version.setBuildDate(info.getBuildDate());
-			List<Checksum> checksums = info.getChecksums()
-										   .entrySet()
-										   .stream()
-										   .map(c -> newChecksum()
-												   	 .withAlgorithm(Checksum.Algorithm.valueOf(c.getKey()))
-												   	 .withValue(c.getValue())
-												   	 .build())
-										   .collect(toList());
-			version.setChecksums(checksums);
-			versions.add(version);
-		}
+		List<PackageVersion> versions = packages.storePackageVersions(transaction, 
+																	  submission.getPackages());
 		
-		Map<ApplicationName,Application> applications = repository.execute(findAll());
 		List<Application> imageApplications = new LinkedList<>();
 		for(ApplicationName name: submission.getApplications()) {
-			Application app = applications.get(name);
+			Application app = catalog.fetch(repository, 
+											Application.class, 
+											name, 
+											findByApplicationName(name));
 			if(app != null) {
 				imageApplications.add(app);
 				continue;
 			}
-			app = new Application(name);
-			repository.add(app);
+			app = transaction.run(repo -> repo.add(new Application(name)),
+								  repo -> repo.execute(findByApplicationName(name)));
 			imageApplications.add(app);
 		}
 		
@@ -406,6 +529,7 @@ public class DefaultImageService implements ImageService {
 										image.getImageState());
 		}
 		ImageInfo info = imageInfo(image);
+		repository.execute(removeImageRollouts(image));
 		repository.remove(image);
 		messages.add(createMessage(IVT0203I_IMAGE_REMOVED,
 								   image.getQualifiedName()));
@@ -504,36 +628,25 @@ public class DefaultImageService implements ImageService {
 		
 		
 		Map<ElementGroupName,Integer> activeCount = new HashMap<>();
-		db.processQuery(prepare("SELECT eg.name, count(*) "+
-							    "FROM inventory.image i "+
-							    "JOIN inventory.element_image ei "+
-							    "ON ei.image_id = i.id "+
-							    "JOIN inventory.element e "+
-							    "ON e.id = ei.element_id "+
-							    "JOIN inventory.elementgroup eg "+
-							    "ON eg.id = e.elementgroup_id "+
-							    "WHERE i.uuid=? "+
-							    "AND ei.state='ACTIVE' "+
-							    "GROUP BY eg.name", 
-							    image.getImageId()),
-						rs -> activeCount.put(ElementGroupName.valueOf(rs.getString(1)),
-									 	 	  rs.getInt(2)));
-		
 		Map<ElementGroupName,Integer> cachedCount = new HashMap<>();
-		db.processQuery(prepare("SELECT eg.name, count(*) "+
+		db.processQuery(prepare("SELECT eg.name, r.active, r.cached "+
 							    "FROM inventory.image i "+
-							    "JOIN inventory.element_image ei "+
-							    "ON ei.image_id = i.id "+
-							    "JOIN inventory.element e "+
-							    "ON e.id = ei.element_id "+
+							    "JOIN inventory.image_rollout r "+
+							    "ON r.image_id = i.id "+
 							    "JOIN inventory.elementgroup eg "+
-							    "ON eg.id = e.elementgroup_id "+
+							    "ON eg.id = r.elementgroup_id "+
 							    "WHERE i.uuid=? "+
-							    "AND ei.state='CACHED' "+
-							    "GROUP BY eg.name", 
+							    "AND (r.active > 0 OR r.cached > 0)", 
 							    image.getImageId()),
-						rs -> cachedCount.put(ElementGroupName.valueOf(rs.getString(1)),
-									 	 	  rs.getInt(2)));
+						rs -> {
+							ElementGroupName groupName = ElementGroupName.valueOf(rs.getString(1));
+							if(rs.getInt(2) > 0) {
+								activeCount.put(groupName, rs.getInt(2));
+							}
+							if(rs.getInt(3) > 0) {
+								cachedCount.put(groupName, rs.getInt(3));
+							}
+						});
 
 		return newImageStatistics()
 			   .withImage(image)
@@ -542,6 +655,61 @@ public class DefaultImageService implements ImageService {
 			   .build();
 	}
 	
+	@Override
+	public void rebuildImageRollouts() {
+		int count = rollouts.rebuildImageRollouts();
+		messages.add(createMessage(IVT0208I_IMAGE_ROLLOUTS_REBUILT, 
+								   count));
+	}
+	
+	@Override
+	public ImageRolloutMatrix getImageRolloutMatrix(ImageName imageName,
+													ElementRoleName role,
+													ImageType type) {
+		List<Object> arguments = new ArrayList<>();
+		String sql = "SELECT i.uuid, i.type, i.state, i.major, i.minor, i.patch, i.prerelease, er.name, eg.uuid, eg.name, eg.type, r.active, r.cached "+
+					 "FROM inventory.image i "+
+					 "JOIN inventory.elementrole er "+
+					 "ON er.id = i.elementrole_id "+
+					 "JOIN inventory.image_rollout r "+
+					 "ON r.image_id = i.id "+
+					 "JOIN inventory.elementgroup eg "+
+					 "ON eg.id = r.elementgroup_id "+
+					 "WHERE i.name=? "+
+					 "AND (r.active > 0 OR r.cached > 0) ";
+		arguments.add(imageName.toString());
+		if(role != null) {
+			sql += "AND er.name=? ";
+			arguments.add(role.toString());
+		}
+		if(type != null) {
+			sql += "AND i.type=? ";
+			arguments.add(type.name());
+		}
+		sql += "ORDER BY er.name, i.type, i.major, i.minor, i.patch, i.prerelease, eg.name";
+		
+		List<ImageRollout> rollouts = db.executeQuery(prepare(sql, arguments), 
+													  rs -> newImageRollout()
+															.withImageId(ImageId.valueOf(rs.getString(1)))
+															.withImageType(ImageType.imageType(rs.getString(2)))
+															.withImageState(toImageState(rs.getString(3)))
+															.withImageVersion(new Version(rs.getInt(4),
+																						  rs.getInt(5),
+																						  rs.getInt(6),
+																						  prerelease(rs.getString(7))))
+															.withElementRole(ElementRoleName.valueOf(rs.getString(8)))
+															.withGroupId(ElementGroupId.valueOf(rs.getString(9)))
+															.withGroupName(ElementGroupName.valueOf(rs.getString(10)))
+															.withGroupType(ElementGroupType.valueOf(rs.getString(11)))
+															.withActiveCount(rs.getInt(12))
+															.withCachedCount(rs.getInt(13))
+															.build());
+		return newImageRolloutMatrix()
+			   .withImageName(imageName)
+			   .withRollouts(rollouts)
+			   .build();
+	}
+	
 	@Override
 	public ImageMetaData getImageMetaData() {
 		List<ImageType> types = new ArrayList<>(allOf(ImageType.class));
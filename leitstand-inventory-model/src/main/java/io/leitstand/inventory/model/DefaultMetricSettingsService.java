@@ -38,6 +38,7 @@ public class DefaultMetricSettingsService implements MetricSettingsService{
 		Metric metric = metrics.tryFetchMetric(metricName);
 		if(metric != null) {
 			manager.removeMetric(metric);
+			metrics.invalidate();
 		}
 	}
 	
@@ -46,6 +47,7 @@ public class DefaultMetricSettingsService implements MetricSettingsService{
 		Metric metric = metrics.tryFetchMetric(metricName);
 		if(metric != null){
 			manager.forceRemoveMetric(metric);
+			metrics.invalidate();
 		}
 	}
 
@@ -75,6 +77,7 @@ public class DefaultMetricSettingsService implements MetricSettingsService{
 			return true;
 		}
 		manager.storeMetric(metric,settings);
+		metrics.invalidate();
 		return false;
 	}
 
@@ -83,6 +86,7 @@ public class DefaultMetricSettingsService implements MetricSettingsService{
 		Metric metric = metrics.tryFetchMetric(metricId);
 		if(metric != null) {
 			manager.removeMetric(metric);
+			metrics.invalidate();
 		}
 		
 	}
@@ -92,6 +96,7 @@ public class DefaultMetricSettingsService implements MetricSettingsService{
 		Metric metric = metrics.tryFetchMetric(metricId);
 		if(metric != null) {
 			manager.forceRemoveMetric(metric);
+			metrics.invalidate();
 		}
 	}
 
@@ -39,6 +39,8 @@ public class DefaultPlatformService implements PlatformService{
 
 	private Repository repository;
 	
+	private ReferenceCatalog catalog;
+	
 	private Messages messages;
 	
 	protected DefaultPlatformService() {
@@ -46,8 +48,11 @@ public class DefaultPlatformService implements PlatformService{
 	}
 	
 	@Inject
-	protected DefaultPlatformService(@Inventory Repository repository, Messages messages) {
+	protected DefaultPlatformService(@Inventory Repository repository, 
+									 ReferenceCatalog catalog,
+									 Messages messages) {
 		this.repository = repository;
+		this.catalog = catalog;
 		this.messages = messages;
 	}
 	
@@ -115,6 +120,7 @@ public class DefaultPlatformService implements PlatformService{
 				platform.setHalfRack(settings.isHalfRackSize());
 				platform.setRackUnits(settings.getRackUnits());
 				platform.setDescription(settings.getDescription());
+				catalog.invalidate(Platform.class);
 				return false;
 			}
 			
@@ -148,6 +154,7 @@ public class DefaultPlatformService implements PlatformService{
 			long count = repository.execute(countElements(platform));
 			if(count == 0) {
 				repository.remove(platform);
+				catalog.invalidate(Platform.class);
 				messages.add(createMessage(IVT0902I_PLATFORM_REMOVED, 
 										   platform.getVendor(),
 										   platform.getModel()));
@@ -0,0 +1,284 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.ConfigBlob.digest;
+import static io.leitstand.inventory.model.ConfigBlob.hex;
+import static io.leitstand.inventory.model.ConfigBlob.newMessageDigest;
+import static java.lang.Character.isHighSurrogate;
+import static java.lang.Character.isLowSurrogate;
+import static java.lang.Character.toCodePoint;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.newBufferedReader;
+import static java.nio.file.Files.newBufferedWriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+
+/**
+ * An element configuration read from a stream along with its content digest.
+ * <p>
+ * The configuration is streamed through a digesting writer,
+ * which computes the digest of the UTF-8 representation of the configuration while the configuration is read.
+ * Configurations exceeding {@link #SPOOL_THRESHOLD} characters are spooled to a temporary file
+ * and only loaded when the configuration is needed,
+ * i.e. a configuration that already exists in the inventory is identified by its digest without being loaded.
+ * The temporary file is removed when the <code>DigestedConfig</code> is closed.
+ * @see ConfigBlob#digest(String)
+ */
+final class DigestedConfig implements Closeable{
+
+	private static final int BUFFER_SIZE = 8192;
+
+	/** Maximum number of characters of a configuration kept in memory while reading the configuration.*/
+	static final int SPOOL_THRESHOLD = 1024 * 1024;
+
+	/**
+	 * Reads an element configuration from the given stream and computes its digest.
+	 * @param in the input stream
+	 * @param charset the charset of the configuration
+	 * @return the configuration and its digest.
+	 * @throws IOException if the configuration cannot be read.
+	 */
+	static DigestedConfig readConfig(InputStream in, Charset charset) throws IOException {
+		return readConfig(in, charset, SPOOL_THRESHOLD);
+	}
+
+	static DigestedConfig readConfig(InputStream in, Charset charset, int threshold) throws IOException {
+		MessageDigest md = newMessageDigest();
+		SpoolWriter spool = new SpoolWriter(threshold);
+		try(Reader reader = new InputStreamReader(in, charset);
+			Writer writer = new DigestingWriter(spool, md)){
+			char[] buffer = new char[BUFFER_SIZE];
+			for(int n = reader.read(buffer); n >= 0; n = reader.read(buffer)) {
+				writer.write(buffer, 0, n);
+			}
+		} catch (IOException | RuntimeException e) {
+			spool.discard();
+			throw e;
+		}
+		return new DigestedConfig(spool.getContent(),
+								  spool.getFile(),
+								  hex(md.digest()));
+	}
+
+	/**
+	 * Creates a <code>DigestedConfig</code> for a configuration that has already been read.
+	 * @param config the configuration
+	 * @return the configuration and its digest.
+	 */
+	static DigestedConfig digestedConfig(String config) {
+		return new DigestedConfig(config,
+								  null,
+								  digest(config));
+	}
+
+	private String config;
+	private final Path spool;
+	private final String digest;
+
+	private DigestedConfig(String config, Path spool, String digest) {
+		this.config = config;
+		this.spool = spool;
+		this.digest = digest;
+	}
+
+	/**
+	 * Returns the configuration.
+	 * A spooled configuration is loaded from the temporary file when this method is called for the first time.
+	 * @return the configuration.
+	 */
+	String getConfig() {
+		if(config == null && spool != null) {
+			try(Reader reader = newBufferedReader(spool, UTF_8)){
+				StringBuilder content = new StringBuilder();
+				char[] buffer = new char[BUFFER_SIZE];
+				for(int n = reader.read(buffer); n >= 0; n = reader.read(buffer)) {
+					content.append(buffer, 0, n);
+				}
+				config = content.toString();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return config;
+	}
+
+	String getDigest() {
+		return digest;
+	}
+
+	boolean isSpooled() {
+		return spool != null;
+	}
+
+	/**
+	 * Removes the temporary file of a spooled configuration.
+	 */
+	@Override
+	public void close() throws IOException {
+		if(spool != null) {
+			deleteIfExists(spool);
+		}
+	}
+
+	/**
+	 * Updates a message digest with the UTF-8 representation of all written characters
+	 * and forwards the characters to the underlying writer.
+	 * Unpaired surrogates are digested as <code>?</code>,
+	 * which is consistent with the UTF-8 representation returned by {@link String#getBytes(Charset)}.
+	 */
+	private static final class DigestingWriter extends Writer {
+
+		private final Writer out;
+		private final MessageDigest md;
+		private final byte[] bytes = new byte[4*BUFFER_SIZE];
+		private int length;
+		private char highSurrogate;
+
+		DigestingWriter(Writer out, MessageDigest md){
+			this.out = out;
+			this.md = md;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			for(int i=off; i < off+len; i++) {
+				digest(cbuf[i]);
+			}
+			out.write(cbuf, off, len);
+		}
+
+		private void digest(char c) {
+			if(highSurrogate != 0) {
+				char high = highSurrogate;
+				highSurrogate = 0;
+				if(isLowSurrogate(c)) {
+					digest(toCodePoint(high, c));
+					return;
+				}
+				digest('?');
+			}
+			if(isHighSurrogate(c)) {
+				highSurrogate = c;
+			} else if(isLowSurrogate(c)) {
+				digest('?');
+			} else {
+				digest((int) c);
+			}
+		}
+
+		private void digest(int codePoint) {
+			if(length + 4 > bytes.length) {
+				flushDigest();
+			}
+			if(codePoint < 0x80) {
+				bytes[length++] = (byte) codePoint;
+			} else if(codePoint < 0x800) {
+				bytes[length++] = (byte) (0xC0 | (codePoint >> 6));
+				bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+			} else if(codePoint < 0x10000) {
+				bytes[length++] = (byte) (0xE0 | (codePoint >> 12));
+				bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+			} else {
+				bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+				bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+			}
+		}
+
+		private void flushDigest() {
+			md.update(bytes, 0, length);
+			length = 0;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if(highSurrogate != 0) {
+				highSurrogate = 0;
+				digest('?');
+			}
+			flushDigest();
+			out.close();
+		}
+	}
+
+	/**
+	 * Keeps the written characters in memory until the threshold is exceeded
+	 * and spools all characters to a temporary file afterwards.
+	 */
+	private static final class SpoolWriter extends Writer {
+
+		private final int threshold;
+		private StringBuilder content = new StringBuilder();
+		private Path file;
+		private Writer spool;
+
+		SpoolWriter(int threshold){
+			this.threshold = threshold;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			if(spool == null && content.length() + len > threshold) {
+				file = createTempFile("config", ".spool");
+				spool = newBufferedWriter(file, UTF_8);
+				spool.append(content);
+				content = null;
+			}
+			if(spool != null) {
+				spool.write(cbuf, off, len);
+			} else {
+				content.append(cbuf, off, len);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if(spool != null) {
+				spool.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if(spool != null) {
+				spool.close();
+			}
+		}
+
+		void discard() throws IOException {
+			close();
+			if(file != null) {
+				deleteIfExists(file);
+			}
+		}
+
+		String getContent() {
+			return content != null ? content.toString() : null;
+		}
+
+		Path getFile() {
+			return file;
+		}
+	}
+
+}
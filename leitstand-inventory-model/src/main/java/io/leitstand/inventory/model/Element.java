@@ -10,6 +10,7 @@ import static io.leitstand.inventory.service.OperationalState.UP;
 import static java.util.Collections.unmodifiableMap;
 import static java.util.Collections.unmodifiableSet;
 import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static javax.persistence.CascadeType.PERSIST;
 
@@ -65,6 +66,10 @@ import io.leitstand.inventory.service.Plane;
 			query="SELECT e FROM Element e WHERE e.group=:group AND e.role=:role")
 @NamedQuery(name="Element.findByElementNamePattern", 
 			query="SELECT e FROM Element e WHERE CONCAT('',e.elementName) REGEXP :name  OR  CONCAT('',e.elementAlias) REGEXP :name  ORDER by e.group.name ASC, e.elementName ASC")
+@NamedQuery(name="Element.findByElementNames", 
+			query="SELECT e FROM Element e WHERE e.elementName IN :names OR e.elementAlias IN :aliases")
+@NamedQuery(name="Element.findByIds", 
+			query="SELECT e FROM Element e WHERE e.id IN :ids")
 @NamedQuery(name="Element.findByElementGroupAndPlane",
 			query="SELECT e FROM Element e WHERE e.group=:group AND e.role.plane=:plane")
 
@@ -94,6 +99,21 @@ public class Element extends VersionableEntity {
 					   .getResultList();
 	}
 	
+	public static Query<List<Element>> findElementsByNames(Collection<ElementName> names){
+		return em -> em.createNamedQuery("Element.findByElementNames",Element.class)
+					   .setParameter("names", names)
+					   .setParameter("aliases", names.stream()
+							   						 .map(ElementAlias::valueOf)
+							   						 .collect(toList()))
+					   .getResultList();
+	}
+	
+	public static Query<List<Element>> findElementsByIds(Collection<Long> ids){
+		return em -> em.createNamedQuery("Element.findByIds",Element.class)
+					   .setParameter("ids", ids)
+					   .getResultList();
+	}
+	
 	public static Query<List<Element>> findElementsByGroupAndElementRoleAndPlatform(ElementGroup group, 
 																					ElementRole role, 
 																					Platform platform) {
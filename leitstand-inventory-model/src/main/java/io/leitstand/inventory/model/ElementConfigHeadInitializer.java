@@ -0,0 +1,26 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import io.leitstand.commons.StartupListener;
+
+/**
+ * Initializes the missing element configuration heads on startup.
+ * @see ElementConfigHeadService
+ */
+@ApplicationScoped
+public class ElementConfigHeadInitializer implements StartupListener {
+
+	@Inject
+	private ElementConfigHeadService service;
+	
+	@Override
+	public void onStartup() {
+		service.initializeConfigHeads();
+	}
+
+}
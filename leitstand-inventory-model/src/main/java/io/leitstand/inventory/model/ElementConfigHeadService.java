@@ -0,0 +1,47 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.service.ReasonCode.IVT8005I_CONFIG_HEADS_INITIALIZED;
+import static java.lang.String.format;
+
+import java.util.logging.Logger;
+
+import javax.inject.Inject;
+
+import io.leitstand.commons.db.DatabaseService;
+import io.leitstand.commons.model.Service;
+
+/**
+ * Creates the missing heads of element configurations stored before the heads were introduced.
+ * @see Element_ConfigHead
+ * @see ElementConfigHeadInitializer
+ */
+@Service
+public class ElementConfigHeadService {
+
+	private static final Logger LOG = Logger.getLogger(ElementConfigHeadService.class.getName());
+	
+	private DatabaseService database;
+	
+	protected ElementConfigHeadService() {
+		// CDI
+	}
+	
+	@Inject
+	protected ElementConfigHeadService(@Inventory DatabaseService database) {
+		this.database = database;
+	}
+	
+	public int initializeConfigHeads() {
+		int count = database.executeUpdate(Element_ConfigHead.initializeConfigHeads());
+		if(count > 0) {
+			LOG.info(() -> format("%s: Initialized %d configuration heads.",
+								  IVT8005I_CONFIG_HEADS_INITIALIZED.getReasonCode(),
+								  count));
+		}
+		return count;
+	}
+	
+}
@@ -0,0 +1,117 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.ConfigTerms.indexTerms;
+import static io.leitstand.inventory.model.Element.findElementById;
+import static io.leitstand.inventory.model.Element_Config.findIndexableConfigs;
+import static io.leitstand.inventory.model.Element_ConfigTerm.removeStaleTerms;
+import static io.leitstand.inventory.model.Element_ConfigTerm.removeTerms;
+import static java.lang.String.format;
+import static java.util.logging.Level.WARNING;
+import static javax.enterprise.event.TransactionPhase.AFTER_SUCCESS;
+
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import javax.enterprise.context.Dependent;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.SubtransactionService;
+import io.leitstand.inventory.event.ElementClonedEvent;
+import io.leitstand.inventory.event.ElementConfigRemovedEvent;
+import io.leitstand.inventory.event.ElementConfigRevisionRemovedEvent;
+import io.leitstand.inventory.event.ElementConfigStoredEvent;
+
+/**
+ * Maintains the inverted index over active and candidate element configurations.
+ * <p>
+ * The indexer observes the element configuration events.
+ * A stored revision is indexed in a separate transaction after the transaction that stored the revision has been committed.
+ * Removed revisions are removed from the index in the transaction that removed the revisions.
+ * Superseded revisions are removed from the index.
+ * @see Element_ConfigTerm
+ */
+@Dependent
+public class ElementConfigIndexer {
+
+	private static final Logger LOG = Logger.getLogger(ElementConfigIndexer.class.getName());
+
+	private Repository repository;
+	private SubtransactionService inventory;
+
+	protected ElementConfigIndexer() {
+		// CDI
+	}
+
+	@Inject
+	protected ElementConfigIndexer(@Inventory Repository repository,
+								   @Inventory SubtransactionService inventory) {
+		this.repository = repository;
+		this.inventory = inventory;
+	}
+
+	public void onConfigStored(@Observes(during=AFTER_SUCCESS) ElementConfigStoredEvent event) {
+		try {
+			inventory.run(new IndexElementConfigFlow(event.getConfigId()));
+		} catch (Exception e) {
+			// The configuration has been stored already. 
+			// The revision is missing in the index until the revision is stored again.
+			LOG.log(WARNING, 
+					format("Cannot index %s configuration %s of element %s: %s",
+						   event.getConfigName(),
+						   event.getConfigId(),
+						   event.getElementName(),
+						   e.getMessage()),
+					e);
+		}
+	}
+
+	public void onConfigRevisionRemoved(@Observes ElementConfigRevisionRemovedEvent event) {
+		if(event.getConfigId() != null) {
+			repository.execute(removeTerms(event.getConfigId()));
+		}
+	}
+
+	public void onConfigRemoved(@Observes ElementConfigRemovedEvent event) {
+		Element element = repository.execute(findElementById(event.getElementId()));
+		if(element != null) {
+			repository.execute(removeStaleTerms(element));
+		}
+	}
+
+	public void onElementCloned(@Observes ElementClonedEvent event) {
+		Element clone = repository.execute(findElementById(event.getCloneId()));
+		if(clone == null) {
+			return;
+		}
+		for(Element_Config config : repository.execute(findIndexableConfigs(clone))) {
+			index(repository, config);
+		}
+	}
+
+	/**
+	 * Adds the index entries of the given revision.
+	 * The entries are written as JDBC batch when the persistence context is flushed.
+	 * @param repository the repository
+	 * @param config the revision
+	 */
+	static void index(Repository repository, Element_Config config) {
+		Map<String,List<Integer>> terms = indexTerms(config.getConfig());
+		for(Map.Entry<String,List<Integer>> term : terms.entrySet()) {
+			repository.add(new Element_ConfigTerm(config,
+												  term.getKey(),
+												  term.getValue()));
+		}
+		LOG.fine(() -> format("Indexed %d terms of %s configuration %s of element %s",
+							  terms.size(),
+							  config.getName(),
+							  config.getConfigId(),
+							  config.getElement().getElementName()));
+	}
+
+}
@@ -11,20 +11,36 @@ import static io.leitstand.commons.model.StringUtil.isEmptyString;
 import static io.leitstand.inventory.event.ElementConfigRemovedEvent.newElementConfigRemovedEvent;
 import static io.leitstand.inventory.event.ElementConfigRevisionRemovedEvent.newElementConfigRevisionRemovedEvent;
 import static io.leitstand.inventory.event.ElementConfigStoredEvent.newElementConfigStoredEvent;
+import static io.leitstand.inventory.model.ConfigDelta.applyDelta;
+import static io.leitstand.inventory.model.ConfigRevisionStorage.DELTA;
+import static io.leitstand.inventory.model.DigestedConfig.digestedConfig;
+import static io.leitstand.inventory.model.Element_Config.SNAPSHOT_INTERVAL;
 import static io.leitstand.inventory.model.Element_Config.findActiveConfig;
+import static io.leitstand.inventory.model.Element_Config.findDependentConfigs;
 import static io.leitstand.inventory.model.Element_Config.findElementConfig;
 import static io.leitstand.inventory.model.Element_Config.findLatestConfig;
+import static io.leitstand.inventory.model.Element_Config.findRetainedDependentConfigs;
+import static io.leitstand.inventory.model.Element_Config.findRevisionBlobDigests;
 import static io.leitstand.inventory.model.Element_Config.removeConfigRevisions;
+import static io.leitstand.inventory.model.Element_ConfigHead.findConfigHead;
 import static io.leitstand.inventory.service.ConfigurationState.ACTIVE;
 import static io.leitstand.inventory.service.ConfigurationState.CANDIDATE;
 import static io.leitstand.inventory.service.ConfigurationState.SUPERSEDED;
 import static io.leitstand.inventory.service.ConfigurationState.configurationState;
+import static io.leitstand.inventory.service.ElementAlias.elementAlias;
 import static io.leitstand.inventory.service.ElementConfig.newElementConfig;
+import static io.leitstand.inventory.service.ElementConfigDiff.newElementConfigDiff;
 import static io.leitstand.inventory.service.ElementConfigId.elementConfigId;
 import static io.leitstand.inventory.service.ElementConfigName.elementConfigName;
 import static io.leitstand.inventory.service.ElementConfigReference.newElementConfigReference;
 import static io.leitstand.inventory.service.ElementConfigRevisions.newElementConfigRevisions;
 import static io.leitstand.inventory.service.ElementConfigs.newElementConfigs;
+import static io.leitstand.inventory.service.ElementGroupId.groupId;
+import static io.leitstand.inventory.service.ElementGroupName.groupName;
+import static io.leitstand.inventory.service.ElementGroupType.groupType;
+import static io.leitstand.inventory.service.ElementId.elementId;
+import static io.leitstand.inventory.service.ElementName.elementName;
+import static io.leitstand.inventory.service.ElementRoleName.elementRoleName;
 import static io.leitstand.inventory.service.ReasonCode.IVT0330I_ELEMENT_CONFIG_REVISION_STORED;
 import static io.leitstand.inventory.service.ReasonCode.IVT0331I_ELEMENT_CONFIG_REVISION_REMOVED;
 import static io.leitstand.inventory.service.ReasonCode.IVT0332E_ELEMENT_CONFIG_REVISION_NOT_FOUND;
@@ -33,11 +49,18 @@ import static io.leitstand.inventory.service.ReasonCode.IVT0337I_ELEMENT_CONFIG_
 import static io.leitstand.inventory.service.StoreElementConfigResult.configCreated;
 import static io.leitstand.inventory.service.StoreElementConfigResult.configUpdated;
 import static io.leitstand.security.auth.UserId.userId;
-import static io.leitstand.security.crypto.SecureHashes.md5;
 import static java.lang.String.format;
+import static java.util.Collections.singleton;
 
-import java.math.BigInteger;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 import javax.enterprise.context.Dependent;
@@ -47,12 +70,15 @@ import javax.ws.rs.core.MediaType;
 
 import io.leitstand.commons.EntityNotFoundException;
 import io.leitstand.commons.db.DatabaseService;
+import io.leitstand.commons.db.StatementPreparator;
 import io.leitstand.commons.messages.MessageFactory;
 import io.leitstand.commons.messages.Messages;
 import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.SubtransactionService;
 import io.leitstand.inventory.event.ElementConfigEvent;
 import io.leitstand.inventory.service.ConfigurationState;
 import io.leitstand.inventory.service.ElementConfig;
+import io.leitstand.inventory.service.ElementConfigDiff;
 import io.leitstand.inventory.service.ElementConfigId;
 import io.leitstand.inventory.service.ElementConfigName;
 import io.leitstand.inventory.service.ElementConfigReference;
@@ -66,21 +92,31 @@ import io.leitstand.security.auth.UserId;
 public class ElementConfigManager {
 
 	private static final Logger LOG = Logger.getLogger(ElementConfigManager.class.getName());
+	private static final int BULK_FETCH_SIZE = 100;
 	
 	private Repository repository;
 	private DatabaseService database;
+	private ConfigBlobStore blobs;
+	private SubtransactionService inventory;
+	private ConfigDiffCache diffs;
 	private Messages messages;
 	private Event<ElementConfigEvent> event;
 	private UserId creator;
 	@Inject
 	protected ElementConfigManager(	@Inventory Repository repository, 
 									@Inventory DatabaseService database,
+									ConfigBlobStore blobs,
+									@Inventory SubtransactionService inventory,
+									ConfigDiffCache diffs,
 									@Authenticated UserId creator,
 									Event<ElementConfigEvent> event,
 									Messages messages){
 		this.creator = creator;
 		this.repository = repository;
 		this.database   = database;
+		this.blobs		= blobs;
+		this.inventory	= inventory;
+		this.diffs		= diffs;
 		this.event = event;
 		this.messages   = messages;
 	}
@@ -92,19 +128,35 @@ public class ElementConfigManager {
 			filter = ".*";
 		}
 		
+		// Read the latest revisions by means of the configuration heads, such that the costs do not depend on the number of revisions.
+		// Configurations without a head, e.g. configurations stored before the heads were initialized, 
+		// fall back to the latest revision of the revision history.
 		List<ElementConfigReference> configs = database.executeQuery(prepare("WITH history AS ("+ 
-																			 "SELECT element_id, name, max(tsmodified) AS tsmodified "+
-																			 "FROM inventory.element_config "+
-																			 "WHERE element_id = ? "+
-																			 "AND name ~ ? "+
-																			 "GROUP BY element_id, name )"+
+																			 "SELECT r.element_id, r.name, max(r.tsmodified) AS tsmodified "+
+																			 "FROM inventory.element_config r "+
+																			 "WHERE r.element_id = ? "+
+																			 "AND r.name ~ ? "+
+																			 "AND NOT EXISTS (SELECT 1 FROM inventory.element_config_head x "+
+																			 "WHERE x.element_id = r.element_id "+
+																			 "AND x.name = r.name "+
+																			 "AND x.latest_uuid IS NOT NULL) "+
+																			 "GROUP BY r.element_id, r.name ) "+
+																			 "SELECT c.uuid, c.name, c.state, c.creator, c.comment, c.contenttype, c.tsmodified "+
+																			 "FROM inventory.element_config_head h "+
+																			 "JOIN inventory.element_config c "+
+																			 "ON h.latest_uuid = c.uuid "+
+																			 "WHERE h.element_id = ? "+
+																			 "AND h.name ~ ? "+
+																			 "UNION ALL "+
 																			 "SELECT c.uuid, c.name, c.state, c.creator, c.comment, c.contenttype, c.tsmodified "+
 																			 "FROM history h "+
 																			 "JOIN inventory.element_config c "+
 																			 "ON h.name = c.name "+
 																			 "AND h.element_id = c.element_id "+
 																			 "AND h.tsmodified = c.tsmodified "+
-																			 "ORDER BY c.name ",	
+																			 "ORDER BY 2 ",	
+																			 element.getId(),
+																			 filter,
 																			 element.getId(),
 																			 filter),
 									 								 rs -> newElementConfigReference()
@@ -187,6 +239,89 @@ public class ElementConfigManager {
 	
 	}
 
+	public ElementConfigReference getElementConfigReference(Element element, ElementConfigId configId) {
+		// Read the revision metadata without loading the configuration itself.
+		// The content length is only known for snapshot revisions and expressed in bytes of the UTF-8 encoded configuration.
+		// A revision referring to a missing blob is reported as not found, before the configuration is streamed to the client.
+		List<ElementConfigReference> configs = database.executeQuery(prepare("SELECT c.uuid, c.name, c.state, c.creator, c.comment, c.contenttype, c.contenthash, c.tsmodified, "+
+																		 "CASE WHEN c.storage = 'DELTA' THEN NULL ELSE octet_length(COALESCE(b.content,c.config)) END "+
+																		 "FROM inventory.element_config c "+
+																		 "LEFT OUTER JOIN inventory.config_blob b "+
+																		 "ON c.blob_digest = b.digest "+
+																		 "WHERE c.uuid = ? "+
+																		 "AND c.element_id = ? "+
+																		 "AND (c.blob_digest IS NULL OR b.digest IS NOT NULL)",
+																		 configId,
+																		 element.getId()),
+																 rs -> newElementConfigReference()
+																 	   .withConfigId(elementConfigId(rs.getString(1)))
+																 	   .withConfigName(elementConfigName(rs.getString(2)))
+																 	   .withConfigState(configurationState(rs.getString(3)))
+																 	   .withCreator(userId(rs.getString(4)))
+																 	   .withComment(rs.getString(5))
+																 	   .withContentType(rs.getString(6))
+																 	   .withContentHash(rs.getString(7))
+																 	   .withDateModified(rs.getTimestamp(8))
+																 	   .withContentLength(contentLength(rs.getLong(9),rs.wasNull()))
+																 	   .build());
+		if(configs.isEmpty()) {
+			LOG.fine(() -> format("%s: %s configuration for element %s not found.",
+								  IVT0332E_ELEMENT_CONFIG_REVISION_NOT_FOUND,
+								  configId,
+								  element.getElementName()));
+			
+			throw new EntityNotFoundException(IVT0332E_ELEMENT_CONFIG_REVISION_NOT_FOUND, 
+											  element.getElementName(), 
+											  configId);
+		}
+		return configs.get(0);
+	}
+	
+	private static Long contentLength(long length, boolean unknown) {
+		return unknown ? null : length;
+	}
+	
+	public void writeElementConfig(Element element, ElementConfigId configId, Writer writer) {
+		// Stream snapshot revisions directly from the database.
+		boolean[] streamed = {false};
+		database.processQuery(prepare("SELECT COALESCE(b.content,c.config) "+
+									  "FROM inventory.element_config c "+
+									  "LEFT OUTER JOIN inventory.config_blob b "+
+									  "ON c.blob_digest = b.digest "+
+									  "WHERE c.uuid = ? "+
+									  "AND c.element_id = ? "+
+									  "AND (c.storage IS NULL OR c.storage <> 'DELTA')",
+									  configId,
+									  element.getId()), 
+							  rs -> {
+								  streamed[0] = true;
+								  try(Reader reader = rs.getCharacterStream(1)){
+									  if(reader != null) {
+										  copy(reader,writer);
+									  }
+								  } catch (IOException e) {
+									  throw new UncheckedIOException(e);
+								  }
+							  });
+		if(streamed[0]) {
+			return;
+		}
+		// Delta revisions must be restored from their base revision.
+		Element_Config config = findConfig(element, configId);
+		try {
+			writer.write(config.getConfig());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	private static void copy(Reader reader, Writer writer) throws IOException {
+		char[] buffer = new char[8192];
+		for(int n = reader.read(buffer); n >= 0; n = reader.read(buffer)) {
+			writer.write(buffer, 0, n);
+		}
+	}
+
 	private ElementConfig config(Element element, Element_Config config) {
 		return newElementConfig()
 			   .withGroupId(element.getGroup().getGroupId())
@@ -208,8 +343,52 @@ public class ElementConfigManager {
 			   .build();
 	}
 	
+	public ElementConfigDiff getElementConfigDiff(Element element, 
+												  ElementConfigId baseConfigId, 
+												  ElementConfigId targetConfigId) {
+		Element_Config target = findConfig(element, targetConfigId);
+		Element_Config base = null;
+		if(baseConfigId != null) {
+			base = findConfig(element, baseConfigId);
+		} else {
+			base = activeConfig(element, target.getName());
+			if(base == null) {
+				LOG.fine(() -> format("%s: No active %s configuration for element %s found.",
+									  IVT0334E_ELEMENT_ACTIVE_CONFIG_NOT_FOUND,
+									  target.getName(),
+									  element.getElementName()));
+				throw new EntityNotFoundException(IVT0334E_ELEMENT_ACTIVE_CONFIG_NOT_FOUND, 
+												  element.getElementName(), 
+												  target.getName());
+			}
+		}
+		Element_Config from = base;
+		// Configurations are only loaded if the difference is not cached.
+		ConfigDiff diff = diffs.diff(from.getContentHash(), 
+									 target.getContentHash(), 
+									 () -> ConfigDiff.diff(from.getConfig(), 
+											 			   target.getConfig()));
+		return newElementConfigDiff()
+			   .withGroupId(element.getGroupId())
+			   .withGroupName(element.getGroupName())
+			   .withGroupType(element.getGroupType())
+			   .withElementId(element.getElementId())
+			   .withElementName(element.getElementName())
+			   .withElementAlias(element.getElementAlias())
+			   .withElementRole(element.getElementRoleName())
+			   .withConfigName(target.getName())
+			   .withBaseConfigId(from.getConfigId())
+			   .withBaseContentHash(from.getContentHash())
+			   .withTargetConfigId(target.getConfigId())
+			   .withTargetContentHash(target.getContentHash())
+			   .withLinesAdded(diff.getLinesAdded())
+			   .withLinesRemoved(diff.getLinesRemoved())
+			   .withDiff(diff.getHunks())
+			   .build();
+	}
+	
 	public ElementConfig getElementConfig(Element element, ElementConfigName configName) {
-		Element_Config config = repository.execute(findActiveConfig(element,configName));
+		Element_Config config = activeConfig(element,configName);
 		
 		if(config == null) {
 			LOG.fine(() -> format("%s: No active %s configuration for element found.",
@@ -234,9 +413,22 @@ public class ElementConfigManager {
 													   ConfigurationState configState,
 													   String configData,
 													   String comment) {
-		String contentHash = new BigInteger(md5().hash(configData)).abs().toString(16);
-		
-		Element_Config config = repository.execute(findLatestConfig(element, configName ));
+		return storeElementConfig(element, 
+								  configName, 
+								  contentType, 
+								  configState, 
+								  digestedConfig(configData), 
+								  comment);
+	}
+	
+	public StoreElementConfigResult storeElementConfig(Element element, 
+													   ElementConfigName configName,
+													   MediaType contentType,
+													   ConfigurationState configState,
+													   DigestedConfig configData,
+													   String comment) {
+		String contentHash = configData.getDigest();
+		Element_Config config = latestConfig(element, configName);
 		if(config != null ) {
 			if(configState == ACTIVE) {
 				// New active configuration detected.
@@ -249,7 +441,7 @@ public class ElementConfigManager {
 				} else {
 					// New active configuration reported.
 					// Existing active config, if any, must be set to superseded.
-					Element_Config active = repository.execute(findActiveConfig(element, configName));
+					Element_Config active = activeConfig(element, configName);
 					if(active != null) {
 						// No active config exists, if only a first candidate is available.
 						active.setConfigState(SUPERSEDED);
@@ -261,7 +453,14 @@ public class ElementConfigManager {
 				// Update existing candidate configuration. 
 				// Config must be fetched first because it is being lazy loaded.
 				// Otherwise changes made to the entity (e.g. comment update) get lost.
-				config.setConfig(configData);
+				String replacedBlob = config.getBlobDigest();
+				blobs.storeConfig(config, 
+								  null, 
+								  configData);
+				config.touch();
+				if(replacedBlob != null && !replacedBlob.equals(contentHash)) {
+					blobs.removeUnreferenced(singleton(replacedBlob));
+				}
 	
 				// An operator uploads new CANDIDATE configs.
 				// There is only one candidate config, i.e. an existing candidate will be updated.
@@ -300,21 +499,26 @@ public class ElementConfigManager {
 						   .withCreator(config.getCreator())
 						   .withDateModified(config.getDateModified())
 						   .build());
-				
+				updateConfigHead(element, config);
+				configsModified(element);
 				return configUpdated(config.getConfigId());
 			}
 			
 		}
 		
 		
-		// Create a new configuration
+		// Create a new configuration, which refers to an existing blob with the same content 
+		// or is stored as delta of the latest revision if possible.
+		Element_Config previous = config;
 		config = new Element_Config(element,
 									configName,
 									configState,
 									contentType,
 									contentHash,
-									configData,
 									creator);
+		blobs.storeConfig(config, 
+						  previous, 
+						  configData);
 		config.setComment(comment);
 		repository.add(config);
 		LOG.fine(() -> format("%s: Stored new %s configuration for element %s (%s)",
@@ -341,7 +545,8 @@ public class ElementConfigManager {
 				   .withCreator(config.getCreator())
 				   .withDateModified(config.getDateModified())
 				   .build());
-
+		updateConfigHead(element, config);
+		configsModified(element);
 		return configCreated(config.getConfigId());
 	}
 	
@@ -361,7 +566,19 @@ public class ElementConfigManager {
 	  				  				   element.getElementName(),
 	  				  				   config.getName(),
 	  				  				   configId));
+			// Revisions stored as delta of the removed revision must be materialized.
+			for(Element_Config dependent : repository.execute(findDependentConfigs(config))) {
+				blobs.materialize(dependent);
+			}
+			String blob = config.getBlobDigest();
 			repository.remove(config);
+			if(blob != null) {
+				blobs.removeUnreferenced(singleton(blob));
+			}
+			Element_ConfigHead head = repository.execute(findConfigHead(element, config.getName()));
+			if(head == null || configId.equals(head.getLatestConfigId()) || configId.equals(head.getActiveConfigId())) {
+				refreshConfigHead(element, config.getName());
+			}
 			event.fire(newElementConfigRevisionRemovedEvent()
 					   .withGroupId(element.getGroupId())
 					   .withGroupName(element.getGroupName())
@@ -370,12 +587,13 @@ public class ElementConfigManager {
 					   .withElementName(element.getElementName())
 					   .withElementAlias(element.getElementAlias())
 					   .withElementRole(element.getElementRoleName())
+					   .withConfigId(configId)
 					   .withConfigName(config.getName())
 					   .withContentType(config.getContentType())
 					   .withCreator(config.getCreator())
 					   .withDateModified(config.getDateModified())
 					   .build());
-
+			configsModified(element);
 		}
 	}
 
@@ -393,8 +611,237 @@ public class ElementConfigManager {
 								   element.getElementName(),
 								   configId));
 		config.setComment(comment);
+		configsModified(element);
 	}
 
+	/**
+	 * Returns the version of the element configurations. 
+	 * The version is composed of the element modification counter and the configuration modification counter.
+	 * Both counters are read without loading any configuration.
+	 * @param element the element
+	 * @return the version of the element configurations.
+	 * @see Element_ConfigVersion
+	 */
+	public String getElementConfigsVersion(Element element) {
+		List<String> versions = database.executeQuery(prepare("SELECT e.modcount, v.modcount "+
+															  "FROM inventory.element e "+
+															  "LEFT JOIN inventory.element_config_version v "+
+															  "ON v.element_id = e.id "+
+															  "WHERE e.id = ?",
+															  element.getId()),
+													  rs -> format("%d.%d", 
+															  	   rs.getLong(1),
+															  	   rs.getLong(2)));
+		return versions.get(0);
+	}
+	
+	/**
+	 * Passes the active configuration with the given name of all elements of the specified group to the given consumer.
+	 * @param group the element group
+	 * @param configName the configuration name
+	 * @param consumer the configuration consumer
+	 */
+	public void processActiveElementConfigs(ElementGroup group, 
+											ElementConfigName configName, 
+											Consumer<ElementConfig> consumer) {
+		processActiveElementConfigs("e.elementgroup_id = ? ", 
+									group.getId(), 
+									configName, 
+									consumer);
+	}
+	
+	/**
+	 * Passes the active configuration with the given name of all elements of the specified role to the given consumer.
+	 * @param role the element role
+	 * @param configName the configuration name
+	 * @param consumer the configuration consumer
+	 */
+	public void processActiveElementConfigs(ElementRole role, 
+											ElementConfigName configName, 
+											Consumer<ElementConfig> consumer) {
+		processActiveElementConfigs("e.elementrole_id = ? ", 
+									role.getId(), 
+									configName, 
+									consumer);
+	}
+	
+	private void processActiveElementConfigs(String filter, 
+											 Long id, 
+											 ElementConfigName configName, 
+											 Consumer<ElementConfig> consumer) {
+		// Read all active configurations with a single cursor query instead of loading every element and its configuration.
+		// A delta revision has at most SNAPSHOT_INTERVAL base revisions. 
+		// Every base revision is joined to the active revision, such that each row contains all revisions needed to restore the active configuration.
+		StringBuilder columns = new StringBuilder("SELECT c0.uuid, c0.name, c0.state, c0.contenttype, c0.contenthash, c0.creator, c0.comment, c0.tsmodified, "+
+												  "e.uuid, e.name, e.alias, r.name, g.uuid, g.name, g.type");
+		StringBuilder revisions = new StringBuilder();
+		for(int level=0; level <= SNAPSHOT_INTERVAL; level++) {
+			columns.append(format(", c%d.uuid, c%d.storage, COALESCE(b%d.content,c%d.config)",level,level,level,level));
+			if(level > 0) {
+				revisions.append(format("LEFT OUTER JOIN inventory.element_config c%d "+
+										"ON c%d.storage = 'DELTA' "+
+										"AND c%d.base_uuid = c%d.uuid ",
+										level,
+										level-1,
+										level-1,
+										level));
+			}
+			revisions.append(format("LEFT OUTER JOIN inventory.config_blob b%d "+
+									"ON c%d.blob_digest = b%d.digest ",
+									level,
+									level,
+									level));
+		}
+		
+		database.processQuery(withFetchSize(prepare(columns+" "+
+													"FROM inventory.element e "+
+													"JOIN inventory.element_config_head h "+
+													"ON h.element_id = e.id "+
+													"AND h.name = ? "+
+													"JOIN inventory.element_config c0 "+
+													"ON h.active_uuid = c0.uuid "+
+													"JOIN inventory.elementgroup g "+
+													"ON e.elementgroup_id = g.id "+
+													"JOIN inventory.elementrole r "+
+													"ON e.elementrole_id = r.id "+
+													revisions+
+													"WHERE "+filter+
+													"ORDER BY e.name",
+													configName,
+													id)), 
+							  rs -> consumer.accept(newElementConfig()
+									  				.withConfigId(elementConfigId(rs.getString(1)))
+									  				.withConfigName(elementConfigName(rs.getString(2)))
+									  				.withConfigState(configurationState(rs.getString(3)))
+									  				.withContentType(rs.getString(4))
+									  				.withContentHash(rs.getString(5))
+									  				.withCreator(userId(rs.getString(6)))
+									  				.withComment(rs.getString(7))
+									  				.withDateModified(rs.getTimestamp(8))
+									  				.withElementId(elementId(rs.getString(9)))
+									  				.withElementName(elementName(rs.getString(10)))
+									  				.withElementAlias(elementAlias(rs.getString(11)))
+									  				.withElementRole(elementRoleName(rs.getString(12)))
+									  				.withGroupId(groupId(rs.getString(13)))
+									  				.withGroupName(groupName(rs.getString(14)))
+									  				.withGroupType(groupType(rs.getString(15)))
+									  				.withConfig(restoreActiveConfig(rs, 16))
+									  				.build()));
+	}
+	
+	private static StatementPreparator withFetchSize(StatementPreparator query) {
+		return connection -> {
+			PreparedStatement stmt = query.prepare(connection);
+			stmt.setFetchSize(BULK_FETCH_SIZE);
+			return stmt;
+		};
+	}
+	
+	private static String restoreActiveConfig(ResultSet rs, int offset) throws SQLException {
+		// Each revision occupies three columns: UUID, storage and stored content.
+		int level = 0;
+		while(DELTA.name().equals(rs.getString(offset+3*level+1))) {
+			if(level == SNAPSHOT_INTERVAL) {
+				throw new IllegalStateException(format("Delta revision %s exceeds the snapshot interval",
+													   rs.getString(offset+3*level)));
+			}
+			level++;
+			if(rs.getString(offset+3*level) == null) {
+				throw new IllegalStateException(format("Base revision of %s not found",
+													   rs.getString(offset+3*(level-1))));
+			}
+		}
+		String content = rs.getString(offset+3*level+2);
+		for(level--; level >= 0; level--) {
+			content = applyDelta(content, rs.getString(offset+3*level+2));
+		}
+		return content;
+	}
+	
+	private Element_Config latestConfig(Element element, ElementConfigName configName) {
+		Element_ConfigHead head = repository.execute(findConfigHead(element, configName));
+		if(head == null || head.getLatestConfigId() == null) {
+			// Configuration does not exist or the head has not been initialized yet.
+			return repository.execute(findLatestConfig(element, configName));
+		}
+		return repository.execute(findElementConfig(head.getLatestConfigId()));
+	}
+	
+	private Element_Config activeConfig(Element element, ElementConfigName configName) {
+		Element_ConfigHead head = repository.execute(findConfigHead(element, configName));
+		if(head == null || head.getLatestConfigId() == null) {
+			// Configuration does not exist or the head has not been initialized yet.
+			return repository.execute(findActiveConfig(element, configName));
+		}
+		if(head.getActiveConfigId() == null) {
+			// Only a candidate configuration exists.
+			return null;
+		}
+		return repository.execute(findElementConfig(head.getActiveConfigId()));
+	}
+	
+	private void updateConfigHead(Element element, Element_Config config) {
+		Element_ConfigHead head = repository.execute(findConfigHead(element, config.getName()));
+		if(head == null) {
+			// Create the head in a subtransaction, as the first revisions of a configuration can be stored concurrently.
+			head = inventory.run(new CreateConfigHeadFlow(element, config.getName()));
+			if(head == null) {
+				LOG.fine(() -> format("Attempt to create head of %s configuration of element %s failed. Create head in current transaction.",
+									  config.getName(),
+									  element.getElementName()));
+				refreshConfigHead(element, config.getName());
+				return;
+			}
+		}
+		head.setLatestConfigId(config.getConfigId());
+		if(config.isActiveConfig()) {
+			head.setActiveConfigId(config.getConfigId());
+		}
+	}
+	
+	private void refreshConfigHead(Element element, ElementConfigName configName) {
+		// Derive the head from the revision history.
+		Element_ConfigHead head = repository.execute(findConfigHead(element, configName));
+		Element_Config latest = repository.execute(findLatestConfig(element, configName));
+		if(latest == null) {
+			if(head != null) {
+				repository.remove(head);
+			}
+			return;
+		}
+		if(head == null) {
+			head = new Element_ConfigHead(element, configName);
+			repository.add(head);
+		}
+		head.setLatestConfigId(latest.getConfigId());
+		Element_Config active = repository.execute(findActiveConfig(element, configName));
+		head.setActiveConfigId(active != null ? active.getConfigId() : null);
+	}
+	
+	private void configsModified(Element element) {
+		// Increment the counter in a dedicated row to neither lock the element row nor conflict with concurrent element updates.
+		if(incrementConfigsVersion(element) > 0) {
+			return;
+		}
+		// Create the counter in a subtransaction, as the first configurations of an element can be stored concurrently.
+		Element_ConfigVersion version = inventory.run(new CreateConfigVersionFlow(element));
+		if(version == null) {
+			LOG.fine(() -> format("Attempt to create configuration version of element %s failed. Create version in current transaction.",
+								  element.getElementName()));
+			database.executeUpdate(prepare("INSERT INTO inventory.element_config_version (element_id, modcount) VALUES (?,1)",
+										   element.getId()));
+			return;
+		}
+		incrementConfigsVersion(element);
+	}
+	
+	private int incrementConfigsVersion(Element element) {
+		return database.executeUpdate(prepare("UPDATE inventory.element_config_version "+
+											  "SET modcount = modcount + 1 "+
+											  "WHERE element_id = ?",
+											  element.getId()));
+	}
+	
 	private Element_Config findConfig(Element element, ElementConfigId configId) {
 		Element_Config config = repository.execute(findElementConfig(configId));
 		if(config == null) {
@@ -413,8 +860,20 @@ public class ElementConfigManager {
 
 	public int removeElementConfigRevisions(Element element, 
 									  		 ElementConfigName configName) {
+		// Materialize all retained revisions stored as delta of a revision being removed.
+		List<Element_Config> dependents = repository.execute(findRetainedDependentConfigs(element, configName));
+		if(!dependents.isEmpty()) {
+			for(Element_Config dependent : dependents) {
+				blobs.materialize(dependent);
+			}
+			repository.flush();
+		}
+		List<String> removedBlobs = repository.execute(findRevisionBlobDigests(element, configName));
 		int count = repository.execute(removeConfigRevisions(element,configName));
+		blobs.removeUnreferenced(removedBlobs);
 		if(count > 0) {
+			refreshConfigHead(element, configName);
+			configsModified(element);
 			event.fire(newElementConfigRemovedEvent()
 					   .withGroupId(element.getGroupId())
 					   .withGroupName(element.getGroupName())
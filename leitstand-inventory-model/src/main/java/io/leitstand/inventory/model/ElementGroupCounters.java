@@ -0,0 +1,339 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.commons.db.DatabaseService.prepare;
+import static io.leitstand.inventory.service.AdministrativeState.ACTIVE;
+import static io.leitstand.inventory.service.AdministrativeState.NEW;
+import static io.leitstand.inventory.service.AdministrativeState.administrativeState;
+import static io.leitstand.inventory.service.ElementGroupId.groupId;
+import static io.leitstand.inventory.service.ElementGroupName.groupName;
+import static io.leitstand.inventory.service.ElementGroupStatistics.newElementGroupStatistics;
+import static io.leitstand.inventory.service.ElementGroupType.groupType;
+import static io.leitstand.inventory.service.OperationalState.operationalState;
+import static java.lang.System.currentTimeMillis;
+import static java.util.Collections.nCopies;
+import static java.util.Comparator.comparing;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static javax.enterprise.event.TransactionPhase.AFTER_COMPLETION;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import io.leitstand.commons.db.DatabaseService;
+import io.leitstand.inventory.event.ElementAddedEvent;
+import io.leitstand.inventory.event.ElementClonedEvent;
+import io.leitstand.inventory.event.ElementGroupRemovedEvent;
+import io.leitstand.inventory.event.ElementGroupRenamedEvent;
+import io.leitstand.inventory.event.ElementMovedEvent;
+import io.leitstand.inventory.event.ElementOperationalStateChangedEvent;
+import io.leitstand.inventory.event.ElementOperationalStatesChangedEvent;
+import io.leitstand.inventory.event.ElementRemovedEvent;
+import io.leitstand.inventory.event.ElementRetiredEvent;
+import io.leitstand.inventory.event.ElementRoleChangedEvent;
+import io.leitstand.inventory.event.ElementSettingsUpdatedEvent;
+import io.leitstand.inventory.service.AdministrativeState;
+import io.leitstand.inventory.service.ElementGroupId;
+import io.leitstand.inventory.service.ElementGroupName;
+import io.leitstand.inventory.service.ElementGroupStatistics;
+import io.leitstand.inventory.service.ElementGroupType;
+import io.leitstand.inventory.service.OperationalState;
+
+/**
+ * In-memory counters of the manageable elements of all element groups by administrative state and operational state.
+ * <p>
+ * The counters of all groups are loaded from the database when they are read for the first time
+ * and reconciled with the database when they are older than {@link #RECONCILIATION_INTERVAL_MILLIS},
+ * in order to pick up modifications made by other nodes.
+ * The counters of a group are recounted by the next read after a transaction that has added, removed, moved,
+ * retired or updated an element of the group, has changed the operational state of an element,
+ * or has renamed or removed the group, has completed.
+ * This includes the elements declared detached by the heartbeat watchdog.
+ * Counting the elements of a single group is answered from the foreign key of the group.
+ * </p>
+ * <p>
+ * Every count is tagged with a generation drawn before the count is queried.
+ * A count never replaces a count of a later generation,
+ * such that a slow recount or reconciliation cannot overwrite the result of a more recent recount.
+ * </p>
+ * @see ElementGroupManager#getGroupStatistics(ElementGroupType, String)
+ */
+@ApplicationScoped
+public class ElementGroupCounters {
+
+	/** Maximum age of the counters in milliseconds.*/
+	static final long RECONCILIATION_INTERVAL_MILLIS = SECONDS.toMillis(30);
+
+	private static final Comparator<GroupCounters> ORDER = comparing((GroupCounters counters) -> counters.groupName.toString())
+														   .thenComparing(counters -> counters.groupId.toString());
+
+	private static final String COUNT_ELEMENTS = "SELECT g.type, g.name, g.uuid, e.adm_state, e.op_state, count(*) "+
+												 "FROM inventory.elementgroup g "+
+												 "JOIN inventory.element e "+
+												 "ON e.elementgroup_id = g.id "+
+												 "JOIN inventory.elementrole r "+
+												 "ON e.elementrole_id = r.id "+
+												 "WHERE r.manageable = 'Y' ";
+
+	private static final String GROUP_BY = "GROUP BY g.type, g.name, g.uuid, e.adm_state, e.op_state";
+
+	private static final class GroupCounters {
+
+		private final long generation;
+		private final ElementGroupId groupId;
+		private final ElementGroupType groupType;
+		private final ElementGroupName groupName;
+		private final Map<OperationalState,Integer> activeCounts = new HashMap<>();
+		private int newCount;
+		private int retiredCount;
+
+		/**
+		 * Creates the counters of a group without manageable elements.
+		 */
+		GroupCounters(long generation){
+			this(generation,null,null,null);
+		}
+		
+		GroupCounters(long generation,
+					  ElementGroupId groupId,
+					  ElementGroupType groupType,
+					  ElementGroupName groupName){
+			this.generation = generation;
+			this.groupId = groupId;
+			this.groupType = groupType;
+			this.groupName = groupName;
+		}
+
+		boolean isEmpty() {
+			return groupId == null;
+		}
+		
+		static GroupCounters latest(GroupCounters a, GroupCounters b) {
+			return b.generation > a.generation ? b : a;
+		}
+
+		void count(AdministrativeState admState, OperationalState opState, int count) {
+			if(admState.is(ACTIVE)) {
+				activeCounts.merge(opState, count, Integer::sum);
+			} else if(admState.is(NEW)) {
+				newCount += count;
+			} else {
+				retiredCount += count;
+			}
+		}
+
+		ElementGroupStatistics toStatistics() {
+			return newElementGroupStatistics()
+				   .withGroupId(groupId)
+				   .withGroupType(groupType)
+				   .withGroupName(groupName)
+				   .withCounts(activeCounts)
+				   .withNewCount(newCount)
+				   .withRetiredCount(retiredCount)
+				   .build();
+		}
+	}
+
+	private static final class Snapshot {
+		private final long created = currentTimeMillis();
+		private final long generation;
+		private final Map<String,GroupCounters> groups = new ConcurrentHashMap<>();
+
+		Snapshot(long generation){
+			this.generation = generation;
+		}
+
+		boolean isExpired() {
+			return currentTimeMillis() - created > RECONCILIATION_INTERVAL_MILLIS;
+		}
+	}
+
+	private DatabaseService db;
+	private final Object reconciliationLock = new Object();
+	private final AtomicLong generation = new AtomicLong();
+	private final Set<String> modified = ConcurrentHashMap.newKeySet();
+	private volatile Snapshot snapshot;
+
+	protected ElementGroupCounters() {
+		// CDI
+	}
+
+	@Inject
+	protected ElementGroupCounters(@Inventory DatabaseService db) {
+		this.db = db;
+	}
+
+	/**
+	 * Returns the statistics of all groups of the given type, that contain manageable elements.
+	 * @param groupType the group type
+	 * @return the group statistics ordered by group name.
+	 */
+	List<ElementGroupStatistics> getGroupStatistics(ElementGroupType groupType){
+		Snapshot current = refresh();
+		return current.groups
+					  .values()
+					  .stream()
+					  .filter(counters -> !counters.isEmpty())
+					  .filter(counters -> Objects.equals(groupType, counters.groupType))
+					  .sorted(ORDER)
+					  .map(GroupCounters::toStatistics)
+					  .collect(toList());
+	}
+
+	private Snapshot refresh() {
+		Snapshot current = snapshot;
+		if(current == null || current.isExpired()) {
+			current = reconcile(current);
+		}
+		if(modified.isEmpty()) {
+			return current;
+		}
+		Set<String> groupIds = new HashSet<>(modified);
+		modified.removeAll(groupIds);
+		long recount = generation.incrementAndGet();
+		Map<String,GroupCounters> counted = count(groupIds, recount);
+		for(String groupId : groupIds) {
+			// No manageable elements left, if the group was not counted.
+			counted.putIfAbsent(groupId, new GroupCounters(recount));
+		}
+		// Apply the counts to the snapshot published by a concurrent reconciliation as well.
+		for(Snapshot target = current; ; target = snapshot) {
+			for(Map.Entry<String,GroupCounters> counters : counted.entrySet()) {
+				target.groups.merge(counters.getKey(), counters.getValue(), GroupCounters::latest);
+			}
+			if(snapshot == target) {
+				return target;
+			}
+		}
+	}
+
+	private Snapshot reconcile(Snapshot expired) {
+		synchronized(reconciliationLock) {
+			Snapshot current = snapshot;
+			if(current != null && current != expired) {
+				// Reconciled by a concurrent read.
+				return current;
+			}
+			// Groups modified while the counters are loaded are recounted by the next read.
+			Snapshot reconciled = new Snapshot(generation.incrementAndGet());
+			reconciled.groups.putAll(count(null, reconciled.generation));
+			snapshot = reconciled;
+			if(current != null) {
+				// Keep the counts of recounts that were queried after the reconciliation has started.
+				for(Map.Entry<String,GroupCounters> counters : current.groups.entrySet()) {
+					if(counters.getValue().generation > reconciled.generation) {
+						reconciled.groups.merge(counters.getKey(), counters.getValue(), GroupCounters::latest);
+					}
+				}
+			}
+			return reconciled;
+		}
+	}
+
+	private Map<String,GroupCounters> count(Set<String> groupIds, long generation){
+		String sql = COUNT_ELEMENTS;
+		List<Object> arguments = new ArrayList<>();
+		if(groupIds != null) {
+			sql += "AND g.uuid IN ("+String.join(",", nCopies(groupIds.size(), "?"))+") ";
+			arguments.addAll(groupIds);
+		}
+		sql += GROUP_BY;
+		Map<String,GroupCounters> groups = new HashMap<>();
+		db.processQuery(prepare(sql, arguments),
+						rs -> {
+							String groupId = rs.getString(3);
+							GroupCounters counters = groups.get(groupId);
+							if(counters == null) {
+								counters = new GroupCounters(generation,
+															 groupId(groupId),
+															 groupType(rs.getString(1)),
+															 groupName(rs.getString(2)));
+								groups.put(groupId, counters);
+							}
+							counters.count(administrativeState(rs.getString(4)),
+										   operationalState(rs.getString(5)),
+										   rs.getInt(6));
+						});
+		return groups;
+	}
+
+	public void onElementAdded(@Observes(during=AFTER_COMPLETION) ElementAddedEvent event) {
+		modified(event.getGroupId());
+	}
+
+	public void onElementCloned(@Observes(during=AFTER_COMPLETION) ElementClonedEvent event) {
+		modified(event.getGroupId());
+	}
+
+	public void onElementRemoved(@Observes(during=AFTER_COMPLETION) ElementRemovedEvent event) {
+		modified(event.getGroupId());
+	}
+
+	public void onElementMoved(@Observes(during=AFTER_COMPLETION) ElementMovedEvent event) {
+		if(event.getFrom() != null) {
+			modified(event.getFrom().getGroupId());
+		}
+		if(event.getTo() != null) {
+			modified(event.getTo().getGroupId());
+		}
+	}
+
+	public void onElementRetired(@Observes(during=AFTER_COMPLETION) ElementRetiredEvent event) {
+		modified(event.getGroupId());
+	}
+
+	public void onElementSettingsUpdated(@Observes(during=AFTER_COMPLETION) ElementSettingsUpdatedEvent event) {
+		modified(event.getGroupId());
+	}
+
+	public void onElementRoleChanged(@Observes(during=AFTER_COMPLETION) ElementRoleChangedEvent event) {
+		modified(event.getGroupId());
+	}
+
+	public void onElementOperationalStateChanged(@Observes(during=AFTER_COMPLETION) ElementOperationalStateChangedEvent event) {
+		modified(event.getGroupId());
+	}
+
+	public void onElementOperationalStatesChanged(@Observes(during=AFTER_COMPLETION) ElementOperationalStatesChangedEvent event) {
+		for(ElementOperationalStateChangedEvent change : event.getChanges()) {
+			modified(change.getGroupId());
+		}
+	}
+
+	public void onElementGroupRenamed(@Observes(during=AFTER_COMPLETION) ElementGroupRenamedEvent event) {
+		modified(event.getGroupId());
+	}
+
+	public void onElementGroupRemoved(@Observes(during=AFTER_COMPLETION) ElementGroupRemovedEvent event) {
+		modified(event.getGroupId());
+	}
+
+	private void modified(ElementGroupId groupId) {
+		if(groupId != null) {
+			modified.add(groupId.toString());
+		}
+	}
+
+	int size() {
+		Snapshot current = snapshot;
+		if(current == null) {
+			return 0;
+		}
+		return (int) current.groups.values().stream().filter(counters -> !counters.isEmpty()).count();
+	}
+
+}
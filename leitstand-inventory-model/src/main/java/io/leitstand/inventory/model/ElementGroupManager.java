@@ -8,7 +8,10 @@ import static io.leitstand.commons.messages.MessageFactory.createMessage;
 import static io.leitstand.commons.model.ObjectUtil.isDifferent;
 import static io.leitstand.commons.model.StringUtil.isNonEmptyString;
 import static io.leitstand.commons.rs.ReasonCode.VAL0003E_IMMUTABLE_ATTRIBUTE;
+import static io.leitstand.inventory.event.ElementGroupRemovedEvent.newElementGroupRemovedEvent;
+import static io.leitstand.inventory.event.ElementGroupRenamedEvent.newElementGroupRenamedEvent;
 import static io.leitstand.inventory.model.ElementGroup.findByElementGroupName;
+import static io.leitstand.inventory.model.Image_Rollout.removeGroupRollouts;
 import static io.leitstand.inventory.service.AdministrativeState.ACTIVE;
 import static io.leitstand.inventory.service.AdministrativeState.NEW;
 import static io.leitstand.inventory.service.AdministrativeState.administrativeState;
@@ -31,6 +34,7 @@ import java.util.List;
 import java.util.logging.Logger;
 
 import javax.enterprise.context.Dependent;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 
 import io.leitstand.commons.ConflictException;
@@ -39,6 +43,7 @@ import io.leitstand.commons.db.DatabaseService;
 import io.leitstand.commons.messages.Messages;
 import io.leitstand.commons.model.Repository;
 import io.leitstand.commons.model.StringUtil;
+import io.leitstand.inventory.event.ElementGroupEvent;
 import io.leitstand.inventory.service.AdministrativeState;
 import io.leitstand.inventory.service.ElementGroupId;
 import io.leitstand.inventory.service.ElementGroupName;
@@ -52,14 +57,20 @@ class ElementGroupManager{
 	private static final Logger LOG = Logger.getLogger(ElementGroupManager.class.getName());
 	private Repository repository;
 	private DatabaseService db;
+	private ElementGroupCounters counters;
+	private Event<ElementGroupEvent> sink;
 	private Messages messages;
 
 	@Inject
 	protected ElementGroupManager(@Inventory Repository repository,
 								  @Inventory DatabaseService db,
+								  ElementGroupCounters counters,
+								  Event<ElementGroupEvent> sink,
 								  Messages messages ) {
 		this.repository = repository;
 		this.db = db;
+		this.counters = counters;
+		this.sink = sink;
 		this.messages = messages;
 	}
 
@@ -70,7 +81,7 @@ class ElementGroupManager{
 												   group.getGroupId(),
 												   settings.getGroupId());
 		}
-		group.setElementGroupName(settings.getGroupName());
+		ElementGroupName previousName = group.setElementGroupName(settings.getGroupName());
 		group.setDescription(settings.getDescription());
 		group.setLocation(settings.getLocation());
 		group.setGeolocation(settings.getGeolocation());
@@ -82,6 +93,14 @@ class ElementGroupManager{
 		messages.add(createMessage(IVT0101I_GROUP_STORED, 
 								  settings.getGroupType(), 
 								  settings.getGroupName()));
+		if(isDifferent(previousName, settings.getGroupName())) {
+			sink.fire(newElementGroupRenamedEvent()
+					  .withGroupId(group.getGroupId())
+					  .withGroupType(group.getGroupType())
+					  .withGroupName(group.getGroupName())
+					  .withPreviousGroupName(previousName)
+					  .build());
+		}
 	}
 	
 
@@ -101,6 +120,7 @@ class ElementGroupManager{
 
 	public void removeElementGroup(ElementGroup group){
 		if(group.getElements().isEmpty()){
+			repository.execute(removeGroupRollouts(group));
 			repository.remove(group);
 			LOG.fine(()->format("%s: Element %s group %s removed",
 								IVT0102I_GROUP_REMOVED.getReasonCode(),
@@ -109,6 +129,11 @@ class ElementGroupManager{
 			messages.add(createMessage(IVT0102I_GROUP_REMOVED,
 									   group.getGroupType(),
 									   group.getGroupName()));
+			sink.fire(newElementGroupRemovedEvent()
+					  .withGroupId(group.getGroupId())
+					  .withGroupType(group.getGroupType())
+					  .withGroupName(group.getGroupName())
+					  .build());
 			return;
 		} 
 		LOG.fine(()->format("%s: Element %s group %s cannot be removed. Group is not empty!",
@@ -165,6 +190,10 @@ class ElementGroupManager{
 
 	public List<ElementGroupStatistics> getGroupStatistics(ElementGroupType type, 
 			   											   String filter) {
+		if(!isNonEmptyString(filter)) {
+			// Read the maintained counters, unless the elements are filtered by name.
+			return counters.getGroupStatistics(type);
+		}
 		List<Object> args = new LinkedList<>();
 		args.add(type);
 		String query = "SELECT g.type, g.name, g.uuid, e.adm_state, e.op_state, count(*) "+
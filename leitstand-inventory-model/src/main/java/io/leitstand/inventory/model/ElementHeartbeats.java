@@ -0,0 +1,44 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.Set;
+
+import io.leitstand.inventory.service.ElementId;
+
+/**
+ * The heartbeats reported by an operational state update of one or more elements.
+ * <p>
+ * The {@link HeartbeatTracker} records the heartbeats once the transaction that has updated the operational states
+ * has been committed, such that a rolled back update does not modify the tracked deadlines.
+ * </p>
+ * @see ElementOperationalStateManager
+ * @see ElementManager
+ */
+public class ElementHeartbeats {
+
+	private final Set<ElementId> alive;
+	private final Set<ElementId> silent;
+	
+	/**
+	 * Creates the heartbeats of an operational state update.
+	 * @param alive the elements that have reported to be up
+	 * @param silent the elements that have reported another operational state and no longer send heartbeats
+	 */
+	ElementHeartbeats(Set<ElementId> alive, Set<ElementId> silent){
+		this.alive = unmodifiableSet(alive);
+		this.silent = unmodifiableSet(silent);
+	}
+	
+	public Set<ElementId> getAlive() {
+		return alive;
+	}
+	
+	public Set<ElementId> getSilent() {
+		return silent;
+	}
+	
+}
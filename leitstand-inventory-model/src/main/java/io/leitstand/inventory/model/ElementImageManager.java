@@ -8,7 +8,7 @@ import static io.leitstand.inventory.model.DefaultPackageService.packageVersionI
 import static io.leitstand.inventory.model.Element_Image.findInstalledImage;
 import static io.leitstand.inventory.model.Element_Image.findInstalledImages;
 import static io.leitstand.inventory.model.Image.findByElementAndImageTypeAndVersion;
-import static io.leitstand.inventory.model.Image.findUpdates;
+import static io.leitstand.inventory.model.Image.findUpdateCandidates;
 import static io.leitstand.inventory.service.ElementAvailableUpdate.newElementAvailableUpdate;
 import static io.leitstand.inventory.service.ElementAvailableUpdate.UpdateType.MAJOR;
 import static io.leitstand.inventory.service.ElementAvailableUpdate.UpdateType.MINOR;
@@ -42,6 +42,7 @@ import io.leitstand.commons.UnprocessableEntityException;
 import io.leitstand.commons.messages.Messages;
 import io.leitstand.commons.model.Repository;
 import io.leitstand.commons.tx.SubtransactionService;
+import io.leitstand.inventory.model.ImageVersionIndex.IndexedImage;
 import io.leitstand.inventory.service.ElementAvailableUpdate;
 import io.leitstand.inventory.service.ElementAvailableUpdate.UpdateType;
 import io.leitstand.inventory.service.ElementImageState;
@@ -75,13 +76,22 @@ public class ElementImageManager {
 	private Repository repository;
 	private Messages messages;
 	private SubtransactionService inventory;
+	private ImageVersionIndex versions;
+	private ImageRolloutManager rollouts;
+	private ImageStubRecords stubs;
 	
 	@Inject
 	protected ElementImageManager(@Inventory Repository repository, 
 							      @Inventory SubtransactionService inventory,
+							      ImageVersionIndex versions,
+							      ImageRolloutManager rollouts,
+							      ImageStubRecords stubs,
 							      Messages messages){
 		this.repository = repository;
 		this.inventory  = inventory;
+		this.versions	= versions;
+		this.rollouts	= rollouts;
+		this.stubs		= stubs;
 		this.messages 	= messages;
 	}
 	
@@ -103,22 +113,7 @@ public class ElementImageManager {
 				packages.add(packageVersionInfo(revision));
 			}
 			
-			List<ElementAvailableUpdate> updates = new LinkedList<>();
-			for(Image update : repository.execute(findUpdates(image.getPlatform(),
-															  image.getImageType(), 
-															  image.getImageName(),
-															  image.getElementRole(), 
-															  image.getImageVersion(), 
-															  element))){
-				UpdateType type = updateType(image, update);
-				
-				updates.add(newElementAvailableUpdate()
-						    .withImageId(update.getImageId())
-							.withImageVersion(update.getImageVersion())
-							.withBuildDate(update.getBuildDate())
-							.withUpdateType(type)
-							.build());
-			}
+			List<ElementAvailableUpdate> updates = availableUpdates(element, image);
 			installed.add(newElementInstalledImageData()
 						  .withOrganization(image.getOrganization())
 						  .withImageId(image.getImageId())
@@ -149,15 +144,34 @@ public class ElementImageManager {
 		
 	}
 
-	private UpdateType updateType(Image image, Image update) {
+	private List<ElementAvailableUpdate> availableUpdates(Element element, Image image){
+		List<ElementAvailableUpdate> updates = new LinkedList<>();
+		for(IndexedImage update : versions.findUpdates(image, 
+													   element,
+													   () -> repository.execute(findUpdateCandidates(image.getElementRoleName(), 
+															   										 image.getImageType(), 
+															   										 image.getImageName())))){
+			UpdateType type = updateType(image, update.getImageVersion());
+			
+			updates.add(newElementAvailableUpdate()
+					 	.withImageId(update.getImageId())
+					 	.withImageVersion(update.getImageVersion())
+					 	.withBuildDate(update.getBuildDate())
+						.withUpdateType(type)
+						.build());
+		}
+		return updates;
+	}
+	
+	private UpdateType updateType(Image image, Version update) {
 		UpdateType type = PRERELEASE;
-		if(update.getImageVersion().getMajorLevel() > image.getImageVersion().getMajorLevel()){
+		if(update.getMajorLevel() > image.getImageVersion().getMajorLevel()){
 			type = MAJOR;
 		}
-		if(update.getImageVersion().getMinorLevel() > image.getImageVersion().getMinorLevel()){
+		if(update.getMinorLevel() > image.getImageVersion().getMinorLevel()){
 			type = MINOR;
 		}
-		if(update.getImageVersion().getPatchLevel() > image.getImageVersion().getPatchLevel()){
+		if(update.getPatchLevel() > image.getImageVersion().getPatchLevel()){
 			type = PATCH;
 		}
 		return type;
@@ -174,22 +188,7 @@ public class ElementImageManager {
 			packages.add(packageVersionInfo(revision));
 		}
 		
-		List<ElementAvailableUpdate> updates = new LinkedList<>();
-		for(Image update : repository.execute(findUpdates(image.getPlatform(),
-														  image.getImageType(), 
-														  image.getImageName(),
-														  image.getElementRole(),
-														  image.getImageVersion(),
-														  element))){
-			UpdateType type = updateType(image, update);
-			
-			updates.add(newElementAvailableUpdate()
-					 	.withImageId(update.getImageId())
-					 	.withImageVersion(update.getImageVersion())
-					 	.withBuildDate(update.getBuildDate())
-						.withUpdateType(type)
-						.build());
-		}
+		List<ElementAvailableUpdate> updates = availableUpdates(element, image);
 		return newElementInstalledImage()
 			   .withGroupId(group.getGroupId())
 			   .withGroupName(group.getGroupName())
@@ -231,9 +230,14 @@ public class ElementImageManager {
 			images.put(installed,image);
 		}
 		
+		ImageRolloutChanges changes = new ImageRolloutChanges();
+		List<ElementInstalledImageReference> unknown = new LinkedList<>();
 		for(ElementInstalledImageReference installed : refs){
 			Element_Image image = images.remove(installed);
 			if(image != null) {
+				changes.changed(image.getImage(),
+								image.getInstallationState(),
+								imageInstallationState(installed));
 				image.setImageInstallationState(imageInstallationState(installed));
 				continue;
 			}
@@ -256,24 +260,55 @@ public class ElementImageManager {
 						  						   installed.getImageType(), 
 						  						   installed.getImageName(), 
 						  						   installed.getImageVersion())));
-				
-				CreateImageStubRecordFlow flow = new CreateImageStubRecordFlow(element, installed);
-				artefact = inventory.run(flow);
+				unknown.add(installed);
+				continue; // With next entry.
+			}
+			image = new Element_Image(element,artefact);
+			image.setImageInstallationState(imageInstallationState(installed));
+			repository.add(image);
+			changes.installed(artefact, image.getInstallationState());
+		}
+		
+		if(!unknown.isEmpty()) {
+			List<Image> artefacts = stubs.fetchImageStubs(element, 
+														  unknown,
+														  missing -> createImageStubs(element, missing),
+														  installed -> repository.execute(findByElementAndImageTypeAndVersion(element, 
+																		  													   installed.getImageType(), 
+																		  													   installed.getImageName(), 
+																		  													   installed.getImageVersion())));
+			for(int i=0; i < unknown.size(); i++) {
+				ElementInstalledImageReference installed = unknown.get(i);
+				Image artefact = artefacts.get(i);
 				if(artefact == null) {
 					LOG.fine(() -> format("Attemt to create image stub record failed. Proceed ignoring the image registration attempt of element %s!",
 										  element.getElementName()));
 					continue; // With next entry.
 				}
+				Element_Image image = new Element_Image(element,artefact);
+				image.setImageInstallationState(imageInstallationState(installed));
+				repository.add(image);
+				changes.installed(artefact, image.getInstallationState());
 			}
-			image = new Element_Image(element,artefact);
-			image.setImageInstallationState(imageInstallationState(installed));
-			repository.add(image);
 		}
 		
 		for(Element_Image image : images.values()){
 			repository.remove(image);
+			changes.removed(image.getImage(), image.getInstallationState());
 		}
 		
+		rollouts.applyChanges(element.getGroup(), changes);
+	}
+
+	private List<Image> createImageStubs(Element element, List<ElementInstalledImageReference> missing) {
+		List<Image> stubs = inventory.run(new CreateImageStubRecordsFlow(element, missing));
+		// Stub records are committed by the subtransaction and do not fire an image event.
+		for(ElementInstalledImageReference image : missing) {
+			versions.invalidate(element.getElementRoleName(),
+								image.getImageType(),
+								image.getImageName());
+		}
+		return stubs;
 	}
 
 	private ElementImageState imageInstallationState(ElementInstalledImageReference installed) {
@@ -301,6 +336,9 @@ public class ElementImageManager {
 		
 		repository.remove(installed);
 		
+		ImageRolloutChanges changes = new ImageRolloutChanges();
+		changes.removed(installed.getImage(), installed.getInstallationState());
+		rollouts.applyChanges(element.getGroup(), changes);
 	}
 
 	public void storeCachedImages(Element element, List<ElementInstalledImageReference> refs) {
@@ -314,6 +352,7 @@ public class ElementImageManager {
 			images.put(installed, image);
 		}
 		
+		ImageRolloutChanges changes = new ImageRolloutChanges();
 		for(ElementInstalledImageReference installed : refs){
 			if(installed.isActive()) {
 				throw new UnprocessableEntityException(IVT0341E_ELEMENT_IMAGE_ACTIVE, 
@@ -352,7 +391,10 @@ public class ElementImageManager {
 			image = new Element_Image(element,artefact);
 			image.setImageInstallationState(CACHED);
 			repository.add(image);
+			changes.installed(artefact, CACHED);
 		}
+		
+		rollouts.applyChanges(element.getGroup(), changes);
 	}
 
 	public void removeCachedImages(Element element, List<ElementInstalledImageReference> refs) {
@@ -367,6 +409,7 @@ public class ElementImageManager {
 			images.put(installed,image);
 		}
 		
+		ImageRolloutChanges changes = new ImageRolloutChanges();
 		for(ElementInstalledImageReference installed : refs){
 			Element_Image image = images.remove(installed);
 			if(image == null){
@@ -378,7 +421,10 @@ public class ElementImageManager {
 											installed.getImageVersion());
 			}
 			repository.remove(image);
+			changes.removed(image.getImage(), image.getInstallationState());
 		}
+		
+		rollouts.applyChanges(element.getGroup(), changes);
 	}
 
 }
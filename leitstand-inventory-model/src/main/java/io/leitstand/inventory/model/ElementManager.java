@@ -5,10 +5,17 @@ package io.leitstand.inventory.model;
 
 import static io.leitstand.commons.messages.MessageFactory.createMessage;
 import static io.leitstand.commons.model.ObjectUtil.isDifferent;
+import static io.leitstand.commons.model.Patterns.UUID_PATTERN;
 import static io.leitstand.inventory.event.ElementOperationalStateChangedEvent.newElementOperationalStateChangedEvent;
 import static io.leitstand.inventory.event.ElementRemovedEvent.newElementRemovedEvent;
+import static io.leitstand.inventory.model.Element.findElementsByIds;
 import static io.leitstand.inventory.model.Element.findElementsByName;
+import static io.leitstand.inventory.model.Element_Config.findBlobDigests;
+import static io.leitstand.inventory.model.Element_Config.findForeignDependentConfigs;
 import static io.leitstand.inventory.model.Element_Config.removeAllConfigurations;
+import static io.leitstand.inventory.model.Element_ConfigHead.removeAllConfigHeads;
+import static io.leitstand.inventory.model.Element_ConfigTerm.removeAllTerms;
+import static io.leitstand.inventory.model.Element_ConfigVersion.removeConfigVersion;
 import static io.leitstand.inventory.model.Element_ContainerInterface.removeIfcs;
 import static io.leitstand.inventory.model.Element_DnsRecordSet.removeDnsRecordSets;
 import static io.leitstand.inventory.model.Element_Environment.removeEnvironments;
@@ -18,12 +25,23 @@ import static io.leitstand.inventory.model.Element_PhysicalInterface.removeIfps;
 import static io.leitstand.inventory.model.Element_PhysicalInterface.removeNeighbors;
 import static io.leitstand.inventory.model.Element_Service.removeServices;
 import static io.leitstand.inventory.model.Element_ServiceContext.removeServiceContexts;
+import static io.leitstand.inventory.service.ElementSearchResult.newElementSearchResult;
+import static io.leitstand.inventory.service.OperationalState.UP;
 import static io.leitstand.inventory.service.ReasonCode.IVT0302I_ELEMENT_REMOVED;
 import static io.leitstand.inventory.service.ReasonCode.IVT0303E_ELEMENT_NOT_REMOVABLE;
+import static io.leitstand.inventory.service.ReasonCode.IVT0308E_ELEMENT_SEARCH_CURSOR_INVALID;
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Base64.getUrlDecoder;
+import static java.util.Base64.getUrlEncoder;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
 import static java.util.Collections.unmodifiableList;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import javax.enterprise.context.Dependent;
@@ -31,10 +49,14 @@ import javax.enterprise.event.Event;
 import javax.inject.Inject;
 
 import io.leitstand.commons.ConflictException;
+import io.leitstand.commons.UnprocessableEntityException;
 import io.leitstand.commons.messages.Messages;
 import io.leitstand.commons.model.Repository;
 import io.leitstand.inventory.event.ElementEvent;
 import io.leitstand.inventory.event.ElementRemovedEvent;
+import io.leitstand.inventory.model.ElementSearchIndex.IndexedElement;
+import io.leitstand.inventory.service.ElementFilterMode;
+import io.leitstand.inventory.service.ElementSearchResult;
 import io.leitstand.inventory.service.ElementSettings;
 import io.leitstand.inventory.service.OperationalState;
 
@@ -43,15 +65,29 @@ public class ElementManager {
 
 	private static final Logger LOG = Logger.getLogger(ElementManager.class.getName());
 	
+	private static final int UUID_LENGTH = 36;
+	
 	private Repository repository;
+	private ElementSearchIndex index;
+	private Event<ElementHeartbeats> heartbeats;
+	private ConfigBlobStore blobs;
+	private ImageRolloutManager rollouts;
 	private Event<ElementEvent> sink;
 	private Messages messages;
 	
 	@Inject
 	public ElementManager(@Inventory Repository repository,
+						  ElementSearchIndex index,
+						  Event<ElementHeartbeats> heartbeats,
+						  ConfigBlobStore blobs,
+						  ImageRolloutManager rollouts,
 						  Event<ElementEvent> sink,
 						  Messages messages) {
 		this.repository = repository;
+		this.index = index;
+		this.heartbeats = heartbeats;
+		this.blobs = blobs;
+		this.rollouts = rollouts;
 		this.sink = sink;
 		this.messages = messages;
 	}
@@ -64,12 +100,74 @@ public class ElementManager {
 		return unmodifiableList(repository.executeMapListItem(findElementsByName(filter,offset,items),
 															  ElementSettingsManager::settingsOf));
 	}
+	
+	public ElementSearchResult searchElements(String filter, 
+											  ElementFilterMode mode, 
+											  String cursor, 
+											  int limit) {
+		if(limit < 1) {
+			return newElementSearchResult().build();
+		}
+		IndexedElement after = cursor != null ? decodeCursor(cursor) : null;
+		// Fetch one more element to learn whether a next page exists.
+		List<IndexedElement> matches = index.search(mode, filter, after, limit+1);
+		String next = null;
+		if(matches.size() > limit) {
+			matches = matches.subList(0, limit);
+			next = encodeCursor(matches.get(limit-1));
+		}
+		
+		List<ElementSettings> elements = new ArrayList<>(matches.size());
+		if(!matches.isEmpty()) {
+			List<Long> ids = new ArrayList<>(matches.size());
+			for(IndexedElement match : matches) {
+				ids.add(match.getId());
+			}
+			Map<Long,Element> loaded = new HashMap<>();
+			for(Element element : repository.execute(findElementsByIds(ids))) {
+				loaded.put(element.getId(), element);
+			}
+			for(Long id : ids) {
+				Element element = loaded.get(id);
+				if(element != null) {
+					// Element not removed by another node.
+					elements.add(ElementSettingsManager.settingsOf(element));
+				}
+			}
+		}
+		
+		return newElementSearchResult()
+			   .withElements(elements)
+			   .withNext(next)
+			   .build();
+	}
+	
+	static String encodeCursor(IndexedElement element) {
+		return getUrlEncoder().withoutPadding()
+							  .encodeToString((element.getElementId()+element.getGroupName()+"\n"+element.getElementName()).getBytes(UTF_8));
+	}
+	
+	static IndexedElement decodeCursor(String cursor) {
+		try {
+			String position = new String(getUrlDecoder().decode(cursor),UTF_8);
+			int separator = position.indexOf('\n', UUID_LENGTH);
+			if(separator < 0 || !position.substring(0,UUID_LENGTH).matches(UUID_PATTERN)) {
+				throw new UnprocessableEntityException(IVT0308E_ELEMENT_SEARCH_CURSOR_INVALID, cursor);
+			}
+			return IndexedElement.position(position.substring(0,UUID_LENGTH),
+										   position.substring(UUID_LENGTH,separator),
+										   position.substring(separator+1));
+		} catch (IllegalArgumentException e) {
+			throw new UnprocessableEntityException(IVT0308E_ELEMENT_SEARCH_CURSOR_INVALID, cursor);
+		}
+	}
 
 	public void remove(Element element) {
 		if(element.isActive()){
 			throw new ConflictException(IVT0303E_ELEMENT_NOT_REMOVABLE, 
 										element.getElementName());
 		}
+		rollouts.removeElement(element);
 		repository.remove(element);
 		
 		LOG.fine(()->format("%s: Removed %s element %s (%s)", 
@@ -108,8 +206,33 @@ public class ElementManager {
 										element.getElementName());
 		}
 		
+		// Materialize configuration revisions of cloned elements that are stored as delta of a revision being removed.
+		List<Element_Config> dependents = repository.execute(findForeignDependentConfigs(element));
+		if(!dependents.isEmpty()) {
+			for(Element_Config dependent : dependents) {
+				blobs.materialize(dependent);
+			}
+			repository.flush();
+		}
+		
+		int removedTerms = repository.execute(removeAllTerms(element));
+		LOG.fine(()->format("Removed %d configuration index entries of %s %s (%s)",
+						    removedTerms,
+						    element.getElementRoleName(),
+						    element.getElementName(),
+						    element.getElementId()));
 		
+		repository.execute(removeConfigVersion(element));
+		int removedHeads = repository.execute(removeAllConfigHeads(element));
+		LOG.fine(()->format("Removed %d configuration heads of %s %s (%s)",
+						    removedHeads,
+						    element.getElementRoleName(),
+						    element.getElementName(),
+						    element.getElementId()));
+		
+		List<String> removedBlobs = repository.execute(findBlobDigests(element));
 		int removedConfigs = repository.execute(removeAllConfigurations(element));
+		blobs.removeUnreferenced(removedBlobs);
 		LOG.fine(()->format("Removed %d configurations of %s %s (%s)",
 						    removedConfigs,
 						    element.getElementRoleName(),
@@ -202,6 +325,15 @@ public class ElementManager {
 	public void updateElementOperationalState(Element element, 
 											  OperationalState state) {
 		OperationalState old = element.setOperationalState(state);
+		// An element reporting to be up sends a heartbeat. An unchanged state is not written to the database.
+		// The heartbeat is recorded after the transaction has been committed.
+		if(state.is(UP)) {
+			heartbeats.fire(new ElementHeartbeats(singleton(element.getElementId()), 
+												  emptySet()));
+		} else {
+			heartbeats.fire(new ElementHeartbeats(emptySet(), 
+												  singleton(element.getElementId())));
+		}
 		if(isDifferent(state, old)) {
 			sink.fire(newElementOperationalStateChangedEvent()
 					  .withGroupId(element.getGroupId())
@@ -0,0 +1,155 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.Element.findElementById;
+import static io.leitstand.inventory.model.Element.findElementByName;
+import static javax.enterprise.event.TransactionPhase.AFTER_COMPLETION;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.model.Scalar;
+import io.leitstand.inventory.event.ElementAddedEvent;
+import io.leitstand.inventory.event.ElementEvent;
+import io.leitstand.inventory.event.ElementRemovedEvent;
+import io.leitstand.inventory.event.ElementRenamedEvent;
+import io.leitstand.inventory.event.ElementSettingsUpdatedEvent;
+import io.leitstand.inventory.service.ElementId;
+import io.leitstand.inventory.service.ElementName;
+
+/**
+ * An in-memory index of the element IDs, names and aliases, that maps them to the primary key of the element.
+ * <p>
+ * An indexed element is read by its primary key, which is answered from the persistence context
+ * if the element has already been read in the current transaction.
+ * The element read by its primary key is verified against the requested ID, name or alias, 
+ * such that a renamed or removed element is looked up again, even if the modification was made by another node.
+ * The index entries of an element are discarded after a transaction that has added, renamed, updated or removed the element 
+ * has completed. An element loaded while the index was modified is not added to the index.
+ * </p>
+ * @see ElementProvider
+ */
+@ApplicationScoped
+public class ElementNameIndex {
+
+	private final Map<String,Long> ids = new ConcurrentHashMap<>();
+	private final Map<String,Long> names = new ConcurrentHashMap<>();
+	private final Map<String,Long> aliases = new ConcurrentHashMap<>();
+	private final AtomicLong modCount = new AtomicLong();
+	
+	/**
+	 * Fetches an element by its element ID.
+	 * @param repository the repository to read the element from
+	 * @param elementId the element ID
+	 * @return the element or <code>null</code> if the element does not exist.
+	 */
+	Element fetchElement(Repository repository, ElementId elementId) {
+		String key = elementId.toString();
+		Long id = ids.get(key);
+		if(id != null) {
+			Element element = repository.find(Element.class, id);
+			if(element != null && elementId.equals(element.getElementId())) {
+				return element;
+			}
+			ids.remove(key, id);
+		}
+		long version = modCount.get();
+		Element element = repository.execute(findElementById(elementId));
+		if(element != null) {
+			cache(ids, version, key, element);
+		}
+		return element;
+	}
+	
+	/**
+	 * Fetches an element by its element name or element alias.
+	 * @param repository the repository to read the element from
+	 * @param elementName the element name or alias
+	 * @return the element or <code>null</code> if the element does not exist.
+	 */
+	Element fetchElement(Repository repository, ElementName elementName) {
+		String key = elementName.toString();
+		Long id = names.get(key);
+		if(id == null) {
+			id = aliases.get(key);
+		}
+		if(id != null) {
+			Element element = repository.find(Element.class, id);
+			if(element != null && isNameOrAlias(element, key)) {
+				return element;
+			}
+			names.remove(key, id);
+			aliases.remove(key, id);
+		}
+		long version = modCount.get();
+		Element element = repository.execute(findElementByName(elementName));
+		if(element != null) {
+			cache(key.equals(Scalar.toString(element.getElementName())) ? names : aliases, 
+				  version, 
+				  key, 
+				  element);
+		}
+		return element;
+	}
+	
+	private static boolean isNameOrAlias(Element element, String key) {
+		return key.equals(Scalar.toString(element.getElementName())) 
+			   || key.equals(Scalar.toString(element.getElementAlias()));
+	}
+	
+	private void cache(Map<String,Long> index, long version, String key, Element element) {
+		if(element.getId() == null || modCount.get() != version) {
+			// Element not yet flushed or index modified while the element was loaded.
+			return;
+		}
+		index.put(key, element.getId());
+	}
+	
+	public void onElementAdded(@Observes(during=AFTER_COMPLETION) ElementAddedEvent event) {
+		evict(event);
+	}
+	
+	public void onElementRenamed(@Observes(during=AFTER_COMPLETION) ElementRenamedEvent event) {
+		evict(event);
+		remove(names, event.getPreviousName());
+	}
+	
+	public void onElementSettingsUpdated(@Observes(during=AFTER_COMPLETION) ElementSettingsUpdatedEvent event) {
+		evict(event);
+	}
+	
+	public void onElementRemoved(@Observes(during=AFTER_COMPLETION) ElementRemovedEvent event) {
+		evict(event);
+	}
+	
+	private void evict(ElementEvent event) {
+		modCount.incrementAndGet();
+		Long id = remove(ids, event.getElementId());
+		remove(names, event.getElementName());
+		remove(aliases, event.getElementAlias());
+		if(id != null) {
+			names.values().removeIf(value -> Objects.equals(id, value));
+			aliases.values().removeIf(value -> Objects.equals(id, value));
+		}
+	}
+	
+	private static Long remove(Map<String,Long> index, Scalar<String> key) {
+		if(key == null) {
+			return null;
+		}
+		return index.remove(key.toString());
+	}
+	
+	int size() {
+		return ids.size() + names.size() + aliases.size();
+	}
+	
+}
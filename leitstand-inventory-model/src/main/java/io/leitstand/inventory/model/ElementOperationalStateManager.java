@@ -0,0 +1,214 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.commons.db.DatabaseService.prepare;
+import static io.leitstand.commons.messages.MessageFactory.createMessage;
+import static io.leitstand.commons.model.ObjectUtil.isDifferent;
+import static io.leitstand.inventory.event.ElementOperationalStatesChangedEvent.newElementOperationalStatesChangedEvent;
+import static io.leitstand.inventory.model.ElementOperationalStates.batches;
+import static io.leitstand.inventory.model.ElementOperationalStates.in;
+import static io.leitstand.inventory.model.ElementOperationalStates.readOperationalState;
+import static io.leitstand.inventory.model.ElementOperationalStates.updateOperationalStates;
+import static io.leitstand.inventory.service.ElementId.elementId;
+import static io.leitstand.inventory.service.OperationalState.UP;
+import static io.leitstand.inventory.service.ReasonCode.IVT0309I_ELEMENT_OPERATIONAL_STATES_UPDATED;
+import static java.lang.String.format;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import javax.enterprise.context.Dependent;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+
+import io.leitstand.commons.db.DatabaseService;
+import io.leitstand.commons.messages.Messages;
+import io.leitstand.inventory.event.ElementOperationalStateChangedEvent;
+import io.leitstand.inventory.event.ElementOperationalStatesChangedEvent;
+import io.leitstand.inventory.service.ElementId;
+import io.leitstand.inventory.service.OperationalState;
+
+/**
+ * Updates the operational state of many elements at once.
+ * <p>
+ * The elements are resolved by a single query per batch of element IDs, names and aliases.
+ * Only elements whose operational state has actually changed are locked and updated by their primary key,
+ * and all changes are announced by a single {@link ElementOperationalStatesChangedEvent}.
+ * The reported heartbeats are passed to the {@link HeartbeatTracker} once the transaction has been committed.
+ * </p>
+ * @see ElementManager#updateElementOperationalState(Element, OperationalState)
+ */
+@Dependent
+public class ElementOperationalStateManager {
+
+	private static final Logger LOG = Logger.getLogger(ElementOperationalStateManager.class.getName());
+
+	private static final class ElementState {
+		private final long id;
+		private final ElementId elementId;
+		private final OperationalState state;
+
+		ElementState(long id, ElementId elementId, OperationalState state){
+			this.id = id;
+			this.elementId = elementId;
+			this.state = state;
+		}
+	}
+
+	private DatabaseService db;
+	private Event<ElementHeartbeats> heartbeats;
+	private Event<ElementOperationalStatesChangedEvent> sink;
+	private Messages messages;
+
+	protected ElementOperationalStateManager() {
+		// CDI
+	}
+
+	@Inject
+	protected ElementOperationalStateManager(@Inventory DatabaseService db,
+											 Event<ElementHeartbeats> heartbeats,
+											 Event<ElementOperationalStatesChangedEvent> sink,
+											 Messages messages) {
+		this.db = db;
+		this.heartbeats = heartbeats;
+		this.sink = sink;
+		this.messages = messages;
+	}
+
+	/**
+	 * Updates the operational states of the given elements.
+	 * Unknown elements are skipped.
+	 * @param states the operational states by element ID, element name or element alias.
+	 * @return the operational state changes of all updated elements.
+	 */
+	public List<ElementOperationalStateChangedEvent> updateOperationalStates(Map<String,OperationalState> states) {
+		Map<String,ElementState> elements = resolveElements(states);
+		// An element can be referred to by its ID, name and alias. The last reported state wins.
+		Map<Long,ElementState> reported = new LinkedHashMap<>();
+		Map<Long,OperationalState> reportedStates = new LinkedHashMap<>();
+		int unknown = 0;
+		for(Map.Entry<String,OperationalState> entry : states.entrySet()) {
+			ElementState element = elements.get(entry.getKey());
+			if(element == null || entry.getValue() == null) {
+				unknown++;
+				continue;
+			}
+			reported.put(element.id, element);
+			reportedStates.put(element.id, entry.getValue());
+		}
+
+		Map<OperationalState,Set<Long>> updates = new HashMap<>();
+		Set<ElementId> alive = new LinkedHashSet<>();
+		Set<ElementId> silent = new LinkedHashSet<>();
+		int unchanged = 0;
+		for(ElementState element : reported.values()) {
+			OperationalState state = reportedStates.get(element.id);
+			// An element reporting to be up sends a heartbeat.
+			if(state.is(UP)) {
+				alive.add(element.elementId);
+			} else {
+				silent.add(element.elementId);
+			}
+			if(isDifferent(state, element.state)) {
+				updates.computeIfAbsent(state, k -> new LinkedHashSet<>())
+					   .add(element.id);
+			} else {
+				unchanged++;
+			}
+		}
+
+		Date modified = new Date();
+		List<ElementOperationalStateChangedEvent> changes = new ArrayList<>();
+		for(Map.Entry<OperationalState,Set<Long>> update : updates.entrySet()) {
+			OperationalState state = update.getKey();
+			Map<Long,OperationalState> previous = lockChangedElements(update.getValue(), state);
+			// Elements updated by a concurrent transaction in the meantime remain unchanged.
+			unchanged += update.getValue().size() - previous.size();
+			changes.addAll(updateOperationalStates(db, previous, state, modified));
+		}
+		if(!changes.isEmpty()) {
+			sink.fire(newElementOperationalStatesChangedEvent()
+					  .withChanges(changes)
+					  .build());
+		}
+		// The heartbeats are recorded once the transaction has been committed.
+		heartbeats.fire(new ElementHeartbeats(alive, silent));
+
+		int updated = changes.size();
+		int skipped = unknown;
+		LOG.fine(() -> format("%s: Operational state of %d elements changed, %d unknown elements skipped.",
+							  IVT0309I_ELEMENT_OPERATIONAL_STATES_UPDATED.getReasonCode(),
+							  updated,
+							  skipped));
+		messages.add(createMessage(IVT0309I_ELEMENT_OPERATIONAL_STATES_UPDATED,
+								   updated,
+								   unchanged,
+								   unknown));
+		return changes;
+	}
+
+	private Map<String,ElementState> resolveElements(Map<String,OperationalState> states){
+		Map<String,ElementState> byId = new HashMap<>();
+		Map<String,ElementState> byName = new HashMap<>();
+		Map<String,ElementState> byAlias = new HashMap<>();
+		for(List<Object> batch : batches(states.keySet())) {
+			List<Object> arguments = new ArrayList<>(3*batch.size());
+			arguments.addAll(batch);
+			arguments.addAll(batch);
+			arguments.addAll(batch);
+			db.processQuery(prepare("SELECT id, uuid, name, alias, op_state FROM inventory.element "+
+									"WHERE uuid IN "+in(batch)+" OR name IN "+in(batch)+" OR alias IN "+in(batch),
+									arguments),
+							rs -> {
+								ElementState element = new ElementState(rs.getLong(1),
+																		elementId(rs.getString(2)),
+																		readOperationalState(rs.getString(5)));
+								byId.put(rs.getString(2), element);
+								byName.put(rs.getString(3), element);
+								if(rs.getString(4) != null) {
+									byAlias.put(rs.getString(4), element);
+								}
+							});
+		}
+		// Resolve element IDs first, then element names and finally element aliases.
+		Map<String,ElementState> elements = new HashMap<>();
+		for(String key : states.keySet()) {
+			ElementState element = byId.get(key);
+			if(element == null) {
+				element = byName.get(key);
+			}
+			if(element == null) {
+				element = byAlias.get(key);
+			}
+			if(element != null) {
+				elements.put(key, element);
+			}
+		}
+		return elements;
+	}
+
+	private Map<Long,OperationalState> lockChangedElements(Set<Long> ids, OperationalState state){
+		// Re-read the operational state of the locked elements to skip elements modified by a concurrent transaction.
+		Map<Long,OperationalState> previous = new LinkedHashMap<>();
+		for(List<Object> batch : batches(ids)) {
+			List<Object> arguments = new ArrayList<>(batch.size()+1);
+			arguments.addAll(batch);
+			arguments.add(state.getValue());
+			db.processQuery(prepare("SELECT id, op_state FROM inventory.element "+
+									"WHERE id IN "+in(batch)+" AND (op_state IS NULL OR op_state <> ?) FOR UPDATE",
+									arguments),
+							rs -> previous.put(rs.getLong(1), readOperationalState(rs.getString(2))));
+		}
+		return previous;
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.commons.db.DatabaseService.prepare;
+import static io.leitstand.inventory.event.ElementOperationalStateChangedEvent.newElementOperationalStateChangedEvent;
+import static io.leitstand.inventory.service.ElementAlias.elementAlias;
+import static io.leitstand.inventory.service.ElementGroupId.groupId;
+import static io.leitstand.inventory.service.ElementGroupName.groupName;
+import static io.leitstand.inventory.service.ElementGroupType.groupType;
+import static io.leitstand.inventory.service.ElementId.elementId;
+import static io.leitstand.inventory.service.ElementName.elementName;
+import static io.leitstand.inventory.service.ElementRoleName.elementRoleName;
+import static io.leitstand.inventory.service.OperationalState.OPERATIONAL;
+import static io.leitstand.inventory.service.OperationalState.UP;
+import static io.leitstand.inventory.service.OperationalState.operationalState;
+import static java.lang.Math.min;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.nCopies;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import io.leitstand.commons.db.DatabaseService;
+import io.leitstand.commons.model.Scalar;
+import io.leitstand.inventory.event.ElementOperationalStateChangedEvent;
+import io.leitstand.inventory.service.OperationalState;
+
+/**
+ * Set-based operational state updates of multiple elements.
+ * <p>
+ * The elements are updated by their primary key in batches of {@link #BATCH_SIZE} elements.
+ * The caller is expected to lock the elements and read their previous operational state before the update,
+ * in order to announce only the elements whose operational state has actually changed.
+ * </p>
+ * @see HeartbeatWatchDogService
+ * @see ElementOperationalStateManager
+ */
+final class ElementOperationalStates {
+
+	/** Maximum number of elements processed by a single statement.*/
+	static final int BATCH_SIZE = 1000;
+
+	/**
+	 * Updates the operational state of the given elements and returns the operational state changes of all updated elements.
+	 * An element reporting to be up or operational is activated, if it is a new element.
+	 * @param db the database service
+	 * @param previous the previous operational states of the elements to be updated by their primary key
+	 * @param state the new operational state
+	 * @param modified the modification date
+	 * @return the operational state changes of all updated elements.
+	 */
+	static List<ElementOperationalStateChangedEvent> updateOperationalStates(DatabaseService db,
+																			 Map<Long,OperationalState> previous,
+																			 OperationalState state,
+																			 Date modified){
+		if(previous.isEmpty()) {
+			return emptyList();
+		}
+		// Increment the version of the elements, such that a concurrent modification of an element fails with an optimistic lock exception.
+		String update = "UPDATE inventory.element SET op_state = ?, tsmodified = ?, modcount = COALESCE(modcount,0) + 1 ";
+		if(state.is(UP) || state.is(OPERATIONAL)) {
+			update += ", adm_state = CASE WHEN adm_state = 'NEW' THEN 'ACTIVE' ELSE adm_state END ";
+		}
+		List<ElementOperationalStateChangedEvent> changes = new ArrayList<>(previous.size());
+		for(List<Object> batch : batches(previous.keySet())) {
+			List<Object> arguments = new ArrayList<>(batch.size()+2);
+			arguments.add(state.getValue());
+			arguments.add(modified);
+			arguments.addAll(batch);
+			db.executeUpdate(prepare(update+"WHERE id IN "+in(batch),
+									 arguments));
+			changes.addAll(db.executeQuery(prepare("SELECT e.id, g.uuid, g.name, g.type, e.uuid, e.name, e.alias, r.name "+
+												   "FROM inventory.element e "+
+												   "JOIN inventory.elementgroup g "+
+												   "ON e.elementgroup_id = g.id "+
+												   "JOIN inventory.elementrole r "+
+												   "ON e.elementrole_id = r.id "+
+												   "WHERE e.id IN "+in(batch),
+												   batch),
+										   rs -> newElementOperationalStateChangedEvent()
+										   		 .withGroupId(groupId(rs.getString(2)))
+										   		 .withGroupName(groupName(rs.getString(3)))
+										   		 .withGroupType(groupType(rs.getString(4)))
+										   		 .withElementId(elementId(rs.getString(5)))
+										   		 .withElementName(elementName(rs.getString(6)))
+										   		 .withElementAlias(elementAlias(rs.getString(7)))
+										   		 .withElementRole(elementRoleName(rs.getString(8)))
+										   		 .withPreviousState(previous.get(rs.getLong(1)))
+										   		 .withOperationalState(state)
+										   		 .build()));
+		}
+		return changes;
+	}
+
+	/**
+	 * Reads the operational state of an element from the given database value.
+	 * @param state the database value
+	 * @return the operational state or <code>null</code> if the database value is <code>null</code>.
+	 */
+	static OperationalState readOperationalState(String state) {
+		return state != null ? operationalState(state) : null;
+	}
+
+	/**
+	 * Splits the given values into batches of {@link #BATCH_SIZE} statement arguments.
+	 * Scalar values are passed as their string representation.
+	 * @param values the values
+	 * @return the batches
+	 */
+	static List<List<Object>> batches(Collection<?> values){
+		List<Object> all = new ArrayList<>(values.size());
+		for(Object value : values) {
+			all.add(value instanceof Scalar ? value.toString() : value);
+		}
+		List<List<Object>> batches = new ArrayList<>();
+		for(int i=0; i < all.size(); i+=BATCH_SIZE) {
+			batches.add(all.subList(i, min(i+BATCH_SIZE, all.size())));
+		}
+		return batches;
+	}
+
+	/**
+	 * Returns the parameter list of an <code>IN</code> condition for the given batch.
+	 * @param batch the batch
+	 * @return the parameter list, e.g. <code>(?,?,?)</code> for a batch of three values.
+	 */
+	static String in(List<?> batch) {
+		return "("+String.join(",", nCopies(batch.size(), "?"))+")";
+	}
+
+	private ElementOperationalStates() {
+		// No instances allowed
+	}
+
+}
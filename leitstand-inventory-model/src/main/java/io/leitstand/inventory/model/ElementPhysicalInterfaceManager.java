@@ -4,10 +4,14 @@
 package io.leitstand.inventory.model;
 
 import static io.leitstand.commons.messages.MessageFactory.createMessage;
+import static io.leitstand.commons.model.ObjectUtil.isDifferent;
 import static io.leitstand.inventory.event.ElementPhysicalInterfaceRemovedEvent.newPhysicalInterfaceRemovedEvent;
 import static io.leitstand.inventory.event.ElementPhysicalInterfaceStoredEvent.newPhysicalInterfaceStoredEvent;
+import static io.leitstand.inventory.model.Element.findElementsByNames;
+import static io.leitstand.inventory.model.Element_ContainerInterface.findIfcs;
 import static io.leitstand.inventory.model.Element_PhysicalInterface.findIfpByName;
 import static io.leitstand.inventory.model.Element_PhysicalInterface.findIfps;
+import static io.leitstand.inventory.service.ElementName.elementName;
 import static io.leitstand.inventory.service.ElementPhysicalInterface.newPhysicalInterface;
 import static io.leitstand.inventory.service.ElementPhysicalInterfaceData.newPhysicalInterfaceData;
 import static io.leitstand.inventory.service.ElementPhysicalInterfaces.newPhysicalInterfaces;
@@ -23,8 +27,13 @@ import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
 import static javax.persistence.LockModeType.OPTIMISTIC_FORCE_INCREMENT;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import javax.enterprise.context.Dependent;
@@ -37,6 +46,7 @@ import io.leitstand.commons.messages.Messages;
 import io.leitstand.commons.model.Repository;
 import io.leitstand.inventory.event.ElementPhysicalInterfaceEvent;
 import io.leitstand.inventory.service.AdministrativeState;
+import io.leitstand.inventory.service.ElementName;
 import io.leitstand.inventory.service.ElementPhysicalInterface;
 import io.leitstand.inventory.service.ElementPhysicalInterfaceData;
 import io.leitstand.inventory.service.ElementPhysicalInterfaceNeighbor;
@@ -150,15 +160,7 @@ public class ElementPhysicalInterfaceManager {
 																		 	     submission.getIfcName()));
 		
 		if(ifc == null) {
-			ifc = new Element_ContainerInterface(element,submission.getIfcName());
-			repository.add(ifc);
-			LOG.fine(() -> format("Created new container interface %s for physical interface %s for element %s", 
-								  submission.getIfcName(),
-								  submission.getIfpName(),
-								  element.getElementName()));
-			messages.add(createMessage(IVT0370I_ELEMENT_IFC_STORED, 
-									   element.getElementName(),
-									   submission.getIfcName()));
+			ifc = addContainerInterface(element, submission);
 		}
 		
 		Element_PhysicalInterface ifp = repository.execute(findIfpByName(element, 
@@ -166,33 +168,190 @@ public class ElementPhysicalInterfaceManager {
 		
 		boolean created = false;
 		if(ifp == null){
-			ifp = new Element_PhysicalInterface(element,
-												submission.getIfpName(),
-												submission.getBandwidth(),
-												ifc);
-			repository.add(ifp);
-			LOG.fine(() -> format("Created new physical interface %s for element %s",
-								  submission.getIfpName(),
-								  element.getElementName()));
+			ifp = addPhysicalInterface(element, ifc, submission);
 			created = true;
 		}
 		
-		ifp.setMacAddress(submission.getMacAddress());
-		ifp.setAdministrativeState(submission.getAdministrativeState());
-		ifp.setOperationalState(submission.getOperationalState());
-		ifp.setMtuSize(submission.getMtuSize());
-		ifp.setContainerInterface(ifc);
-		ifp.setIfpAlias(submission.getIfpAlias());
-		ifp.setIfpClass(submission.getIfpClass());
+		Element neighborElement = null;
+		if(submission.getNeighbor() != null) {
+			neighborElement = elements.tryFetchElement(submission.getNeighbor().getElementName());
+		}
+		updatePhysicalInterface(element, ifc, ifp, submission, neighborElement);
+		physicalInterfaceStored(element, ifp);
+		return created;
+	}
+	
+	public void storePhysicalInterfaces(Element element, List<ElementPhysicalInterfaceSubmission> submissions) {
+		repository.lock(element, OPTIMISTIC_FORCE_INCREMENT);
+		
+		// Load all existing interfaces and all neighbor elements at once, 
+		// instead of fetching them interface by interface.
+		Map<InterfaceName,Element_ContainerInterface> ifcs = new HashMap<>();
+		for(Element_ContainerInterface ifc : repository.execute(findIfcs(element))) {
+			ifcs.put(ifc.getInterfaceName(), ifc);
+		}
+		Map<InterfaceName,Element_PhysicalInterface> ifps = new LinkedHashMap<>();
+		for(Element_PhysicalInterface ifp : repository.execute(findIfps(element))) {
+			ifps.put(ifp.getIfpName(), ifp);
+		}
+		Map<ElementName,Element> neighbors = findNeighborElements(submissions);
+		
+		Set<InterfaceName> submitted = new HashSet<>();
+		int unchanged = 0;
+		for(ElementPhysicalInterfaceSubmission submission : submissions) {
+			submitted.add(submission.getIfpName());
+			Element_ContainerInterface ifc = ifcs.get(submission.getIfcName());
+			if(ifc == null) {
+				ifc = addContainerInterface(element, submission);
+				ifcs.put(ifc.getInterfaceName(), ifc);
+			}
+			
+			Element_PhysicalInterface ifp = ifps.get(submission.getIfpName());
+			boolean created = false;
+			if(ifp == null) {
+				ifp = addPhysicalInterface(element, ifc, submission);
+				ifps.put(ifp.getIfpName(), ifp);
+				created = true;
+			}
+			
+			Element neighborElement = null;
+			if(submission.getNeighbor() != null) {
+				neighborElement = neighbors.get(submission.getNeighbor().getElementName());
+			}
+			boolean modified = updatePhysicalInterface(element, ifc, ifp, submission, neighborElement);
+			if(created || modified) {
+				physicalInterfaceStored(element, ifp);
+			} else {
+				unchanged++;
+			}
+		}
+		
+		for(Element_PhysicalInterface ifp : ifps.values()) {
+			if(submitted.contains(ifp.getIfpName())) {
+				continue;
+			}
+			Element_ContainerInterface ifc = ifp.getContainerInterface();
+			if(!ifc.getLogicalInterfaces().isEmpty()) {
+				// Keep interfaces with assigned logical interfaces, as removePhysicalInterface does.
+				// The synchronization succeeds nonetheless and hence no error message is reported.
+				LOG.fine(() -> format("Kept physical interface %s at element %s because of existing logical interfaces", 
+									  ifp.getIfpName(),
+									  element.getElementName()));
+				continue;
+			}
+			ifc.removePhyiscalInterface(ifp);
+			if(ifc.getPhysicalInterfaces().isEmpty()) {
+				repository.remove(ifc);
+			}
+			repository.remove(ifp);
+			physicalInterfaceRemoved(element, ifp);
+		}
+		
+		// Write the changes at once, such that constraint violations are reported by the synchronization.
+		repository.flush();
+		
+		int skipped = unchanged;
+		LOG.fine(() -> format("Synchronized %d physical interfaces of element %s, %d interfaces unchanged.",
+							  submissions.size(),
+							  element.getElementName(),
+							  skipped));
+	}
+	
+	private Map<ElementName,Element> findNeighborElements(List<ElementPhysicalInterfaceSubmission> submissions){
+		Set<ElementName> names = new HashSet<>();
+		for(ElementPhysicalInterfaceSubmission submission : submissions) {
+			if(submission.getNeighbor() != null) {
+				names.add(submission.getNeighbor().getElementName());
+			}
+		}
+		Map<ElementName,Element> neighbors = new HashMap<>();
+		if(names.isEmpty()) {
+			return neighbors;
+		}
+		List<Element> neighborElements = repository.execute(findElementsByNames(names));
+		// Element names take precedence over element aliases.
+		for(Element neighbor : neighborElements) {
+			neighbors.put(neighbor.getElementName(), neighbor);
+		}
+		for(Element neighbor : neighborElements) {
+			if(neighbor.getElementAlias() != null) {
+				neighbors.putIfAbsent(elementName(neighbor.getElementAlias()), neighbor);
+			}
+		}
+		return neighbors;
+	}
+	
+	private Element_ContainerInterface addContainerInterface(Element element, 
+															 ElementPhysicalInterfaceSubmission submission) {
+		Element_ContainerInterface ifc = new Element_ContainerInterface(element,submission.getIfcName());
+		repository.add(ifc);
+		LOG.fine(() -> format("Created new container interface %s for physical interface %s for element %s", 
+							  submission.getIfcName(),
+							  submission.getIfpName(),
+							  element.getElementName()));
+		messages.add(createMessage(IVT0370I_ELEMENT_IFC_STORED, 
+								   element.getElementName(),
+								   submission.getIfcName()));
+		return ifc;
+	}
+	
+	private Element_PhysicalInterface addPhysicalInterface(Element element, 
+														   Element_ContainerInterface ifc,
+														   ElementPhysicalInterfaceSubmission submission) {
+		Element_PhysicalInterface ifp = new Element_PhysicalInterface(element,
+																	  submission.getIfpName(),
+																	  submission.getBandwidth(),
+																	  ifc);
+		ifc.addPhysicalInterface(ifp);
+		repository.add(ifp);
+		LOG.fine(() -> format("Created new physical interface %s for element %s",
+							  submission.getIfpName(),
+							  element.getElementName()));
+		return ifp;
+	}
+	
+	private boolean updatePhysicalInterface(Element element,
+											Element_ContainerInterface ifc,
+											Element_PhysicalInterface ifp,
+											ElementPhysicalInterfaceSubmission submission,
+											Element neighborElement) {
+		boolean modified = false;
+		if(isDifferent(ifp.getMacAddress(), submission.getMacAddress())) {
+			ifp.setMacAddress(submission.getMacAddress());
+			modified = true;
+		}
+		if(isDifferent(ifp.getAdministrativeState(), submission.getAdministrativeState())) {
+			ifp.setAdministrativeState(submission.getAdministrativeState());
+			modified = true;
+		}
+		if(isDifferent(ifp.getOperationalState(), submission.getOperationalState())) {
+			ifp.setOperationalState(submission.getOperationalState());
+			modified = true;
+		}
+		if(ifp.getMtuSize() != submission.getMtuSize()) {
+			ifp.setMtuSize(submission.getMtuSize());
+			modified = true;
+		}
+		if(ifp.getContainerInterface() != ifc) {
+			ifp.setContainerInterface(ifc);
+			modified = true;
+		}
+		if(isDifferent(ifp.getIfpAlias(), submission.getIfpAlias())) {
+			ifp.setIfpAlias(submission.getIfpAlias());
+			modified = true;
+		}
+		if(isDifferent(ifp.getIfpClass(), submission.getIfpClass())) {
+			ifp.setIfpClass(submission.getIfpClass());
+			modified = true;
+		}
 		if(submission.getNeighbor() != null ) {
-			Element neighborElement = elements.tryFetchElement(submission.getNeighbor().getElementName());
 			if(neighborElement != null) {
 				LOG.fine(()->format("Registered neighbor interface %s at %s for interface %s at %s",
 									neighborElement.getElementName(),
 									submission.getNeighbor().getInterfaceName(),
 									element.getElementName(),
 									submission.getIfpName()));
-				ifp.linkTo(neighborElement, submission.getNeighbor().getInterfaceName());
+				modified |= ifp.linkTo(neighborElement, submission.getNeighbor().getInterfaceName());
 			} else {
 				LOG.fine(()->format("%s: Cannot register neighbor for %s at %s. Neighbor element %s does not exist!",
 									IVT0355W_ELEMENT_IFP_NEIGHBOR_NOT_FOUND.getReasonCode(),
@@ -205,22 +364,26 @@ public class ElementPhysicalInterfaceManager {
 										   submission.getIfpName(),
 										   submission.getNeighbor().getElementName()));	
 			}
-		} else {
+		} else if(ifp.getNeighborElement() != null) {
 			LOG.fine(()->format("%s: Remove neighbor interface for interface %s at %s",
 								IVT0356I_ELEMENT_IFP_NEIGHBOR_REMOVED.getReasonCode(),
 								element.getElementName(),
 								submission.getIfpName()));
 			ifp.removeNeighbor();
+			modified = true;
 		}
-		
+		return modified;
+	}
+	
+	private void physicalInterfaceStored(Element element, Element_PhysicalInterface ifp) {
 		LOG.fine(()->format("%s: Physical interface %s at element %s stored",
 							IVT0351I_ELEMENT_IFP_STORED.getReasonCode(),
-							submission.getIfpName(),
+							ifp.getIfpName(),
 							element.getElementName()));
 
 		messages.add(createMessage(IVT0351I_ELEMENT_IFP_STORED,
 								   element.getElementName(),
-								   submission.getIfpName()));	
+								   ifp.getIfpName()));	
 		
 		event.fire(newPhysicalInterfaceStoredEvent()
 				   .withGroupId(element.getGroupId())
@@ -235,17 +398,29 @@ public class ElementPhysicalInterfaceManager {
 				   .withAdministrativeState(ifp.getAdministrativeState())
 				   .withNeighbor(ifp.getNeighbor())
 				   .build());
-
-		
-		
-		return created;
 	}
 	
-	public void storePhysicalInterfaces(Element element, List<ElementPhysicalInterfaceSubmission> submissions) {
-		repository.lock(element, OPTIMISTIC_FORCE_INCREMENT);
-		for(ElementPhysicalInterfaceSubmission submission : submissions){
-			storePhysicalInterface(element,submission);
-		}
+	private void physicalInterfaceRemoved(Element element, Element_PhysicalInterface ifp) {
+		LOG.fine(() -> format("%s: Physical interface %s at element %s removed", 
+							  IVT0352I_ELEMENT_IFP_REMOVED.getReasonCode(),
+							  ifp.getIfpName(),
+							  element.getElementName()));	
+		messages.add(createMessage(IVT0352I_ELEMENT_IFP_REMOVED, 
+								   element.getElementName(),
+								   ifp.getIfpName()));
+		event.fire(newPhysicalInterfaceRemovedEvent()
+				   .withGroupId(element.getGroupId())
+				   .withGroupName(element.getGroupName())
+				   .withGroupType(element.getGroupType())
+				   .withElementId(element.getElementId())
+				   .withElementName(element.getElementName())
+				   .withElementAlias(element.getElementAlias())
+				   .withElementRole(element.getElementRoleName())
+				   .withInterfaceName(ifp.getIfpName())
+				   .withOperationalState(ifp.getOperationalState())
+				   .withAdministrativeState(ifp.getAdministrativeState())
+				   .withNeighbor(ifp.getNeighbor())
+				   .build());
 	}
 
 	public void removePhysicalInterface(Element element, InterfaceName ifpName) {
@@ -261,26 +436,7 @@ public class ElementPhysicalInterfaceManager {
 				repository.remove(ifc);
 			}
 			repository.remove(ifp);
-			LOG.fine(() -> format("%s: Physical interface %s at element %s removed", 
-								  IVT0352I_ELEMENT_IFP_REMOVED.getReasonCode(),
-								  ifpName,
-								  element.getElementName()));	
-			messages.add(createMessage(IVT0352I_ELEMENT_IFP_REMOVED, 
-									   element.getElementName(),
-									   ifpName));
-			event.fire(newPhysicalInterfaceRemovedEvent()
-					   .withGroupId(element.getGroupId())
-					   .withGroupName(element.getGroupName())
-					   .withGroupType(element.getGroupType())
-					   .withElementId(element.getElementId())
-					   .withElementName(element.getElementName())
-					   .withElementAlias(element.getElementAlias())
-					   .withElementRole(element.getElementRoleName())
-					   .withInterfaceName(ifp.getIfpName())
-					   .withOperationalState(ifp.getOperationalState())
-					   .withAdministrativeState(ifp.getAdministrativeState())
-					   .withNeighbor(ifp.getNeighbor())
-					   .build());
+			physicalInterfaceRemoved(element, ifp);
 			return;
 		}
 		
@@ -3,8 +3,6 @@
  */
 package io.leitstand.inventory.model;
 
-import static io.leitstand.inventory.model.Element.findElementById;
-import static io.leitstand.inventory.model.Element.findElementByName;
 import static io.leitstand.inventory.service.ReasonCode.IVT0300E_ELEMENT_NOT_FOUND;
 import static java.lang.String.format;
 
@@ -24,20 +22,26 @@ public class ElementProvider {
 	private static final Logger LOG = Logger.getLogger(ElementProvider.class.getName());
 	
 	private Repository repository;
+	private ElementNameIndex index;
 
 	protected ElementProvider() {
 		// CDI
 	}
 	
+	public ElementProvider(Repository repository) {
+		this(repository, new ElementNameIndex());
+	}
+	
 	@Inject
-	public ElementProvider(@Inventory Repository repository) {
+	public ElementProvider(@Inventory Repository repository, ElementNameIndex index) {
 		this.repository = repository;
+		this.index = index;
 	}
 	
 
 
 	public Element tryFetchElement(ElementId elementId) {
-		return repository.execute(findElementById(elementId));
+		return index.fetchElement(repository, elementId);
 	}
 	
 	public Element fetchElement(ElementId elementId) {
@@ -53,7 +57,7 @@ public class ElementProvider {
 	}
 	
 	public Element tryFetchElement(ElementName elementName) {
-		return repository.execute(findElementByName(elementName));
+		return index.fetchElement(repository, elementName);
 	}
 	
 	public Element fetchElement(ElementName elementName) {
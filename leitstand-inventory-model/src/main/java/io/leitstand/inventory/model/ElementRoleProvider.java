@@ -24,10 +24,16 @@ public class ElementRoleProvider {
 	private static final Logger LOG = Logger.getLogger(ElementRoleProvider.class.getName());
 	
 	private Repository repository;
+	private ReferenceCatalog catalog;
+	
+	protected ElementRoleProvider(Repository repository) {
+		this(repository, new ReferenceCatalog());
+	}
 	
 	@Inject
-	protected ElementRoleProvider(@Inventory Repository repository) {
+	protected ElementRoleProvider(@Inventory Repository repository, ReferenceCatalog catalog) {
 		this.repository = repository;
+		this.catalog = catalog;
 	}
 	
 	protected ElementRoleProvider() {
@@ -35,12 +41,25 @@ public class ElementRoleProvider {
 	}
 	
 	public ElementRole tryFetchElementRole(ElementRoleId roleId) {
-		return repository.execute(findRoleById(roleId));
+		return catalog.fetch(repository, 
+							 ElementRole.class, 
+							 roleId, 
+							 findRoleById(roleId));
 	}
 	
 	public ElementRole tryFetchElementRole(ElementRoleName roleName) {
-		return repository.execute(findRoleByName(roleName));
-
+		return catalog.fetch(repository, 
+							 ElementRole.class, 
+							 roleName, 
+							 findRoleByName(roleName));
+	}
+	
+	/**
+	 * Discards all cached element roles. 
+	 * Must be called when an element role is modified or removed.
+	 */
+	public void invalidate() {
+		catalog.invalidate(ElementRole.class);
 	}
 	
 	public ElementRole fetchElementRole(ElementRoleId roleId) {
@@ -0,0 +1,563 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.commons.db.DatabaseService.prepare;
+import static io.leitstand.commons.model.StringUtil.isEmptyString;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.nCopies;
+import static java.util.Comparator.comparing;
+import static java.util.Locale.ROOT;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static javax.enterprise.event.TransactionPhase.AFTER_COMPLETION;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import io.leitstand.commons.db.DatabaseService;
+import io.leitstand.inventory.event.ElementAddedEvent;
+import io.leitstand.inventory.event.ElementClonedEvent;
+import io.leitstand.inventory.event.ElementEvent;
+import io.leitstand.inventory.event.ElementGroupRenamedEvent;
+import io.leitstand.inventory.event.ElementMovedEvent;
+import io.leitstand.inventory.event.ElementRemovedEvent;
+import io.leitstand.inventory.event.ElementRenamedEvent;
+import io.leitstand.inventory.event.ElementSettingsUpdatedEvent;
+import io.leitstand.inventory.service.ElementFilterMode;
+
+/**
+ * An in-memory search index of all elements, that answers prefix, substring and tag queries
+ * without scanning the element table.
+ * <p>
+ * The index keeps the elements ordered by group name and element name and maps
+ * <ul>
+ * 	<li>the lower-case element names and aliases to the elements, to answer prefix queries by a range lookup,</li>
+ * 	<li>all trigrams of the lower-case element names and aliases to the elements, to answer substring queries and</li>
+ *  <li>the element tags to the elements, to answer tag queries.</li>
+ * </ul>
+ * Queries that match a large share of all elements are answered by scanning the ordered elements after the cursor position,
+ * which stops as soon as a page is complete.
+ * </p>
+ * <p>
+ * The index is built from the database on startup and rebuilt in the background when it is older than {@link #REBUILD_INTERVAL_MILLIS},
+ * in order to pick up modifications made by other nodes.
+ * Hence, elements added or modified on another node become searchable on this node after at most {@link #REBUILD_INTERVAL_MILLIS}.
+ * Elements removed on another node are filtered out when the matching elements are loaded.
+ * Searches are answered from the expired index until the rebuilt index is available.
+ * Elements added, cloned, renamed, moved, updated or removed on this node,
+ * as well as all elements of a renamed group, are reloaded from the database
+ * by the next search after the modifying transaction has completed.
+ * Elements reloaded while the index is rebuilt are reloaded again once the rebuilt index is available,
+ * because the rebuilt index might have been loaded before the modification.
+ * </p>
+ * @see ElementManager#searchElements(String, ElementFilterMode, String, int)
+ * @see ElementSearchIndexInitializer
+ */
+@ApplicationScoped
+public class ElementSearchIndex {
+
+	private static final Logger LOG = Logger.getLogger(ElementSearchIndex.class.getName());
+
+	/** Maximum age of the index in milliseconds.*/
+	static final long REBUILD_INTERVAL_MILLIS = MINUTES.toMillis(5);
+
+	/** Elements are scanned if the candidates exceed the given fraction of all elements.*/
+	private static final int SCAN_RATIO = 16;
+
+	private static final int TRIGRAM_LENGTH = 3;
+
+	/** Orders the elements by group name and element name.*/
+	static final Comparator<IndexedElement> ORDER = comparing(IndexedElement::getGroupName)
+													.thenComparing(IndexedElement::getElementName)
+													.thenComparing(IndexedElement::getElementId);
+
+	private static final String SELECT_ELEMENTS = "SELECT e.id, e.uuid, e.name, e.alias, g.name, t.tag "+
+												  "FROM inventory.element e "+
+												  "JOIN inventory.elementgroup g "+
+												  "ON e.elementgroup_id = g.id "+
+												  "LEFT OUTER JOIN inventory.element_tag t "+
+												  "ON t.element_id = e.id ";
+
+	/**
+	 * An indexed element.
+	 */
+	static final class IndexedElement {
+
+		/**
+		 * Creates a search position, that is located right behind the element with the given group name, element name and element ID.
+		 * @param elementId the element ID
+		 * @param groupName the group name
+		 * @param elementName the element name
+		 * @return the search position
+		 */
+		static IndexedElement position(String elementId, String groupName, String elementName) {
+			return new IndexedElement(null,elementId,groupName,elementName,null);
+		}
+
+		private final Long id;
+		private final String elementId;
+		private final String groupName;
+		private final String elementName;
+		private final String elementAlias;
+		private final Set<String> keys = new HashSet<>();
+		private final Set<String> tags = new HashSet<>();
+
+		IndexedElement(Long id,
+					   String elementId,
+					   String groupName,
+					   String elementName,
+					   String elementAlias){
+			this.id = id;
+			this.elementId = elementId;
+			this.groupName = groupName;
+			this.elementName = elementName;
+			this.elementAlias = elementAlias;
+			if(elementName != null) {
+				keys.add(elementName.toLowerCase(ROOT));
+			}
+			if(elementAlias != null) {
+				keys.add(elementAlias.toLowerCase(ROOT));
+			}
+		}
+
+		Long getId() {
+			return id;
+		}
+
+		String getElementId() {
+			return elementId;
+		}
+
+		String getGroupName() {
+			return groupName;
+		}
+
+		String getElementName() {
+			return elementName;
+		}
+
+		String getElementAlias() {
+			return elementAlias;
+		}
+
+		Set<String> getTags() {
+			return tags;
+		}
+
+		void addTag(String tag) {
+			if(tag != null) {
+				tags.add(tag);
+			}
+		}
+
+		boolean hasKeyStartingWith(String prefix) {
+			for(String key : keys) {
+				if(key.startsWith(prefix)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		boolean hasKeyContaining(String substring) {
+			for(String key : keys) {
+				if(key.contains(substring)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static final class Index {
+
+		private final long created = currentTimeMillis();
+		private final Map<String,IndexedElement> elements = new HashMap<>();
+		private final NavigableSet<IndexedElement> ordered = new TreeSet<>(ORDER);
+		private final NavigableMap<String,Set<IndexedElement>> keys = new TreeMap<>();
+		private final Map<String,Set<IndexedElement>> trigrams = new HashMap<>();
+		private final Map<String,Set<IndexedElement>> tags = new HashMap<>();
+
+		boolean isExpired() {
+			return currentTimeMillis() - created > REBUILD_INTERVAL_MILLIS;
+		}
+
+		void add(IndexedElement element) {
+			remove(element.getElementId());
+			elements.put(element.getElementId(), element);
+			ordered.add(element);
+			for(String key : element.keys) {
+				keys.computeIfAbsent(key, k -> new HashSet<>()).add(element);
+				for(String trigram : trigrams(key)) {
+					trigrams.computeIfAbsent(trigram, k -> new HashSet<>()).add(element);
+				}
+			}
+			for(String tag : element.getTags()) {
+				tags.computeIfAbsent(tag, k -> new HashSet<>()).add(element);
+			}
+		}
+
+		void remove(String elementId) {
+			IndexedElement element = elements.remove(elementId);
+			if(element == null) {
+				return;
+			}
+			ordered.remove(element);
+			for(String key : element.keys) {
+				remove(keys, key, element);
+				for(String trigram : trigrams(key)) {
+					remove(trigrams, trigram, element);
+				}
+			}
+			for(String tag : element.getTags()) {
+				remove(tags, tag, element);
+			}
+		}
+
+		private static void remove(Map<String,Set<IndexedElement>> postings, String key, IndexedElement element) {
+			Set<IndexedElement> posting = postings.get(key);
+			if(posting != null && posting.remove(element) && posting.isEmpty()) {
+				postings.remove(key);
+			}
+		}
+
+		/**
+		 * Returns a superset of all elements matching the filter or <code>null</code> if the candidates
+		 * cannot be narrowed down.
+		 */
+		Collection<IndexedElement> candidates(ElementFilterMode mode, String filter) {
+			switch(mode) {
+				case TAG: return tags.getOrDefault(filter, emptySet());
+				case SUBSTRING: {
+					if(filter.length() < TRIGRAM_LENGTH) {
+						return null;
+					}
+					// Every match contains all trigrams of the filter. The smallest posting suffices to verify the candidates.
+					Set<IndexedElement> candidates = null;
+					for(String trigram : trigrams(filter)) {
+						Set<IndexedElement> posting = trigrams.getOrDefault(trigram, emptySet());
+						if(candidates == null || posting.size() < candidates.size()) {
+							candidates = posting;
+						}
+					}
+					return candidates;
+				}
+				case PREFIX:
+				default: {
+					Set<IndexedElement> candidates = new HashSet<>();
+					for(Set<IndexedElement> posting : keys.subMap(filter, true, filter+Character.MAX_VALUE, false).values()) {
+						candidates.addAll(posting);
+						if(candidates.size() > elements.size() / SCAN_RATIO) {
+							return null;
+						}
+					}
+					return candidates;
+				}
+			}
+		}
+	}
+
+	static Set<String> trigrams(String key) {
+		Set<String> trigrams = new HashSet<>();
+		for(int i=0; i+TRIGRAM_LENGTH <= key.length(); i++) {
+			trigrams.add(key.substring(i, i+TRIGRAM_LENGTH));
+		}
+		return trigrams;
+	}
+
+	private static Predicate<IndexedElement> matcher(ElementFilterMode mode, String filter) {
+		switch(mode) {
+			case TAG: return element -> element.getTags().contains(filter);
+			case SUBSTRING: return element -> element.hasKeyContaining(filter);
+			case PREFIX:
+			default: return element -> element.hasKeyStartingWith(filter);
+		}
+	}
+
+	@Resource
+	private ManagedExecutorService pool;
+
+	private DatabaseService db;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Object rebuildLock = new Object();
+	private final AtomicBoolean rebuilding = new AtomicBoolean();
+	private final Set<String> modified = ConcurrentHashMap.newKeySet();
+	private final Set<String> modifiedGroups = ConcurrentHashMap.newKeySet();
+	/** Elements reloaded while the index is rebuilt. Guarded by the write lock.*/
+	private Set<String> reloaded;
+	private volatile Index index;
+
+	protected ElementSearchIndex() {
+		// CDI
+	}
+
+	@Inject
+	protected ElementSearchIndex(@Inventory DatabaseService db) {
+		this.db = db;
+	}
+
+	ElementSearchIndex(DatabaseService db, ManagedExecutorService pool) {
+		this.db = db;
+		this.pool = pool;
+	}
+
+	/**
+	 * Searches the elements matching the given filter.
+	 * @param mode the filter mode
+	 * @param filter the filter string or an empty string to match all elements
+	 * @param after the search position or <code>null</code> to search from the first element
+	 * @param limit the maximum number of returned elements
+	 * @return the matching elements ordered by group name and element name.
+	 */
+	List<IndexedElement> search(ElementFilterMode mode,
+								String filter,
+								IndexedElement after,
+								int limit){
+		refresh();
+		lock.readLock().lock();
+		try {
+			NavigableSet<IndexedElement> elements = after != null ? index.ordered.tailSet(after, false) : index.ordered;
+			if(isEmptyString(filter)) {
+				return scan(elements, element -> true, limit);
+			}
+			String key = mode == ElementFilterMode.TAG ? filter : filter.toLowerCase(ROOT);
+			Predicate<IndexedElement> matcher = matcher(mode, key);
+			Collection<IndexedElement> candidates = index.candidates(mode, key);
+			if(candidates == null || candidates.size() > index.elements.size() / SCAN_RATIO) {
+				return scan(elements, matcher, limit);
+			}
+			List<IndexedElement> matches = new ArrayList<>();
+			for(IndexedElement candidate : candidates) {
+				if(matcher.test(candidate) && (after == null || ORDER.compare(candidate, after) > 0)) {
+					matches.add(candidate);
+				}
+			}
+			matches.sort(ORDER);
+			return new ArrayList<>(matches.subList(0, min(limit, matches.size())));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private static List<IndexedElement> scan(Collection<IndexedElement> elements,
+											 Predicate<IndexedElement> matcher,
+											 int limit){
+		List<IndexedElement> matches = new ArrayList<>();
+		for(IndexedElement element : elements) {
+			if(matches.size() == limit) {
+				break;
+			}
+			if(matcher.test(element)) {
+				matches.add(element);
+			}
+		}
+		return matches;
+	}
+
+	private void refresh() {
+		Index current = index;
+		if(current == null) {
+			rebuild(null);
+		} else if(current.isExpired()) {
+			rebuildInBackground(current);
+		}
+		if(modified.isEmpty() && modifiedGroups.isEmpty()) {
+			return;
+		}
+		Set<String> elementIds = new HashSet<>(modified);
+		modified.removeAll(elementIds);
+		Set<String> groupIds = new HashSet<>(modifiedGroups);
+		modifiedGroups.removeAll(groupIds);
+		Collection<IndexedElement> elements = load(elementIds, groupIds);
+		lock.writeLock().lock();
+		try {
+			for(String elementId : elementIds) {
+				index.remove(elementId);
+			}
+			for(IndexedElement element : elements) {
+				index.add(element);
+			}
+			if(reloaded != null) {
+				reloaded.addAll(elementIds);
+				for(IndexedElement element : elements) {
+					reloaded.add(element.getElementId());
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Builds the index from the database.
+	 */
+	void rebuild() {
+		rebuild(index);
+	}
+
+	private void rebuildInBackground(Index expired) {
+		if(!rebuilding.compareAndSet(false, true)) {
+			// Rebuild in progress.
+			return;
+		}
+		try {
+			pool.execute(() -> {
+				try {
+					rebuild(expired);
+				} catch (Exception e) {
+					LOG.warning(() -> format("Cannot rebuild element search index: %s", 
+											 e.getMessage()));
+				} finally {
+					rebuilding.set(false);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// Try again with the next search.
+			rebuilding.set(false);
+			LOG.fine(() -> format("Cannot schedule element search index rebuild: %s", 
+								  e.getMessage()));
+		}
+	}
+
+	private void rebuild(Index expired) {
+		synchronized(rebuildLock) {
+			if(index != expired) {
+				// Rebuilt by a concurrent search.
+				return;
+			}
+			lock.writeLock().lock();
+			try {
+				reloaded = new HashSet<>();
+			} finally {
+				lock.writeLock().unlock();
+			}
+			Index rebuilt = new Index();
+			try {
+				for(IndexedElement element : load(null, null)) {
+					rebuilt.add(element);
+				}
+			} catch (RuntimeException e) {
+				lock.writeLock().lock();
+				try {
+					reloaded = null;
+				} finally {
+					lock.writeLock().unlock();
+				}
+				throw e;
+			}
+			lock.writeLock().lock();
+			try {
+				index = rebuilt;
+				modified.addAll(reloaded);
+				reloaded = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	private Collection<IndexedElement> load(Set<String> elementIds, Set<String> groupIds) {
+		String sql = SELECT_ELEMENTS;
+		List<Object> arguments = new ArrayList<>();
+		if(elementIds != null) {
+			List<String> conditions = new ArrayList<>();
+			if(!elementIds.isEmpty()) {
+				conditions.add("e.uuid IN ("+String.join(",", nCopies(elementIds.size(), "?"))+")");
+				arguments.addAll(elementIds);
+			}
+			if(!groupIds.isEmpty()) {
+				conditions.add("g.uuid IN ("+String.join(",", nCopies(groupIds.size(), "?"))+")");
+				arguments.addAll(groupIds);
+			}
+			sql += "WHERE "+String.join(" OR ", conditions)+" ";
+		}
+		Map<Long,IndexedElement> elements = new LinkedHashMap<>();
+		db.processQuery(prepare(sql, arguments),
+						rs -> {
+							Long id = rs.getLong(1);
+							IndexedElement element = elements.get(id);
+							if(element == null) {
+								element = new IndexedElement(id,
+															 rs.getString(2),
+															 rs.getString(5),
+															 rs.getString(3),
+															 rs.getString(4));
+								elements.put(id, element);
+							}
+							element.addTag(rs.getString(6));
+						});
+		return elements.values();
+	}
+
+	public void onElementAdded(@Observes(during=AFTER_COMPLETION) ElementAddedEvent event) {
+		modified(event);
+	}
+
+	public void onElementCloned(@Observes(during=AFTER_COMPLETION) ElementClonedEvent event) {
+		if(event.getCloneId() != null) {
+			modified.add(event.getCloneId().toString());
+		}
+	}
+
+	public void onElementRenamed(@Observes(during=AFTER_COMPLETION) ElementRenamedEvent event) {
+		modified(event);
+	}
+
+	public void onElementMoved(@Observes(during=AFTER_COMPLETION) ElementMovedEvent event) {
+		modified(event);
+	}
+
+	public void onElementSettingsUpdated(@Observes(during=AFTER_COMPLETION) ElementSettingsUpdatedEvent event) {
+		modified(event);
+	}
+
+	public void onElementRemoved(@Observes(during=AFTER_COMPLETION) ElementRemovedEvent event) {
+		modified(event);
+	}
+
+	public void onElementGroupRenamed(@Observes(during=AFTER_COMPLETION) ElementGroupRenamedEvent event) {
+		if(event.getGroupId() != null) {
+			modifiedGroups.add(event.getGroupId().toString());
+		}
+	}
+
+	private void modified(ElementEvent event) {
+		if(event.getElementId() != null) {
+			modified.add(event.getElementId().toString());
+		}
+	}
+
+	int size() {
+		Index current = index;
+		return current != null ? current.elements.size() : 0;
+	}
+
+}
@@ -0,0 +1,26 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import io.leitstand.commons.StartupListener;
+
+/**
+ * Builds the element search index on startup.
+ * @see ElementSearchIndex
+ */
+@ApplicationScoped
+public class ElementSearchIndexInitializer implements StartupListener {
+
+	@Inject
+	private ElementSearchIndex index;
+	
+	@Override
+	public void onStartup() {
+		index.rebuild();
+	}
+
+}
@@ -3,6 +3,10 @@
  */
 package io.leitstand.inventory.model;
 
+import static io.leitstand.inventory.model.ConfigDelta.applyDelta;
+import static io.leitstand.inventory.model.ConfigDelta.encodeDelta;
+import static io.leitstand.inventory.model.ConfigRevisionStorage.DELTA;
+import static io.leitstand.inventory.model.ConfigRevisionStorage.SNAPSHOT;
 import static io.leitstand.inventory.service.ConfigurationState.ACTIVE;
 import static io.leitstand.inventory.service.ConfigurationState.CANDIDATE;
 import static io.leitstand.inventory.service.ElementConfigId.randomConfigId;
@@ -11,7 +15,9 @@ import static javax.persistence.FetchType.LAZY;
 import static javax.persistence.TemporalType.TIMESTAMP;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Objects;
 
 import javax.persistence.Basic;
@@ -20,6 +26,7 @@ import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.Enumerated;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.NamedQuery;
@@ -38,7 +45,9 @@ import io.leitstand.security.auth.UserId;
 import io.leitstand.security.auth.jpa.UserIdConverter;
 
 @Entity
-@Table(schema="inventory", name="element_config")
+@Table(schema="inventory", 
+	   name="element_config",
+	   indexes=@Index(name="element_config_hash_idx", columnList="contenthash"))
 @NamedQuery(name="Element_Config.removeConfigRevisions",
 			query="DELETE FROM Element_Config c WHERE c.element=:element AND c.name=:configName AND c.state != io.leitstand.inventory.service.ConfigurationState.ACTIVE")	
 @NamedQuery(name="Element_Config.removeAll",
@@ -47,9 +56,38 @@ import io.leitstand.security.auth.jpa.UserIdConverter;
 			query="SELECT c FROM Element_Config c WHERE c.element=:element AND c.name=:configName ORDER BY c.tsmodified DESC")
 @NamedQuery(name="Element_Config.findActiveConfig",
 			query="SELECT c FROM Element_Config c WHERE c.element=:element AND c.name=:configName AND c.state=io.leitstand.inventory.service.ConfigurationState.ACTIVE")
+@NamedQuery(name="Element_Config.findDependentConfigs",
+			query="SELECT c FROM Element_Config c WHERE c.base=:config")
+@NamedQuery(name="Element_Config.findRetainedDependentConfigs",
+			query="SELECT c FROM Element_Config c WHERE c.base.element=:element AND c.base.name=:configName AND c.base.state <> io.leitstand.inventory.service.ConfigurationState.ACTIVE "+
+				  "AND NOT (c.element=:element AND c.name=:configName AND c.state <> io.leitstand.inventory.service.ConfigurationState.ACTIVE)")
+@NamedQuery(name="Element_Config.findRevisionBlobDigests",
+			query="SELECT DISTINCT c.blob.digest FROM Element_Config c WHERE c.element=:element AND c.name=:configName AND c.state <> io.leitstand.inventory.service.ConfigurationState.ACTIVE")
+@NamedQuery(name="Element_Config.findBlobDigests",
+			query="SELECT DISTINCT c.blob.digest FROM Element_Config c WHERE c.element=:element")
+@NamedQuery(name="Element_Config.findForeignDependentConfigs",
+			query="SELECT c FROM Element_Config c WHERE c.base.element=:element AND c.element <> :element")
+@NamedQuery(name="Element_Config.findRetainedDependentRevisions",
+			query="SELECT c FROM Element_Config c WHERE c.base.configId IN :ids AND c.configId NOT IN :ids")
+@NamedQuery(name="Element_Config.findRevisionsBlobDigests",
+			query="SELECT DISTINCT c.blob.digest FROM Element_Config c WHERE c.configId IN :ids")
+@NamedQuery(name="Element_Config.detachRevisions",
+			query="UPDATE Element_Config c SET c.base=NULL WHERE c.configId IN :ids AND c.state=io.leitstand.inventory.service.ConfigurationState.SUPERSEDED")
+@NamedQuery(name="Element_Config.removeSupersededRevisions",
+			query="DELETE FROM Element_Config c WHERE c.configId IN :ids AND c.state=io.leitstand.inventory.service.ConfigurationState.SUPERSEDED")
+@NamedQuery(name="Element_Config.countContentRevisions",
+			query="SELECT count(c) FROM Element_Config c WHERE c.contentHash=:digest")
+@NamedQuery(name="Element_Config.findIndexableConfigs",
+			query="SELECT c FROM Element_Config c WHERE c.element=:element AND c.state <> io.leitstand.inventory.service.ConfigurationState.SUPERSEDED")
 public class Element_Config implements Serializable {
 
 	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Maximum number of consecutive delta revisions. 
+	 * A full snapshot is stored after the specified number of deltas to limit the reconstruction costs.
+	 */
+	static final int SNAPSHOT_INTERVAL = 10;
 
 	public static Query<Element_Config> findElementConfig(ElementConfigId configId){
 		return em -> em.find(Element_Config.class, configId);
@@ -72,6 +110,140 @@ public class Element_Config implements Serializable {
 					   .getSingleResult();
 	}
 	
+	/**
+	 * Returns all revisions stored as delta of the given revision.
+	 * @param config the base revision
+	 * @return all revisions stored as delta of the given revision.
+	 */
+	public static Query<List<Element_Config>> findDependentConfigs(Element_Config config){
+		return em -> em.createNamedQuery("Element_Config.findDependentConfigs",Element_Config.class)
+					   .setParameter("config", config)
+					   .getResultList();
+	}
+
+	/**
+	 * Returns all revisions that are stored as delta of a revision that gets removed 
+	 * when all non-active revisions of the given configuration are removed, 
+	 * but are not removed themselves.
+	 * @param element the element
+	 * @param name the configuration name
+	 * @return the revisions that need to be materialized before the configuration revisions can be removed.
+	 * @see #removeConfigRevisions(Element, ElementConfigName)
+	 */
+	public static Query<List<Element_Config>> findRetainedDependentConfigs(Element element,
+																		   ElementConfigName name){
+		return em -> em.createNamedQuery("Element_Config.findRetainedDependentConfigs",Element_Config.class)
+					   .setParameter("element", element)
+					   .setParameter("configName", name)
+					   .getResultList();
+	}
+
+	/**
+	 * Returns all revisions of other elements that are stored as delta of a revision of the given element.
+	 * Such revisions originate from cloning an element.
+	 * @param element the element
+	 * @return the revisions of other elements that depend on a revision of the given element.
+	 * @see #removeAllConfigurations(Element)
+	 */
+	public static Query<List<Element_Config>> findForeignDependentConfigs(Element element){
+		return em -> em.createNamedQuery("Element_Config.findForeignDependentConfigs",Element_Config.class)
+					   .setParameter("element", element)
+					   .getResultList();
+	}
+	
+	/**
+	 * Returns the digests of all blobs referenced by non-active revisions of the given configuration.
+	 * @param element the element
+	 * @param name the configuration name
+	 * @return the digests of all blobs referenced by revisions being removed.
+	 * @see #removeConfigRevisions(Element, ElementConfigName)
+	 */
+	public static Query<List<String>> findRevisionBlobDigests(Element element,
+															  ElementConfigName name){
+		return em -> em.createNamedQuery("Element_Config.findRevisionBlobDigests",String.class)
+					   .setParameter("element", element)
+					   .setParameter("configName", name)
+					   .getResultList();
+	}
+	
+	/**
+	 * Returns the digests of all blobs referenced by the configuration revisions of the given element.
+	 * @param element the element
+	 * @return the digests of all blobs referenced by the element configurations.
+	 * @see #removeAllConfigurations(Element)
+	 */
+	public static Query<List<String>> findBlobDigests(Element element){
+		return em -> em.createNamedQuery("Element_Config.findBlobDigests",String.class)
+					   .setParameter("element", element)
+					   .getResultList();
+	}
+	
+	/**
+	 * Returns all revisions stored as delta of one of the given revisions, except the given revisions themselves.
+	 * @param ids the IDs of the revisions being removed
+	 * @return the revisions that need to be materialized before the given revisions can be removed.
+	 * @see #removeSupersededRevisions(Collection)
+	 */
+	public static Query<List<Element_Config>> findRetainedDependentRevisions(Collection<ElementConfigId> ids){
+		return em -> em.createNamedQuery("Element_Config.findRetainedDependentRevisions",Element_Config.class)
+					   .setParameter("ids", ids)
+					   .getResultList();
+	}
+	
+	/**
+	 * Returns the digests of all blobs referenced by the given revisions.
+	 * @param ids the revision IDs
+	 * @return the digests of all blobs referenced by the given revisions.
+	 */
+	public static Query<List<String>> findRevisionsBlobDigests(Collection<ElementConfigId> ids){
+		return em -> em.createNamedQuery("Element_Config.findRevisionsBlobDigests",String.class)
+					   .setParameter("ids", ids)
+					   .getResultList();
+	}
+	
+	/**
+	 * Returns whether any revision, of any element, has the content with the given digest.
+	 * @param digest the SHA-256 digest of the content
+	 * @return <code>true</code> if a revision with the given content exists, <code>false</code> otherwise.
+	 */
+	public static Query<Boolean> isStoredContent(String digest){
+		return em -> em.createNamedQuery("Element_Config.countContentRevisions",Long.class)
+					   .setParameter("digest", digest)
+					   .getSingleResult() > 0;
+	}
+	
+	/**
+	 * Removes the given revisions, if they are superseded. 
+	 * The revisions are detached from their base revisions first, 
+	 * to allow removing a revision and its base revision at once.
+	 * Retained revisions that depend on a removed revision must be materialized in advance.
+	 * @param ids the IDs of the revisions to be removed.
+	 * @return the number of removed revisions.
+	 * @see #findRetainedDependentRevisions(Collection)
+	 */
+	public static Update removeSupersededRevisions(Collection<ElementConfigId> ids) {
+		return em -> {
+			em.createNamedQuery("Element_Config.detachRevisions",int.class)
+			  .setParameter("ids", ids)
+			  .executeUpdate();
+			return em.createNamedQuery("Element_Config.removeSupersededRevisions",int.class)
+					 .setParameter("ids", ids)
+					 .executeUpdate();
+		};
+	}
+	
+	/**
+	 * Returns all active and candidate configurations of the given element.
+	 * @param element the element
+	 * @return the active and candidate configurations of the element.
+	 * @see ElementConfigIndexer
+	 */
+	public static Query<List<Element_Config>> findIndexableConfigs(Element element){
+		return em -> em.createNamedQuery("Element_Config.findIndexableConfigs",Element_Config.class)
+					   .setParameter("element", element)
+					   .getResultList();
+	}
+	
 	public static Update removeAllConfigurations(Element element) {
 		return em -> em.createNamedQuery("Element_Config.removeAll",int.class)
 					   .setParameter("element",element)
@@ -111,6 +283,22 @@ public class Element_Config implements Serializable {
 	@Convert(converter=UserIdConverter.class)
 	private UserId creator;
 	
+	@Enumerated(STRING)
+	private ConfigRevisionStorage storage;
+	
+	@ManyToOne(fetch=LAZY)
+	@JoinColumn(name="blob_digest")
+	private ConfigBlob blob;
+	
+	@ManyToOne(fetch=LAZY)
+	@JoinColumn(name="base_uuid")
+	private Element_Config base;
+	
+	@Column(name="delta_depth")
+	private int deltaDepth;
+	
+	private transient String content;
+	
 	protected Element_Config(){
 		// JPA
 	}
@@ -144,9 +332,28 @@ public class Element_Config implements Serializable {
 		this.contentType = contentType;
 		this.contentHash = contentHash;
 		this.state = configState;
-		this.config = config;
 		this.creator = creator;
 		this.tsmodified = new Date();
+		storeSnapshot(config);
+	}
+	
+	/**
+	 * Creates a new configuration revision. 
+	 * The configuration itself is stored by the {@link ConfigBlobStore}.
+	 */
+	public Element_Config(Element element, 
+						  ElementConfigName name, 
+						  ConfigurationState configState,
+						  MediaType contentType,
+						  String contentHash,
+						  UserId creator){
+		this(element,
+			 name,
+			 configState,
+			 contentType.toString(),
+			 contentHash,
+			 null,
+			 creator);
 	}
 	
 	public ElementConfigName getName() {
@@ -157,8 +364,90 @@ public class Element_Config implements Serializable {
 		return element;
 	}
 	
+	/**
+	 * Returns the configuration. 
+	 * The configuration is restored from the base revision, if this revision is stored as delta,
+	 * or read from the referenced blob.
+	 * @return the configuration
+	 */
 	public String getConfig() {
-		return config;
+		if(content == null) {
+			if(isDeltaRevision()) {
+				content = applyDelta(base.getConfig(), config);
+			} else if(blob != null) {
+				content = blob.getContent();
+			} else {
+				content = config;
+			}
+		}
+		return content;
+	}
+	
+	/**
+	 * Returns the digest of the referenced blob.
+	 * @return the digest of the referenced blob or <code>null</code> if this revision does not refer to a blob.
+	 */
+	public String getBlobDigest() {
+		return blob != null ? blob.getDigest() : null;
+	}
+	
+	/**
+	 * Returns whether this revision is stored as delta of its base revision.
+	 * @return <code>true</code> if this revision is stored as delta, <code>false</code> otherwise.
+	 */
+	public boolean isDeltaRevision() {
+		return storage == DELTA && base != null;
+	}
+	
+	/**
+	 * Stores this revision as full snapshot.
+	 * @param config the configuration
+	 */
+	void storeSnapshot(String config) {
+		this.config = config;
+		this.content = config;
+		this.storage = SNAPSHOT;
+		this.blob = null;
+		this.base = null;
+		this.deltaDepth = 0;
+	}
+	
+	/**
+	 * Stores this revision as reference to a blob.
+	 * @param blob the blob containing the configuration
+	 */
+	void storeSnapshot(ConfigBlob blob) {
+		this.config = null;
+		this.content = null;
+		this.storage = SNAPSHOT;
+		this.blob = blob;
+		this.base = null;
+		this.deltaDepth = 0;
+	}
+	
+	/**
+	 * Attempts to store this revision as delta of the given base revision.
+	 * The revision is not stored as delta if a snapshot is due or if the delta is not significantly smaller than the configuration itself.
+	 * @param base the base revision
+	 * @param config the configuration
+	 * @return <code>true</code> if the revision was stored as delta, <code>false</code> otherwise.
+	 */
+	boolean storeDelta(Element_Config base, String config) {
+		if(config == null || base.deltaDepth >= SNAPSHOT_INTERVAL) {
+			return false;
+		}
+		String delta = encodeDelta(base.getConfig(), config);
+		if(delta == null || delta.length() > config.length() / 2) {
+			// Delta is not compact enough.
+			return false;
+		}
+		this.config = delta;
+		this.content = config;
+		this.storage = DELTA;
+		this.blob = null;
+		this.base = base;
+		this.deltaDepth = base.deltaDepth+1;
+		return true;
 	}
 	
 	public String getContentType() {
@@ -193,8 +482,10 @@ public class Element_Config implements Serializable {
 		return comment;
 	}
 	
-	public void setConfig(String config) {
-		this.config = config;
+	/**
+	 * Updates the modification timestamp of this revision.
+	 */
+	public void touch() {
 		this.tsmodified = new Date();
 	}
 	
@@ -0,0 +1,201 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.commons.db.DatabaseService.prepare;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+import io.leitstand.commons.db.StatementPreparator;
+import io.leitstand.commons.model.Query;
+import io.leitstand.commons.model.Update;
+import io.leitstand.inventory.jpa.ElementConfigIdConverter;
+import io.leitstand.inventory.jpa.ElementConfigNameConverter;
+import io.leitstand.inventory.service.ElementConfigId;
+import io.leitstand.inventory.service.ElementConfigName;
+
+/**
+ * Points to the latest and the active revision of an element configuration.
+ * <p>
+ * The head is maintained by the {@link ElementConfigManager} whenever a revision is stored or removed.
+ * It allows to read the current revisions of an element without scanning the revision history.
+ * The latest revision is the most recently stored revision, which is either the active or the candidate revision.
+ * </p>
+ * @see Element_Config
+ */
+@Entity
+@Table(schema="inventory", name="element_config_head")
+@IdClass(Element_ConfigHeadPK.class)
+@NamedQuery(name="Element_ConfigHead.findHead",
+			query="SELECT h FROM Element_ConfigHead h WHERE h.element=:element AND h.name=:configName")
+@NamedQuery(name="Element_ConfigHead.removeAll",
+			query="DELETE FROM Element_ConfigHead h WHERE h.element=:element")
+public class Element_ConfigHead {
+
+	public static Query<Element_ConfigHead> findConfigHead(Element element, 
+														   ElementConfigName configName){
+		return em -> em.createNamedQuery("Element_ConfigHead.findHead",Element_ConfigHead.class)
+					   .setParameter("element", element)
+					   .setParameter("configName", configName)
+					   .getSingleResult();
+	}
+	
+	public static Update removeAllConfigHeads(Element element) {
+		return em -> em.createNamedQuery("Element_ConfigHead.removeAll",int.class)
+					   .setParameter("element", element)
+					   .executeUpdate();
+	}
+	
+	private static final String INITIALIZE_HEADS = "INSERT INTO inventory.element_config_head (element_id, name, latest_uuid, active_uuid) "+
+												   "SELECT s.element_id, s.name, "+
+												   "(SELECT l.uuid FROM inventory.element_config l "+
+												   " WHERE l.element_id = s.element_id AND l.name = s.name "+
+												   " ORDER BY l.tsmodified DESC LIMIT 1), "+
+												   "(SELECT a.uuid FROM inventory.element_config a "+
+												   " WHERE a.element_id = s.element_id AND a.name = s.name AND a.state = 'ACTIVE' "+
+												   " ORDER BY a.tsmodified DESC LIMIT 1) "+
+												   "FROM (SELECT DISTINCT element_id, name FROM inventory.element_config %s) s "+
+												   "WHERE NOT EXISTS (SELECT 1 FROM inventory.element_config_head h "+
+												   "WHERE h.element_id = s.element_id AND h.name = s.name)";
+
+	/**
+	 * Returns a statement to create the missing heads of all element configurations.
+	 * @return the statement to create the missing heads
+	 */
+	static StatementPreparator initializeConfigHeads() {
+		return prepare(String.format(INITIALIZE_HEADS, ""));
+	}
+	
+	/**
+	 * Returns a statement to create the missing heads of all configurations of the specified element.
+	 * @param elementId the internal ID of the element
+	 * @return the statement to create the missing heads
+	 */
+	static StatementPreparator initializeConfigHeads(Long elementId) {
+		return prepare(String.format(INITIALIZE_HEADS, "WHERE element_id = ?"),
+					   elementId);
+	}
+	
+	/**
+	 * Returns a statement to remove the heads pointing to any of the given revisions,
+	 * if no revision of the configuration remains.
+	 * @param ids the IDs of removed revisions
+	 * @return the statement to remove the heads of removed configurations
+	 */
+	static StatementPreparator removeEmptyConfigHeads(List<ElementConfigId> ids) {
+		String params = params(ids);
+		List<Object> args = new LinkedList<>();
+		args.addAll(uuids(ids));
+		args.addAll(uuids(ids));
+		return prepare("DELETE FROM inventory.element_config_head h "+
+					   "WHERE (h.latest_uuid IN ("+params+") OR h.active_uuid IN ("+params+")) "+
+					   "AND NOT EXISTS (SELECT 1 FROM inventory.element_config c "+
+					   "WHERE c.element_id = h.element_id AND c.name = h.name)",
+					   args);
+	}
+	
+	/**
+	 * Returns a statement to derive the heads pointing to any of the given revisions from the remaining revisions.
+	 * @param ids the IDs of removed revisions
+	 * @return the statement to refresh the heads
+	 */
+	static StatementPreparator refreshConfigHeads(List<ElementConfigId> ids) {
+		String params = params(ids);
+		List<Object> args = new LinkedList<>();
+		args.addAll(uuids(ids));
+		args.addAll(uuids(ids));
+		return prepare("UPDATE inventory.element_config_head h "+
+					   "SET latest_uuid = (SELECT l.uuid FROM inventory.element_config l "+
+					   " WHERE l.element_id = h.element_id AND l.name = h.name "+
+					   " ORDER BY l.tsmodified DESC LIMIT 1), "+
+					   "active_uuid = (SELECT a.uuid FROM inventory.element_config a "+
+					   " WHERE a.element_id = h.element_id AND a.name = h.name AND a.state = 'ACTIVE' "+
+					   " ORDER BY a.tsmodified DESC LIMIT 1) "+
+					   "WHERE h.latest_uuid IN ("+params+") OR h.active_uuid IN ("+params+")",
+					   args);
+	}
+	
+	private static String params(List<ElementConfigId> ids) {
+		StringBuilder params = new StringBuilder();
+		for(int i=0; i < ids.size(); i++) {
+			params.append(i == 0 ? "?" : ",?");
+		}
+		return params.toString();
+	}
+	
+	private static List<String> uuids(List<ElementConfigId> ids){
+		List<String> uuids = new LinkedList<>();
+		for(ElementConfigId id : ids) {
+			uuids.add(id.toString());
+		}
+		return uuids;
+	}
+	
+	@Id
+	@ManyToOne
+	@JoinColumn(name="element_id")
+	private Element element;
+	
+	@Id
+	@Convert(converter=ElementConfigNameConverter.class)
+	private ElementConfigName name;
+	
+	@Convert(converter=ElementConfigIdConverter.class)
+	@Column(name="latest_uuid")
+	private ElementConfigId latestConfigId;
+	
+	@Convert(converter=ElementConfigIdConverter.class)
+	@Column(name="active_uuid")
+	private ElementConfigId activeConfigId;
+	
+	protected Element_ConfigHead() {
+		// JPA
+	}
+	
+	protected Element_ConfigHead(Element element, 
+								 ElementConfigName name) {
+		this.element = element;
+		this.name = name;
+	}
+	
+	public Element getElement() {
+		return element;
+	}
+	
+	public ElementConfigName getName() {
+		return name;
+	}
+	
+	public ElementConfigId getLatestConfigId() {
+		return latestConfigId;
+	}
+	
+	void setLatestConfigId(ElementConfigId latestConfigId) {
+		this.latestConfigId = latestConfigId;
+	}
+	
+	/**
+	 * Returns the ID of the active revision.
+	 * @return the ID of the active revision or <code>null</code> if no active revision exists.
+	 */
+	public ElementConfigId getActiveConfigId() {
+		return activeConfigId;
+	}
+	
+	void setActiveConfigId(ElementConfigId activeConfigId) {
+		this.activeConfigId = activeConfigId;
+	}
+	
+}
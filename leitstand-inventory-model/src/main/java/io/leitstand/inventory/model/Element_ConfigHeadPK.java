@@ -0,0 +1,55 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.commons.model.ObjectUtil.isDifferent;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import io.leitstand.inventory.service.ElementConfigName;
+
+public class Element_ConfigHeadPK implements Serializable{
+
+	private static final long serialVersionUID = 1L;
+
+	private Long element;
+	private ElementConfigName name;
+	
+	public Element_ConfigHeadPK() {
+		// JPA
+	}
+	
+	public Element_ConfigHeadPK(Element element, ElementConfigName name) {
+		this.element = element.getId();
+		this.name = name;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(o==this) {
+			return true;
+		}
+		if(o==null) {
+			return false;
+		}
+		if(o.getClass() != getClass()) {
+			return false;
+		}
+		Element_ConfigHeadPK pk = (Element_ConfigHeadPK) o;
+		if(isDifferent(element, pk.element)) {
+			return false;
+		}
+		if(isDifferent(name, pk.name)) {
+			return false;
+		}
+		return true;
+	}
+	
+	@Override
+	public int hashCode() {
+		return Objects.hash(element,name);
+	}
+	
+}
@@ -0,0 +1,167 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static java.lang.Integer.parseInt;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+import io.leitstand.commons.model.Query;
+import io.leitstand.commons.model.Update;
+import io.leitstand.inventory.jpa.ElementConfigIdConverter;
+import io.leitstand.inventory.service.ConfigurationState;
+import io.leitstand.inventory.service.ElementConfigId;
+
+/**
+ * An entry of the inverted index over the active and candidate element configurations.
+ * <p>
+ * An entry maps a term to the lines of a configuration revision containing the term.
+ * The entries of a revision are replaced when the revision is stored and removed
+ * when the revision is superseded or removed.
+ * @see ConfigTerms
+ * @see ElementConfigIndexer
+ */
+@Entity
+@Table(schema="inventory",
+	   name="element_config_term",
+	   indexes=@Index(name="element_config_term_term_idx", columnList="term"))
+@IdClass(Element_ConfigTermPK.class)
+@NamedQuery(name="Element_ConfigTerm.findMatchingConfigs",
+			query="SELECT c FROM Element_Config c WHERE c.state IN :states AND c.configId IN "+
+				  "(SELECT t.configId FROM Element_ConfigTerm t WHERE t.term IN :terms GROUP BY t.configId HAVING COUNT(t.term) = :count) "+
+				  "ORDER BY c.element.elementName, c.name, c.state")
+@NamedQuery(name="Element_ConfigTerm.findTerms",
+			query="SELECT t FROM Element_ConfigTerm t WHERE t.configId IN :ids AND t.term IN :terms")
+@NamedQuery(name="Element_ConfigTerm.removeTerms",
+			query="DELETE FROM Element_ConfigTerm t WHERE t.configId=:configId")
+@NamedQuery(name="Element_ConfigTerm.removeStaleTerms",
+			query="DELETE FROM Element_ConfigTerm t WHERE t.element=:element AND NOT EXISTS "+
+				  "(SELECT c FROM Element_Config c WHERE c.configId=t.configId AND c.state <> io.leitstand.inventory.service.ConfigurationState.SUPERSEDED)")
+@NamedQuery(name="Element_ConfigTerm.removeAll",
+			query="DELETE FROM Element_ConfigTerm t WHERE t.element=:element")
+public class Element_ConfigTerm {
+
+	/**
+	 * Returns all configurations in the given states that contain all given terms,
+	 * ordered by element name and configuration name.
+	 * @param terms the search terms
+	 * @param states the configuration states
+	 * @param offset the number of configurations to be skipped
+	 * @param limit the maximum number of returned configurations
+	 * @return the matching configurations
+	 */
+	public static Query<List<Element_Config>> findMatchingConfigs(Set<String> terms,
+																  Collection<ConfigurationState> states,
+																  int offset,
+																  int limit){
+		return em -> em.createNamedQuery("Element_ConfigTerm.findMatchingConfigs",Element_Config.class)
+					   .setParameter("terms", terms)
+					   .setParameter("count", (long) terms.size())
+					   .setParameter("states", states)
+					   .setFirstResult(offset)
+					   .setMaxResults(limit)
+					   .getResultList();
+	}
+
+	public static Query<List<Element_ConfigTerm>> findTerms(Collection<ElementConfigId> ids,
+															Set<String> terms){
+		return em -> em.createNamedQuery("Element_ConfigTerm.findTerms",Element_ConfigTerm.class)
+					   .setParameter("ids", ids)
+					   .setParameter("terms", terms)
+					   .getResultList();
+	}
+
+	public static Update removeTerms(ElementConfigId configId) {
+		return em -> em.createNamedQuery("Element_ConfigTerm.removeTerms",int.class)
+					   .setParameter("configId", configId)
+					   .executeUpdate();
+	}
+
+	/**
+	 * Removes all entries of superseded or removed configuration revisions of the given element.
+	 * @param element the element
+	 * @return the number of removed entries
+	 */
+	public static Update removeStaleTerms(Element element) {
+		return em -> em.createNamedQuery("Element_ConfigTerm.removeStaleTerms",int.class)
+					   .setParameter("element", element)
+					   .executeUpdate();
+	}
+
+	public static Update removeAllTerms(Element element) {
+		return em -> em.createNamedQuery("Element_ConfigTerm.removeAll",int.class)
+					   .setParameter("element", element)
+					   .executeUpdate();
+	}
+
+	@Id
+	@Convert(converter=ElementConfigIdConverter.class)
+	@Column(name="config_uuid")
+	private ElementConfigId configId;
+
+	@Id
+	@Column(length=ConfigTerms.MAX_TERM_LENGTH)
+	private String term;
+
+	@ManyToOne
+	@JoinColumn(name="element_id")
+	private Element element;
+
+	private String lines;
+
+	protected Element_ConfigTerm() {
+		// JPA
+	}
+
+	public Element_ConfigTerm(Element_Config config,
+							  String term,
+							  List<Integer> lines) {
+		this.configId = config.getConfigId();
+		this.element = config.getElement();
+		this.term = term;
+		StringBuilder b = new StringBuilder();
+		for(Integer line : lines) {
+			if(b.length() > 0) {
+				b.append(',');
+			}
+			b.append(line);
+		}
+		this.lines = b.toString();
+	}
+
+	public ElementConfigId getConfigId() {
+		return configId;
+	}
+
+	public String getTerm() {
+		return term;
+	}
+
+	/**
+	 * Returns the numbers of the lines containing the term.
+	 * @return the ascending line numbers
+	 */
+	public List<Integer> getLines(){
+		List<Integer> numbers = new ArrayList<>();
+		for(String line : lines.split(",")) {
+			numbers.add(parseInt(line));
+		}
+		return numbers;
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.commons.model.ObjectUtil.isDifferent;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import io.leitstand.inventory.service.ElementConfigId;
+
+public class Element_ConfigTermPK implements Serializable{
+
+	private static final long serialVersionUID = 1L;
+
+	private ElementConfigId configId;
+	private String term;
+	
+	public Element_ConfigTermPK() {
+		// JPA
+	}
+	
+	public Element_ConfigTermPK(ElementConfigId configId, String term) {
+		this.configId = configId;
+		this.term = term;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(o==this) {
+			return true;
+		}
+		if(o==null) {
+			return false;
+		}
+		if(o.getClass() != getClass()) {
+			return false;
+		}
+		Element_ConfigTermPK pk = (Element_ConfigTermPK) o;
+		if(isDifferent(configId, pk.configId)) {
+			return false;
+		}
+		if(isDifferent(term, pk.term)) {
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(configId,term);
+	}
+}
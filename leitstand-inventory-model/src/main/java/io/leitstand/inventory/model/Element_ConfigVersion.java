@@ -0,0 +1,63 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+import io.leitstand.commons.model.Update;
+
+/**
+ * The modification counter of all configurations of an element.
+ * <p>
+ * The counter is incremented by the {@link ElementConfigManager} whenever a configuration revision is stored, removed or commented
+ * and forms the entity tag of the element configurations along with the element modification counter.
+ * The counter is kept in a dedicated row rather than in the element row, 
+ * such that storing a configuration does not lock the element row until the transaction completes.
+ * The counter is created when the first configuration of an element is stored.
+ * </p>
+ * @see ElementConfigManager#getElementConfigsVersion(Element)
+ */
+@Entity
+@Table(schema="inventory", name="element_config_version")
+@NamedQuery(name="Element_ConfigVersion.remove",
+			query="DELETE FROM Element_ConfigVersion v WHERE v.elementId=:elementId")
+public class Element_ConfigVersion implements Serializable{
+
+	private static final long serialVersionUID = 1L;
+
+	public static Update removeConfigVersion(Element element) {
+		return em -> em.createNamedQuery("Element_ConfigVersion.remove",int.class)
+					   .setParameter("elementId", element.getId())
+					   .executeUpdate();
+	}
+	
+	@Id
+	@Column(name="element_id")
+	private Long elementId;
+	
+	private long modcount;
+	
+	protected Element_ConfigVersion() {
+		// JPA
+	}
+	
+	protected Element_ConfigVersion(Element element) {
+		this.elementId = element.getId();
+	}
+	
+	public Long getElementId() {
+		return elementId;
+	}
+	
+	public long getModCount() {
+		return modcount;
+	}
+	
+}
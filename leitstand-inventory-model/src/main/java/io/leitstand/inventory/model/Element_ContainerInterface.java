@@ -6,6 +6,7 @@ package io.leitstand.inventory.model;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 import javax.persistence.Column;
@@ -25,6 +26,8 @@ import io.leitstand.inventory.service.InterfaceName;
 @Entity
 @Table(schema="inventory", name="element_ifc")
 @IdClass(Element_InterfacePK.class)
+@NamedQuery(name="Element_ContainerInterface.findByElement",
+			query="SELECT ifc FROM Element_ContainerInterface ifc WHERE ifc.element=:element")
 @NamedQuery(name="Element_ContainerInterface.removeAll",
 			query="DELETE FROM Element_ContainerInterface ifc WHERE ifc.element=:element")
 public class Element_ContainerInterface implements Serializable {
@@ -33,6 +36,12 @@ public class Element_ContainerInterface implements Serializable {
 		return em -> em.find(Element_ContainerInterface.class, new Element_InterfacePK(element,name));
 	}
 
+	public static Query<List<Element_ContainerInterface>> findIfcs(Element element) {
+		return em -> em.createNamedQuery("Element_ContainerInterface.findByElement",Element_ContainerInterface.class)
+					   .setParameter("element",element)
+					   .getResultList();
+	}
+
 	public static Update removeIfcs(Element element) {
 		return em -> em.createNamedQuery("Element_ContainerInterface.removeAll",int.class)
 					   .setParameter("element",element)
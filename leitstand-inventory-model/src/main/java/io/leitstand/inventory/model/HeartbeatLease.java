@@ -0,0 +1,56 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static javax.persistence.TemporalType.TIMESTAMP;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+
+/**
+ * The lease of a node running a {@link HeartbeatWatchDog}.
+ * <p>
+ * Every watchdog renews its lease once per heartbeat tick.
+ * The nodes with an unexpired lease share the overdue element sweep,
+ * whereby every node sweeps the elements of its own shard.
+ * An expired lease is removed by the next node renewing its lease,
+ * which hands the shard of the failed node over to the remaining nodes.
+ * </p>
+ * @see HeartbeatWatchDogService#renewLease
+ */
+@Entity
+@Table(schema="inventory", name="heartbeat_lease")
+public class HeartbeatLease implements Serializable{
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	private String node;
+
+	@Temporal(TIMESTAMP)
+	private Date tsrenewed;
+
+	protected HeartbeatLease() {
+		// JPA
+	}
+
+	public HeartbeatLease(String node, Date renewed) {
+		this.node = node;
+		this.tsrenewed = new Date(renewed.getTime());
+	}
+
+	public String getNode() {
+		return node;
+	}
+
+	public Date getDateRenewed() {
+		return new Date(tsrenewed.getTime());
+	}
+
+}
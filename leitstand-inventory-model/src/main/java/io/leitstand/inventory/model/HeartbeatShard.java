@@ -0,0 +1,47 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static java.lang.String.format;
+
+/**
+ * The shard of the overdue element sweep assigned to a heartbeat watchdog.
+ * <p>
+ * The elements are partitioned by their primary key modulo the number of live watchdog nodes.
+ * A node sweeps the elements whose primary key modulo the shard count equals the shard index of the node.
+ * </p>
+ * @see HeartbeatWatchDogService#renewLease
+ */
+final class HeartbeatShard {
+
+	private final int index;
+	private final int count;
+
+	HeartbeatShard(int index, int count){
+		this.index = index;
+		this.count = count;
+	}
+
+	/**
+	 * Returns the shard index of this node.
+	 * @return the shard index of this node.
+	 */
+	int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Returns the number of shards, i.e. the number of live watchdog nodes.
+	 * @return the number of shards.
+	 */
+	int getCount() {
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		return format("%d/%d",index,count);
+	}
+
+}
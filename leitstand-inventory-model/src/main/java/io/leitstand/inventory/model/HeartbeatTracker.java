@@ -0,0 +1,240 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static java.lang.Long.getLong;
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.enterprise.event.TransactionPhase.AFTER_SUCCESS;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+
+import io.leitstand.inventory.service.ElementId;
+
+/**
+ * Tracks the heartbeats of all operational elements in memory.
+ * <p>
+ * Every heartbeat moves the deadline of an element to the current time plus the heartbeat timeout.
+ * The deadlines are kept in a hashed timer wheel, i.e. they are bucketed by heartbeat tick, such that a heartbeat
+ * as well as the expiry of a deadline costs constant time and the watchdog visits only the buckets that have expired since the last tick.
+ * </p>
+ * <p>
+ * Heartbeats are not written to the database. Instead, the watchdog checkpoints the elements that have sent a heartbeat
+ * once per checkpoint interval in a single batch, such that the heartbeats received by other nodes are taken into account before an element
+ * is declared detached.
+ * The checkpoint records the start of the tick in which an element has sent its last heartbeat, 
+ * i.e. never a time after the last heartbeat, such that an element is declared detached one timeout after its last heartbeat.
+ * An expired element is tracked until it has been declared detached, 
+ * such that an element is reported again by the next tick if the watchdog failed to declare it detached.
+ * The heartbeat timeout and the tick can be configured in seconds by the
+ * <code>{@value #TIMEOUT_PROPERTY}</code> and <code>{@value #TICK_PROPERTY}</code> system properties.
+ * </p>
+ * @see HeartbeatWatchDog
+ */
+@ApplicationScoped
+public class HeartbeatTracker {
+
+	/** System property to configure the heartbeat timeout in seconds.*/
+	public static final String TIMEOUT_PROPERTY = "leitstand.inventory.heartbeat.timeout";
+
+	/** System property to configure the heartbeat tick in seconds.*/
+	public static final String TICK_PROPERTY = "leitstand.inventory.heartbeat.tick";
+
+	private static final long DEFAULT_TIMEOUT_SECONDS = 180;
+	private static final long DEFAULT_TICK_SECONDS = 5;
+
+	/** Number of ticks after which the lease of a watchdog node expires.*/
+	static final int LEASE_TICKS = 3;
+
+	private final long timeoutMillis;
+	private final long tickMillis;
+	private final Map<ElementId,Long> deadlines = new ConcurrentHashMap<>();
+	private final ConcurrentNavigableMap<Long,Set<ElementId>> wheel = new ConcurrentSkipListMap<>();
+	private final Map<ElementId,Long> lastHeartbeats = new ConcurrentHashMap<>();
+
+	public HeartbeatTracker() {
+		this(SECONDS.toMillis(getLong(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT_SECONDS)),
+			 SECONDS.toMillis(getLong(TICK_PROPERTY, DEFAULT_TICK_SECONDS)));
+	}
+
+	HeartbeatTracker(long timeoutMillis, long tickMillis){
+		this.timeoutMillis = timeoutMillis;
+		// A tick must not exceed the timeout, otherwise a heartbeat could be added to an expired bucket.
+		this.tickMillis = Math.max(1,Math.min(tickMillis, timeoutMillis));
+	}
+
+	/**
+	 * Returns the heartbeat timeout in milliseconds.
+	 * @return the heartbeat timeout in milliseconds.
+	 */
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	/**
+	 * Returns the heartbeat tick in milliseconds.
+	 * @return the heartbeat tick in milliseconds.
+	 */
+	public long getTickMillis() {
+		return tickMillis;
+	}
+
+	/**
+	 * Returns the interval in milliseconds in which the elements that have sent a heartbeat are checkpointed.
+	 * The interval is half of the heartbeat timeout,
+	 * such that a checkpoint made by another node is visible before the deadline of an element expires on this node.
+	 * @return the checkpoint interval in milliseconds.
+	 */
+	public long getCheckpointIntervalMillis() {
+		return timeoutMillis / 2;
+	}
+
+	/**
+	 * Returns the lease duration of a watchdog node in milliseconds.
+	 * A node renews its lease once per tick and 
+	 * its lease expires when the node has missed to renew its lease for {@value #LEASE_TICKS} ticks.
+	 * @return the lease duration in milliseconds.
+	 */
+	public long getLeaseMillis() {
+		return LEASE_TICKS * tickMillis;
+	}
+
+	/**
+	 * Records a heartbeat of the given element.
+	 * @param elementId the element ID
+	 */
+	public void heartbeat(ElementId elementId) {
+		heartbeat(elementId, currentTimeMillis());
+	}
+
+	void heartbeat(ElementId elementId, long now) {
+		long deadline = now + timeoutMillis;
+		Long previous = deadlines.put(elementId, deadline);
+		if(previous != null && slot(previous) != slot(deadline)) {
+			Set<ElementId> bucket = wheel.get(slot(previous));
+			if(bucket != null) {
+				bucket.remove(elementId);
+			}
+		}
+		wheel.computeIfAbsent(slot(deadline), k -> ConcurrentHashMap.newKeySet())
+			 .add(elementId);
+		lastHeartbeats.put(elementId, now);
+	}
+
+	/**
+	 * Records the heartbeats of an operational state update of multiple elements, 
+	 * once the update has been committed.
+	 * @param heartbeats the reported heartbeats
+	 */
+	public void onHeartbeats(@Observes(during=AFTER_SUCCESS) ElementHeartbeats heartbeats) {
+		long now = currentTimeMillis();
+		for(ElementId elementId : heartbeats.getAlive()) {
+			heartbeat(elementId, now);
+		}
+		for(ElementId elementId : heartbeats.getSilent()) {
+			forget(elementId);
+		}
+	}
+
+	/**
+	 * Stops tracking the heartbeats of the given element,
+	 * e.g. because the element has reported that it is down or in maintenance.
+	 * @param elementId the element ID
+	 */
+	public void forget(ElementId elementId) {
+		Long deadline = deadlines.remove(elementId);
+		if(deadline != null) {
+			Set<ElementId> bucket = wheel.get(slot(deadline));
+			if(bucket != null) {
+				bucket.remove(elementId);
+			}
+		}
+	}
+
+	/**
+	 * Returns all elements whose deadline has expired.
+	 * The elements are tracked until they are declared detached.
+	 * @param now the current time in milliseconds
+	 * @return the elements that have missed their heartbeat.
+	 * @see #detached(Collection, long)
+	 */
+	List<ElementId> expired(long now){
+		List<ElementId> expired = new ArrayList<>();
+		for(Set<ElementId> bucket : wheel.headMap(slot(now)).values()) {
+			for(ElementId elementId : bucket) {
+				if(isExpired(elementId, now)) {
+					expired.add(elementId);
+				}
+			}
+		}
+		return expired;
+	}
+
+	/**
+	 * Stops tracking the expired elements that have been declared detached,
+	 * unless an element has sent a heartbeat in the meantime.
+	 * @param expired the expired elements
+	 * @param now the current time in milliseconds passed to {@link #expired(long)}
+	 */
+	void detached(Collection<ElementId> expired, long now) {
+		for(ElementId elementId : expired) {
+			Long deadline = deadlines.get(elementId);
+			if(deadline != null && deadline <= now) {
+				deadlines.remove(elementId, deadline);
+			}
+		}
+		// Remove the detached elements from the expired buckets and drop the emptied buckets.
+		Map<Long,Set<ElementId>> buckets = wheel.headMap(slot(now));
+		for(Set<ElementId> bucket : buckets.values()) {
+			bucket.removeIf(elementId -> !isExpired(elementId, now));
+		}
+		buckets.values().removeIf(Set::isEmpty);
+	}
+
+	private boolean isExpired(ElementId elementId, long now) {
+		Long deadline = deadlines.get(elementId);
+		return deadline != null && deadline <= now;
+	}
+
+	/**
+	 * Returns all elements that have sent a heartbeat since the last checkpoint,
+	 * grouped by the start of the tick in which the elements have sent their last heartbeat.
+	 * @return the elements that have sent a heartbeat since the last checkpoint by the start of the tick of their last heartbeat.
+	 */
+	SortedMap<Long,Set<ElementId>> checkpoint(){
+		SortedMap<Long,Set<ElementId>> checkpoint = new TreeMap<>();
+		for(Map.Entry<ElementId,Long> heartbeat : lastHeartbeats.entrySet()) {
+			ElementId elementId = heartbeat.getKey();
+			long lastHeartbeat = heartbeat.getValue();
+			// A heartbeat received meanwhile is recorded by the next checkpoint.
+			if(lastHeartbeats.remove(elementId, lastHeartbeat)) {
+				checkpoint.computeIfAbsent(slot(lastHeartbeat) * tickMillis, k -> new HashSet<>())
+						  .add(elementId);
+			}
+		}
+		return checkpoint;
+	}
+
+	private long slot(long deadline) {
+		return deadline / tickMillis;
+	}
+
+	int size() {
+		return deadlines.size();
+	}
+
+}
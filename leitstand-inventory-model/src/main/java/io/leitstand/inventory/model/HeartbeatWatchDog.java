@@ -7,10 +7,13 @@ import static io.leitstand.inventory.service.ReasonCode.IVT8000I_HEARTBEAT_WATCH
 import static io.leitstand.inventory.service.ReasonCode.IVT8001I_HEARTBEAT_WATCHDOG_STOPPED;
 import static io.leitstand.inventory.service.ReasonCode.IVT8002E_HEARTBEAT_WATCHDOG_FAILED;
 import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
 import static java.lang.Thread.currentThread;
 import static java.lang.Thread.sleep;
-import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.UUID.randomUUID;
 
+import java.util.Date;
+import java.util.List;
 import java.util.logging.Logger;
 
 import javax.annotation.Resource;
@@ -21,7 +24,29 @@ import javax.inject.Inject;
 import io.leitstand.commons.ShutdownListener;
 import io.leitstand.commons.StartupListener;
 import io.leitstand.commons.db.DatabaseService;
+import io.leitstand.inventory.event.ElementOperationalStatesChangedEvent;
+import io.leitstand.inventory.service.ElementId;
 
+/**
+ * Declares operational elements detached when they have missed their heartbeat.
+ * <p>
+ * The watchdog runs once per heartbeat tick. 
+ * It checkpoints the elements that have sent a heartbeat to this node once per checkpoint interval
+ * and declares the elements detached whose deadline has expired in the {@link HeartbeatTracker}.
+ * Once per heartbeat timeout, the watchdog also declares all elements detached whose last checkpoint is overdue,
+ * in order to detect elements whose heartbeats are not tracked by any node, e.g. after a restart.
+ * All elements declared detached by a run are announced by a single {@link ElementOperationalStatesChangedEvent}.
+ * </p>
+ * <p>
+ * The overdue element sweep is shared by all nodes of a cluster.
+ * Every node renews its {@link HeartbeatLease} once per tick and sweeps only the elements of its {@link HeartbeatShard}.
+ * When a node fails to renew its lease, the lease expires and the shard of the node is handed over to the remaining nodes.
+ * Overdue elements are locked by the sweep, such that an element is declared detached exactly once,
+ * even if the shards of two nodes overlap while a shard is handed over.
+ * An overdue element missed while a shard is handed over is declared detached by the next sweep of its new owner.
+ * </p>
+ * @see HeartbeatTracker
+ */
 @ApplicationScoped
 public class HeartbeatWatchDog implements Runnable, StartupListener, ShutdownListener{
 
@@ -37,12 +62,24 @@ public class HeartbeatWatchDog implements Runnable, StartupListener, ShutdownLis
 	@Inject
 	private HeartbeatWatchDogService service;
 	
+	@Inject
+	private HeartbeatTracker tracker;
+	
+	private final String node = randomUUID().toString();
+	
 	private volatile boolean run;
 	
 	@Override
 	public void onShutdown() {
 		this.run = false;
-		LOG.info(() -> format("%s: Heartbeat watchdog started!",
+		try {
+			service.releaseLease(node);
+		} catch (Exception e) {
+			LOG.fine(() -> format("Cannot release lease of heartbeat watchdog node %s: %s", 
+								  node, 
+								  e.getMessage()));
+		}
+		LOG.info(() -> format("%s: Heartbeat watchdog stopped!",
 							  IVT8001I_HEARTBEAT_WATCHDOG_STOPPED.getReasonCode()));
 
 	}
@@ -57,16 +94,35 @@ public class HeartbeatWatchDog implements Runnable, StartupListener, ShutdownLis
 	public void run() {
 		LOG.info(() -> format("%s: Heartbeat watchdog started!",
 							  IVT8000I_HEARTBEAT_WATCHDOG_STARTED.getReasonCode()));
+		long lastCheckpoint = currentTimeMillis();
+		long lastSweep = currentTimeMillis();
 		while(run) {
 			try {
-				service.markDetachedSwitches();
+				long now = currentTimeMillis();
+				HeartbeatShard shard = service.renewLease(node, 
+														  new Date(now), 
+														  new Date(now - tracker.getLeaseMillis()));
+				if(now - lastCheckpoint >= tracker.getCheckpointIntervalMillis()) {
+					service.storeHeartbeats(tracker.checkpoint());
+					lastCheckpoint = now;
+				}
+				boolean sweep = now - lastSweep >= tracker.getTimeoutMillis();
+				List<ElementId> expired = tracker.expired(now);
+				service.markDetachedElements(expired, 
+											 new Date(now - tracker.getTimeoutMillis()), 
+											 sweep ? shard : null);
+				// Expired elements are reported again by the next tick, if they could not be declared detached.
+				tracker.detached(expired, now);
+				if(sweep) {
+					lastSweep = now;
+				}
 			} catch (Exception e) {
 				LOG.warning(() -> format("%s: Heartbeat watchdog failed due to %s",
 										 IVT8002E_HEARTBEAT_WATCHDOG_FAILED.getReasonCode(),
 										 e.getMessage()));
 			}
 			try {
-				sleep(SECONDS.toMillis(60));
+				sleep(tracker.getTickMillis());
 			} catch (InterruptedException e) {
 				currentThread().interrupt();
 			}
@@ -4,31 +4,163 @@
 package io.leitstand.inventory.model;
 
 import static io.leitstand.commons.db.DatabaseService.prepare;
+import static io.leitstand.inventory.event.ElementOperationalStatesChangedEvent.newElementOperationalStatesChangedEvent;
+import static io.leitstand.inventory.model.ElementOperationalStates.batches;
+import static io.leitstand.inventory.model.ElementOperationalStates.in;
+import static io.leitstand.inventory.model.ElementOperationalStates.updateOperationalStates;
+import static io.leitstand.inventory.service.OperationalState.DETACHED;
+import static io.leitstand.inventory.service.OperationalState.UP;
 import static java.lang.String.format;
-import static java.lang.System.currentTimeMillis;
-import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.Collections.emptyList;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 
 import io.leitstand.commons.db.DatabaseService;
 import io.leitstand.commons.model.Service;
+import io.leitstand.inventory.event.ElementOperationalStateChangedEvent;
+import io.leitstand.inventory.event.ElementOperationalStatesChangedEvent;
+import io.leitstand.inventory.service.ElementId;
+import io.leitstand.inventory.service.OperationalState;
 
 @Service
 public class HeartbeatWatchDogService {
-
+	
 	private static final Logger LOG = Logger.getLogger(HeartbeatWatchDogService.class.getName());
 	
 	@Inject
 	@Inventory
 	private DatabaseService db;
 	
-	public void markDetachedSwitches() {
-		Date overdue = new Date(currentTimeMillis() - SECONDS.toMillis(180));
-		int count = db.executeUpdate(prepare("UPDATE inventory.element SET op_state='DETACHED' WHERE op_state='UP' AND tsmodified < ?", overdue));
-		LOG.fine(() -> format("%d overdue elements declared detached!",count));
+	@Inject
+	private Event<ElementOperationalStatesChangedEvent> sink;
+	
+	public HeartbeatWatchDogService() {
+		// EJB
+	}
+	
+	HeartbeatWatchDogService(DatabaseService db,
+							 Event<ElementOperationalStatesChangedEvent> sink){
+		this.db = db;
+		this.sink = sink;
+	}
+	
+	/**
+	 * Records the last heartbeat of the given elements.
+	 * The recorded time of an element is never moved backwards, 
+	 * because another node might already have recorded a later heartbeat of the element.
+	 * @param heartbeats the elements that have sent a heartbeat since the last checkpoint 
+	 * 					 by the time of their last heartbeat in milliseconds
+	 */
+	public void storeHeartbeats(Map<Long,? extends Collection<ElementId>> heartbeats) {
+		int count = 0;
+		for(Map.Entry<Long,? extends Collection<ElementId>> heartbeat : heartbeats.entrySet()) {
+			Date lastHeartbeat = new Date(heartbeat.getKey());
+			for(List<Object> batch : batches(heartbeat.getValue())) {
+				List<Object> arguments = new ArrayList<>(batch.size()+2);
+				arguments.add(lastHeartbeat);
+				arguments.addAll(batch);
+				arguments.add(lastHeartbeat);
+				count += db.executeUpdate(prepare("UPDATE inventory.element SET tsmodified = ? WHERE uuid IN "+in(batch)+" AND (tsmodified IS NULL OR tsmodified < ?)",
+												  arguments));
+			}
+		}
+		int checkpointed = count;
+		LOG.fine(() -> format("%d heartbeats checkpointed!",checkpointed));
+	}
+	
+	/**
+	 * Renews the lease of the given watchdog node and returns the shard of the overdue element sweep assigned to the node.
+	 * Expired leases of other nodes are removed, such that the shards of failed nodes are handed over to the live nodes.
+	 * @param node the watchdog node ID
+	 * @param now the current date
+	 * @param expired leases renewed before this date have expired
+	 * @return the shard of the given node
+	 */
+	public HeartbeatShard renewLease(String node, Date now, Date expired) {
+		if(db.executeUpdate(prepare("UPDATE inventory.heartbeat_lease SET tsrenewed = ? WHERE node = ?", 
+									now, 
+									node)) == 0) {
+			db.executeUpdate(prepare("INSERT INTO inventory.heartbeat_lease (node, tsrenewed) VALUES (?,?)", 
+									 node, 
+									 now));
+			LOG.info(() -> format("Heartbeat watchdog node %s joined the cluster.",node));
+		}
+		int removed = db.executeUpdate(prepare("DELETE FROM inventory.heartbeat_lease WHERE tsrenewed < ?", 
+											   expired));
+		if(removed > 0) {
+			LOG.info(() -> format("%d expired heartbeat watchdog leases removed.",removed));
+		}
+		List<String> nodes = db.executeQuery(prepare("SELECT node FROM inventory.heartbeat_lease ORDER BY node"), 
+											 rs -> rs.getString(1));
+		return new HeartbeatShard(nodes.indexOf(node), nodes.size());
+	}
+	
+	/**
+	 * Releases the lease of the given watchdog node, 
+	 * such that the shard of the node is handed over to the remaining nodes immediately.
+	 * @param node the watchdog node ID
+	 */
+	public void releaseLease(String node) {
+		db.executeUpdate(prepare("DELETE FROM inventory.heartbeat_lease WHERE node = ?", 
+								 node));
+	}
+	
+	/**
+	 * Declares all operational elements detached that have missed their heartbeat and
+	 * fires a single {@link ElementOperationalStatesChangedEvent} announcing all detached elements.
+	 * An element is only declared detached if no node has checkpointed a heartbeat of the element after the overdue date.
+	 * The overdue elements are locked before they are updated, such that exactly the elements that
+	 * have been declared detached by this transaction are announced, 
+	 * even if the shards of two nodes overlap while a shard is handed over.
+	 * @param expired the elements whose deadline has expired on this node
+	 * @param overdue the overdue date
+	 * @param sweep the shard of this node to also detach all overdue elements of the shard that are not tracked by this node,
+	 * 				or <code>null</code> to only detach the expired elements.
+	 * @return the operational state changes of all detached elements.
+	 */
+	public List<ElementOperationalStateChangedEvent> markDetachedElements(Collection<ElementId> expired,
+																		   Date overdue,
+																		   HeartbeatShard sweep) {
+		// An expired element can also be part of the swept shard.
+		Map<Long,OperationalState> previous = new LinkedHashMap<>();
+		if(sweep != null) {
+			db.processQuery(prepare("SELECT id FROM inventory.element WHERE op_state='UP' AND tsmodified < ? AND MOD(id,?) = ? FOR UPDATE",
+									overdue,
+									sweep.getCount(),
+									sweep.getIndex()),
+							rs -> previous.put(rs.getLong(1), UP));
+		}
+		// Expired elements of other shards are detached by this node as well, because this node has received their last heartbeat.
+		for(List<Object> batch : batches(expired)) {
+			List<Object> arguments = new ArrayList<>(batch.size()+1);
+			arguments.add(overdue);
+			arguments.addAll(batch);
+			db.processQuery(prepare("SELECT id FROM inventory.element WHERE op_state='UP' AND tsmodified < ? AND uuid IN "+in(batch)+" FOR UPDATE",
+									arguments),
+							rs -> previous.put(rs.getLong(1), UP));
+		}
+		if(previous.isEmpty()) {
+			return emptyList();
+		}
+		
+		List<ElementOperationalStateChangedEvent> changes = updateOperationalStates(db, 
+																				   previous, 
+																				   DETACHED, 
+																				   new Date());
+		sink.fire(newElementOperationalStatesChangedEvent()
+				  .withChanges(changes)
+				  .build());
+		LOG.fine(() -> format("%d overdue elements declared detached!",changes.size()));
+		return changes;
 	}
 	
 }
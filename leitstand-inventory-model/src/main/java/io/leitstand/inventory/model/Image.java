@@ -14,6 +14,7 @@ import static javax.persistence.EnumType.STRING;
 import static javax.persistence.TemporalType.TIMESTAMP;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -23,6 +24,7 @@ import javax.persistence.Convert;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.Enumerated;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
@@ -47,7 +49,9 @@ import io.leitstand.inventory.service.Version;
 // Images for a certain element role on a certain platform
 // Images for a certain element, role and platform
 @Entity
-@Table(schema="inventory", name="image")
+@Table(schema="inventory",
+	   name="image",
+	   indexes=@Index(name="image_name_idx", columnList="name,uuid"))
 @NamedQuery(name="Image.findByImageId", 
 		    query="SELECT d FROM Image d WHERE d.uuid=:id")
 @NamedQuery(name="Image.markElementImageSuperseded",
@@ -133,19 +137,12 @@ import io.leitstand.inventory.service.Version;
 				  "AND d.role=:role "+
 				  "AND d.imageState=io.leitstand.inventory.service.ImageState.RELEASE "+
 				  "AND d.element is null")
-@NamedQuery(name="Image.findAvailableUpdates",
-			    query="SELECT d FROM Image d "+
-			    	  "WHERE d.platform=:platform "+
-			    	  "AND d.imageState <> io.leitstand.inventory.service.ImageState.REVOKED " +
-			    	  "AND d.role.name=:role "+
-			    	  "AND d.imageType=:type "+
-			    	  "AND d.imageName=:name "+
-			    	  "AND (d.element IS NULL OR d.element=:element) "+
-			   		  "AND ((d.major > :major) "+
-			   		  "OR ( d.major = :major AND d.minor > :minor) "+
-			   		  "OR (d.major=:major AND d.minor=:minor AND d.patch > :patch) "+
-			   		  "OR (d.major=:major AND d.minor=:minor AND d.patch = :patch AND d.prerelease IS NOT NULL AND d.prerelease > :prerelease)) "+
-				  "ORDER BY d.major DESC, d.minor DESC, d.patch DESC")
+@NamedQuery(name="Image.findUpdateCandidates",
+				query="SELECT d FROM Image d "+
+					  "WHERE d.role.name=:role "+
+					  "AND d.imageType=:type "+
+					  "AND d.imageName=:name "+
+					  "AND d.imageState <> io.leitstand.inventory.service.ImageState.REVOKED")
 @NamedQuery(name="Image.findByElementAndImageTypeAndVersion", 
 			query="SELECT d FROM Image d "+
 				  "WHERE d.role=:role "+
@@ -159,6 +156,25 @@ import io.leitstand.inventory.service.Version;
 				  "AND d.prerelease=:prerelease")
 @NamedQuery(name="Image.countReferences",
 			query="SELECT count(ei) FROM Element_Image ei WHERE ei.image=:image")
+@NamedQuery(name="Image.exportImages",
+			query="SELECT d.id, d.uuid, d.org, d.imageType, d.imageName, d.imageState, d.category, "+
+				  "r.name, p.vendor, p.model, e.elementName, "+
+				  "d.major, d.minor, d.patch, d.prerelease, d.ext, d.tsbuild, d.buildId "+
+				  "FROM Image d "+
+				  "JOIN d.role r "+
+				  "LEFT JOIN d.platform p "+
+				  "LEFT JOIN d.element e "+
+				  "WHERE d.id IN :ids")
+@NamedQuery(name="Image.exportChecksums",
+			query="SELECT d.id, c.algorithm, c.value FROM Image d JOIN d.checksums c WHERE d.id IN :ids")
+@NamedQuery(name="Image.exportApplications",
+			query="SELECT d.id, a.name FROM Image d JOIN d.applications a WHERE d.id IN :ids")
+@NamedQuery(name="Image.exportPackages",
+			query="SELECT d.id, v.id, k.org, k.name, k.ext, v.major, v.minor, v.patch, v.prerelease, v.buildDate, v.buildId "+
+				  "FROM Image d "+
+				  "JOIN d.packages v "+
+				  "JOIN v.pkg k "+
+				  "WHERE d.id IN :ids")
 public class Image extends VersionableEntity{
 	
 	private static final long serialVersionUID = 1L;
@@ -267,24 +283,24 @@ public class Image extends VersionableEntity{
 }
 	
 	
-	public static Query<List<Image>> findUpdates(Platform platform,
-												 ImageType imageType, 
-												 ImageName imageName,
-	                                             ElementRole role, 
-	                                             Version version, 
-	                                             Element element){
-		return em -> em.createNamedQuery("Image.findAvailableUpdates",
+	/**
+	 * Returns all images of the given element role, image type and image name that are not revoked,
+	 * irrespective of platform, version and element.
+	 * @param role the element role
+	 * @param imageType the image type
+	 * @param imageName the image name
+	 * @return all potential updates of an image
+	 * @see ImageVersionIndex
+	 */
+	public static Query<List<Image>> findUpdateCandidates(ElementRoleName role,
+														  ImageType imageType,
+														  ImageName imageName){
+		return em -> em.createNamedQuery("Image.findUpdateCandidates",
 										 Image.class)
-					   .setParameter("platform",platform)
-				       .setParameter("role", role.getRoleName())
-				       .setParameter("major",version.getMajorLevel())
-				       .setParameter("minor",version.getMinorLevel())
-				       .setParameter("patch",version.getPatchLevel())
-					   .setParameter("prerelease", prerelease(version))
-				       .setParameter("type",imageType)
-				       .setParameter("name",imageName)
-				       .setParameter("element", element)
-				       .getResultList();
+					   .setParameter("role", role)
+					   .setParameter("type", imageType)
+					   .setParameter("name", imageName)
+					   .getResultList();
 	}
 
 	public static Query<Image> findByImageId(ImageId id){
@@ -313,6 +329,51 @@ public class Image extends VersionableEntity{
 					   .getSingleResult();
 	}
 	
+	/**
+	 * Reads the image attributes, element role, platform and element name of the given images.
+	 * The result rows are not managed by the persistence context.
+	 * @param ids the primary keys of the images
+	 * @return one row per image
+	 */
+	public static Query<List<Object[]>> exportImages(Collection<Long> ids){
+		return em -> em.createNamedQuery("Image.exportImages",Object[].class)
+					   .setParameter("ids",ids)
+					   .getResultList();
+	}
+	
+	/**
+	 * Reads the checksums of the given images.
+	 * @param ids the primary keys of the images
+	 * @return one row per image and checksum with the image ID, the algorithm and the checksum value
+	 */
+	public static Query<List<Object[]>> exportChecksums(Collection<Long> ids){
+		return em -> em.createNamedQuery("Image.exportChecksums",Object[].class)
+					   .setParameter("ids",ids)
+					   .getResultList();
+	}
+	
+	/**
+	 * Reads the applications of the given images.
+	 * @param ids the primary keys of the images
+	 * @return one row per image and application with the image ID and the application name
+	 */
+	public static Query<List<Object[]>> exportApplications(Collection<Long> ids){
+		return em -> em.createNamedQuery("Image.exportApplications",Object[].class)
+					   .setParameter("ids",ids)
+					   .getResultList();
+	}
+	
+	/**
+	 * Reads the package versions of the given images.
+	 * @param ids the primary keys of the images
+	 * @return one row per image and package version with the image ID followed by the package version attributes
+	 */
+	public static Query<List<Object[]>> exportPackages(Collection<Long> ids){
+		return em -> em.createNamedQuery("Image.exportPackages",Object[].class)
+					   .setParameter("ids",ids)
+					   .getResultList();
+	}
+	
 	public static Query<Long> countImageReferences(Image image){
 		return em -> em.createNamedQuery("Image.countReferences",Long.class)
 					   .setParameter("image",image)
@@ -0,0 +1,209 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.commons.db.DatabaseService.prepare;
+import static io.leitstand.commons.model.StringUtil.isNonEmptyString;
+import static io.leitstand.inventory.model.DefaultImageService.FROM_IMAGES;
+import static io.leitstand.inventory.model.DefaultImageService.filterImages;
+import static io.leitstand.inventory.model.Image.exportApplications;
+import static io.leitstand.inventory.model.Image.exportChecksums;
+import static io.leitstand.inventory.model.Image.exportImages;
+import static io.leitstand.inventory.model.Image.exportPackages;
+import static io.leitstand.inventory.model.Image.prerelease;
+import static io.leitstand.inventory.service.ElementPlatformInfo.newPlatformInfo;
+import static io.leitstand.inventory.service.ImageInfo.newImageInfo;
+import static io.leitstand.inventory.service.PackageVersionInfo.newPackageVersionInfo;
+import static java.util.Collections.emptyList;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import io.leitstand.commons.db.DatabaseService;
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.model.Service;
+import io.leitstand.inventory.service.ApplicationName;
+import io.leitstand.inventory.service.ElementName;
+import io.leitstand.inventory.service.ElementPlatformInfo;
+import io.leitstand.inventory.service.ElementRoleName;
+import io.leitstand.inventory.service.ImageId;
+import io.leitstand.inventory.service.ImageInfo;
+import io.leitstand.inventory.service.ImageName;
+import io.leitstand.inventory.service.ImageState;
+import io.leitstand.inventory.service.ImageType;
+import io.leitstand.inventory.service.PackageVersionInfo;
+import io.leitstand.inventory.service.Version;
+
+/**
+ * Reads the images of an image export page by page.
+ * <p>
+ * A page is read by a fixed number of set-based queries, regardless of the page size:
+ * one query selects the images of the page, and one query each reads the image attributes, the image checksums, 
+ * the applications, the package versions and the package version checksums of all images of the page.
+ * The queries return plain rows, such that no entities are retained in the persistence context.
+ * Every page is read in its own transaction.
+ * </p>
+ * @see DefaultImageExportService
+ */
+@Service
+public class ImageExportReader {
+	
+	private static Map<String,String> checksums(Map<Long,Map<String,String>> checksums, Long id){
+		Map<String,String> checksum = checksums.get(id);
+		return checksum != null ? checksum : new HashMap<>();
+	}
+	
+	private static Map<Long,Map<String,String>> groupChecksums(List<Object[]> rows){
+		Map<Long,Map<String,String>> checksums = new HashMap<>();
+		for(Object[] row : rows) {
+			checksums.computeIfAbsent((Long) row[0], k -> new HashMap<>())
+					 .put(((Checksum.Algorithm) row[1]).name(), 
+						  (String) row[2]);
+		}
+		return checksums;
+	}
+
+	private Repository repository;
+	private DatabaseService db;
+	
+	protected ImageExportReader() {
+		// CDI
+	}
+	
+	@Inject
+	protected ImageExportReader(@Inventory Repository repository,
+								@Inventory DatabaseService db) {
+		this.repository = repository;
+		this.db = db;
+	}
+	
+	/**
+	 * Reads the next page of images ordered by image name and image ID.
+	 * @param filter an optional regular expression for vendor name, model name, element role, element name and image name
+	 * @param role an optional element role
+	 * @param type an optional image type
+	 * @param state an optional image state
+	 * @param version an optional image version
+	 * @param after the last image of the previous page or <code>null</code> to read the first page
+	 * @param limit the page size
+	 * @return the images of the page
+	 */
+	public List<ImageInfo> readImages(String filter,
+									  ElementRoleName role,
+									  ImageType type,
+									  ImageState state,
+									  Version version,
+									  ImageInfo after,
+									  int limit){
+		List<Object> arguments = new LinkedList<>();
+		String sql = "SELECT d.id "+FROM_IMAGES+"WHERE 1=1 ";
+		if(isNonEmptyString(filter)) {
+			sql += "AND (p.vendor ~ ? OR p.model ~ ? OR r.name ~ ? OR e.name ~ ? OR d.name ~ ?) ";
+			arguments.add(filter);
+			arguments.add(filter);
+			arguments.add(filter);
+			arguments.add(filter);
+			arguments.add(filter);
+		}
+		if(after != null) {
+			sql += "AND (d.name > ? OR (d.name = ? AND d.uuid > ?)) ";
+			arguments.add(after.getImageName().toString());
+			arguments.add(after.getImageName().toString());
+			arguments.add(after.getImageId().toString());
+		}
+		sql += filterImages(arguments, role, type, state, version);
+		sql += "ORDER BY d.name, d.uuid LIMIT ?";
+		arguments.add(Integer.valueOf(limit));
+		
+		List<Long> ids = db.executeQuery(prepare(sql,arguments), 
+										 rs -> rs.getLong(1));
+		if(ids.isEmpty()) {
+			return emptyList();
+		}
+		
+		Map<Long,Map<String,String>> imageChecksums = groupChecksums(repository.execute(exportChecksums(ids)));
+		
+		Map<Long,List<ApplicationName>> applications = new HashMap<>();
+		for(Object[] row : repository.execute(exportApplications(ids))) {
+			applications.computeIfAbsent((Long) row[0], k -> new LinkedList<>())
+						.add((ApplicationName) row[1]);
+		}
+
+		List<Object[]> packageRows = repository.execute(exportPackages(ids));
+		Map<Long,Map<String,String>> packageChecksums = new HashMap<>();
+		if(!packageRows.isEmpty()) {
+			List<Long> versionIds = new ArrayList<>(packageRows.size());
+			for(Object[] row : packageRows) {
+				versionIds.add((Long) row[1]);
+			}
+			packageChecksums = groupChecksums(repository.execute(PackageVersion.exportChecksums(versionIds)));
+		}
+		Map<Long,List<PackageVersionInfo>> packages = new HashMap<>();
+		for(Object[] row : packageRows) {
+			packages.computeIfAbsent((Long) row[0], k -> new LinkedList<>())
+					.add(newPackageVersionInfo()
+						 .withOrganization((String) row[2])
+						 .withPackageName((String) row[3])
+						 .withPackageExtension((String) row[4])
+						 .withPackageVersion(new Version((Integer) row[5],
+								 						 (Integer) row[6],
+								 						 (Integer) row[7],
+								 						 (String) row[8]))
+						 .withBuildDate((Date) row[9])
+						 .withBuildId((String) row[10])
+						 .withChecksums(checksums(packageChecksums, (Long) row[1]))
+						 .build());
+		}
+		
+		Map<Long,ImageInfo> images = new HashMap<>();
+		for(Object[] row : repository.execute(exportImages(ids))) {
+			Long id = (Long) row[0];
+			ElementPlatformInfo platform = null;
+			if(row[8] != null || row[9] != null) {
+				platform = newPlatformInfo()
+						   .withVendorName((String) row[8])
+						   .withModelName((String) row[9])
+						   .build();
+			}
+			images.put(id, newImageInfo()
+						   .withImageId(new ImageId((String) row[1]))
+						   .withOrganization((String) row[2])
+						   .withImageType((ImageType) row[3])
+						   .withImageName((ImageName) row[4])
+						   .withImageState((ImageState) row[5])
+						   .withCategory((String) row[6])
+						   .withElementRole((ElementRoleName) row[7])
+						   .withPlatform(platform)
+						   .withElementName((ElementName) row[10])
+						   .withImageVersion(new Version((Integer) row[11],
+								   						 (Integer) row[12],
+								   						 (Integer) row[13],
+								   						 prerelease((String) row[14])))
+						   .withExtension((String) row[15])
+						   .withBuildDate((Date) row[16])
+						   .withBuildId((String) row[17])
+						   .withPackages(packages.getOrDefault(id, new LinkedList<>()))
+						   .withApplications(applications.getOrDefault(id, new LinkedList<>()))
+						   .withChecksums(checksums(imageChecksums, id))
+						   .build());
+		}
+		
+		// Restore the order of the page
+		List<ImageInfo> page = new ArrayList<>(ids.size());
+		for(Long id : ids) {
+			ImageInfo image = images.get(id);
+			if(image != null) {
+				page.add(image);
+			}
+		}
+		return page;
+	}
+	
+}
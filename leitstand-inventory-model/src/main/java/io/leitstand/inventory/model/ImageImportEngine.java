@@ -0,0 +1,331 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.service.ImageImportChunkFailure.newImageImportChunkFailure;
+import static io.leitstand.inventory.service.ImageImportJob.newImageImportJob;
+import static io.leitstand.inventory.service.ImageImportJobId.randomImageImportJobId;
+import static io.leitstand.inventory.service.ImageImportJobState.COMPLETED;
+import static io.leitstand.inventory.service.ImageImportJobState.FAILED;
+import static io.leitstand.inventory.service.ImageImportJobState.RUNNING;
+import static io.leitstand.inventory.service.ReasonCode.IVT8007I_IMAGE_IMPORT_COMPLETED;
+import static io.leitstand.inventory.service.ReasonCode.IVT8008E_IMAGE_IMPORT_CHUNK_FAILED;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.lang.Thread.currentThread;
+import static java.util.Comparator.comparingInt;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import io.leitstand.inventory.service.ImageImportChunkFailure;
+import io.leitstand.inventory.service.ImageImportJob;
+import io.leitstand.inventory.service.ImageImportJobId;
+import io.leitstand.inventory.service.ImageInfo;
+
+/**
+ * Imports image exports in chunks of {@link #CHUNK_SIZE} images.
+ * <p>
+ * Every chunk is imported in its own transaction, such that a failed chunk neither rolls back the other chunks
+ * nor does a large export exceed the transaction timeout.
+ * The chunks of a job are processed in parallel by at most one worker per available processor.
+ * The workers of a job take the next unprocessed chunk until all chunks have been processed.
+ * </p>
+ * <p>
+ * The progress of the last {@link #MAX_RETAINED_JOBS} jobs is kept in memory and can be polled by the job ID.
+ * Completed jobs are discarded first.
+ * The job state is not persisted and only known to the node that runs the job. 
+ * Polling a job on another node or after a restart reports that the job does not exist.
+ * </p>
+ * <p>
+ * A job is marked as failed, if it cannot be started because the executor rejects the workers,
+ * or if it is interrupted. All chunks that have not been processed yet are reported as failed chunks then.
+ * </p>
+ * @see ImageImportService
+ */
+@ApplicationScoped
+public class ImageImportEngine {
+	
+	private static final Logger LOG = Logger.getLogger(ImageImportEngine.class.getName());
+
+	static final int CHUNK_SIZE = 50;
+	
+	static final int MAX_RETAINED_JOBS = 20;
+	
+	/**
+	 * The mutable state of an import job.
+	 */
+	private static final class ImportJob {
+		
+		private final ImageImportJobId jobId = randomImageImportJobId();
+		private final Date dateStarted = new Date();
+		private final List<ImageInfo> images;
+		private final int chunks;
+		private final AtomicInteger nextChunk = new AtomicInteger();
+		private final AtomicInteger importedImages = new AtomicInteger();
+		private final AtomicInteger remainingChunks;
+		private final List<ImageImportChunkFailure> failures = new ArrayList<>();
+		private final CountDownLatch pending;
+		private volatile Date dateCompleted;
+		private volatile boolean aborted;
+		
+		ImportJob(List<ImageInfo> images){
+			this.images = new ArrayList<>(images);
+			this.chunks = (images.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			this.remainingChunks = new AtomicInteger(chunks);
+			this.pending = new CountDownLatch(chunks);
+			if(chunks == 0) {
+				this.dateCompleted = dateStarted;
+			}
+		}
+		
+		int nextChunk() {
+			int chunk = nextChunk.getAndIncrement();
+			return chunk < chunks ? chunk : -1;
+		}
+		
+		List<ImageInfo> chunk(int chunk){
+			int from = chunk * CHUNK_SIZE;
+			return images.subList(from, min(from + CHUNK_SIZE, images.size()));
+		}
+		
+		boolean chunkImported(int chunk) {
+			importedImages.addAndGet(chunk(chunk).size());
+			return chunkCompleted();
+		}
+		
+		boolean chunkFailed(int chunk, String message) {
+			synchronized(failures) {
+				failures.add(newImageImportChunkFailure()
+							 .withChunk(chunk)
+							 .withImages(chunk(chunk).stream()
+									 				 .map(ImageInfo::getImageId)
+									 				 .collect(toList()))
+							 .withMessage(message)
+							 .build());
+			}
+			return chunkCompleted();
+		}
+		
+		boolean abort(String message) {
+			aborted = true;
+			boolean last = false;
+			for(int chunk = nextChunk(); chunk >= 0; chunk = nextChunk()) {
+				last = chunkFailed(chunk, message);
+			}
+			return last;
+		}
+		
+		private boolean chunkCompleted() {
+			boolean last = remainingChunks.decrementAndGet() == 0;
+			if(last) {
+				dateCompleted = new Date();
+			}
+			pending.countDown();
+			return last;
+		}
+		
+		boolean isCompleted() {
+			return pending.getCount() == 0;
+		}
+		
+		ImageImportJob toImageImportJob() {
+			List<ImageImportChunkFailure> failed;
+			synchronized(failures) {
+				failed = new ArrayList<>(failures);
+			}
+			failed.sort(comparingInt(ImageImportChunkFailure::getChunk));
+			return newImageImportJob()
+				   .withJobId(jobId)
+				   .withJobState(aborted ? FAILED : !isCompleted() ? RUNNING : failed.isEmpty() ? COMPLETED : FAILED)
+				   .withDateStarted(dateStarted)
+				   .withDateCompleted(isCompleted() ? dateCompleted : null)
+				   .withChunkSize(CHUNK_SIZE)
+				   .withChunks(chunks)
+				   .withCompletedChunks((int)(chunks - pending.getCount()))
+				   .withImages(images.size())
+				   .withImportedImages(importedImages.get())
+				   .withFailures(failed)
+				   .build();
+		}
+	}
+	
+	@Resource
+	private ManagedExecutorService pool;
+	
+	@Inject
+	private ImageImportService service;
+	
+	private final Map<ImageImportJobId,ImportJob> jobs = new LinkedHashMap<>();
+	
+	protected ImageImportEngine() {
+		// CDI
+	}
+	
+	ImageImportEngine(ManagedExecutorService pool, ImageImportService service){
+		this.pool = pool;
+		this.service = service;
+	}
+	
+	/**
+	 * Starts a new import job.
+	 * @param images the images to be imported
+	 * @return the started import job
+	 */
+	public ImageImportJob startImport(List<ImageInfo> images) {
+		return start(images).toImageImportJob();
+	}
+	
+	/**
+	 * Imports the given images and waits until all chunks have been processed.
+	 * @param images the images to be imported
+	 * @return the completed import job
+	 */
+	public ImageImportJob runImport(List<ImageInfo> images) {
+		ImportJob job = start(images);
+		try {
+			job.pending.await();
+		} catch (InterruptedException e) {
+			currentThread().interrupt();
+			abort(job, "Image import interrupted");
+		}
+		return job.toImageImportJob();
+	}
+	
+	/**
+	 * Returns the progress of an import job.
+	 * @param jobId the import job ID
+	 * @return the import job or <code>null</code> if the job does not exist or has already been discarded.
+	 */
+	public ImageImportJob getImportJob(ImageImportJobId jobId) {
+		ImportJob job = job(jobId);
+		if(job == null) {
+			return null;
+		}
+		return job.toImageImportJob();
+	}
+	
+	private ImportJob start(List<ImageInfo> images) {
+		ImportJob job = new ImportJob(images);
+		retain(job);
+		int workers = min(Runtime.getRuntime().availableProcessors(), job.chunks);
+		for(int i=0; i < workers; i++) {
+			try {
+				pool.execute(() -> process(job));
+			} catch (RejectedExecutionException e) {
+				int started = i;
+				LOG.warning(() -> format("%s: Image import job %s started %d of %d workers. Executor rejected further workers due to %s",
+										 IVT8008E_IMAGE_IMPORT_CHUNK_FAILED.getReasonCode(),
+										 job.jobId,
+										 started,
+										 workers,
+										 message(e)));
+				if(started == 0) {
+					abort(job, "Image import rejected: "+message(e));
+				}
+				break;
+			}
+		}
+		return job;
+	}
+	
+	private ImportJob job(ImageImportJobId jobId) {
+		synchronized(jobs) {
+			return jobs.get(jobId);
+		}
+	}
+	
+	private void retain(ImportJob job) {
+		synchronized(jobs) {
+			jobs.put(job.jobId, job);
+			if(jobs.size() <= MAX_RETAINED_JOBS) {
+				return;
+			}
+			// Discard the oldest completed job or the oldest job if no job is completed.
+			Iterator<ImportJob> oldest = jobs.values().iterator();
+			while(oldest.hasNext()) {
+				if(oldest.next().isCompleted()) {
+					oldest.remove();
+					return;
+				}
+			}
+			jobs.remove(jobs.keySet().iterator().next());
+		}
+	}
+	
+	private void process(ImportJob job) {
+		while(!currentThread().isInterrupted()) {
+			int chunk = job.nextChunk();
+			if(chunk < 0) {
+				return;
+			}
+			boolean completed;
+			try {
+				service.storeImages(job.chunk(chunk));
+				completed = job.chunkImported(chunk);
+			} catch (Exception e) {
+				int failed = chunk;
+				String message = message(e);
+				LOG.warning(() -> format("%s: Chunk %d of image import job %s failed due to %s",
+										 IVT8008E_IMAGE_IMPORT_CHUNK_FAILED.getReasonCode(),
+										 failed,
+										 job.jobId,
+										 message));
+				completed = job.chunkFailed(chunk, message);
+			}
+			if(completed) {
+				completed(job);
+			}
+		}
+		abort(job, "Image import interrupted");
+	}
+	
+	private void abort(ImportJob job, String message) {
+		LOG.warning(() -> format("%s: Image import job %s aborted: %s",
+								 IVT8008E_IMAGE_IMPORT_CHUNK_FAILED.getReasonCode(),
+								 job.jobId,
+								 message));
+		if(job.abort(message)) {
+			completed(job);
+		}
+	}
+	
+	private static void completed(ImportJob job) {
+		LOG.info(() -> format("%s: Image import job %s imported %d of %d images in %d chunks.",
+							  IVT8007I_IMAGE_IMPORT_COMPLETED.getReasonCode(),
+							  job.jobId,
+							  job.importedImages.get(),
+							  job.images.size(),
+							  job.chunks));
+	}
+	
+	/**
+	 * Returns the message of the root cause of an exception, 
+	 * or the class name of the root cause if the root cause has no message.
+	 * @param e the exception
+	 * @return the message describing the root cause
+	 */
+	static String message(Throwable e) {
+		Throwable root = e;
+		while(root.getCause() != null && root.getCause() != root) {
+			root = root.getCause();
+		}
+		return root.getMessage() != null ? root.getMessage() : root.getClass().getName();
+	}
+	
+}
@@ -0,0 +1,43 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import java.util.List;
+
+import javax.inject.Inject;
+
+import io.leitstand.commons.model.Service;
+import io.leitstand.inventory.service.ImageInfo;
+import io.leitstand.inventory.service.ImageService;
+
+/**
+ * Transactional operations of the {@link ImageImportEngine}.
+ * <p>
+ * Every invocation imports a chunk of images in its own transaction.
+ */
+@Service
+public class ImageImportService {
+
+	@Inject
+	private ImageService images;
+	
+	protected ImageImportService() {
+		// CDI
+	}
+	
+	ImageImportService(ImageService images){
+		this.images = images;
+	}
+	
+	/**
+	 * Stores all images of a chunk.
+	 * @param chunk the images of the chunk
+	 */
+	public void storeImages(List<ImageInfo> chunk) {
+		for(ImageInfo image : chunk) {
+			images.storeImage(image);
+		}
+	}
+	
+}
@@ -0,0 +1,70 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.service.ElementImageState.ACTIVE;
+import static io.leitstand.inventory.service.ElementImageState.CACHED;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.leitstand.inventory.service.ElementImageState;
+
+/**
+ * Collects the changes of the image rollout counters of an element group.
+ * @see ImageRolloutManager#applyChanges(ElementGroup, ImageRolloutChanges)
+ */
+final class ImageRolloutChanges {
+
+	private final Map<Image,int[]> changes = new HashMap<>();
+	
+	/**
+	 * Records an installed image.
+	 * @param image the installed image
+	 * @param state the installation state
+	 */
+	void installed(Image image, ElementImageState state) {
+		count(image, state, 1);
+	}
+
+	/**
+	 * Records a removed image.
+	 * @param image the removed image
+	 * @param state the installation state of the removed image
+	 */
+	void removed(Image image, ElementImageState state) {
+		count(image, state, -1);
+	}
+	
+	/**
+	 * Records a modified installation state.
+	 * @param image the installed image
+	 * @param from the previous installation state
+	 * @param to the new installation state
+	 */
+	void changed(Image image, ElementImageState from, ElementImageState to) {
+		if(from != to) {
+			count(image, from, -1);
+			count(image, to, 1);
+		}
+	}
+	
+	private void count(Image image, ElementImageState state, int delta) {
+		if(state != ACTIVE && state != CACHED) {
+			// Only running and cached images are counted.
+			return;
+		}
+		int[] counts = changes.computeIfAbsent(image, k -> new int[2]);
+		counts[state == ACTIVE ? 0 : 1] += delta;
+	}
+	
+	Map<Image,int[]> getChanges(){
+		return changes;
+	}
+	
+	boolean isEmpty() {
+		return changes.isEmpty();
+	}
+	
+}
@@ -0,0 +1,26 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import io.leitstand.commons.StartupListener;
+
+/**
+ * Initializes the image rollout counters on startup.
+ * @see ImageRolloutService
+ */
+@ApplicationScoped
+public class ImageRolloutInitializer implements StartupListener {
+
+	@Inject
+	private ImageRolloutService service;
+	
+	@Override
+	public void onStartup() {
+		service.initializeImageRollouts();
+	}
+
+}
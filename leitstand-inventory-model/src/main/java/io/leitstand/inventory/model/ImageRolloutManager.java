@@ -0,0 +1,123 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.Element.findElementById;
+import static io.leitstand.inventory.model.ElementGroup.findElementGroupById;
+import static io.leitstand.inventory.model.Element_Image.findInstalledImages;
+import static io.leitstand.inventory.model.Image_Rollout.findRollout;
+import static io.leitstand.inventory.model.Image_Rollout.updateRollout;
+import static java.lang.String.format;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import javax.enterprise.context.Dependent;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.SubtransactionService;
+import io.leitstand.inventory.event.ElementMovedEvent;
+
+/**
+ * Maintains the image rollout counters of the element groups.
+ * @see Image_Rollout
+ * @see ImageRolloutChanges
+ */
+@Dependent
+public class ImageRolloutManager {
+
+	private static final Logger LOG = Logger.getLogger(ImageRolloutManager.class.getName());
+	
+	private Repository repository;
+	private SubtransactionService inventory;
+	
+	protected ImageRolloutManager() {
+		// CDI
+	}
+	
+	@Inject
+	protected ImageRolloutManager(@Inventory Repository repository,
+								  @Inventory SubtransactionService inventory) {
+		this.repository = repository;
+		this.inventory = inventory;
+	}
+	
+	/**
+	 * Adds the collected changes to the rollout counters of an element group.
+	 * The counters are updated in the order of the internal image IDs, such that concurrent transactions
+	 * lock the counters in the same order.
+	 * A missing counter is created in a subtransaction, such that concurrent registrations
+	 * of elements of the same group do not fail when creating the same counter.
+	 * @param group the element group
+	 * @param changes the counter changes
+	 */
+	void applyChanges(ElementGroup group, ImageRolloutChanges changes) {
+		if(changes.isEmpty()) {
+			return;
+		}
+		Long groupId = group.getId();
+		SortedMap<Long,int[]> counts = new TreeMap<>();
+		for(Map.Entry<Image,int[]> change : changes.getChanges().entrySet()) {
+			counts.put(change.getKey().getId(), change.getValue());
+		}
+		for(Map.Entry<Long,int[]> count : counts.entrySet()) {
+			Long imageId = count.getKey();
+			int active = count.getValue()[0];
+			int cached = count.getValue()[1];
+			if(active == 0 && cached == 0) {
+				continue;
+			}
+			if(repository.execute(updateRollout(imageId, groupId, active, cached)) == 0) {
+				inventory.run(create -> create.add(new Image_Rollout(imageId, groupId)),
+							  resume -> resume.execute(findRollout(imageId, groupId)));
+				repository.execute(updateRollout(imageId, groupId, active, cached));
+			}
+		}
+	}
+	
+	/**
+	 * Removes the counted images of an element that is removed from the inventory.
+	 * The images are removed from the counters of the current group of the element,
+	 * which also reflects all preceding moves of the element.
+	 * @param element the element to be removed
+	 */
+	void removeElement(Element element) {
+		ImageRolloutChanges removed = new ImageRolloutChanges();
+		for(Element_Image image : repository.execute(findInstalledImages(element))) {
+			removed.removed(image.getImage(), image.getInstallationState());
+		}
+		applyChanges(element.getGroup(), removed);
+	}
+	
+	/**
+	 * Moves the counted images of a moved element to the rollout counters of the new group.
+	 * @param event the element moved event
+	 */
+	public void onElementMoved(@Observes ElementMovedEvent event) {
+		ElementGroup from = repository.execute(findElementGroupById(event.getFrom().getGroupId()));
+		ElementGroup to = repository.execute(findElementGroupById(event.getTo().getGroupId()));
+		Element element = repository.execute(findElementById(event.getElementId()));
+		if(from == null || to == null || element == null) {
+			return;
+		}
+		ImageRolloutChanges removed = new ImageRolloutChanges();
+		ImageRolloutChanges added = new ImageRolloutChanges();
+		for(Element_Image image : repository.execute(findInstalledImages(element))) {
+			removed.removed(image.getImage(), image.getInstallationState());
+			added.installed(image.getImage(), image.getInstallationState());
+		}
+		applyChanges(from, removed);
+		applyChanges(to, added);
+		LOG.fine(() -> format("Moved image rollout counters of %s %s from group %s to group %s.",
+							  element.getElementRoleName(),
+							  element.getElementName(),
+							  from.getGroupName(),
+							  to.getGroupName()));
+	}
+	
+}
@@ -0,0 +1,70 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.Image_Rollout.countRollouts;
+import static io.leitstand.inventory.model.Image_Rollout.initializeRollouts;
+import static io.leitstand.inventory.model.Image_Rollout.removeAllRollouts;
+import static io.leitstand.inventory.service.ReasonCode.IVT0208I_IMAGE_ROLLOUTS_REBUILT;
+import static io.leitstand.inventory.service.ReasonCode.IVT8009I_IMAGE_ROLLOUTS_INITIALIZED;
+import static java.lang.String.format;
+
+import java.util.logging.Logger;
+
+import javax.inject.Inject;
+
+import io.leitstand.commons.db.DatabaseService;
+import io.leitstand.commons.model.Service;
+
+/**
+ * Counts the installed images of all element groups if no image rollout counters exist yet,
+ * i.e. when the counters were introduced to an existing inventory,
+ * and rebuilds all counters on request to reconcile counters that drifted from the installed images.
+ * @see Image_Rollout
+ * @see ImageRolloutInitializer
+ */
+@Service
+public class ImageRolloutService {
+
+	private static final Logger LOG = Logger.getLogger(ImageRolloutService.class.getName());
+	
+	private DatabaseService database;
+	
+	protected ImageRolloutService() {
+		// CDI
+	}
+	
+	@Inject
+	protected ImageRolloutService(@Inventory DatabaseService database) {
+		this.database = database;
+	}
+	
+	public int initializeImageRollouts() {
+		int count = database.executeUpdate(initializeRollouts());
+		if(count > 0) {
+			LOG.info(() -> format("%s: Initialized %d image rollout counters.",
+								  IVT8009I_IMAGE_ROLLOUTS_INITIALIZED.getReasonCode(),
+								  count));
+		}
+		return count;
+	}
+	
+	/**
+	 * Removes all image rollout counters and counts the installed images of all element groups again.
+	 * Both statements run in the same transaction, such that readers never observe missing counters.
+	 * A concurrent element registration that creates a removed counter lets the rebuild fail with a conflict,
+	 * i.e. the rebuild must be repeated in this case.
+	 * @return the number of rebuilt counters
+	 */
+	public int rebuildImageRollouts() {
+		int removed = database.executeUpdate(removeAllRollouts());
+		int count = database.executeUpdate(countRollouts());
+		LOG.info(() -> format("%s: Rebuilt %d image rollout counters. Removed %d counters.",
+							  IVT0208I_IMAGE_ROLLOUTS_REBUILT.getReasonCode(),
+							  count,
+							  removed));
+		return count;
+	}
+	
+}
@@ -0,0 +1,190 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static java.lang.String.format;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import io.leitstand.inventory.service.ElementInstalledImageReference;
+import io.leitstand.inventory.service.ImageName;
+import io.leitstand.inventory.service.ImageType;
+import io.leitstand.inventory.service.Version;
+
+/**
+ * Deduplicates the concurrent creation of image stub records.
+ * <p>
+ * Many elements report the same unknown image at the same time after a fleet-wide upgrade.
+ * The first transaction reporting an unknown image creates the stub record, 
+ * whereas all other transactions reporting the same image wait until the stub record has been created 
+ * and read the created stub record afterwards.
+ * If the stub records of a request cannot be created at once, 
+ * because another application node has created one of them concurrently, 
+ * the stub records are read or created one by one.
+ * An image is identified by the element role, the platform, the image type, the image name and the image version.
+ * </p>
+ * @see CreateImageStubRecordsFlow
+ */
+@ApplicationScoped
+public class ImageStubRecords {
+
+	private static final Logger LOG = Logger.getLogger(ImageStubRecords.class.getName());
+	
+	static final long STUB_TIMEOUT_SECONDS = 10;
+	
+	private static final class StubKey {
+		
+		private final Long role;
+		private final Long platform;
+		private final ImageType type;
+		private final ImageName name;
+		private final Version version;
+		
+		StubKey(Element element, ElementInstalledImageReference image){
+			this.role = element.getElementRole().getId();
+			this.platform = element.getPlatform().getId();
+			this.type = image.getImageType();
+			this.name = image.getImageName();
+			this.version = image.getImageVersion();
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if(o == this) {
+				return true;
+			}
+			if(o == null || o.getClass() != getClass()) {
+				return false;
+			}
+			StubKey key = (StubKey) o;
+			return Objects.equals(role, key.role)
+				   && Objects.equals(platform, key.platform)
+				   && Objects.equals(type, key.type)
+				   && Objects.equals(name, key.name)
+				   && Objects.equals(version, key.version);
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(role,platform,type,name,version);
+		}
+	}
+	
+	private final ConcurrentMap<StubKey,CountDownLatch> pending = new ConcurrentHashMap<>();
+	
+	/**
+	 * Returns the stub records of unknown images reported by an element.
+	 * Stub records that are not being created by another transaction are created at once by the given function.
+	 * Stub records being created by another transaction are read once the other transaction has created them.
+	 * @param element the element reporting the unknown images
+	 * @param images the unknown images
+	 * @param create creates the stub records of the given images and returns them in the same order 
+	 * or returns <code>null</code> if the stub records could not be created.
+	 * @param read reads the stub record of an image or returns <code>null</code> if the stub record does not exist.
+	 * @return the stub records in the same order as the unknown images, 
+	 * with <code>null</code> entries for all images without stub record.
+	 */
+	List<Image> fetchImageStubs(Element element,
+								List<ElementInstalledImageReference> images,
+								Function<List<ElementInstalledImageReference>,List<Image>> create,
+								Function<ElementInstalledImageReference,Image> read){
+		
+		Map<StubKey,CountDownLatch> owned = new LinkedHashMap<>();
+		List<ElementInstalledImageReference> created = new ArrayList<>();
+		Map<Integer,CountDownLatch> awaited = new LinkedHashMap<>();
+		for(int i=0; i < images.size(); i++) {
+			StubKey key = new StubKey(element, images.get(i));
+			if(owned.containsKey(key)) {
+				awaited.put(i, null);
+				continue;
+			}
+			CountDownLatch latch = new CountDownLatch(1);
+			CountDownLatch other = pending.putIfAbsent(key, latch);
+			if(other == null) {
+				owned.put(key, latch);
+				created.add(images.get(i));
+			} else {
+				awaited.put(i, other);
+			}
+		}
+		
+		List<Image> stubs = new ArrayList<>(images.size());
+		for(int i=0; i < images.size(); i++) {
+			stubs.add(null);
+		}
+		
+		try {
+			if(!created.isEmpty()) {
+				List<Image> records = create.apply(created);
+				int j = 0;
+				for(int i=0; i < images.size(); i++) {
+					if(!awaited.containsKey(i)) {
+						stubs.set(i, records != null ? records.get(j++) : createImageStub(images.get(i), create, read));
+					}
+				}
+			}
+		} finally {
+			for(Map.Entry<StubKey,CountDownLatch> entry : owned.entrySet()) {
+				pending.remove(entry.getKey(), entry.getValue());
+				entry.getValue().countDown();
+			}
+		}
+		
+		for(Map.Entry<Integer,CountDownLatch> entry : awaited.entrySet()) {
+			ElementInstalledImageReference image = images.get(entry.getKey());
+			CountDownLatch latch = entry.getValue();
+			try {
+				if(latch != null && !latch.await(STUB_TIMEOUT_SECONDS, SECONDS)) {
+					LOG.fine(() -> format("Timeout while waiting for the stub record of image %s-%s-%s.",
+										  image.getImageType(),
+										  image.getImageName(),
+										  image.getImageVersion()));
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			stubs.set(entry.getKey(), read.apply(image));
+		}
+		return stubs;
+	}
+	
+	/**
+	 * Fetches a single stub record after the creation of all stub records of a request failed.
+	 * The creation fails if another application node has created one of the stub records concurrently.
+	 * Hence the stub record is read first and only created if it does not exist yet.
+	 * @param image the unknown image
+	 * @param create creates the stub records of the given images
+	 * @param read reads the stub record of an image
+	 * @return the stub record or <code>null</code> if the stub record could not be created.
+	 */
+	private static Image createImageStub(ElementInstalledImageReference image,
+										 Function<List<ElementInstalledImageReference>,List<Image>> create,
+										 Function<ElementInstalledImageReference,Image> read) {
+		Image stub = read.apply(image);
+		if(stub != null) {
+			return stub;
+		}
+		List<Image> records = create.apply(singletonList(image));
+		return records != null ? records.get(0) : null;
+	}
+	
+	int size() {
+		return pending.size();
+	}
+	
+}
@@ -0,0 +1,261 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.Image.prerelease;
+import static io.leitstand.inventory.service.ImageState.REVOKED;
+import static java.lang.System.currentTimeMillis;
+import static java.util.Collections.unmodifiableList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.enterprise.event.TransactionPhase.AFTER_COMPLETION;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+
+import io.leitstand.inventory.event.ImageEvent;
+import io.leitstand.inventory.event.ImageStoredEvent;
+import io.leitstand.inventory.service.ElementRoleName;
+import io.leitstand.inventory.service.ImageId;
+import io.leitstand.inventory.service.ImageName;
+import io.leitstand.inventory.service.ImageType;
+import io.leitstand.inventory.service.Version;
+
+/**
+ * An in-memory index of all images that are not revoked, used to compute the available updates of installed images.
+ * <p>
+ * The index is grouped by element role, image type and image name and, within a group, by platform.
+ * The versions of a platform are kept sorted, such that all newer versions of an image are found
+ * in logarithmic time.
+ * A group is loaded from the database when it is requested for the first time.
+ * The group of an image is discarded when an image event is fired, and the entire index is discarded
+ * when an existing image is updated, because the update can move the image to another group.
+ * The index is discarded after the transaction that fired the event has completed,
+ * such that no uncommitted state is retained after a rollback.
+ * Image stub records are created without firing an event and are therefore announced by {@link #invalidate(ElementRoleName, ImageType, ImageName)}.
+ * </p>
+ * <p>
+ * Every modification replaces the current generation of the index. 
+ * A loaded group is added to the generation that was current when loading started,
+ * such that a group loaded concurrently to a modification is never added to the current generation.
+ * </p>
+ * <p>
+ * Image events are only observed by the application node that fired them.
+ * Images stored, revoked or created as stub record on another application node are therefore not announced to this index.
+ * A group is reloaded from the database when it is older than {@link #MAX_GROUP_AGE_MILLIS},
+ * i.e. the available updates reported by an application node lag behind the modifications made on another node
+ * for at most {@link #MAX_GROUP_AGE_MILLIS} milliseconds.
+ * </p>
+ * @see ElementImageManager
+ */
+@ApplicationScoped
+public class ImageVersionIndex {
+
+	/** Maximum age of a loaded group in milliseconds.*/
+	static final long MAX_GROUP_AGE_MILLIS = SECONDS.toMillis(30);
+
+	/**
+	 * Orders versions the same way the database orders the version columns of an image.
+	 * Releases are newer than all pre-releases of the same version.
+	 */
+	static final Comparator<Version> VERSION_ORDER = Comparator.comparingInt(Version::getMajorLevel)
+															   .thenComparingInt(Version::getMinorLevel)
+															   .thenComparingInt(Version::getPatchLevel)
+															   .thenComparing(v -> prerelease(v));
+
+	/**
+	 * An indexed image.
+	 */
+	static final class IndexedImage {
+
+		private final ImageId imageId;
+		private final Version imageVersion;
+		private final Date buildDate;
+		private final Long elementId;
+
+		IndexedImage(Image image){
+			this.imageId = image.getImageId();
+			this.imageVersion = image.getImageVersion();
+			this.buildDate = image.getBuildDate();
+			this.elementId = image.getElement() != null ? image.getElement().getId() : null;
+		}
+
+		ImageId getImageId() {
+			return imageId;
+		}
+
+		Version getImageVersion() {
+			return imageVersion;
+		}
+
+		Date getBuildDate() {
+			return buildDate;
+		}
+
+		boolean isAvailableFor(Element element) {
+			return elementId == null || (element != null && elementId.equals(element.getId()));
+		}
+
+	}
+
+	private static final class ImageKey {
+
+		private final ElementRoleName role;
+		private final ImageType type;
+		private final ImageName name;
+
+		ImageKey(ElementRoleName role, ImageType type, ImageName name){
+			this.role = role;
+			this.type = type;
+			this.name = name;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(o == this) {
+				return true;
+			}
+			if(o == null || o.getClass() != getClass()) {
+				return false;
+			}
+			ImageKey key = (ImageKey) o;
+			return Objects.equals(role, key.role)
+				   && Objects.equals(type, key.type)
+				   && Objects.equals(name, key.name);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(role,type,name);
+		}
+	}
+
+	/**
+	 * The images of an element role, image type and image name grouped by platform.
+	 */
+	private static final class Group {
+		private final long loaded = currentTimeMillis();
+		private final Map<Long,NavigableMap<Version,List<IndexedImage>>> platforms;
+
+		Group(Map<Long,NavigableMap<Version,List<IndexedImage>>> platforms){
+			this.platforms = platforms;
+		}
+
+		boolean isExpired(long maxAgeMillis) {
+			return currentTimeMillis() - loaded >= maxAgeMillis;
+		}
+	}
+
+	private final AtomicReference<Map<ImageKey,Group>> index = new AtomicReference<>(new ConcurrentHashMap<>());
+	private final long maxGroupAgeMillis;
+
+	public ImageVersionIndex() {
+		this(MAX_GROUP_AGE_MILLIS);
+	}
+
+	ImageVersionIndex(long maxGroupAgeMillis){
+		this.maxGroupAgeMillis = maxGroupAgeMillis;
+	}
+
+	/**
+	 * Returns all images of the same platform, element role, image type and image name that have a newer version than the given image
+	 * and are either available for all elements or exclusively for the given element.
+	 * @param image the installed image
+	 * @param element the element
+	 * @param images loads all images of the element role, image type and image name of the installed image that are not revoked,
+	 * if the index does not contain them yet.
+	 * @return the available updates ordered by descending version.
+	 */
+	List<IndexedImage> findUpdates(Image image,
+								   Element element,
+								   Supplier<List<Image>> images){
+		ImageKey key = new ImageKey(image.getElementRoleName(),
+									image.getImageType(),
+									image.getImageName());
+		Map<ImageKey,Group> generation = index.get();
+		Group group = generation.get(key);
+		if(group == null || group.isExpired(maxGroupAgeMillis)) {
+			Group loaded = new Group(load(images.get()));
+			// A group modified while loading is added to an outdated generation and hence not retained.
+			if(group == null) {
+				generation.putIfAbsent(key, loaded);
+			} else {
+				generation.replace(key, group, loaded);
+			}
+			group = loaded;
+		}
+		NavigableMap<Version,List<IndexedImage>> versions = group.platforms.get(image.getPlatform().getId());
+		if(versions == null) {
+			return new LinkedList<>();
+		}
+		List<IndexedImage> updates = new LinkedList<>();
+		for(List<IndexedImage> candidates : versions.tailMap(image.getImageVersion(),false).descendingMap().values()) {
+			for(IndexedImage candidate : candidates) {
+				if(candidate.isAvailableFor(element)) {
+					updates.add(candidate);
+				}
+			}
+		}
+		return updates;
+	}
+
+	private static Map<Long,NavigableMap<Version,List<IndexedImage>>> load(List<Image> images){
+		Map<Long,NavigableMap<Version,List<IndexedImage>>> platforms = new HashMap<>();
+		for(Image image : images) {
+			if(image.getImageState() == REVOKED) {
+				continue;
+			}
+			platforms.computeIfAbsent(image.getPlatform().getId(), k -> new TreeMap<>(VERSION_ORDER))
+					 .computeIfAbsent(image.getImageVersion(), k -> new ArrayList<>())
+					 .add(new IndexedImage(image));
+		}
+		for(NavigableMap<Version,List<IndexedImage>> versions : platforms.values()) {
+			versions.replaceAll((version,candidates) -> unmodifiableList(candidates));
+		}
+		return platforms;
+	}
+
+	public void onImageEvent(@Observes(during=AFTER_COMPLETION) ImageEvent event) {
+		if(event instanceof ImageStoredEvent) {
+			index.set(new ConcurrentHashMap<>());
+			return;
+		}
+		invalidate(event.getElementRole(),
+				   event.getImageType(),
+				   event.getImageName());
+	}
+	
+	/**
+	 * Discards the group of the given element role, image type and image name.
+	 * @param role the element role
+	 * @param type the image type
+	 * @param name the image name
+	 */
+	void invalidate(ElementRoleName role, ImageType type, ImageName name) {
+		ImageKey key = new ImageKey(role, type, name);
+		index.updateAndGet(generation -> {
+			Map<ImageKey,Group> next = new ConcurrentHashMap<>(generation);
+			next.remove(key);
+			return next;
+		});
+	}
+
+	int size() {
+		return index.get().size();
+	}
+
+}
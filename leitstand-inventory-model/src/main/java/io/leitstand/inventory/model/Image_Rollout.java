@@ -0,0 +1,152 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.commons.db.DatabaseService.prepare;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+import io.leitstand.commons.db.StatementPreparator;
+import io.leitstand.commons.model.Query;
+import io.leitstand.commons.model.Update;
+
+/**
+ * Counts the elements of an element group that run or cache an image.
+ * <p>
+ * The counters are maintained by the {@link ElementImageManager} whenever the installed images of an element are modified,
+ * and by the {@link ImageRolloutManager} when an element is moved to another group or removed from the inventory.
+ * Counters are updated by a single statement that adds the change to the current value, 
+ * such that concurrent element registrations do not overwrite each other.
+ * The counter refers to the image and the group by their internal IDs without a foreign key, 
+ * because a counter is created in a subtransaction that cannot see uncommitted images.
+ * </p>
+ * @see Element_Image
+ * @see ImageRolloutInitializer
+ */
+@Entity
+@Table(schema="inventory", name="image_rollout")
+@IdClass(Image_RolloutPK.class)
+@NamedQuery(name="Image_Rollout.findRollout",
+			query="SELECT r FROM Image_Rollout r WHERE r.imageId=:image AND r.groupId=:group")
+@NamedQuery(name="Image_Rollout.updateRollout",
+			query="UPDATE Image_Rollout r SET r.active=r.active+:active, r.cached=r.cached+:cached "+
+				  "WHERE r.imageId=:image AND r.groupId=:group")
+@NamedQuery(name="Image_Rollout.removeImageRollouts",
+			query="DELETE FROM Image_Rollout r WHERE r.imageId=:image")
+@NamedQuery(name="Image_Rollout.removeGroupRollouts",
+			query="DELETE FROM Image_Rollout r WHERE r.groupId=:group")
+public class Image_Rollout {
+	
+	private static final String COUNT_ROLLOUTS = "INSERT INTO inventory.image_rollout (image_id, elementgroup_id, active, cached) "+
+												"SELECT ei.image_id, e.elementgroup_id, "+
+												"SUM(CASE WHEN ei.state='ACTIVE' THEN 1 ELSE 0 END), "+
+												"SUM(CASE WHEN ei.state='CACHED' THEN 1 ELSE 0 END) "+
+												"FROM inventory.element_image ei "+
+												"JOIN inventory.element e "+
+												"ON e.id = ei.element_id ";
+	
+	public static Query<Image_Rollout> findRollout(Long imageId, Long groupId){
+		return em -> em.createNamedQuery("Image_Rollout.findRollout",Image_Rollout.class)
+					   .setParameter("image", imageId)
+					   .setParameter("group", groupId)
+					   .getSingleResult();
+	}
+	
+	public static Update updateRollout(Long imageId, 
+									   Long groupId, 
+									   int active, 
+									   int cached) {
+		return em -> em.createNamedQuery("Image_Rollout.updateRollout",int.class)
+					   .setParameter("image", imageId)
+					   .setParameter("group", groupId)
+					   .setParameter("active", active)
+					   .setParameter("cached", cached)
+					   .executeUpdate();
+	}
+	
+	public static Update removeImageRollouts(Image image) {
+		return em -> em.createNamedQuery("Image_Rollout.removeImageRollouts",int.class)
+					   .setParameter("image", image.getId())
+					   .executeUpdate();
+	}
+	
+	public static Update removeGroupRollouts(ElementGroup group) {
+		return em -> em.createNamedQuery("Image_Rollout.removeGroupRollouts",int.class)
+					   .setParameter("group", group.getId())
+					   .executeUpdate();
+	}
+	
+	/**
+	 * Returns a statement to count the installed images of all groups, if no counters exist yet.
+	 * @return the statement to initialize the counters
+	 */
+	static StatementPreparator initializeRollouts() {
+		return prepare(COUNT_ROLLOUTS+
+					   "WHERE NOT EXISTS (SELECT 1 FROM inventory.image_rollout) "+
+					   "GROUP BY ei.image_id, e.elementgroup_id");
+	}
+	
+	/**
+	 * Returns a statement to remove all counters.
+	 * @return the statement to remove all counters
+	 * @see #countRollouts()
+	 */
+	static StatementPreparator removeAllRollouts() {
+		return prepare("DELETE FROM inventory.image_rollout");
+	}
+	
+	/**
+	 * Returns a statement to count the installed images of all groups.
+	 * The statement must be executed after all counters have been removed.
+	 * @return the statement to recount all counters
+	 * @see #removeAllRollouts()
+	 */
+	static StatementPreparator countRollouts() {
+		return prepare(COUNT_ROLLOUTS+
+					   "GROUP BY ei.image_id, e.elementgroup_id");
+	}
+	
+	@Id
+	@Column(name="image_id")
+	private Long imageId;
+	
+	@Id
+	@Column(name="elementgroup_id")
+	private Long groupId;
+	
+	private int active;
+	
+	private int cached;
+	
+	protected Image_Rollout() {
+		// JPA
+	}
+	
+	protected Image_Rollout(Long imageId, Long groupId) {
+		this.imageId = imageId;
+		this.groupId = groupId;
+	}
+	
+	public Long getImageId() {
+		return imageId;
+	}
+	
+	public Long getGroupId() {
+		return groupId;
+	}
+	
+	public int getActiveCount() {
+		return active;
+	}
+	
+	public int getCachedCount() {
+		return cached;
+	}
+	
+}
@@ -0,0 +1,46 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class Image_RolloutPK implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Long imageId;
+	private Long groupId;
+	
+	public Image_RolloutPK() {
+		// JPA
+	}
+	
+	public Image_RolloutPK(Long imageId, Long groupId) {
+		this.imageId = imageId;
+		this.groupId = groupId;
+	}
+	
+	@Override
+	public int hashCode() {
+		return Objects.hash(imageId,groupId);
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if(o == null) {
+			return false;
+		}
+		if(o == this) {
+			return true;
+		}
+		if(o.getClass() != getClass()) {
+			return false;
+		}
+		Image_RolloutPK pk = (Image_RolloutPK) o;
+		return Objects.equals(imageId, pk.imageId)
+			   && Objects.equals(groupId, pk.groupId);
+	}
+	
+}
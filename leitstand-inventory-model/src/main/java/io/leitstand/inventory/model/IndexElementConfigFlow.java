@@ -0,0 +1,66 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.Element_Config.findElementConfig;
+import static io.leitstand.inventory.model.Element_ConfigTerm.removeStaleTerms;
+import static io.leitstand.inventory.model.Element_ConfigTerm.removeTerms;
+import static io.leitstand.inventory.service.ConfigurationState.SUPERSEDED;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.Flow;
+import io.leitstand.inventory.service.ElementConfigId;
+
+/**
+ * Indexes a stored element configuration revision in a separate transaction.
+ * <p>
+ * The revision is indexed after the transaction that stored the revision has been committed,
+ * such that indexing does not add latency and lock time to the configuration upload.
+ * The flow reads the current state of the revision and is therefore idempotent.
+ * @see ElementConfigIndexer
+ */
+class IndexElementConfigFlow implements Flow<Void>{
+
+	private ElementConfigId configId;
+	
+	/**
+	 * Create a <code>IndexElementConfigFlow</code>.
+	 * @param configId - the ID of the stored revision
+	 */
+	IndexElementConfigFlow(ElementConfigId configId) {
+		this.configId = configId;
+	}
+	
+	/**
+	 * Replaces the index entries of the revision and removes the entries of superseded revisions of the same element.
+	 * <p>
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void transaction(Repository repository) {
+		Element_Config config = repository.execute(findElementConfig(configId));
+		if(config == null) {
+			// Revision removed in the meantime.
+			return;
+		}
+		// A candidate configuration is updated in place and becomes the active configuration when confirmed by the element.
+		repository.execute(removeTerms(configId));
+		if(config.getConfigState() != SUPERSEDED) {
+			ElementConfigIndexer.index(repository, config);
+		}
+		// Remove the revision superseded by the stored revision.
+		repository.execute(removeStaleTerms(config.getElement()));
+	}
+	
+	/**
+	 * Returns <code>null</code>, since the index entries are not needed by the resumed transaction.
+	 * <p>
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Void resume(Repository repository) {
+		return null;
+	}
+	
+}
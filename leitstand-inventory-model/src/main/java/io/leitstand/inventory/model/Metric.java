@@ -38,6 +38,7 @@ import io.leitstand.inventory.service.MetricScope;
 
 @Entity
 @Table(schema="inventory", name="metric")
+@NamedQuery(name="Metric.findAll", query="SELECT m FROM Metric m")
 @NamedQuery(name="Metric.findById", query="SELECT m FROM Metric m WHERE m.uuid=:id")
 @NamedQuery(name="Metric.findByName", query="SELECT m FROM Metric m WHERE m.name=:name")
 @NamedQuery(name="Metric.findByNameFilterAndScope", query="SELECT m FROM Metric m WHERE m.name REGEXP :filter AND m.scope=:scope")
@@ -47,6 +48,11 @@ public class Metric extends VersionableEntity{
 	private static final long serialVersionUID = 1L;
 	
 
+	public static Query<List<Metric>> findAllMetrics() {
+		return em -> em.createNamedQuery("Metric.findAll",Metric.class)
+					   .getResultList();
+	}
+	
 	public static Query<Metric> findMetricById(MetricId metricId) {
 		return em -> em.createNamedQuery("Metric.findById",Metric.class)
 					   .setParameter("id", MetricId.toString(metricId))
@@ -3,6 +3,7 @@
  */
 package io.leitstand.inventory.model;
 
+import static io.leitstand.inventory.model.Metric.findMetricById;
 import static io.leitstand.inventory.model.Metric.findMetricByName;
 import static io.leitstand.inventory.service.ReasonCode.IVT0600E_METRIC_NOT_FOUND;
 import static java.lang.String.format;
@@ -23,10 +24,16 @@ class MetricProvider {
 	private static final Logger LOG = Logger.getLogger(MetricProvider.class.getName());
 
 	private Repository repository;
+	private ReferenceCatalog catalog;
 
+	protected MetricProvider(Repository repository) {
+		this(repository, new ReferenceCatalog());
+	}
+	
 	@Inject
-	protected MetricProvider(@Inventory Repository repository){
+	protected MetricProvider(@Inventory Repository repository, ReferenceCatalog catalog){
 		this.repository = repository;
+		this.catalog = catalog;
 	}
 	
 	protected MetricProvider() {
@@ -34,7 +41,10 @@ class MetricProvider {
 	}
 
 	public Metric tryFetchMetric(MetricName metricName) {
-		return repository.execute(findMetricByName(metricName));
+		return catalog.fetch(repository, 
+							 Metric.class, 
+							 metricName, 
+							 findMetricByName(metricName));
 	}
 	
 	public Metric fetchMetric(MetricName metricName) {
@@ -50,7 +60,18 @@ class MetricProvider {
 	}
 	
 	public Metric tryFetchMetric(MetricId metricId) {
-		return repository.execute(Metric.findMetricById(metricId));
+		return catalog.fetch(repository, 
+							 Metric.class, 
+							 metricId, 
+							 findMetricById(metricId));
+	}
+	
+	/**
+	 * Discards all cached metrics. 
+	 * Must be called when a metric is modified or removed.
+	 */
+	public void invalidate() {
+		catalog.invalidate(Metric.class);
 	}
 	
 
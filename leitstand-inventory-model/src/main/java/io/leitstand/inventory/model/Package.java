@@ -7,6 +7,7 @@ import static io.leitstand.inventory.service.ReasonCode.IVT0511E_PACKAGE_VERSION
 import static java.util.Collections.unmodifiableList;
 import static javax.persistence.CascadeType.ALL;
 
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -16,6 +17,7 @@ import javax.persistence.LockModeType;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
 import io.leitstand.commons.ConflictException;
 import io.leitstand.commons.model.Query;
@@ -23,9 +25,13 @@ import io.leitstand.commons.model.VersionableEntity;
 import io.leitstand.inventory.service.Version;
 
 @Entity
-@Table(schema="inventory", name="package")
+@Table(schema="inventory", 
+	   name="package",
+	   uniqueConstraints=@UniqueConstraint(columnNames={"org","name","ext"}))
 @NamedQuery(name="Package.findByName", 
 			query="SELECT p FROM Package p WHERE p.org=:org AND p.name=:name AND p.ext=:ext")
+@NamedQuery(name="Package.findByNames", 
+			query="SELECT p FROM Package p WHERE p.org IN :orgs AND p.name IN :names ORDER BY p.id")
 public class Package extends VersionableEntity{
 
 	private static final long serialVersionUID = 1L;
@@ -40,6 +46,25 @@ public class Package extends VersionableEntity{
 		
 	}
 	
+	/**
+	 * Returns all packages of the given organizations and names, ordered by their primary key.
+	 * The result is a superset of the requested packages, which must be matched by the caller.
+	 * The order ensures that concurrent transactions lock the packages in the same order.
+	 * @param orgs the package organizations
+	 * @param names the package names
+	 * @param locking the lock mode
+	 * @return the matching packages ordered by their primary key.
+	 */
+	public static Query<List<Package>> findByNames(Collection<String> orgs, 
+												   Collection<String> names, 
+												   LockModeType locking) {
+		return em -> em.createNamedQuery("Package.findByNames",Package.class)
+					   .setParameter("orgs",orgs)
+					   .setParameter("names",names)
+					   .setLockMode(locking)
+					   .getResultList();
+	}
+	
 	@Column(nullable=false, length=64)
 	private String org; // e.g. net.rtbrick.bgp , e.g. net.rtbrick.isis
 
@@ -9,6 +9,7 @@ import static java.util.Collections.unmodifiableList;
 import static javax.persistence.TemporalType.TIMESTAMP;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -47,6 +48,16 @@ import io.leitstand.inventory.service.Version;
 				  "AND p.minor=:minor "+
 				  "AND p.patch=:patch "+
 				  "AND p.prerelease=:prerelease")
+@NamedQuery(name="PackageVersion.findByNamesAndVersions", 
+			query="SELECT p FROM PackageVersion p "+
+				  "JOIN FETCH p.pkg "+
+				  "WHERE p.pkg.org IN :orgs "+
+				  "AND p.pkg.name IN :names "+
+				  "AND p.major IN :majors "+
+				  "AND p.minor IN :minors "+
+				  "AND p.patch IN :patches")
+@NamedQuery(name="PackageVersion.exportChecksums", 
+			query="SELECT p.id, c.algorithm, c.value FROM PackageVersion p JOIN p.checksums c WHERE p.id IN :ids")
 public class PackageVersion extends VersionableEntity {
 	
 	private static final long serialVersionUID = 1L;
@@ -73,6 +84,42 @@ public class PackageVersion extends VersionableEntity {
 					   .getSingleResult();
 	}
 
+	/**
+	 * Returns the package versions of the given organizations, package names and version levels.
+	 * The result is a superset of the requested package versions, which must be matched by the caller.
+	 * @param orgs the package organizations
+	 * @param names the package names
+	 * @param majors the major version levels
+	 * @param minors the minor version levels
+	 * @param patches the patch version levels
+	 * @return the matching package versions.
+	 */
+	public static Query<List<PackageVersion>> findPackageVersions(Collection<String> orgs,
+																  Collection<String> names,
+																  Collection<Integer> majors,
+																  Collection<Integer> minors,
+																  Collection<Integer> patches){
+		return em -> em.createNamedQuery("PackageVersion.findByNamesAndVersions",
+										 PackageVersion.class)
+					   .setParameter("orgs",orgs)
+					   .setParameter("names",names)
+					   .setParameter("majors",majors)
+					   .setParameter("minors",minors)
+					   .setParameter("patches",patches)
+					   .getResultList();
+	}
+	
+	/**
+	 * Reads the checksums of the given package versions.
+	 * @param ids the primary keys of the package versions
+	 * @return one row per package version and checksum with the package version ID, the algorithm and the checksum value
+	 */
+	public static Query<List<Object[]>> exportChecksums(Collection<Long> ids){
+		return em -> em.createNamedQuery("PackageVersion.exportChecksums",Object[].class)
+					   .setParameter("ids",ids)
+					   .getResultList();
+	}
+	
 	@ManyToOne
 	@JoinColumn(name="package_id", nullable=false)
 	private Package pkg;
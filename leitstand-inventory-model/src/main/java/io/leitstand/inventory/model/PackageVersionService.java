@@ -5,19 +5,85 @@ package io.leitstand.inventory.model;
 
 import static io.leitstand.inventory.model.Checksum.newChecksum;
 import static io.leitstand.inventory.model.Package.findByName;
+import static io.leitstand.inventory.model.Package.findByNames;
 import static io.leitstand.inventory.model.PackageVersion.findPackageVersion;
+import static io.leitstand.inventory.model.PackageVersion.findPackageVersions;
+import static io.leitstand.inventory.service.ReasonCode.IVT0512E_PACKAGE_VERSIONS_NOT_CREATED;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static javax.persistence.LockModeType.PESSIMISTIC_WRITE;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Logger;
 
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
 import javax.persistence.LockModeType;
 
+import io.leitstand.commons.ConflictException;
 import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.SubtransactionService;
 import io.leitstand.inventory.service.PackageVersionInfo;
 import io.leitstand.inventory.service.Version;
 
 @Dependent
 class PackageVersionService{
+	
+	private static final Logger LOG = Logger.getLogger(PackageVersionService.class.getName());
+
+	/**
+	 * Number of attempts to create missing package versions. 
+	 * A new attempt is made if a concurrent transaction created the same package in the meantime.
+	 */
+	private static final int MAX_CREATE_ATTEMPTS = 3;
+	
+	static List<Object> packageKey(String org, String name, String ext){
+		return asList(org,name,ext);
+	}
+	
+	static List<Object> packageVersionKey(String org, String name, Version rev){
+		return asList(org,name,rev);
+	}
+	
+	private static List<Object> packageVersionKey(PackageVersionInfo info){
+		return packageVersionKey(info.getOrganization(),
+								 info.getPackageName(),
+								 info.getPackageVersion());
+	}
+	
+	private static List<Object> packageVersionKey(PackageVersion version){
+		return packageVersionKey(version.getOrganization(),
+								 version.getPackageName(),
+								 version.getPackageVersion());
+	}
+	
+	private static List<Checksum> checksums(PackageVersionInfo info){
+		return info.getChecksums()
+				   .entrySet()
+				   .stream()
+				   .map(c -> newChecksum()
+						   	 .withAlgorithm(Checksum.Algorithm.valueOf(c.getKey()))
+						   	 .withValue(c.getValue())
+						   	 .build())
+				   .collect(toList());
+	}
+	
+	private static Map<String,String> checksums(PackageVersion version){
+		return version.getChecksums()
+					  .stream()
+					  .collect(toMap(c -> c.getAlgorithm().name(), 
+							  		 Checksum::getValue));
+	}
 
 	private Repository repository;
 
@@ -66,6 +132,151 @@ class PackageVersionService{
 		return revision;
 	}
 	
+	/**
+	 * Resolves all package versions of an image.
+	 * <p>
+	 * All existing package versions are read by a single query. 
+	 * The missing package versions and packages are created in a subtransaction, 
+	 * such that concurrent image registrations neither lock nor modify the shared package records in their own transaction.
+	 * The subtransaction locks the packages the new versions are added to, in the order of their primary keys,
+	 * and verifies again which versions are missing before it creates them.
+	 * Hence, concurrent registrations only wait for each other if they create the same new package versions.
+	 * The build date and the checksums of an existing package version are only updated if they were modified.
+	 * </p>
+	 * @param transaction the subtransaction service to create the missing package versions
+	 * @param infos the package versions of the image
+	 * @return the package versions in the order of the given package version information
+	 */
+	public List<PackageVersion> storePackageVersions(SubtransactionService transaction, 
+													 List<PackageVersionInfo> infos){
+		Map<List<Object>,PackageVersionInfo> requested = new LinkedHashMap<>();
+		for(PackageVersionInfo info : infos) {
+			requested.put(packageVersionKey(info),info);
+		}
+		
+		Map<List<Object>,PackageVersion> versions = readPackageVersions(repository, requested.values());
+		for(int attempt=1; attempt <= MAX_CREATE_ATTEMPTS && versions.size() < requested.size(); attempt++) {
+			List<PackageVersionInfo> missing = new ArrayList<>();
+			for(Map.Entry<List<Object>,PackageVersionInfo> entry : requested.entrySet()) {
+				if(!versions.containsKey(entry.getKey())) {
+					missing.add(entry.getValue());
+				}
+			}
+			try {
+				versions = transaction.run(create -> createPackageVersions(create, missing), 
+										   resume -> readPackageVersions(resume, requested.values()));
+			} catch (RuntimeException e) {
+				if(attempt >= MAX_CREATE_ATTEMPTS) {
+					throw e;
+				}
+				LOG.fine(() -> "Concurrent creation of package versions detected: "+e.getMessage());
+				versions = readPackageVersions(repository, requested.values());
+			}
+		}
+		
+		if(versions.size() < requested.size()) {
+			List<String> missing = new ArrayList<>();
+			for(Map.Entry<List<Object>,PackageVersionInfo> entry : requested.entrySet()) {
+				if(!versions.containsKey(entry.getKey())) {
+					PackageVersionInfo info = entry.getValue();
+					missing.add(info.getOrganization()+"."+info.getPackageName()+"-"+info.getPackageVersion());
+				}
+			}
+			LOG.fine(() -> format("%s: Package versions %s could not be created after %d attempts.",
+								  IVT0512E_PACKAGE_VERSIONS_NOT_CREATED.getReasonCode(),
+								  missing,
+								  MAX_CREATE_ATTEMPTS));
+			throw new ConflictException(IVT0512E_PACKAGE_VERSIONS_NOT_CREATED, 
+										missing,
+										MAX_CREATE_ATTEMPTS);
+		}
+		
+		List<PackageVersion> resolved = new ArrayList<>(infos.size());
+		for(PackageVersionInfo info : infos) {
+			PackageVersion version = versions.get(packageVersionKey(info));
+			if(!Objects.equals(version.getBuildDate(),info.getBuildDate())) {
+				version.setBuildDate(info.getBuildDate());
+			}
+			if(!checksums(version).equals(info.getChecksums())) {
+				version.setChecksums(checksums(info));
+			}
+			resolved.add(version);
+		}
+		return resolved;
+	}
+	
+	private static Map<List<Object>,PackageVersion> readPackageVersions(Repository repository, 
+																		Collection<PackageVersionInfo> infos){
+		Set<String> orgs = new HashSet<>();
+		Set<String> names = new HashSet<>();
+		Set<Integer> majors = new HashSet<>();
+		Set<Integer> minors = new HashSet<>();
+		Set<Integer> patches = new HashSet<>();
+		Set<List<Object>> keys = new HashSet<>();
+		for(PackageVersionInfo info : infos) {
+			orgs.add(info.getOrganization());
+			names.add(info.getPackageName());
+			majors.add(info.getPackageVersion().getMajorLevel());
+			minors.add(info.getPackageVersion().getMinorLevel());
+			patches.add(info.getPackageVersion().getPatchLevel());
+			keys.add(packageVersionKey(info));
+		}
+		Map<List<Object>,PackageVersion> versions = new HashMap<>();
+		if(keys.isEmpty()) {
+			return versions;
+		}
+		// The query returns a superset of the requested versions.
+		for(PackageVersion version : repository.execute(findPackageVersions(orgs, names, majors, minors, patches))) {
+			List<Object> key = packageVersionKey(version);
+			if(keys.contains(key)) {
+				versions.put(key, version);
+			}
+		}
+		return versions;
+	}
+	
+	private static void createPackageVersions(Repository repository, List<PackageVersionInfo> missing) {
+		Set<String> orgs = new HashSet<>();
+		Set<String> names = new HashSet<>();
+		for(PackageVersionInfo info : missing) {
+			orgs.add(info.getOrganization());
+			names.add(info.getPackageName());
+		}
+		
+		// Lock the existing packages in the order of their primary keys to avoid deadlocks.
+		Map<List<Object>,Package> packages = new HashMap<>();
+		for(Package pkg : repository.execute(findByNames(orgs, names, PESSIMISTIC_WRITE))) {
+			packages.put(packageKey(pkg.getOrganization(),
+									pkg.getPackageName(),
+									pkg.getPackageExtension()), 
+						 pkg);
+		}
+		
+		// Verify again which versions are missing, now that the packages are locked.
+		Map<List<Object>,PackageVersion> existing = readPackageVersions(repository, missing);
+		for(PackageVersionInfo info : missing) {
+			if(existing.containsKey(packageVersionKey(info))) {
+				continue;
+			}
+			List<Object> key = packageKey(info.getOrganization(),
+										  info.getPackageName(),
+										  info.getPackageExtension());
+			Package pkg = packages.get(key);
+			if(pkg == null) {
+				pkg = new Package(info.getOrganization(),
+								  info.getPackageName(),
+								  info.getPackageExtension());
+				repository.add(pkg);
+				packages.put(key, pkg);
+			}
+			PackageVersion version = new PackageVersion(pkg,info.getPackageVersion());
+			version.setBuildDate(info.getBuildDate());
+			version.setChecksums(checksums(info));
+			repository.add(version);
+			existing.put(packageVersionKey(info), version);
+		}
+	}
+	
 	public void removePackageVersion(String org, String name, Version rev){
 		PackageVersion revision = repository.execute(findPackageVersion(org, name, rev));
 		if(revision == null){
@@ -3,10 +3,13 @@
  */
 package io.leitstand.inventory.model;
 
+import static io.leitstand.inventory.model.Platform.findByPlatformId;
 import static io.leitstand.inventory.model.Platform.findByVendor;
 import static io.leitstand.inventory.service.ReasonCode.IVT0900E_PLATFORM_NOT_FOUND;
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 
+import java.util.List;
 import java.util.logging.Logger;
 
 import javax.enterprise.context.Dependent;
@@ -22,19 +25,47 @@ public class PlatformProvider {
 	
 	private static final Logger LOG = Logger.getLogger(PlatformProvider.class.getName());
 
+	static List<String> platformKey(String vendor, String model){
+		return asList(vendor,model);
+	}
+	
 	private Repository repository;
+	private ReferenceCatalog catalog;
 	
 	protected PlatformProvider() {
 		// CDI
 	}
 	
+	protected PlatformProvider(Repository repository) {
+		this(repository, new ReferenceCatalog());
+	}
+	
 	@Inject
-	protected PlatformProvider(@Inventory Repository repository) {
+	protected PlatformProvider(@Inventory Repository repository, ReferenceCatalog catalog) {
 		this.repository = repository;
+		this.catalog = catalog;
 	}
 	
 	public Platform tryFetchPlatform(ElementPlatformInfo info) {
-		return repository.execute(findByVendor(info));
+		return catalog.fetch(repository, 
+							 Platform.class, 
+							 platformKey(info.getVendorName(),info.getModelName()), 
+							 findByVendor(info));
+	}
+	
+	public Platform tryFetchPlatform(PlatformId platformId) {
+		return catalog.fetch(repository,
+							 Platform.class,
+							 platformId,
+							 findByPlatformId(platformId));
+	}
+	
+	/**
+	 * Discards all cached platforms. 
+	 * Must be called when a platform is modified or removed.
+	 */
+	public void invalidate() {
+		catalog.invalidate(Platform.class);
 	}
 	
 	public Platform fetchPlatform(ElementPlatformInfo info) {
@@ -53,7 +84,7 @@ public class PlatformProvider {
 	}
 	
 	public Platform fetchPlatform(PlatformId platformId) {
-		Platform platform = repository.execute(Platform.findByPlatformId(platformId));
+		Platform platform = tryFetchPlatform(platformId);
 		if(platform == null) {
 			LOG.fine(() -> format("%s: Platform %s does not exist!", 
 							IVT0900E_PLATFORM_NOT_FOUND.getReasonCode(),
@@ -0,0 +1,131 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static java.lang.System.currentTimeMillis;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import io.leitstand.commons.model.AbstractEntity;
+import io.leitstand.commons.model.Query;
+import io.leitstand.commons.model.Repository;
+
+/**
+ * A cache of the rarely modified reference entities, i.e. platforms, element roles, applications and metrics.
+ * <p>
+ * The catalog maps the natural keys of a reference entity, like the platform ID or the vendor and model name, to the
+ * primary key of the entity. A cached entity is returned as entity reference obtained from the primary key,
+ * which does not read the entity from the database unless an attribute other than the primary key is accessed.
+ * Entities are not retained across transactions, because the shared cache of the persistence unit is disabled.
+ * </p>
+ * <p>
+ * Every entity type has its own catalog version, which is incremented when the catalog is invalidated.
+ * A mapping loaded while the catalog was invalidated is discarded.
+ * A cached mapping expires after {@link #MAPPING_TTL_MILLIS} milliseconds, such that a renamed or removed entity
+ * is looked up again by its natural key, if the modification was made by another node.
+ * </p>
+ * @see ReferenceCatalogService
+ */
+@ApplicationScoped
+public class ReferenceCatalog {
+
+	/** Maximum age of a cached mapping in milliseconds.*/
+	static final long MAPPING_TTL_MILLIS = 60_000;
+	
+	private static final class Mapping {
+		private final Long id;
+		private final long expires;
+		
+		Mapping(Long id, long expires){
+			this.id = id;
+			this.expires = expires;
+		}
+	}
+	
+	private static final class Catalog {
+		private final AtomicLong version = new AtomicLong();
+		private final Map<Object,Mapping> ids = new ConcurrentHashMap<>();
+	}
+
+	private final Map<Class<?>,Catalog> catalogs = new ConcurrentHashMap<>();
+
+	private Catalog catalog(Class<?> type) {
+		return catalogs.computeIfAbsent(type, k -> new Catalog());
+	}
+
+	/**
+	 * Fetches a reference entity by a natural key.
+	 * @param repository the repository to read the entity from
+	 * @param type the entity type
+	 * @param key the natural key
+	 * @param query reads the entity by the natural key if the catalog has no entry for the natural key
+	 * @return the entity or <code>null</code> if the entity does not exist.
+	 */
+	public <E extends AbstractEntity> E fetch(Repository repository,
+											  Class<E> type,
+											  Object key,
+											  Function<E,?> keyOf,
+											  Query<E> query) {
+		Catalog catalog = catalog(type);
+		Mapping mapping = catalog.ids.get(key);
+		if(mapping != null) {
+			if(currentTimeMillis() < mapping.expires) {
+				return repository.execute(em -> em.getReference(type, mapping.id));
+			}
+			// Expired mapping
+			catalog.ids.remove(key, mapping);
+		}
+		long version = catalog.version.get();
+		E entity = repository.execute(query);
+		if(entity != null) {
+			cache(type, version, key, entity);
+		}
+		return entity;
+	}
+
+	/**
+	 * Adds a reference entity to the catalog.
+	 * @param type the entity type
+	 * @param version the catalog version that was read before the entity was loaded
+	 * @param key the natural key of the entity
+	 * @param entity the entity
+	 */
+	public <E extends AbstractEntity> void cache(Class<E> type, long version, Object key, E entity) {
+		Catalog catalog = catalog(type);
+		if(entity.getId() == null || catalog.version.get() != version) {
+			// Entity not yet flushed or catalog invalidated while the entity was loaded.
+			return;
+		}
+		catalog.ids.put(key, new Mapping(entity.getId(),
+										 currentTimeMillis() + MAPPING_TTL_MILLIS));
+	}
+
+	/**
+	 * Returns the current catalog version of an entity type.
+	 * @param type the entity type
+	 * @return the current catalog version
+	 */
+	public long getVersion(Class<?> type) {
+		return catalog(type).version.get();
+	}
+
+	/**
+	 * Discards all cached entities of the given type.
+	 * @param type the entity type
+	 */
+	public void invalidate(Class<?> type) {
+		Catalog catalog = catalog(type);
+		catalog.version.incrementAndGet();
+		catalog.ids.clear();
+	}
+
+	int size(Class<?> type) {
+		return catalog(type).ids.size();
+	}
+
+}
@@ -0,0 +1,26 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import io.leitstand.commons.StartupListener;
+
+/**
+ * Loads the reference entity catalog on startup.
+ * @see ReferenceCatalogService
+ */
+@ApplicationScoped
+public class ReferenceCatalogInitializer implements StartupListener {
+
+	@Inject
+	private ReferenceCatalogService service;
+	
+	@Override
+	public void onStartup() {
+		service.loadReferenceCatalog();
+	}
+
+}
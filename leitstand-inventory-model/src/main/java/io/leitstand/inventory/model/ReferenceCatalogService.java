@@ -0,0 +1,75 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.Application.findAll;
+import static io.leitstand.inventory.model.ElementRole.findRoles;
+import static io.leitstand.inventory.model.Metric.findAllMetrics;
+import static io.leitstand.inventory.model.PlatformProvider.platformKey;
+import static io.leitstand.inventory.service.ReasonCode.IVT8006I_REFERENCE_CATALOG_LOADED;
+import static java.lang.String.format;
+
+import java.util.logging.Logger;
+
+import javax.inject.Inject;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.model.Service;
+
+/**
+ * Loads all reference entities into the {@link ReferenceCatalog}.
+ * @see ReferenceCatalogInitializer
+ */
+@Service
+public class ReferenceCatalogService {
+
+	private static final Logger LOG = Logger.getLogger(ReferenceCatalogService.class.getName());
+	
+	private Repository repository;
+	private ReferenceCatalog catalog;
+	
+	protected ReferenceCatalogService() {
+		// CDI
+	}
+	
+	@Inject
+	protected ReferenceCatalogService(@Inventory Repository repository, 
+									  ReferenceCatalog catalog) {
+		this.repository = repository;
+		this.catalog = catalog;
+	}
+	
+	public int loadReferenceCatalog() {
+		int count = 0;
+		long version = catalog.getVersion(Platform.class);
+		for(Platform platform : repository.execute(Platform.findAll())) {
+			catalog.cache(Platform.class, version, platform.getPlatformId(), platform);
+			catalog.cache(Platform.class, version, platformKey(platform.getVendor(),platform.getModel()), platform);
+			count++;
+		}
+		version = catalog.getVersion(ElementRole.class);
+		for(ElementRole role : repository.execute(findRoles())) {
+			catalog.cache(ElementRole.class, version, role.getRoleId(), role);
+			catalog.cache(ElementRole.class, version, role.getRoleName(), role);
+			count++;
+		}
+		version = catalog.getVersion(Metric.class);
+		for(Metric metric : repository.execute(findAllMetrics())) {
+			catalog.cache(Metric.class, version, metric.getMetricId(), metric);
+			catalog.cache(Metric.class, version, metric.getMetricName(), metric);
+			count++;
+		}
+		version = catalog.getVersion(Application.class);
+		for(Application application : repository.execute(findAll()).values()) {
+			catalog.cache(Application.class, version, application.getName(), application);
+			count++;
+		}
+		int loaded = count;
+		LOG.info(() -> format("%s: Loaded %d reference entities.",
+							  IVT8006I_REFERENCE_CATALOG_LOADED.getReasonCode(),
+							  loaded));
+		return loaded;
+	}
+	
+}
@@ -0,0 +1,58 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.ConfigBlob.findBlob;
+import static io.leitstand.inventory.model.ConfigBlob.findBlobForReference;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.Flow;
+
+/**
+ * Attempts to create a {@link ConfigBlob} in a separate transaction.
+ * <p>
+ * Many elements report the same configuration concurrently. 
+ * Creating the blob in a subtransaction averts that a concurrent creation of the same blob 
+ * rolls back the transaction that stores the element configuration.
+ */
+class StoreConfigBlobFlow implements Flow<ConfigBlob>{
+
+	private String digest;
+	private String content;
+	
+	/**
+	 * Create a <code>StoreConfigBlobFlow</code>.
+	 * @param digest - the content digest
+	 * @param content - the configuration
+	 */
+	StoreConfigBlobFlow(String digest, String content) {
+		this.digest = digest;
+		this.content = content;
+	}
+	
+	/**
+	 * Creates the blob unless the blob exists already.
+	 * <p>
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void transaction(Repository repository) {
+		ConfigBlob blob = repository.execute(findBlob(digest));
+		if(blob == null) {
+			repository.add(new ConfigBlob(digest,content));
+		}
+	}
+	
+	/**
+	 * Fetches the blob. 
+	 * Returns <code>null</code> if the blob does not exist.
+	 * The blob is attached to the resumed transaction and locked until the resumed transaction ends.
+	 * @return the attached blob entity.
+	 */
+	@Override
+	public ConfigBlob resume(Repository repository) {
+		return repository.execute(findBlobForReference(digest));
+	}
+	
+}
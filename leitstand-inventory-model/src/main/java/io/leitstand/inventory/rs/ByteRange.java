@@ -0,0 +1,132 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.rs;
+
+import static java.lang.Long.parseLong;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A single byte range of an HTTP <code>Range</code> request.
+ * <p>
+ * Multiple ranges are not supported.
+ * A request with multiple ranges is answered with the complete representation, as permitted by RFC 7233.
+ */
+final class ByteRange {
+
+	private static final String BYTES_UNIT = "bytes=";
+
+	/**
+	 * Parses a <code>Range</code> header.
+	 * @param range the <code>Range</code> header value
+	 * @param length the length of the representation in bytes
+	 * @return the requested byte range or <code>null</code> if the header is absent,
+	 * 		   malformed or specifies multiple ranges.
+	 */
+	static ByteRange byteRange(String range, long length) {
+		if(range == null || !range.startsWith(BYTES_UNIT) || range.indexOf(',') >= 0) {
+			return null;
+		}
+		String spec = range.substring(BYTES_UNIT.length()).trim();
+		int sep = spec.indexOf('-');
+		if(sep < 0) {
+			return null;
+		}
+		try {
+			String first = spec.substring(0,sep).trim();
+			String last  = spec.substring(sep+1).trim();
+			if(first.isEmpty()) {
+				// Suffix range, i.e. the last n bytes.
+				long suffix = parseLong(last);
+				return new ByteRange(max(0,length-suffix), length-1, length);
+			}
+			long from = parseLong(first);
+			long to = last.isEmpty() ? length-1 : min(parseLong(last),length-1);
+			if(to < from && from < length) {
+				return null;
+			}
+			return new ByteRange(from, to, length);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private final long first;
+	private final long last;
+	private final long length;
+
+	private ByteRange(long first, long last, long length) {
+		this.first = first;
+		this.last = last;
+		this.length = length;
+	}
+
+	/**
+	 * Returns whether the range can be satisfied by the representation.
+	 * @return <code>true</code> if the range overlaps the representation, <code>false</code> otherwise.
+	 */
+	boolean isSatisfiable() {
+		return first < length && first <= last;
+	}
+
+	/**
+	 * Returns the number of bytes in this range.
+	 * @return the number of bytes in this range.
+	 */
+	long getRangeLength() {
+		return last-first+1;
+	}
+
+	/**
+	 * Returns the <code>Content-Range</code> header value.
+	 * @return the <code>Content-Range</code> header value
+	 */
+	String getContentRange() {
+		if(isSatisfiable()) {
+			return format("bytes %d-%d/%d", first,last,length);
+		}
+		return format("bytes */%d", length);
+	}
+
+	/**
+	 * Returns an output stream that forwards the bytes in this range to the given stream and discards all other bytes.
+	 * @param out the response output stream
+	 * @return an output stream that writes the bytes in this range only.
+	 */
+	OutputStream slice(OutputStream out) {
+		return new FilterOutputStream(out) {
+
+			private long pos;
+
+			@Override
+			public void write(int b) throws IOException {
+				if(first <= pos && pos <= last) {
+					out.write(b);
+				}
+				pos++;
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				long from = max(pos,first);
+				long to = min(pos+len-1,last);
+				if(from <= to) {
+					out.write(b, off+(int)(from-pos), (int)(to-from+1));
+				}
+				pos+=len;
+			}
+		};
+	}
+
+	@Override
+	public String toString() {
+		return getContentRange();
+	}
+
+}
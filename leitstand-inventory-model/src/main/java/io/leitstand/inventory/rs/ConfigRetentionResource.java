@@ -0,0 +1,90 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.rs;
+
+import static io.leitstand.commons.rs.Responses.success;
+import static io.leitstand.security.auth.Role.ADMINISTRATOR;
+import static io.leitstand.security.auth.Role.OPERATOR;
+import static io.leitstand.security.auth.Role.SYSTEM;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.Response.noContent;
+import static javax.ws.rs.core.Response.ok;
+
+import java.util.List;
+
+import javax.annotation.security.RolesAllowed;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.validation.Valid;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+
+import io.leitstand.commons.messages.Messages;
+import io.leitstand.inventory.service.ConfigRetentionPolicy;
+import io.leitstand.inventory.service.ConfigRetentionReport;
+import io.leitstand.inventory.service.ConfigRetentionService;
+import io.leitstand.inventory.service.ElementConfigName;
+import io.leitstand.inventory.service.ElementRoleName;
+
+@RequestScoped
+@Path("/config-retention")
+@Consumes(APPLICATION_JSON)
+@Produces(APPLICATION_JSON)
+public class ConfigRetentionResource {
+
+	@Inject
+	private ConfigRetentionService service;
+
+	@Inject
+	private Messages messages;
+
+	@GET
+	@Path("/policies")
+	public List<ConfigRetentionPolicy> getRetentionPolicies(){
+		return service.getRetentionPolicies();
+	}
+
+	@GET
+	@Path("/policy")
+	public ConfigRetentionPolicy getRetentionPolicy(@Valid @QueryParam("element_role") ElementRoleName elementRole,
+													@Valid @QueryParam("config_name") ElementConfigName configName){
+		return service.getRetentionPolicy(elementRole,
+										  configName);
+	}
+
+	@PUT
+	@Path("/policy")
+	@RolesAllowed({OPERATOR,ADMINISTRATOR,SYSTEM})
+	public Response storeRetentionPolicy(@Valid ConfigRetentionPolicy policy){
+		service.storeRetentionPolicy(policy);
+		return success(messages);
+	}
+
+	@DELETE
+	@Path("/policy")
+	@RolesAllowed({OPERATOR,ADMINISTRATOR,SYSTEM})
+	public Response removeRetentionPolicy(@Valid @QueryParam("element_role") ElementRoleName elementRole,
+										  @Valid @QueryParam("config_name") ElementConfigName configName){
+		service.removeRetentionPolicy(elementRole,
+									  configName);
+		return success(messages);
+	}
+
+	@GET
+	@Path("/report")
+	public Response getLastRetentionReport() {
+		ConfigRetentionReport report = service.getLastRetentionReport();
+		if(report == null) {
+			return noContent().build();
+		}
+		return ok(report).build();
+	}
+
+}
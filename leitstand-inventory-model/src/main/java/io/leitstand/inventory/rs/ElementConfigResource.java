@@ -11,8 +11,34 @@ import static io.leitstand.commons.rs.Responses.success;
 import static io.leitstand.security.auth.Role.OPERATOR;
 import static io.leitstand.security.auth.Role.SYSTEM;
 import static java.lang.String.format;
+import static io.leitstand.inventory.rs.ByteRange.byteRange;
+import static io.leitstand.inventory.rs.ElementConfigTags.contentTag;
+import static io.leitstand.inventory.rs.ElementConfigTags.revisionTag;
+import static io.leitstand.inventory.rs.ElementConfigTags.versionTag;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_LENGTH;
+import static javax.ws.rs.core.HttpHeaders.VARY;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.CHARSET_PARAMETER;
 import static javax.ws.rs.core.Response.ok;
+import static javax.ws.rs.core.Response.status;
+import static javax.ws.rs.core.Response.Status.PARTIAL_CONTENT;
+import static javax.ws.rs.core.Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.security.RolesAllowed;
 import javax.inject.Inject;
@@ -29,17 +55,21 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
 
 import io.leitstand.commons.messages.Messages;
 import io.leitstand.inventory.service.ConfigurationState;
-import io.leitstand.inventory.service.ElementConfig;
+import io.leitstand.inventory.service.ElementConfigDiff;
 import io.leitstand.inventory.service.ElementConfigId;
 import io.leitstand.inventory.service.ElementConfigName;
-import io.leitstand.inventory.service.ElementConfigRevisions;
+import io.leitstand.inventory.service.ElementConfigReference;
 import io.leitstand.inventory.service.ElementConfigService;
-import io.leitstand.inventory.service.ElementConfigs;
 import io.leitstand.inventory.service.ElementId;
 import io.leitstand.inventory.service.ElementName;
 import io.leitstand.inventory.service.StoreElementConfigResult;
@@ -57,65 +87,102 @@ public class ElementConfigResource {
 	@Inject
 	private ElementConfigService service;
 	
+	@Context
+	private Request request;
+	
 	@GET
 	@Path("/{element:"+UUID_PATTERN+"}/configs")
-	public ElementConfigs findElementConfigs(@Valid @PathParam("element") ElementId elementId,
-											 @Valid @QueryParam("filter") String filter) {
-		return service.findElementConfigs(elementId,
-										  filter);
+	public Response findElementConfigs(@Valid @PathParam("element") ElementId elementId,
+									   @Valid @QueryParam("filter") String filter) {
+		return conditional(versionTag(service.getElementConfigsVersion(elementId)),
+						   () -> service.findElementConfigs(elementId,
+								   							filter));
 	}
 	
 	@GET
 	@Path("/{element}/configs")
-	public ElementConfigs findElementConfigs(@Valid @PathParam("element") ElementName elementName,
-											 @Valid @QueryParam("filter") String filter) {
-		return service.findElementConfigs(elementName,
-										  filter);
+	public Response findElementConfigs(@Valid @PathParam("element") ElementName elementName,
+									   @Valid @QueryParam("filter") String filter) {
+		return conditional(versionTag(service.getElementConfigsVersion(elementName)),
+						   () -> service.findElementConfigs(elementName,
+								   							filter));
 	}
 	
 	@GET
 	@Path("/{element:"+UUID_PATTERN+"}/configs/{config_id:"+UUID_PATTERN+"}")
-	public ElementConfig getElementConfig(@Valid @PathParam("element") ElementId elementId,
-										  @Valid @PathParam("config_id") ElementConfigId configId){
-		return service.getElementConfig(elementId,
-										configId);
+	public Response getElementConfig(@Valid @PathParam("element") ElementId elementId,
+									 @Valid @PathParam("config_id") ElementConfigId configId){
+		return conditional(revisionTag(service.getElementConfigReference(elementId, configId)),
+						   () -> service.getElementConfig(elementId,
+								   						  configId));
 	}
 	
 	@GET
 	@Path("/{element}/configs/{config_id:"+UUID_PATTERN+"}")
-	public ElementConfig getElementConfig(@Valid @PathParam("element") ElementName elementName,
-									      @Valid @PathParam("config_id") ElementConfigId configId){
-		return service.getElementConfig(elementName, 
-										configId);
+	public Response getElementConfig(@Valid @PathParam("element") ElementName elementName,
+									 @Valid @PathParam("config_id") ElementConfigId configId){
+		return conditional(revisionTag(service.getElementConfigReference(elementName, configId)),
+						   () -> service.getElementConfig(elementName, 
+								   						  configId));
 	}
 	
 	@GET
-	@Path("/{element}/configs/{config_id:"+UUID_PATTERN+"}/config")
-	public Response getElementConfigData(@Valid @PathParam("element") ElementName elementName,
-					  		      	  	 @Valid @PathParam("config_id") ElementConfigId configId){
-		ElementConfig config = service.getElementConfig(elementName,
-														configId);
-		
-		return success(config.getConfig().toString(), 
-				  	   config.getContentType());
-	}	
+	@Path("/{element:"+UUID_PATTERN+"}/configs/{config_id:"+UUID_PATTERN+"}/diff")
+	public ElementConfigDiff getElementConfigDiff(@Valid @PathParam("element") ElementId elementId,
+												  @Valid @PathParam("config_id") ElementConfigId configId,
+												  @Valid @QueryParam("base") ElementConfigId baseConfigId){
+		return service.getElementConfigDiff(elementId, 
+											baseConfigId, 
+											configId);
+	}
+	
+	@GET
+	@Path("/{element}/configs/{config_id:"+UUID_PATTERN+"}/diff")
+	public ElementConfigDiff getElementConfigDiff(@Valid @PathParam("element") ElementName elementName,
+												  @Valid @PathParam("config_id") ElementConfigId configId,
+												  @Valid @QueryParam("base") ElementConfigId baseConfigId){
+		return service.getElementConfigDiff(elementName, 
+											baseConfigId, 
+											configId);
+	}
 	
 	@GET
 	@Path("/{element:"+UUID_PATTERN+"}/configs/{config_name}")
-	public ElementConfigRevisions getRevisions(@Valid @PathParam("element") ElementId elementId,
-											   @Valid @PathParam("config_name") ElementConfigName configName) {
-		return service.getElementConfigRevisions(elementId,
-												 configName);
+	public Response getRevisions(@Valid @PathParam("element") ElementId elementId,
+								 @Valid @PathParam("config_name") ElementConfigName configName) {
+		return conditional(versionTag(service.getElementConfigsVersion(elementId)),
+						   () -> service.getElementConfigRevisions(elementId,
+								   								   configName));
 	}
 	
 	@GET
 	@Path("/{element}/configs/{config_name}")
-	public ElementConfigRevisions getRevisions(@Valid @PathParam("element") ElementName elementName,
-											   @Valid @PathParam("config_name") ElementConfigName configName) {
-		return service.getElementConfigRevisions(elementName,
-												 configName);
+	public Response getRevisions(@Valid @PathParam("element") ElementName elementName,
+								 @Valid @PathParam("config_name") ElementConfigName configName) {
+		return conditional(versionTag(service.getElementConfigsVersion(elementName)),
+						   () -> service.getElementConfigRevisions(elementName,
+								   								   configName));
 	}	
 	
+	/**
+	 * Returns <code>304 Not Modified</code> if the request entity tag matches the current entity tag.
+	 * Otherwise the entity is read and returned along with the current entity tag.
+	 * The entity tag is computed before the entity is read. 
+	 * A concurrent modification therefore yields an outdated tag, which causes the next request to read the entity again.
+	 * @param tag the current entity tag or <code>null</code> if the tag is unknown
+	 * @param entity the entity supplier
+	 * @return the response
+	 */
+	private Response conditional(EntityTag tag, Supplier<?> entity) {
+		if(tag != null) {
+			ResponseBuilder notModified = request.evaluatePreconditions(tag);
+			if(notModified != null) {
+				return notModified.tag(tag).build();
+			}
+		}
+		return ok(entity.get()).tag(tag).build();
+	}
+	
 	@DELETE
 	@Path("/{element:"+UUID_PATTERN+"}/configs/{config_id:"+UUID_PATTERN+"}")
 	@RolesAllowed({OPERATOR,SYSTEM})
@@ -188,43 +255,178 @@ public class ElementConfigResource {
 	@GET
 	@Path("/{element:"+UUID_PATTERN+"}/configs/{config_id:"+UUID_PATTERN+"}/config")
 	public Response downloadElementConfig(@Valid @PathParam("element") ElementId elementId,
-										  @Valid @PathParam("config_id") ElementConfigId configId){
-		
-		ElementConfig config = service.getElementConfig(elementId, configId);
-		
-		return ok(config.getConfig(), config.getContentType())
-			   .header("Content-Disposition", format("attachment; filename=\"%s_%s.%s\"",
-					   								 config.getConfigName(),
-					   								 isoDateFormat(config.getDateModified()),
-					   								 ext(config)))
-			   .build();
+										  @Valid @PathParam("config_id") ElementConfigId configId,
+										  @HeaderParam(ACCEPT_ENCODING) String acceptEncoding,
+										  @HeaderParam("Range") String range){
 		
+		ElementConfigReference config = service.getElementConfigReference(elementId, configId);
+		return download(config,
+						acceptEncoding,
+						range,
+						writer -> service.writeElementConfig(elementId, 
+															 configId, 
+															 writer));
 	}
 	
-	
-	
 	@GET
 	@Path("/{element}/configs/{config_id:"+UUID_PATTERN+"}/config")
 	public Response downloadElementConfig(@Valid @PathParam("element") ElementName elementName,
-								     	  @Valid @PathParam("config_id") ElementConfigId configId){
-		ElementConfig config = service.getElementConfig(elementName, configId);
+								     	  @Valid @PathParam("config_id") ElementConfigId configId,
+								     	  @HeaderParam(ACCEPT_ENCODING) String acceptEncoding,
+								     	  @HeaderParam("Range") String range){
+		ElementConfigReference config = service.getElementConfigReference(elementName, configId);
+		return download(config,
+						acceptEncoding,
+						range,
+						writer -> service.writeElementConfig(elementName, 
+															 configId, 
+															 writer));
+	}
+	
+	private Response download(ElementConfigReference config,
+									 String acceptEncoding,
+									 String range, 
+									 Consumer<Writer> content) {
+		boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+		EntityTag tag = contentTag(config, gzip);
+		if(tag != null) {
+			ResponseBuilder notModified = request.evaluatePreconditions(tag);
+			if(notModified != null) {
+				return notModified.tag(tag)
+								  .header(VARY, ACCEPT_ENCODING)
+								  .build();
+			}
+		}
+		
+		MediaType contentType = MediaType.valueOf(config.getContentType());
+		Charset charset = charset(contentType);
+		String disposition = format("attachment; filename=\"%s_%s.%s\"",
+									config.getConfigName(),
+									isoDateFormat(config.getDateModified()),
+									ext(config.getContentType()));
+		
+		// The content length is known for UTF-8 encoded snapshot revisions only.
+		Long length = UTF_8.equals(charset) ? config.getContentLength() : null;
+		if(length != null) {
+			ByteRange bytes = byteRange(range, length);
+			if(bytes != null) {
+				if(!bytes.isSatisfiable()) {
+					return status(REQUESTED_RANGE_NOT_SATISFIABLE)
+						   .header("Content-Range", bytes.getContentRange())
+						   .build();
+				}
+				return status(PARTIAL_CONTENT)
+					   .entity(stream(content, charset, out -> bytes.slice(out)))
+					   .type(contentType)
+					   .tag(contentTag(config, false))
+					   .header("Content-Range", bytes.getContentRange())
+					   .header(CONTENT_LENGTH, bytes.getRangeLength())
+					   .header("Accept-Ranges", "bytes")
+					   .header("Content-Disposition", disposition)
+					   .build();
+			}
+		}
+		
+		if(gzip) {
+			return ok(stream(content, charset, out -> gzip(out)), contentType)
+				   .tag(tag)
+				   .header(CONTENT_ENCODING, "gzip")
+				   .header(VARY, ACCEPT_ENCODING)
+				   .header("Content-Disposition", disposition)
+				   .build();
+		}
+		
+		ResponseBuilder response = ok(stream(content, charset, out -> out), contentType)
+								   .tag(tag)
+								   .header(VARY, ACCEPT_ENCODING)
+								   .header("Content-Disposition", disposition);
+		if(length != null) {
+			response.header(CONTENT_LENGTH, length)
+					.header("Accept-Ranges", "bytes");
+		}
+		return response.build();
+	}
+	
+	private static StreamingOutput stream(Consumer<Writer> content, 
+										  Charset charset, 
+										  Function<OutputStream,OutputStream> encoding) {
+		return out -> {
+			// Nothing is written to the response before the configuration has been resolved,
+			// such that a configuration removed in the meantime is still reported as not found.
+			DeferredOutputStream deferred = new DeferredOutputStream(out, encoding);
+			Writer writer = new BufferedWriter(new OutputStreamWriter(deferred, charset));
+			content.accept(writer);
+			writer.flush();
+			OutputStream encoded = deferred.encoded();
+			if(encoded instanceof GZIPOutputStream) {
+				((GZIPOutputStream)encoded).finish();
+			}
+		};
+	}
+	
+	/**
+	 * Applies the content encoding when the first byte is written to the response.
+	 */
+	private static final class DeferredOutputStream extends OutputStream {
+		
+		private final OutputStream out;
+		private final Function<OutputStream,OutputStream> encoding;
+		private OutputStream encoded;
+		
+		DeferredOutputStream(OutputStream out, Function<OutputStream,OutputStream> encoding){
+			this.out = out;
+			this.encoding = encoding;
+		}
+		
+		OutputStream encoded() {
+			if(encoded == null) {
+				encoded = encoding.apply(out);
+			}
+			return encoded;
+		}
 		
-		return ok(config.getConfig(), config.getContentType())
-			   .header("Content-Disposition", format("attachment; filename=\"%s_%s.%s\"",
-					   								 config.getConfigName(),
-					   								 isoDateFormat(config.getDateModified()),
-					   								 ext(config)))
-			   .build();
+		@Override
+		public void write(int b) throws IOException {
+			encoded().write(b);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			encoded().write(b, off, len);
+		}
+		
+		@Override
+		public void flush() throws IOException {
+			if(encoded != null) {
+				encoded.flush();
+			}
+		}
+	}
+	
+	private static OutputStream gzip(OutputStream out) {
+		try {
+			return new GZIPOutputStream(out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	private static Charset charset(MediaType contentType) {
+		String charset = contentType.getParameters().get(CHARSET_PARAMETER);
+		if(charset == null) {
+			return UTF_8;
+		}
+		return Charset.forName(charset);
 	}
 	
-	protected static String ext(ElementConfig config) {
-		if(config.getContentType().contains("json")) {
+	protected static String ext(String contentType) {
+		if(contentType.contains("json")) {
 			return "json";
 		}
-		if(config.getContentType().contains("yaml")){
+		if(contentType.contains("yaml")){
 			return "yaml";
 		}
-		if(config.getContentType().contains("xml")){
+		if(contentType.contains("xml")){
 			return "xml";
 		}
 		return "txt";
@@ -238,7 +440,7 @@ public class ElementConfigResource {
 									   @NotNull @HeaderParam("Content-Type") String contentType,
 									   @QueryParam("state") @DefaultValue("ACTIVE") ConfigurationState state,
 									   @QueryParam("comment") String comment,
-									   String config){ 
+									   InputStream config){ 
 		
 		
 		StoreElementConfigResult result = service.storeElementConfig(elementId, 
@@ -262,7 +464,7 @@ public class ElementConfigResource {
 									   @Valid @PathParam("config_name") ElementConfigName configName,
 									   @NotNull @HeaderParam("Content-Type") String contentType,
 									   @QueryParam("state") @DefaultValue("ACTIVE") ConfigurationState state,
-									   String config,
+									   InputStream config,
 									   @QueryParam("comment") String comment){
 
 		StoreElementConfigResult result = service.storeElementConfig(elementName, 
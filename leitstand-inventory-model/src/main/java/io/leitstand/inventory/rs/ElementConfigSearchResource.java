@@ -0,0 +1,49 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.rs;
+
+import static io.leitstand.inventory.service.ReasonCode.IVT0339E_ELEMENT_CONFIG_SEARCH_RANGE_INVALID;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+
+import java.util.List;
+
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+
+import io.leitstand.commons.UnprocessableEntityException;
+import io.leitstand.inventory.service.ConfigurationState;
+import io.leitstand.inventory.service.ElementConfigMatch;
+import io.leitstand.inventory.service.ElementConfigSearchService;
+
+@RequestScoped
+@Path("/configs")
+@Produces(APPLICATION_JSON)
+public class ElementConfigSearchResource {
+
+	@Inject
+	private ElementConfigSearchService service;
+	
+	@GET
+	@Path("/_search")
+	public List<ElementConfigMatch> searchElementConfigs(@QueryParam("filter") @DefaultValue("") String filter,
+														 @QueryParam("state") ConfigurationState configState,
+														 @QueryParam("offset") @DefaultValue("0") int offset,
+														 @QueryParam("limit") @DefaultValue("100") int limit){
+		if(offset < 0 || limit < 1) {
+			throw new UnprocessableEntityException(IVT0339E_ELEMENT_CONFIG_SEARCH_RANGE_INVALID, 
+												   offset, 
+												   limit);
+		}
+		return service.searchElementConfigs(filter, 
+											configState, 
+											offset, 
+											limit);
+	}
+	
+}
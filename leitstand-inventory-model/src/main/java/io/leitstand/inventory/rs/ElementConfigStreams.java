@@ -0,0 +1,165 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.rs;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.json.bind.JsonbBuilder.create;
+import static javax.json.bind.config.PropertyNamingStrategy.LOWER_CASE_WITH_UNDERSCORES;
+import static javax.json.bind.config.PropertyOrderStrategy.LEXICOGRAPHICAL;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbConfig;
+import javax.json.bind.config.PropertyVisibilityStrategy;
+import javax.ws.rs.core.StreamingOutput;
+
+import io.leitstand.commons.jsonb.FieldAccessVisibilityStrategy;
+import io.leitstand.inventory.service.ElementConfig;
+
+/**
+ * Streams element configurations of many elements either as newline-delimited JSON or as zip archive.
+ * <p>
+ * The configurations are written while they are read from the database,
+ * such that the configurations of all elements are never held in memory at once.
+ */
+final class ElementConfigStreams {
+
+	static final String APPLICATION_NDJSON = "application/x-ndjson";
+	static final String APPLICATION_ZIP = "application/zip";
+	
+	// The configuration is written as stored and hence excluded from the serialized envelope.
+	private static final JsonbConfig ENVELOPE = new JsonbConfig()
+											   .withPropertyVisibilityStrategy(new EnvelopeVisibilityStrategy())
+											   .withPropertyNamingStrategy(LOWER_CASE_WITH_UNDERSCORES)
+											   .withPropertyOrderStrategy(LEXICOGRAPHICAL)
+											   .withDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", null);
+
+	/**
+	 * Writes one JSON object per configuration and line.
+	 * A JSON configuration is written as stored, except for line breaks which are replaced by blanks.
+	 * Line breaks are whitespace outside of JSON strings and cannot occur unescaped inside of JSON strings.
+	 * All other configurations are written as JSON string.
+	 * @param configs the source of the configurations
+	 * @return the streaming output
+	 */
+	static StreamingOutput ndjson(Consumer<Consumer<ElementConfig>> configs) {
+		return out -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+			try(Jsonb jsonb = create(ENVELOPE)){
+				configs.accept(config -> {
+					try {
+						String envelope = jsonb.toJson(config);
+						writer.write(envelope, 0, envelope.lastIndexOf('}'));
+						writer.write(",\"config\":");
+						String content = (String) config.getConfig();
+						if(content == null) {
+							writer.write("null");
+						} else if("application/json".equalsIgnoreCase(config.getContentType())) {
+							writeJsonLine(writer, content);
+						} else {
+							writer.write(jsonb.toJson(content));
+						}
+						writer.write("}\n");
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (IOException | RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IOException(e);
+			}
+			writer.flush();
+		};
+	}
+	
+	/**
+	 * Writes a zip archive with one entry per configuration.
+	 * The entry name is the element name followed by an extension derived from the configuration content type.
+	 * @param configs the source of the configurations
+	 * @return the streaming output
+	 */
+	static StreamingOutput zip(Consumer<Consumer<ElementConfig>> configs) {
+		return out -> {
+			ZipOutputStream zip = new ZipOutputStream(out, UTF_8);
+			Writer writer = new OutputStreamWriter(zip, UTF_8);
+			configs.accept(config -> {
+				try {
+					zip.putNextEntry(new ZipEntry(config.getElementName()+"."+extension(config.getContentType())));
+					writer.write(String.valueOf(config.getConfig()));
+					writer.flush();
+					zip.closeEntry();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			zip.finish();
+		};
+	}
+	
+	private static void writeJsonLine(Writer writer, String json) throws IOException {
+		int start = 0;
+		for(int i=0; i < json.length(); i++) {
+			char c = json.charAt(i);
+			if(c == '\n' || c == '\r') {
+				writer.write(json, start, i-start);
+				writer.write(' ');
+				start = i+1;
+			}
+		}
+		writer.write(json, start, json.length()-start);
+	}
+	
+	static String extension(String contentType) {
+		if(contentType == null) {
+			return "txt";
+		}
+		if(contentType.contains("json")) {
+			return "json";
+		}
+		if(contentType.contains("xml")) {
+			return "xml";
+		}
+		if(contentType.contains("yaml")) {
+			return "yaml";
+		}
+		return "txt";
+	}
+	
+	/**
+	 * Hides the configuration of an <code>ElementConfig</code> and applies field access to all other properties.
+	 */
+	private static final class EnvelopeVisibilityStrategy implements PropertyVisibilityStrategy {
+		
+		private final PropertyVisibilityStrategy fields = new FieldAccessVisibilityStrategy();
+		
+		@Override
+		public boolean isVisible(Field field) {
+			if(ElementConfig.class.equals(field.getDeclaringClass()) && "config".equals(field.getName())) {
+				return false;
+			}
+			return fields.isVisible(field);
+		}
+		
+		@Override
+		public boolean isVisible(Method method) {
+			return fields.isVisible(method);
+		}
+	}
+	
+	private ElementConfigStreams() {
+		// No instances allowed
+	}
+	
+}
@@ -0,0 +1,68 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.rs;
+
+import static java.lang.String.format;
+import static java.util.Objects.hashCode;
+
+import javax.ws.rs.core.EntityTag;
+
+import io.leitstand.inventory.service.ElementConfigReference;
+
+/**
+ * Computes the entity tags of the element configuration resources.
+ * <p>
+ * The tags are derived from metadata only, such that an unmodified resource can be
+ * confirmed without reading the configuration itself.
+ */
+final class ElementConfigTags {
+
+	/**
+	 * Returns the strong entity tag of a configuration download.
+	 * The tag is derived from the content hash of the configuration.
+	 * Compressed and uncompressed representations have different tags.
+	 * @param config the configuration metadata
+	 * @param gzip whether the configuration is compressed
+	 * @return the entity tag or <code>null</code> if the content hash is unknown.
+	 */
+	static EntityTag contentTag(ElementConfigReference config, boolean gzip) {
+		if(config.getContentHash() == null) {
+			return null;
+		}
+		return new EntityTag(gzip ? config.getContentHash()+"-gzip" : config.getContentHash());
+	}
+
+	/**
+	 * Returns the weak entity tag of a configuration revision.
+	 * Besides the content hash, the tag reflects the configuration state, the comment and the modification date,
+	 * which can change without modifying the configuration itself.
+	 * @param config the configuration metadata
+	 * @return the entity tag or <code>null</code> if the content hash is unknown.
+	 */
+	static EntityTag revisionTag(ElementConfigReference config) {
+		if(config.getContentHash() == null) {
+			return null;
+		}
+		return new EntityTag(format("%s.%s.%d.%08x",
+									config.getContentHash(),
+									config.getConfigState(),
+									config.getDateModified().getTime(),
+									hashCode(config.getComment())),
+							 true);
+	}
+
+	/**
+	 * Returns the weak entity tag of the configuration listings of an element.
+	 * @param version the version of the element configurations
+	 * @return the entity tag
+	 */
+	static EntityTag versionTag(String version) {
+		return new EntityTag(version, true);
+	}
+
+	private ElementConfigTags() {
+		// No instances allowed
+	}
+
+}
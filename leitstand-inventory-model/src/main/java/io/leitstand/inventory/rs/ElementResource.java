@@ -10,6 +10,7 @@ import static io.leitstand.security.auth.Role.SYSTEM;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.security.RolesAllowed;
 import javax.enterprise.context.RequestScoped;
@@ -27,8 +28,10 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Response;
 
 import io.leitstand.commons.messages.Messages;
+import io.leitstand.inventory.service.ElementFilterMode;
 import io.leitstand.inventory.service.ElementId;
 import io.leitstand.inventory.service.ElementName;
+import io.leitstand.inventory.service.ElementSearchResult;
 import io.leitstand.inventory.service.ElementService;
 import io.leitstand.inventory.service.ElementSettings;
 import io.leitstand.inventory.service.OperationalState;
@@ -52,6 +55,15 @@ public class ElementResource {
 		return service.findElements(filter, offset, limit);										 
 	}
 	
+	@GET
+	@Path("/_search")
+	public ElementSearchResult searchElements(@QueryParam("filter") @DefaultValue("") String filter,
+											  @QueryParam("match") @DefaultValue("PREFIX") ElementFilterMode mode,
+											  @QueryParam("cursor") String cursor,
+											  @QueryParam("limit") @DefaultValue("100") int limit){
+		return service.searchElements(filter, mode, cursor, limit);
+	}
+	
 	@DELETE
 	@Path("/{element:"+UUID_PATTERN+"}")
 	@RolesAllowed({OPERATOR,SYSTEM})
@@ -96,5 +108,13 @@ public class ElementResource {
 		service.updateElementOperationalState(name,state);
 		return success(messages);
 	}
+	
+	@PUT
+	@Path("/_operational_states")
+	@RolesAllowed({OPERATOR,SYSTEM})
+	public Response updateOperationalStates(Map<String,OperationalState> states){
+		service.updateElementOperationalStates(states);
+		return success(messages);
+	}
 		
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.rs;
+
+import static io.leitstand.inventory.rs.ElementConfigStreams.APPLICATION_NDJSON;
+import static io.leitstand.inventory.rs.ElementConfigStreams.APPLICATION_ZIP;
+import static io.leitstand.inventory.rs.ElementConfigStreams.ndjson;
+import static io.leitstand.inventory.rs.ElementConfigStreams.zip;
+import static java.lang.String.format;
+import static javax.ws.rs.core.Response.ok;
+
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.validation.Valid;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+
+import io.leitstand.inventory.service.ElementConfigName;
+import io.leitstand.inventory.service.ElementConfigService;
+import io.leitstand.inventory.service.ElementRoleName;
+
+/**
+ * Streams the active configuration of a given name of all elements of an element role.
+ * <p>
+ * The configurations are returned either as newline-delimited JSON, one configuration per line,
+ * or as zip archive with one entry per element, depending on the requested media type.
+ */
+@RequestScoped
+@Path("/roles")
+public class ElementRoleConfigsResource {
+
+	@Inject
+	private ElementConfigService service;
+	
+	@GET
+	@Path("/{role_name}/configs/{config_name}")
+	@Produces(APPLICATION_NDJSON)
+	public Response getActiveElementConfigs(@Valid @PathParam("role_name") ElementRoleName roleName,
+											@Valid @PathParam("config_name") ElementConfigName configName){
+		return ok(ndjson(configs -> service.processActiveElementConfigs(roleName, 
+																	   configName, 
+																	   configs)),
+				  APPLICATION_NDJSON)
+			   .build();
+	}
+	
+	@GET
+	@Path("/{role_name}/configs/{config_name}")
+	@Produces(APPLICATION_ZIP)
+	public Response getActiveElementConfigsArchive(@Valid @PathParam("role_name") ElementRoleName roleName,
+												   @Valid @PathParam("config_name") ElementConfigName configName){
+		return ok(zip(configs -> service.processActiveElementConfigs(roleName, 
+																	 configName, 
+																	 configs)),
+				  APPLICATION_ZIP)
+			   .header("Content-Disposition", format("attachment; filename=%s-%s.zip",roleName,configName))
+			   .build();
+	}
+	
+}
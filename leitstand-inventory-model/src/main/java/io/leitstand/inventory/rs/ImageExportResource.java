@@ -4,25 +4,34 @@
 package io.leitstand.inventory.rs;
 
 
-import static io.leitstand.commons.rs.Responses.success;
+import static io.leitstand.inventory.rs.ImagesExportStreams.APPLICATION_YAML;
+import static io.leitstand.inventory.rs.ImagesExportStreams.json;
+import static io.leitstand.inventory.rs.ImagesExportStreams.yaml;
+import static java.lang.String.format;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.Response.accepted;
 import static javax.ws.rs.core.Response.ok;
 
+import java.net.URI;
+
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.validation.Valid;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Response;
 
-import io.leitstand.commons.messages.Messages;
 import io.leitstand.inventory.service.ElementRoleName;
 import io.leitstand.inventory.service.ImageExportService;
+import io.leitstand.inventory.service.ImageImportJob;
+import io.leitstand.inventory.service.ImageImportJobId;
 import io.leitstand.inventory.service.ImageState;
 import io.leitstand.inventory.service.ImageType;
 import io.leitstand.inventory.service.ImagesExport;
@@ -36,9 +45,6 @@ public class ImageExportResource {
 
 	@Inject
 	private ImageExportService inventory;
-
-	@Inject
-	private Messages messages;
 	
 	@GET
 	@Path("/images")
@@ -48,22 +54,55 @@ public class ImageExportResource {
 			 						 @QueryParam("image_state") ImageState state,
 			 						 @QueryParam("element_role") @Valid ElementRoleName role){
 		
-		ImagesExport export = inventory.exportImages(filter,
-													 role,
-													 type,
-													 state,
-													 revision);
-		
-		return ok(export)
+		return ok(json(images -> inventory.processImages(filter,
+														 role,
+														 type,
+														 state,
+														 revision,
+														 images)))
 			   .header("Content-Disposition", "attachment; filename=image-export.json")
 			   .build();
 	}
 	
+	@GET
+	@Path("/images")
+	@Produces(APPLICATION_YAML)
+	public Response exportImagesYaml(@QueryParam("filter") @DefaultValue("") String filter,
+									 @QueryParam("revision") @Valid Version revision,
+									 @QueryParam("image_type") ImageType type,
+									 @QueryParam("image_state") ImageState state,
+									 @QueryParam("element_role") @Valid ElementRoleName role){
+		
+		return ok(yaml(images -> inventory.processImages(filter,
+														 role,
+														 type,
+														 state,
+														 revision,
+														 images)))
+			   .header("Content-Disposition", "attachment; filename=image-export.yaml")
+			   .build();
+	}
+	
 	@PUT
 	@Path("/images")
 	public Response importImagesJson(ImagesExport export) {
-		inventory.importImages(export);
-		return success(messages);
+		return ok(inventory.importImages(export)).build();
+	}
+	
+	@POST
+	@Path("/images/_import")
+	public Response startImageImport(ImagesExport export) {
+		ImageImportJob job = inventory.startImageImport(export);
+		return accepted(job)
+			   .location(URI.create(format("/export/images/_import/%s",
+					   					   job.getJobId())))
+			   .build();
+	}
+	
+	@GET
+	@Path("/images/_import/{job_id}")
+	public ImageImportJob getImageImportJob(@PathParam("job_id") @Valid ImageImportJobId jobId) {
+		return inventory.getImageImportJob(jobId);
 	}
 	
 }
@@ -0,0 +1,128 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.rs;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static javax.json.bind.JsonbBuilder.create;
+import static javax.json.bind.config.PropertyNamingStrategy.LOWER_CASE_WITH_UNDERSCORES;
+import static javax.json.bind.config.PropertyOrderStrategy.LEXICOGRAPHICAL;
+import static org.yaml.snakeyaml.DumperOptions.FlowStyle.BLOCK;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Date;
+import java.util.function.Consumer;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbConfig;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import io.leitstand.commons.jsonb.FieldAccessVisibilityStrategy;
+import io.leitstand.inventory.service.ImageInfo;
+import io.leitstand.inventory.service.ImagesExport;
+
+/**
+ * Streams an image export either as JSON or as YAML document.
+ * <p>
+ * Both documents have the same structure as an {@link ImagesExport} and can be imported again.
+ * The images are written while they are read from the database, 
+ * such that the images of the export are never held in memory at once.
+ */
+final class ImagesExportStreams {
+	
+	static final String APPLICATION_YAML = "application/yaml";
+
+	private static final JsonbConfig DEFAULT = new JsonbConfig()
+											   .withPropertyVisibilityStrategy(new FieldAccessVisibilityStrategy())
+											   .withPropertyNamingStrategy(LOWER_CASE_WITH_UNDERSCORES)
+											   .withPropertyOrderStrategy(LEXICOGRAPHICAL)
+											   .withDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", null);
+	
+	/**
+	 * Writes the image export as JSON document.
+	 * @param images the source of the exported images
+	 * @return the streaming output
+	 */
+	static StreamingOutput json(Consumer<Consumer<ImageInfo>> images) {
+		return out -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+			try(Jsonb jsonb = create(DEFAULT)){
+				writer.write("{\"date_created\":");
+				writer.write(jsonb.toJson(new Date()));
+				writer.write(",\"images\":[");
+				boolean[] first = {true};
+				images.accept(image -> {
+					try {
+						if(!first[0]) {
+							writer.write(',');
+						}
+						writer.write(jsonb.toJson(image));
+						first[0] = false;
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+				writer.write("]}");
+			} catch (IOException | RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IOException(e);
+			}
+			writer.flush();
+		};
+	}
+	
+	/**
+	 * Writes the image export as YAML document.
+	 * Every image is converted to JSON first, which is a subset of YAML, and then written as an item of the image sequence.
+	 * @param images the source of the exported images
+	 * @return the streaming output
+	 */
+	static StreamingOutput yaml(Consumer<Consumer<ImageInfo>> images) {
+		return out -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+			DumperOptions options = new DumperOptions();
+			options.setDefaultFlowStyle(BLOCK);
+			Yaml yaml = new Yaml(options);
+			try(Jsonb jsonb = create(DEFAULT)){
+				writer.write("date_created: ");
+				writer.write(jsonb.toJson(new Date()));
+				writer.write("\nimages:");
+				boolean[] empty = {true};
+				images.accept(image -> {
+					try {
+						if(empty[0]) {
+							writer.write('\n');
+							empty[0] = false;
+						}
+						Object item = yaml.load(jsonb.toJson(image));
+						writer.write(yaml.dump(singletonList(item)));
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+				if(empty[0]) {
+					writer.write(" []\n");
+				}
+			} catch (IOException | RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IOException(e);
+			}
+			writer.flush();
+		};
+	}
+	
+	private ImagesExportStreams() {
+		// No instances allowed
+	}
+	
+}
@@ -8,6 +8,8 @@ import static io.leitstand.commons.model.Patterns.UUID_PATTERN;
 import static io.leitstand.commons.rs.ReasonCode.VAL0003E_IMMUTABLE_ATTRIBUTE;
 import static io.leitstand.commons.rs.Responses.created;
 import static io.leitstand.commons.rs.Responses.success;
+import static io.leitstand.inventory.service.ReasonCode.IVT0207E_IMAGE_LIMIT_INVALID;
+import static io.leitstand.security.auth.Role.ADMINISTRATOR;
 import static io.leitstand.security.auth.Role.RELEASE_MANAGER;
 import static io.leitstand.security.auth.Role.SYSTEM;
 
@@ -33,10 +35,14 @@ import javax.ws.rs.core.Response;
 import io.leitstand.commons.UnprocessableEntityException;
 import io.leitstand.commons.messages.Messages;
 import io.leitstand.inventory.service.ElementRoleName;
+import io.leitstand.inventory.service.ImageFilterMode;
 import io.leitstand.inventory.service.ImageId;
 import io.leitstand.inventory.service.ImageInfo;
 import io.leitstand.inventory.service.ImageMetaData;
+import io.leitstand.inventory.service.ImageName;
 import io.leitstand.inventory.service.ImageReference;
+import io.leitstand.inventory.service.ImageRolloutMatrix;
+import io.leitstand.inventory.service.ImageSearchResult;
 import io.leitstand.inventory.service.ImageService;
 import io.leitstand.inventory.service.ImageState;
 import io.leitstand.inventory.service.ImageStatistics;
@@ -61,13 +67,56 @@ public class ImagesResource {
 										   @QueryParam("element_role") @Valid ElementRoleName elementRole,
 										   @QueryParam("image_type") ImageType type,
 										   @QueryParam("image_state") ImageState state,
-										   @QueryParam("image_version") @Valid Version version){
+										   @QueryParam("image_version") @Valid Version version,
+										   @QueryParam("limit") @DefaultValue("100") int limit){
+			if(limit < 1) {
+				throw new UnprocessableEntityException(IVT0207E_IMAGE_LIMIT_INVALID, 
+													   limit);
+			}
 			return service.findImages(filter, 
 							          elementRole,
 							    	  type,
 							    	  state,
 							    	  version,
-							    	  100);
+							    	  limit);
+	}
+	
+	@GET
+	@Path("/_search")
+	public ImageSearchResult searchImages(@QueryParam("filter") @DefaultValue("") String filter,
+										  @QueryParam("match") @DefaultValue("PREFIX") ImageFilterMode mode,
+										  @QueryParam("element_role") @Valid ElementRoleName elementRole,
+										  @QueryParam("image_type") ImageType type,
+										  @QueryParam("image_state") ImageState state,
+										  @QueryParam("image_version") @Valid Version version,
+										  @QueryParam("cursor") String cursor,
+										  @QueryParam("limit") @DefaultValue("100") int limit){
+		return service.searchImages(filter,
+									mode,
+									elementRole,
+									type,
+									state,
+									version,
+									cursor,
+									limit);
+	}
+	
+	@GET
+	@Path("/_rollout/{image_name}")
+	public ImageRolloutMatrix getImageRolloutMatrix(@PathParam("image_name") @Valid ImageName imageName,
+													@QueryParam("element_role") @Valid ElementRoleName elementRole,
+													@QueryParam("image_type") ImageType type) {
+		return service.getImageRolloutMatrix(imageName, 
+											 elementRole, 
+											 type);
+	}
+	
+	@POST
+	@Path("/_rollout/_rebuild")
+	@RolesAllowed({ADMINISTRATOR,SYSTEM})
+	public Response rebuildImageRollouts() {
+		service.rebuildImageRollouts();
+		return success(messages);
 	}
 	
 	@GET
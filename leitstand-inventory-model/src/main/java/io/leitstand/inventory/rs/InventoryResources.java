@@ -25,10 +25,13 @@ public class InventoryResources implements ApiResourceProvider {
 	public Set<Class<?>> getResources() {
 		return asSortedSet((a,b) -> a.getName().compareTo(b.getName()),
 						   CloneElementResource.class,
+						   ConfigRetentionResource.class,
 						   DnsZoneResource.class,
 						   ElementConfigResource.class,
+						   ElementConfigSearchResource.class,
 						   ElementDnsRecordSetResource.class,
 						   ElementEnvironmentResource.class,
+						   ElementGroupConfigsResource.class,
 						   ElementGroupElementsResource.class,
 						   ElementGroupExportResource.class,
 						   ElementGroupSettingsResource.class,
@@ -38,6 +41,7 @@ public class InventoryResources implements ApiResourceProvider {
 						   ElementRackResource.class,
 						   ElementResource.class,
 						   ElementRoleResource.class,
+						   ElementRoleConfigsResource.class,
 						   ElementImageResource.class,
 						   ElementPhysicalInterfaceResource.class,
 						   ElementLinksResource.class,
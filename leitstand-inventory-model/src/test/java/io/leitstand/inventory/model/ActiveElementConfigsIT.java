@@ -0,0 +1,202 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.Element.findElementByName;
+import static io.leitstand.inventory.model.ElementGroup.findElementGroupByName;
+import static io.leitstand.inventory.model.ElementRole.findRoleByName;
+import static io.leitstand.inventory.service.ConfigurationState.ACTIVE;
+import static io.leitstand.inventory.service.ConfigurationState.CANDIDATE;
+import static io.leitstand.inventory.service.ElementConfigName.elementConfigName;
+import static io.leitstand.inventory.service.ElementGroupId.randomGroupId;
+import static io.leitstand.inventory.service.ElementGroupName.groupName;
+import static io.leitstand.inventory.service.ElementGroupType.groupType;
+import static io.leitstand.inventory.service.ElementId.randomElementId;
+import static io.leitstand.inventory.service.ElementName.elementName;
+import static io.leitstand.inventory.service.ElementRoleName.elementRoleName;
+import static io.leitstand.inventory.service.Plane.DATA;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.enterprise.event.Event;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.leitstand.commons.EntityNotFoundException;
+import io.leitstand.commons.messages.Messages;
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.Flow;
+import io.leitstand.commons.tx.SubtransactionService;
+import io.leitstand.inventory.event.ElementConfigEvent;
+import io.leitstand.inventory.service.ElementConfig;
+import io.leitstand.inventory.service.ElementConfigName;
+import io.leitstand.inventory.service.ElementConfigService;
+import io.leitstand.inventory.service.ElementGroupName;
+import io.leitstand.inventory.service.ElementGroupType;
+import io.leitstand.inventory.service.ElementName;
+import io.leitstand.inventory.service.ElementRoleName;
+import io.leitstand.security.auth.UserId;
+
+public class ActiveElementConfigsIT extends InventoryIT {
+
+	private static final ElementGroupType GROUP_TYPE = groupType("pod");
+	private static final ElementGroupName GROUP_NAME = groupName("bulk_config_test");
+	private static final ElementRoleName ROLE_NAME = elementRoleName("bulk_config_test");
+	private static final ElementName FIRST = elementName("bulk_config_test_1");
+	private static final ElementName SECOND = elementName("bulk_config_test_2");
+	private static final ElementName THIRD = elementName("bulk_config_test_3");
+	private static final ElementConfigName STARTUP = elementConfigName("startup");
+	
+	private ElementConfigService service;
+	private Repository repository;
+	
+	@Before
+	public void initTestEnvironment() {
+		repository = new Repository(getEntityManager());
+		
+		// Run subtransactions in the current transaction.
+		SubtransactionService subtransactions = mock(SubtransactionService.class);
+		when(subtransactions.run(any(Flow.class))).thenAnswer(invocation -> {
+			Flow<?> flow = (Flow<?>) invocation.getArguments()[0];
+			flow.transaction(repository);
+			return flow.resume(repository);
+		});
+		
+		ElementConfigManager configs = new ElementConfigManager(repository,
+																getDatabase(),
+																new ConfigBlobStore(repository, 
+																					subtransactions),
+																subtransactions,
+																new ConfigDiffCache(),
+																UserId.valueOf("unittest"),
+																mock(Event.class),
+																mock(Messages.class));
+		service = new DefaultElementConfigService(new ElementProvider(repository),
+												  new ElementGroupProvider(repository),
+												  new ElementRoleProvider(repository),
+												  configs);
+		
+		transaction(()->{
+			ElementGroup group = repository.addIfAbsent(findElementGroupByName(GROUP_TYPE,GROUP_NAME), 
+														() -> new ElementGroup(randomGroupId(), 
+																			   GROUP_TYPE, 
+																			   GROUP_NAME));
+			
+			ElementRole role = repository.addIfAbsent(findRoleByName(ROLE_NAME), 
+							 						  () -> new ElementRole(ROLE_NAME,DATA)); 
+			for(ElementName name : new ElementName[] {FIRST,SECOND,THIRD}) {
+				repository.addIfAbsent(findElementByName(name), 
+									   () -> new Element(group,
+										  			     role, 
+														 randomElementId(),
+														 name));
+			}
+		});
+	}
+	
+	private static String config(ElementName element, int version) {
+		StringBuilder config = new StringBuilder();
+		for(int i=0; i < 50; i++) {
+			config.append("interface ifp-0/0/").append(i).append(" description ").append(element).append('\n');
+		}
+		config.append("version ").append(version).append('\n');
+		return config.toString();
+	}
+	
+	@Test
+	public void stream_active_configs_of_all_group_elements() {
+		transaction(()->{
+			service.storeElementConfig(FIRST, STARTUP, TEXT_PLAIN_TYPE, ACTIVE, config(FIRST,1), "first");
+			service.storeElementConfig(FIRST, STARTUP, TEXT_PLAIN_TYPE, ACTIVE, config(FIRST,2), "second");
+			service.storeElementConfig(FIRST, STARTUP, TEXT_PLAIN_TYPE, ACTIVE, config(FIRST,3), "third");
+			service.storeElementConfig(SECOND, STARTUP, TEXT_PLAIN_TYPE, ACTIVE, config(SECOND,1), "first");
+			service.storeElementConfig(SECOND, STARTUP, TEXT_PLAIN_TYPE, CANDIDATE, config(SECOND,2), "candidate");
+			service.storeElementConfig(THIRD, elementConfigName("running"), TEXT_PLAIN_TYPE, ACTIVE, config(THIRD,1), "other");
+		});
+		
+		transaction(()->{
+			List<ElementConfig> configs = new ArrayList<>();
+			service.processActiveElementConfigs(GROUP_TYPE, 
+												GROUP_NAME, 
+												STARTUP, 
+												configs::add);
+			assertEquals(2,configs.size());
+			assertEquals(FIRST,configs.get(0).getElementName());
+			assertEquals(GROUP_NAME,configs.get(0).getGroupName());
+			assertEquals(ROLE_NAME,configs.get(0).getElementRole());
+			assertEquals(ACTIVE,configs.get(0).getConfigState());
+			assertEquals("third",configs.get(0).getComment());
+			assertEquals(config(FIRST,3),configs.get(0).getConfig());
+			assertEquals(SECOND,configs.get(1).getElementName());
+			assertEquals(config(SECOND,1),configs.get(1).getConfig());
+		});
+	}
+	
+	@Test
+	public void stream_active_configs_of_all_role_elements() {
+		transaction(()->{
+			service.storeElementConfig(FIRST, STARTUP, TEXT_PLAIN_TYPE, ACTIVE, config(FIRST,1), "first");
+			service.storeElementConfig(SECOND, STARTUP, TEXT_PLAIN_TYPE, ACTIVE, config(SECOND,1), "first");
+		});
+		
+		transaction(()->{
+			List<ElementConfig> configs = new ArrayList<>();
+			service.processActiveElementConfigs(ROLE_NAME, 
+												STARTUP, 
+												configs::add);
+			assertEquals(2,configs.size());
+			assertEquals(FIRST,configs.get(0).getElementName());
+			assertEquals(SECOND,configs.get(1).getElementName());
+		});
+	}
+	
+	@Test
+	public void stream_json_configs_as_stored() {
+		String json = "{\n  \"interfaces\" : [ \"ifp-0/0/1\", \"ifp-0/0/2\" ]\n}\n";
+		transaction(()->{
+			service.storeElementConfig(THIRD, elementConfigName("json"), APPLICATION_JSON_TYPE, ACTIVE, json, "json");
+		});
+		
+		transaction(()->{
+			List<ElementConfig> configs = new ArrayList<>();
+			service.processActiveElementConfigs(ROLE_NAME, 
+												elementConfigName("json"), 
+												configs::add);
+			assertEquals(1,configs.size());
+			assertEquals(THIRD,configs.get(0).getElementName());
+			assertEquals(json,configs.get(0).getConfig());
+		});
+	}
+	
+	@Test
+	public void stream_nothing_if_no_active_config_exists() {
+		transaction(()->{
+			List<ElementConfig> configs = new ArrayList<>();
+			service.processActiveElementConfigs(GROUP_TYPE, 
+												GROUP_NAME, 
+												elementConfigName("non-existent"), 
+												configs::add);
+			assertTrue(configs.isEmpty());
+		});
+	}
+	
+	@Test(expected=EntityNotFoundException.class)
+	public void raise_exception_if_group_does_not_exist() {
+		transaction(()->{
+			service.processActiveElementConfigs(GROUP_TYPE, 
+												groupName("non-existent"), 
+												STARTUP, 
+												config -> {});
+		});
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.ConfigDelta.applyDelta;
+import static io.leitstand.inventory.model.ConfigDelta.encodeDelta;
+import static io.leitstand.inventory.service.ConfigurationState.ACTIVE;
+import static io.leitstand.inventory.service.ElementConfigName.elementConfigName;
+import static io.leitstand.security.auth.UserId.userId;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Test;
+
+public class ConfigDeltaTest {
+
+	private static String config(int lines) {
+		StringBuilder config = new StringBuilder();
+		for(int i=0; i < lines; i++) {
+			config.append("interface ifp-0/0/")
+				  .append(i)
+				  .append(" mtu 1500\n");
+		}
+		return config.toString();
+	}
+
+	@Test
+	public void restore_unmodified_config() {
+		String config = config(100);
+		String delta = encodeDelta(config, config);
+		assertEquals("=100\n",delta);
+		assertEquals(config, applyDelta(config, delta));
+	}
+
+	@Test
+	public void restore_config_with_modified_lines() {
+		String base = config(100);
+		String target = base.replace("ifp-0/0/10 mtu 1500", "ifp-0/0/10 mtu 9000")
+							.replace("interface ifp-0/0/50 mtu 1500\n", "");
+		String delta = encodeDelta(base, target);
+		assertEquals(target,applyDelta(base, delta));
+	}
+
+	@Test
+	public void restore_config_with_appended_lines() {
+		String base = config(10);
+		String target = config(20);
+		assertEquals(target,applyDelta(base, encodeDelta(base, target)));
+	}
+
+	@Test
+	public void restore_config_without_trailing_line_terminator() {
+		String base = "a\nb\nc";
+		String target = "a\nb\nc\nd";
+		assertEquals(target,applyDelta(base, encodeDelta(base, target)));
+		assertEquals(base,applyDelta(target, encodeDelta(target, base)));
+	}
+
+	@Test
+	public void restore_empty_config() {
+		String base = config(10);
+		assertEquals("",applyDelta(base, encodeDelta(base, "")));
+		assertEquals(base,applyDelta("", encodeDelta("", base)));
+	}
+
+	@Test
+	public void no_delta_for_complete_rewrite_of_large_config() {
+		String base = config(2*ConfigDelta.MAX_EDIT_DISTANCE);
+		String target = base.replace("mtu", "MTU");
+		assertNull(encodeDelta(base, target));
+	}
+
+	@Test
+	public void store_revision_as_delta_of_previous_revision() {
+		Element element = mock(Element.class);
+		String base = config(100);
+		String target = base.replace("ifp-0/0/10 mtu 1500", "ifp-0/0/10 mtu 9000");
+		Element_Config previous = new Element_Config(element,
+													 elementConfigName("unittest"),
+													 ACTIVE,
+													 TEXT_PLAIN_TYPE,
+													 "hash",
+													 base,
+													 userId("unittest"));
+		Element_Config next = new Element_Config(element,
+												 elementConfigName("unittest"),
+												 ACTIVE,
+												 TEXT_PLAIN_TYPE,
+												 "hash",
+												 userId("unittest"));
+		assertTrue(next.storeDelta(previous, target));
+		assertFalse(previous.isDeltaRevision());
+		assertTrue(next.isDeltaRevision());
+		assertEquals(target,next.getConfig());
+		next.storeSnapshot(new ConfigBlob("digest",target));
+		assertFalse(next.isDeltaRevision());
+		assertEquals("digest",next.getBlobDigest());
+		assertEquals(target,next.getConfig());
+	}
+
+	@Test
+	public void store_snapshot_after_snapshot_interval() {
+		Element element = mock(Element.class);
+		Element_Config previous = new Element_Config(element,
+													 elementConfigName("unittest"),
+													 ACTIVE,
+													 TEXT_PLAIN_TYPE,
+													 "hash",
+													 config(100),
+													 userId("unittest"));
+		for(int i=1; i <= Element_Config.SNAPSHOT_INTERVAL; i++) {
+			Element_Config next = new Element_Config(element,
+													 elementConfigName("unittest"),
+													 ACTIVE,
+													 TEXT_PLAIN_TYPE,
+													 "hash",
+													 userId("unittest"));
+			assertTrue(next.storeDelta(previous, config(100+i)));
+			previous = next;
+		}
+		Element_Config snapshot = new Element_Config(element,
+													 elementConfigName("unittest"),
+													 ACTIVE,
+													 TEXT_PLAIN_TYPE,
+													 "hash",
+													 userId("unittest"));
+		assertFalse(snapshot.storeDelta(previous, config(200)));
+		assertEquals(config(100+Element_Config.SNAPSHOT_INTERVAL),previous.getConfig());
+	}
+
+	@Test
+	public void compute_hex_encoded_sha256_content_digest() {
+		String digest = ConfigBlob.digest(config(10));
+		assertEquals(64,digest.length());
+		assertTrue(digest.matches("[0-9a-f]+"));
+		assertEquals(digest,ConfigBlob.digest(config(10)));
+		assertFalse(digest.equals(ConfigBlob.digest(config(11))));
+	}
+
+}
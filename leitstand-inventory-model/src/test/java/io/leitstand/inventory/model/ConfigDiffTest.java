@@ -0,0 +1,140 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.ConfigDiff.diff;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class ConfigDiffTest {
+
+	private static String config(int lines) {
+		StringBuilder config = new StringBuilder();
+		for(int i=0; i < lines; i++) {
+			config.append("interface ifp-0/0/")
+				  .append(i)
+				  .append(" mtu 1500\n");
+		}
+		return config.toString();
+	}
+	
+	@Test
+	public void equal_configs_have_no_diff() {
+		ConfigDiff diff = diff(config(100), config(100));
+		assertEquals("",diff.getHunks());
+		assertEquals(0,diff.getLinesAdded());
+		assertEquals(0,diff.getLinesRemoved());
+	}
+	
+	@Test
+	public void modified_line_is_shown_with_context() {
+		String target = config(20).replace("ifp-0/0/10 mtu 1500", "ifp-0/0/10 mtu 9000");
+		ConfigDiff diff = diff(config(20), target);
+		assertEquals("@@ -8,7 +8,7 @@\n"+
+					 " interface ifp-0/0/7 mtu 1500\n"+
+					 " interface ifp-0/0/8 mtu 1500\n"+
+					 " interface ifp-0/0/9 mtu 1500\n"+
+					 "-interface ifp-0/0/10 mtu 1500\n"+
+					 "+interface ifp-0/0/10 mtu 9000\n"+
+					 " interface ifp-0/0/11 mtu 1500\n"+
+					 " interface ifp-0/0/12 mtu 1500\n"+
+					 " interface ifp-0/0/13 mtu 1500\n",
+					 diff.getHunks());
+		assertEquals(1,diff.getLinesAdded());
+		assertEquals(1,diff.getLinesRemoved());
+	}
+	
+	@Test
+	public void nearby_modifications_are_merged_into_one_hunk() {
+		String target = config(20).replace("interface ifp-0/0/5 mtu 1500\n", "")
+								  .replace("interface ifp-0/0/10 mtu 1500\n", "interface ifp-0/0/10 mtu 1500\nmpls enable\n");
+		ConfigDiff diff = diff(config(20), target);
+		assertEquals("@@ -3,12 +3,12 @@\n"+
+					 " interface ifp-0/0/2 mtu 1500\n"+
+					 " interface ifp-0/0/3 mtu 1500\n"+
+					 " interface ifp-0/0/4 mtu 1500\n"+
+					 "-interface ifp-0/0/5 mtu 1500\n"+
+					 " interface ifp-0/0/6 mtu 1500\n"+
+					 " interface ifp-0/0/7 mtu 1500\n"+
+					 " interface ifp-0/0/8 mtu 1500\n"+
+					 " interface ifp-0/0/9 mtu 1500\n"+
+					 " interface ifp-0/0/10 mtu 1500\n"+
+					 "+mpls enable\n"+
+					 " interface ifp-0/0/11 mtu 1500\n"+
+					 " interface ifp-0/0/12 mtu 1500\n"+
+					 " interface ifp-0/0/13 mtu 1500\n",
+					 diff.getHunks());
+	}
+	
+	@Test
+	public void distant_modifications_are_shown_in_separate_hunks() {
+		String target = config(100).replace("ifp-0/0/10 mtu 1500", "ifp-0/0/10 mtu 9000")
+								   .replace("ifp-0/0/90 mtu 1500", "ifp-0/0/90 mtu 9000");
+		ConfigDiff diff = diff(config(100), target);
+		assertEquals(2,diff.getHunks().split("@@ -").length-1);
+		assertEquals(2,diff.getLinesAdded());
+		assertEquals(2,diff.getLinesRemoved());
+	}
+	
+	@Test
+	public void diff_against_empty_config() {
+		ConfigDiff diff = diff("", config(2));
+		assertEquals("@@ -0,0 +1,2 @@\n"+
+					 "+interface ifp-0/0/0 mtu 1500\n"+
+					 "+interface ifp-0/0/1 mtu 1500\n",
+					 diff.getHunks());
+	}
+	
+	@Test
+	public void mark_missing_newline_at_end_of_file() {
+		ConfigDiff diff = diff("a\nb\n", "a\nc");
+		assertEquals("@@ -1,2 +1,2 @@\n"+
+					 " a\n"+
+					 "-b\n"+
+					 "+c\n"+
+					 "\\ No newline at end of file\n",
+					 diff.getHunks());
+	}
+	
+	@Test
+	public void compute_minimal_diff_of_rewritten_config() {
+		// Every other line is replaced, which exceeds the edit distance limit of configuration deltas.
+		StringBuilder target = new StringBuilder();
+		for(int i=0; i < 2000; i++) {
+			target.append("interface ifp-0/0/")
+				  .append(i)
+				  .append(i % 2 == 0 ? " mtu 1500\n" : " mtu 9000\n");
+		}
+		ConfigDiff diff = diff(config(2000), target.toString());
+		assertEquals(1000,diff.getLinesAdded());
+		assertEquals(1000,diff.getLinesRemoved());
+	}
+	
+	@Test
+	public void cache_diff_by_content_hashes() {
+		ConfigDiffCache cache = new ConfigDiffCache();
+		ConfigDiff diff = diff("a\n","b\n");
+		assertSame(diff, cache.diff("a", "b", () -> diff));
+		assertSame(diff, cache.diff("a", "b", () -> {throw new AssertionError("Cached diff expected");}));
+		assertEquals(1,cache.size());
+	}
+	
+	@Test
+	public void evict_least_recently_used_diff() {
+		ConfigDiffCache cache = new ConfigDiffCache();
+		ConfigDiff first = diff("a\n","b\n");
+		cache.diff("first", "diff", () -> first);
+		for(int i=1; i < ConfigDiffCache.CAPACITY; i++) {
+			cache.diff("base"+i, "target", () -> diff("a\n","b\n"));
+		}
+		// Access first diff to make it the most recently used diff.
+		cache.diff("first", "diff", () -> {throw new AssertionError("Cached diff expected");});
+		cache.diff("base", "target", () -> diff("a\n","b\n"));
+		assertEquals(ConfigDiffCache.CAPACITY,cache.size());
+		assertSame(first,cache.diff("first", "diff", () -> {throw new AssertionError("Cached diff expected");}));
+	}
+	
+}
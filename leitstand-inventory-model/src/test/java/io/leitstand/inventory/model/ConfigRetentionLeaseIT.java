@@ -0,0 +1,69 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.commons.db.DatabaseService.prepare;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.leitstand.commons.model.Repository;
+
+public class ConfigRetentionLeaseIT extends InventoryIT {
+
+	private static final long LEASE_MILLIS = HOURS.toMillis(2);
+	
+	private ConfigRetentionEngineService nodeA;
+	private ConfigRetentionEngineService nodeB;
+	
+	@Before
+	public void initTestEnvironment() {
+		Repository repository = new Repository(getEntityManager());
+		nodeA = new ConfigRetentionEngineService(repository, getDatabase(), mock(ConfigBlobStore.class));
+		nodeB = new ConfigRetentionEngineService(repository, getDatabase(), mock(ConfigBlobStore.class));
+		transaction(()->{
+			getDatabase().executeUpdate(prepare("DELETE FROM inventory.config_retention_lease"));
+		});
+	}
+	
+	private boolean acquire(ConfigRetentionEngineService node, String nodeId, long now) {
+		boolean[] acquired = new boolean[1];
+		transaction(()->{
+			acquired[0] = node.acquireLease(nodeId, new Date(now), new Date(now+LEASE_MILLIS));
+		});
+		return acquired[0];
+	}
+	
+	@Test
+	public void only_one_node_holds_the_lease() {
+		assertTrue(acquire(nodeA,"a",0));
+		assertFalse(acquire(nodeB,"b",0));
+		// The lease holder renews its lease.
+		assertTrue(acquire(nodeA,"a",HOURS.toMillis(1)));
+		assertFalse(acquire(nodeB,"b",HOURS.toMillis(2)));
+	}
+	
+	@Test
+	public void acquire_expired_lease() {
+		assertTrue(acquire(nodeA,"a",0));
+		assertTrue(acquire(nodeB,"b",LEASE_MILLIS+1));
+		assertFalse(acquire(nodeA,"a",LEASE_MILLIS+2));
+	}
+	
+	@Test
+	public void acquire_released_lease() {
+		assertTrue(acquire(nodeA,"a",0));
+		transaction(()->{
+			nodeA.releaseLease("a");
+		});
+		assertTrue(acquire(nodeB,"b",1));
+	}
+	
+}
@@ -0,0 +1,123 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.Config_RetentionPolicy.selectPolicy;
+import static io.leitstand.inventory.service.ConfigurationState.ACTIVE;
+import static io.leitstand.inventory.service.ConfigurationState.CANDIDATE;
+import static io.leitstand.inventory.service.ConfigurationState.SUPERSEDED;
+import static io.leitstand.inventory.service.ElementConfigId.randomConfigId;
+import static io.leitstand.inventory.service.ElementConfigName.elementConfigName;
+import static io.leitstand.inventory.service.ElementRoleName.elementRoleName;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.leitstand.inventory.service.ConfigurationState;
+import io.leitstand.inventory.service.ElementConfigId;
+import io.leitstand.inventory.service.ElementConfigName;
+import io.leitstand.inventory.service.ElementRoleName;
+
+public class ConfigRetentionPolicyTest {
+
+	private static final ElementRoleName SPINE = elementRoleName("spine");
+	private static final ElementRoleName LEAF = elementRoleName("leaf");
+	private static final ElementConfigName RUNNING = elementConfigName("running");
+	private static final ElementConfigName STARTUP = elementConfigName("startup");
+
+	// Noon, to keep revisions created a few hours apart on the same day.
+	private static final Date NOW = new Date(DAYS.toMillis(1000) + HOURS.toMillis(12));
+
+	private static Config_RetentionPolicy policy(ElementRoleName role, ElementConfigName name, int keepLast, Integer keepAllDays, Integer keepDailyDays) {
+		Config_RetentionPolicy policy = new Config_RetentionPolicy(role,name);
+		policy.setKeepLast(keepLast);
+		policy.setKeepAllDays(keepAllDays);
+		policy.setKeepDailyDays(keepDailyDays);
+		return policy;
+	}
+
+	private static ConfigRevision revision(ConfigurationState state, long ageInHours) {
+		return new ConfigRevision(randomConfigId(),
+								  state,
+								  new Date(NOW.getTime() - HOURS.toMillis(ageInHours)));
+	}
+
+	@Test
+	public void select_most_specific_policy() {
+		Config_RetentionPolicy global = policy(null, null, 1, null, null);
+		Config_RetentionPolicy role = policy(SPINE, null, 1, null, null);
+		Config_RetentionPolicy name = policy(null, RUNNING, 1, null, null);
+		Config_RetentionPolicy roleAndName = policy(SPINE, RUNNING, 1, null, null);
+		List<Config_RetentionPolicy> policies = asList(global, role, name, roleAndName);
+
+		assertSame(roleAndName, selectPolicy(policies, SPINE, RUNNING));
+		assertSame(name, selectPolicy(policies, LEAF, RUNNING));
+		assertSame(role, selectPolicy(policies, SPINE, STARTUP));
+		assertSame(global, selectPolicy(policies, LEAF, STARTUP));
+	}
+
+	@Test
+	public void select_no_policy_if_no_policy_applies() {
+		List<Config_RetentionPolicy> policies = asList(policy(SPINE, null, 1, null, null),
+													   policy(null, RUNNING, 1, null, null));
+		assertNull(selectPolicy(policies, LEAF, STARTUP));
+	}
+
+	@Test
+	public void keep_last_revisions() {
+		Config_RetentionPolicy policy = policy(null, null, 2, null, null);
+		ConfigRevision r0 = revision(ACTIVE,0);
+		ConfigRevision r1 = revision(SUPERSEDED,1);
+		ConfigRevision r2 = revision(SUPERSEDED,2);
+		ConfigRevision r3 = revision(SUPERSEDED,3);
+
+		assertEquals(asList(r2.getConfigId(),r3.getConfigId()),
+					 policy.selectRemovableRevisions(asList(r0,r1,r2,r3), NOW));
+	}
+
+	@Test
+	public void keep_all_revisions_younger_than_keep_all_days() {
+		Config_RetentionPolicy policy = policy(null, null, 0, 7, null);
+		ConfigRevision r0 = revision(SUPERSEDED,24);
+		ConfigRevision r1 = revision(SUPERSEDED,6*24);
+		ConfigRevision r2 = revision(SUPERSEDED,8*24);
+
+		assertEquals(asList(r2.getConfigId()),
+					 policy.selectRemovableRevisions(asList(r0,r1,r2), NOW));
+	}
+
+	@Test
+	public void keep_latest_revision_of_day_younger_than_keep_daily_days() {
+		Config_RetentionPolicy policy = policy(null, null, 0, 7, 365);
+		ConfigRevision r0 = revision(SUPERSEDED,10*24);
+		ConfigRevision r1 = revision(SUPERSEDED,10*24+1);
+		ConfigRevision r2 = revision(SUPERSEDED,11*24);
+		ConfigRevision r3 = revision(SUPERSEDED,400*24);
+
+		List<ElementConfigId> removable = policy.selectRemovableRevisions(asList(r0,r1,r2,r3), NOW);
+		assertEquals(asList(r1.getConfigId(),r3.getConfigId()),removable);
+	}
+
+	@Test
+	public void never_remove_active_or_candidate_revisions() {
+		Config_RetentionPolicy policy = policy(null, null, 0, null, null);
+		ConfigRevision r0 = revision(CANDIDATE,1000);
+		ConfigRevision r1 = revision(ACTIVE,2000);
+		ConfigRevision r2 = revision(SUPERSEDED,3000);
+
+		List<ElementConfigId> removable = policy.selectRemovableRevisions(asList(r0,r1,r2), NOW);
+		assertEquals(1,removable.size());
+		assertTrue(removable.contains(r2.getConfigId()));
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.ConfigTerms.MAX_TERM_LENGTH;
+import static io.leitstand.inventory.model.ConfigTerms.indexTerms;
+import static io.leitstand.inventory.model.ConfigTerms.queryTerms;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ConfigTermsTest {
+
+	@Test
+	public void index_terms_with_line_numbers() {
+		Map<String,List<Integer>> terms = indexTerms("interface ifp-0/0/1\n"+
+													 "  mtu 9000\n"+
+													 "neighbor 192.0.2.1 remote-as 65000\n"+
+													 "interface ifp-0/0/2\n");
+		assertEquals(asList(1,4),terms.get("interface"));
+		assertEquals(asList(1),terms.get("ifp-0/0/1"));
+		assertEquals(asList(2),terms.get("9000"));
+		assertEquals(asList(3),terms.get("192.0.2.1"));
+		assertEquals(asList(3),terms.get("remote-as"));
+	}
+	
+	@Test
+	public void index_terms_case_insensitive() {
+		Map<String,List<Integer>> terms = indexTerms("ACL Permit-SSH\npermit-ssh");
+		assertEquals(asList(1),terms.get("acl"));
+		assertEquals(asList(1,2),terms.get("permit-ssh"));
+	}
+
+	@Test
+	public void strip_leading_and_trailing_punctuation() {
+		Map<String,List<Integer>> terms = indexTerms("{\"neighbor\": \"192.0.2.1\", \"description\": \"uplink.\"}");
+		assertTrue(terms.containsKey("neighbor"));
+		assertTrue(terms.containsKey("192.0.2.1"));
+		assertTrue(terms.containsKey("uplink"));
+		assertEquals(4, terms.size());
+	}
+	
+	@Test
+	public void truncate_long_terms() {
+		StringBuilder term = new StringBuilder();
+		for(int i=0; i < 2*MAX_TERM_LENGTH; i++) {
+			term.append('a');
+		}
+		String truncated = term.substring(0,MAX_TERM_LENGTH);
+		assertEquals(asList(1),indexTerms(term.toString()).get(truncated));
+		assertTrue(queryTerms(term.toString()).contains(truncated));
+	}
+	
+	@Test
+	public void split_query_in_distinct_terms() {
+		assertEquals(asList("neighbor","192.0.2.1"),
+					 asList(queryTerms(" Neighbor 192.0.2.1, neighbor ").toArray()));
+	}
+	
+	@Test
+	public void empty_query_has_no_terms() {
+		assertTrue(queryTerms(null).isEmpty());
+		assertTrue(queryTerms("  ,; ").isEmpty());
+	}
+	
+}
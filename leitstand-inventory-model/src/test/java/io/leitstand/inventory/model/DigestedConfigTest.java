@@ -0,0 +1,61 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.ConfigBlob.digest;
+import static io.leitstand.inventory.model.DigestedConfig.readConfig;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class DigestedConfigTest {
+
+	private static final String CONFIG = "hostname r1\ndescription \"Z\u00fcrich\"\n";
+
+	@Test
+	public void compute_digest_while_reading_utf8_config() throws IOException {
+		DigestedConfig config = readConfig(new ByteArrayInputStream(CONFIG.getBytes(UTF_8)), UTF_8);
+		assertEquals(CONFIG,config.getConfig());
+		assertEquals(digest(CONFIG),config.getDigest());
+	}
+
+	@Test
+	public void compute_digest_of_utf8_representation_for_other_charsets() throws IOException {
+		DigestedConfig config = readConfig(new ByteArrayInputStream(CONFIG.getBytes(ISO_8859_1)), ISO_8859_1);
+		assertEquals(CONFIG,config.getConfig());
+		assertEquals(digest(CONFIG),config.getDigest());
+	}
+
+	@Test
+	public void read_empty_config() throws IOException {
+		DigestedConfig config = readConfig(new ByteArrayInputStream(new byte[0]), UTF_8);
+		assertEquals("",config.getConfig());
+		assertEquals(digest(""),config.getDigest());
+	}
+
+	@Test
+	public void spool_large_config_to_temporary_file() throws IOException {
+		try(DigestedConfig config = readConfig(new ByteArrayInputStream(CONFIG.getBytes(UTF_8)), UTF_8, 8)){
+			assertTrue(config.isSpooled());
+			assertEquals(digest(CONFIG),config.getDigest());
+			assertEquals(CONFIG,config.getConfig());
+		}
+	}
+
+	@Test
+	public void compute_digest_of_supplementary_characters() throws IOException {
+		String config = "description \ud83d\ude80\n";
+		try(DigestedConfig digested = readConfig(new ByteArrayInputStream(config.getBytes(UTF_8)), UTF_8, 8)){
+			assertEquals(config,digested.getConfig());
+			assertEquals(digest(config),digested.getDigest());
+		}
+	}
+
+}
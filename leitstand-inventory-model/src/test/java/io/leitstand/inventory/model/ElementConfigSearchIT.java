@@ -0,0 +1,197 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.Element.findElementByName;
+import static io.leitstand.inventory.model.ElementGroup.findElementGroupByName;
+import static io.leitstand.inventory.model.ElementRole.findRoleByName;
+import static io.leitstand.inventory.service.ConfigurationState.ACTIVE;
+import static io.leitstand.inventory.service.ConfigurationState.CANDIDATE;
+import static io.leitstand.inventory.service.ElementConfigName.elementConfigName;
+import static io.leitstand.inventory.service.ElementGroupId.randomGroupId;
+import static io.leitstand.inventory.service.ElementGroupName.groupName;
+import static io.leitstand.inventory.service.ElementGroupType.groupType;
+import static io.leitstand.inventory.service.ElementId.randomElementId;
+import static io.leitstand.inventory.service.ElementName.elementName;
+import static io.leitstand.inventory.service.ElementRoleName.elementRoleName;
+import static io.leitstand.inventory.service.Plane.DATA;
+import static java.util.Arrays.asList;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.enterprise.event.Event;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.leitstand.commons.messages.Messages;
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.Flow;
+import io.leitstand.commons.tx.SubtransactionService;
+import io.leitstand.inventory.event.ElementConfigEvent;
+import io.leitstand.inventory.event.ElementConfigRemovedEvent;
+import io.leitstand.inventory.event.ElementConfigRevisionRemovedEvent;
+import io.leitstand.inventory.event.ElementConfigStoredEvent;
+import io.leitstand.inventory.service.ElementConfigMatch;
+import io.leitstand.inventory.service.ElementConfigName;
+import io.leitstand.inventory.service.ElementConfigSearchService;
+import io.leitstand.inventory.service.ElementConfigService;
+import io.leitstand.inventory.service.ElementName;
+import io.leitstand.security.auth.UserId;
+
+public class ElementConfigSearchIT extends InventoryIT {
+
+	private static final ElementName SPINE = elementName("config_search_spine");
+	private static final ElementName LEAF = elementName("config_search_leaf");
+	private static final ElementConfigName RUNNING = elementConfigName("search_running");
+	
+	private ElementConfigService configs;
+	private ElementConfigSearchService search;
+	private Repository repository;
+	
+	@Before
+	public void initTestEnvironment() {
+		repository = new Repository(getEntityManager());
+		ElementProvider elements = new ElementProvider(repository);
+		
+		SubtransactionService subtransactions = mock(SubtransactionService.class);
+		when(subtransactions.run(any(Flow.class))).thenAnswer(invocation -> {
+			Flow<?> flow = (Flow<?>) invocation.getArguments()[0];
+			flow.transaction(repository);
+			return flow.resume(repository);
+		});
+		
+		// Dispatch the configuration events to the indexer as CDI does.
+		ElementConfigIndexer indexer = new ElementConfigIndexer(repository, subtransactions);
+		Event<ElementConfigEvent> event = mock(Event.class);
+		doAnswer(invocation -> {
+			Object e = invocation.getArguments()[0];
+			if(e instanceof ElementConfigStoredEvent) {
+				indexer.onConfigStored((ElementConfigStoredEvent)e);
+			} else if (e instanceof ElementConfigRevisionRemovedEvent) {
+				indexer.onConfigRevisionRemoved((ElementConfigRevisionRemovedEvent)e);
+			} else if (e instanceof ElementConfigRemovedEvent) {
+				indexer.onConfigRemoved((ElementConfigRemovedEvent)e);
+			}
+			return null;
+		}).when(event).fire(any(ElementConfigEvent.class));
+		
+		ElementConfigManager manager = new ElementConfigManager(repository,
+																getDatabase(),
+																new ConfigBlobStore(repository, 
+																					subtransactions),
+																subtransactions,
+																new ConfigDiffCache(),
+																UserId.valueOf("unittest"),
+																event,
+																mock(Messages.class));
+		configs = new DefaultElementConfigService(elements,manager);
+		search = new DefaultElementConfigSearchService(repository);
+		
+		transaction(()->{
+			ElementGroup group = repository.addIfAbsent(findElementGroupByName(groupType("unittest"), 
+																			   groupName("config_search_test")), 
+														() -> new ElementGroup(randomGroupId(), 
+																  			   groupType("unittest"), 
+																  			   groupName("config_search_test")));
+			repository.flush();
+			ElementRole role = repository.addIfAbsent(findRoleByName(elementRoleName("config_search_test")), 
+						 						   	  () -> new ElementRole(elementRoleName("config_search_test"),DATA)); 
+			repository.addIfAbsent(findElementByName(SPINE), 
+								   () -> new Element(group,role,randomElementId(),SPINE));
+			repository.addIfAbsent(findElementByName(LEAF), 
+								   () -> new Element(group,role,randomElementId(),LEAF));
+		});
+	}
+	
+	private void store(ElementName element, String config) {
+		transaction(()->{
+			configs.storeElementConfig(element, 
+									   RUNNING, 
+									   TEXT_PLAIN_TYPE, 
+									   ACTIVE, 
+									   config, 
+									   null);
+		});
+	}
+	
+	private List<ElementConfigMatch> search(String query) {
+		List<ElementConfigMatch> matches = new ArrayList<>();
+		transaction(()->{
+			matches.addAll(search.searchElementConfigs(query, null, 0, 100));
+		});
+		return matches;
+	}
+	
+	@Test
+	public void find_active_configs_containing_all_terms() {
+		store(SPINE, "hostname spine\nbgp neighbor 192.0.2.1 remote-as 65001\nbgp neighbor 192.0.2.2 remote-as 65002\n");
+		store(LEAF,  "hostname leaf\nbgp neighbor 192.0.2.3 remote-as 65001\n");
+		
+		List<ElementConfigMatch> matches = search("neighbor 192.0.2.1");
+		assertEquals(1,matches.size());
+		ElementConfigMatch match = matches.get(0);
+		assertEquals(SPINE,match.getElementName());
+		assertEquals(RUNNING,match.getConfigName());
+		assertEquals(ACTIVE,match.getConfigState());
+		assertEquals(asList(2),match.getLines());
+		
+		matches = search("remote-as 65001");
+		assertEquals(2,matches.size());
+		assertEquals(LEAF,matches.get(0).getElementName());
+		assertEquals(SPINE,matches.get(1).getElementName());
+	}
+	
+	@Test
+	public void superseded_configs_are_removed_from_index() {
+		store(SPINE, "hostname spine\nip access-list search-it-acl-1\n");
+		assertEquals(1,search("search-it-acl-1").size());
+		
+		store(SPINE, "hostname spine\nip access-list search-it-acl-2\n");
+		assertTrue(search("search-it-acl-1").isEmpty());
+		assertEquals(1,search("search-it-acl-2").size());
+	}
+	
+	@Test
+	public void filter_by_configuration_state() {
+		transaction(()->{
+			configs.storeElementConfig(LEAF, 
+									   elementConfigName("search_candidate"), 
+									   TEXT_PLAIN_TYPE, 
+									   CANDIDATE, 
+									   "ip access-list search-it-candidate-acl\n", 
+									   "candidate");
+		});
+		transaction(()->{
+			assertEquals(1,search.searchElementConfigs("search-it-candidate-acl", CANDIDATE, 0, 100).size());
+			assertTrue(search.searchElementConfigs("search-it-candidate-acl", ACTIVE, 0, 100).isEmpty());
+		});
+	}
+	
+	@Test
+	public void removed_configs_are_removed_from_index() {
+		transaction(()->{
+			configs.storeElementConfig(LEAF, 
+									   elementConfigName("search_removed"), 
+									   TEXT_PLAIN_TYPE, 
+									   CANDIDATE, 
+									   "ip access-list search-it-removed-acl\n", 
+									   "candidate");
+		});
+		assertEquals(1,search("search-it-removed-acl").size());
+		transaction(()->{
+			configs.removeElementConfig(LEAF, elementConfigName("search_removed"));
+		});
+		assertTrue(search("search-it-removed-acl").isEmpty());
+	}
+	
+}
@@ -3,9 +3,11 @@
  */
 package io.leitstand.inventory.model;
 
+import static io.leitstand.commons.db.DatabaseService.prepare;
 import static io.leitstand.inventory.model.Element.findElementByName;
 import static io.leitstand.inventory.model.ElementGroup.findElementGroupByName;
 import static io.leitstand.inventory.model.ElementRole.findRoleByName;
+import static io.leitstand.inventory.model.Element_Config.findActiveConfig;
 import static io.leitstand.inventory.service.ConfigurationState.ACTIVE;
 import static io.leitstand.inventory.service.ConfigurationState.CANDIDATE;
 import static io.leitstand.inventory.service.ConfigurationState.SUPERSEDED;
@@ -19,16 +21,24 @@ import static io.leitstand.inventory.service.ElementRoleName.elementRoleName;
 import static io.leitstand.inventory.service.Plane.DATA;
 import static io.leitstand.inventory.service.ReasonCode.IVT0332E_ELEMENT_CONFIG_REVISION_NOT_FOUND;
 import static io.leitstand.inventory.service.ReasonCode.IVT0334E_ELEMENT_ACTIVE_CONFIG_NOT_FOUND;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentCaptor.forClass;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
 
 import javax.enterprise.event.Event;
 
@@ -40,15 +50,19 @@ import io.leitstand.commons.EntityNotFoundException;
 import io.leitstand.commons.db.DatabaseService;
 import io.leitstand.commons.messages.Messages;
 import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.Flow;
+import io.leitstand.commons.tx.SubtransactionService;
 import io.leitstand.inventory.event.ElementConfigEvent;
 import io.leitstand.inventory.event.ElementConfigRevisionRemovedEvent;
 import io.leitstand.inventory.event.ElementConfigStoredEvent;
 import io.leitstand.inventory.service.ElementConfig;
+import io.leitstand.inventory.service.ElementConfigDiff;
 import io.leitstand.inventory.service.ElementConfigId;
 import io.leitstand.inventory.service.ElementConfigName;
 import io.leitstand.inventory.service.ElementConfigReference;
 import io.leitstand.inventory.service.ElementConfigRevisions;
 import io.leitstand.inventory.service.ElementConfigService;
+import io.leitstand.inventory.service.ElementConfigs;
 import io.leitstand.inventory.service.ElementId;
 import io.leitstand.inventory.service.ElementName;
 import io.leitstand.inventory.service.StoreElementConfigResult;
@@ -61,18 +75,31 @@ public class ElementConfigServiceIT extends InventoryIT {
 
 	private ElementConfigService service;
 	private ArgumentCaptor<ElementConfigEvent> eventCaptor;
+	private Repository repository;
 
 	@Before
 	public void initTestEnvironment() {
-		Repository repository = new Repository(getEntityManager());
+		repository = new Repository(getEntityManager());
 		ElementProvider elements = new ElementProvider(repository);
 		DatabaseService db = getDatabase();
 		Event<ElementConfigEvent> event = mock(Event.class);
 		eventCaptor = forClass(ElementConfigEvent.class);
 		doNothing().when(event).fire(eventCaptor.capture());
 		
+		// Run subtransactions in the current transaction.
+		SubtransactionService subtransactions = mock(SubtransactionService.class);
+		when(subtransactions.run(any(Flow.class))).thenAnswer(invocation -> {
+			Flow<?> flow = (Flow<?>) invocation.getArguments()[0];
+			flow.transaction(repository);
+			return flow.resume(repository);
+		});
+		
 		ElementConfigManager configs = new ElementConfigManager(repository,
 																db,
+																new ConfigBlobStore(repository, 
+																					subtransactions),
+																subtransactions,
+																new ConfigDiffCache(),
 																UserId.valueOf("unittest"),
 																event,
 																mock(Messages.class));
@@ -370,6 +397,108 @@ public class ElementConfigServiceIT extends InventoryIT {
 		
 	}
 	
+	@Test
+	public void identical_configurations_refer_to_the_same_blob() {
+		ElementConfigName configA = ElementConfigName.valueOf("identical_config_a");
+		ElementConfigName configB = ElementConfigName.valueOf("identical_config_b");
+		transaction(()->{
+			service.storeElementConfig(ELEMENT_ID, 
+									   configA, 
+									   TEXT_PLAIN_TYPE,
+									   ACTIVE,
+									   "Shared config", 
+									   "First config");
+			service.storeElementConfig(ELEMENT_ID, 
+									   configB, 
+									   TEXT_PLAIN_TYPE,
+									   ACTIVE,
+									   "Shared config", 
+									   "Second config");
+		});
+		
+		transaction(()->{
+			Element element = repository.execute(findElementByName(ELEMENT_NAME));
+			Element_Config a = repository.execute(findActiveConfig(element, configA));
+			Element_Config b = repository.execute(findActiveConfig(element, configB));
+			assertNotNull(a.getBlobDigest());
+			assertEquals(a.getBlobDigest(),b.getBlobDigest());
+			assertEquals("Shared config",b.getConfig());
+		});
+	}
+	
+	@Test
+	public void content_stored_as_delta_is_stored_as_blob_when_stored_again() {
+		ElementConfigName configA = ElementConfigName.valueOf("shared_delta_a");
+		ElementConfigName configB = ElementConfigName.valueOf("shared_delta_b");
+		transaction(()->{
+			for(ElementConfigName configName : new ElementConfigName[] {configA, configB}) {
+				service.storeElementConfig(ELEMENT_ID, 
+										   configName, 
+										   TEXT_PLAIN_TYPE,
+										   ACTIVE,
+										   "hostname leaf-1\nmtu 9000\n", 
+										   null);
+				service.storeElementConfig(ELEMENT_ID, 
+										   configName, 
+										   TEXT_PLAIN_TYPE,
+										   ACTIVE,
+										   "hostname leaf-1\nmtu 1500\n", 
+										   null);
+			}
+		});
+		
+		transaction(()->{
+			Element element = repository.execute(findElementByName(ELEMENT_NAME));
+			Element_Config b = repository.execute(findActiveConfig(element, configB));
+			assertFalse(b.isDeltaRevision());
+			assertNotNull(b.getBlobDigest());
+			assertEquals("hostname leaf-1\nmtu 1500\n",b.getConfig());
+		});
+	}
+	
+	@Test
+	public void stream_uploaded_config_revisions() {
+		ElementConfigName configName = ElementConfigName.valueOf("stream_uploaded_config_revisions");
+		StringBuilder first = new StringBuilder();
+		for(int i=0; i < 100; i++) {
+			first.append("interface ifp-0/0/").append(i).append(" mtu 1500\n");
+		}
+		String second = first.toString().replace("ifp-0/0/10 mtu 1500", "ifp-0/0/10 mtu 9000");
+		ElementConfigId[] ids = new ElementConfigId[2];
+		transaction(()->{
+			ids[0] = service.storeElementConfig(ELEMENT_ID, 
+												configName, 
+												TEXT_PLAIN_TYPE, 
+												ACTIVE,
+												new ByteArrayInputStream(first.toString().getBytes(UTF_8)), 
+												"Streamed snapshot").getConfigId();
+		});
+		transaction(()->{
+			ids[1] = service.storeElementConfig(ELEMENT_ID, 
+												configName, 
+												TEXT_PLAIN_TYPE, 
+												ACTIVE,
+												new ByteArrayInputStream(second.getBytes(UTF_8)), 
+												"Streamed delta").getConfigId();
+		});
+		
+		transaction(()->{
+			ElementConfigReference snapshot = service.getElementConfigReference(ELEMENT_ID, ids[0]);
+			assertEquals(ConfigBlob.digest(first.toString()),snapshot.getContentHash());
+			assertNotNull(snapshot.getContentLength());
+			StringWriter snapshotConfig = new StringWriter();
+			service.writeElementConfig(ELEMENT_ID, ids[0], snapshotConfig);
+			assertEquals(first.toString(),snapshotConfig.toString());
+			
+			ElementConfigReference delta = service.getElementConfigReference(ELEMENT_NAME, ids[1]);
+			assertEquals(ConfigBlob.digest(second),delta.getContentHash());
+			assertNull(delta.getContentLength());
+			StringWriter deltaConfig = new StringWriter();
+			service.writeElementConfig(ELEMENT_NAME, ids[1], deltaConfig);
+			assertEquals(second,deltaConfig.toString());
+		});
+	}
+	
 	@Test
 	public void update_comment_of_existing_config() {
 		ElementConfigName configName = ElementConfigName.valueOf("update_comment_of_existing_config");
@@ -417,4 +546,168 @@ public class ElementConfigServiceIT extends InventoryIT {
 		});
 	}
 		
+	@Test
+	public void configuration_modifications_change_element_configs_version() {
+		ElementConfigName configName = ElementConfigName.valueOf("version_test");
+		String[] versions = new String[3];
+		transaction(()->{
+			versions[0] = service.getElementConfigsVersion(ELEMENT_ID);
+			service.storeElementConfig(ELEMENT_ID, 
+									   configName, 
+									   TEXT_PLAIN_TYPE, 
+									   ACTIVE, 
+									   "Config 1", 
+									   null);
+		});
+		transaction(()->{
+			versions[1] = service.getElementConfigsVersion(ELEMENT_NAME);
+			ElementConfig config = service.getActiveElementConfig(ELEMENT_ID, configName);
+			service.setElementConfigComment(ELEMENT_ID, 
+											config.getConfigId(), 
+											"Commented");
+		});
+		transaction(()->{
+			versions[2] = service.getElementConfigsVersion(ELEMENT_ID);
+			// Reporting the active configuration again does not modify the configurations.
+			service.storeElementConfig(ELEMENT_ID, 
+									   configName, 
+									   TEXT_PLAIN_TYPE, 
+									   ACTIVE, 
+									   "Config 1", 
+									   null);
+		});
+		transaction(()->{
+			assertFalse(versions[0].equals(versions[1]));
+			assertFalse(versions[1].equals(versions[2]));
+			assertEquals(versions[2],service.getElementConfigsVersion(ELEMENT_ID));
+		});
+	}
+	
+	@Test
+	public void storing_configuration_does_not_modify_element_row() {
+		ElementConfigName configName = ElementConfigName.valueOf("element_row_test");
+		long[] modcount = new long[1];
+		transaction(()->{
+			modcount[0] = readElementModCount();
+			service.storeElementConfig(ELEMENT_ID, 
+									   configName, 
+									   TEXT_PLAIN_TYPE, 
+									   ACTIVE, 
+									   "Config 1", 
+									   null);
+		});
+		transaction(()->{
+			assertEquals(modcount[0],readElementModCount());
+		});
+	}
+	
+	private long readElementModCount() {
+		return getDatabase().executeQuery(prepare("SELECT modcount FROM inventory.element WHERE uuid=?", 
+												  ELEMENT_ID.toString()), 
+										  rs -> rs.getLong(1))
+							.get(0);
+	}
+	
+	@Test
+	public void diff_candidate_against_active_config() {
+		ElementConfigName configName = ElementConfigName.valueOf("diff_test");
+		ElementConfigId[] ids = new ElementConfigId[2];
+		transaction(()->{
+			ids[0] = service.storeElementConfig(ELEMENT_ID, 
+									   			configName, 
+									   			TEXT_PLAIN_TYPE, 
+									   			ACTIVE, 
+									   			"hostname leaf-1\nmtu 1500\n", 
+									   			null)
+							.getConfigId();
+			ids[1] = service.storeElementConfig(ELEMENT_ID, 
+									   			configName, 
+									   			TEXT_PLAIN_TYPE, 
+									   			CANDIDATE, 
+									   			"hostname leaf-1\nmtu 9000\n", 
+									   			null)
+							.getConfigId();
+		});
+		transaction(()->{
+			ElementConfigDiff diff = service.getElementConfigDiff(ELEMENT_NAME, null, ids[1]);
+			assertEquals(ids[0],diff.getBaseConfigId());
+			assertEquals(ids[1],diff.getTargetConfigId());
+			assertEquals(1,diff.getLinesAdded());
+			assertEquals(1,diff.getLinesRemoved());
+			assertEquals("@@ -1,2 +1,2 @@\n"+
+						 " hostname leaf-1\n"+
+						 "-mtu 1500\n"+
+						 "+mtu 9000\n",
+						 diff.getDiff());
+			
+			ElementConfigDiff reverse = service.getElementConfigDiff(ELEMENT_ID, ids[1], ids[0]);
+			assertEquals(ids[1],reverse.getBaseConfigId());
+			assertEquals("@@ -1,2 +1,2 @@\n"+
+						 " hostname leaf-1\n"+
+						 "-mtu 9000\n"+
+						 "+mtu 1500\n",
+						 reverse.getDiff());
+		});
+	}
+	
+	@Test
+	public void configuration_heads_point_to_latest_and_active_revision() {
+		ElementConfigName configName = ElementConfigName.valueOf("head_test");
+		ElementConfigId[] ids = new ElementConfigId[3];
+		transaction(()->{
+			ids[0] = service.storeElementConfig(ELEMENT_ID, configName, TEXT_PLAIN_TYPE, ACTIVE, "Config 1", null).getConfigId();
+			ids[1] = service.storeElementConfig(ELEMENT_ID, configName, TEXT_PLAIN_TYPE, ACTIVE, "Config 2", null).getConfigId();
+			ids[2] = service.storeElementConfig(ELEMENT_ID, configName, TEXT_PLAIN_TYPE, CANDIDATE, "Config 3", null).getConfigId();
+		});
+		transaction(()->{
+			ElementConfigs configs = service.findElementConfigs(ELEMENT_ID, "head_test");
+			assertEquals(1,configs.getConfigs().size());
+			assertEquals(ids[2],configs.getConfigs().get(0).getConfigId());
+			assertEquals(ids[1],service.getActiveElementConfig(ELEMENT_ID, configName).getConfigId());
+			// Remove candidate revision.
+			service.removeElementConfig(ELEMENT_ID, ids[2]);
+		});
+		transaction(()->{
+			ElementConfigs configs = service.findElementConfigs(ELEMENT_ID, "head_test");
+			assertEquals(ids[1],configs.getConfigs().get(0).getConfigId());
+			// Remove active revision.
+			service.removeElementConfig(ELEMENT_ID, ids[1]);
+		});
+		transaction(()->{
+			ElementConfigs configs = service.findElementConfigs(ELEMENT_ID, "head_test");
+			assertEquals(ids[0],configs.getConfigs().get(0).getConfigId());
+			try {
+				service.getActiveElementConfig(ELEMENT_ID, configName);
+				fail("Exception expected!");
+			} catch (EntityNotFoundException e) {
+				assertEquals(IVT0334E_ELEMENT_ACTIVE_CONFIG_NOT_FOUND,e.getReason());
+			}
+			// Remove all non-active revisions.
+			service.removeElementConfig(ELEMENT_NAME, configName);
+		});
+		transaction(()->{
+			assertTrue(service.findElementConfigs(ELEMENT_ID, "head_test").getConfigs().isEmpty());
+		});
+	}
+	
+	@Test
+	public void list_latest_revision_of_configuration_without_head() {
+		ElementConfigName configName = ElementConfigName.valueOf("headless_test");
+		ElementConfigId[] ids = new ElementConfigId[2];
+		transaction(()->{
+			ids[0] = service.storeElementConfig(ELEMENT_ID, configName, TEXT_PLAIN_TYPE, ACTIVE, "Config 1", null).getConfigId();
+			ids[1] = service.storeElementConfig(ELEMENT_ID, configName, TEXT_PLAIN_TYPE, CANDIDATE, "Config 2", null).getConfigId();
+		});
+		transaction(()->{
+			// Simulate a configuration stored before the heads were initialized.
+			getDatabase().executeUpdate(prepare("DELETE FROM inventory.element_config_head WHERE name=?", 
+												configName.getValue()));
+		});
+		transaction(()->{
+			ElementConfigs configs = service.findElementConfigs(ELEMENT_ID, "headless_test");
+			assertEquals(1,configs.getConfigs().size());
+			assertEquals(ids[1],configs.getConfigs().get(0).getConfigId());
+		});
+	}
+	
 }
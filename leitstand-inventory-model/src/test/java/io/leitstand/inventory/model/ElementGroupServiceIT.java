@@ -3,6 +3,10 @@
  */
 package io.leitstand.inventory.model;
 
+import static io.leitstand.inventory.event.ElementGroupRenamedEvent.newElementGroupRenamedEvent;
+import static io.leitstand.inventory.event.ElementOperationalStateChangedEvent.newElementOperationalStateChangedEvent;
+import static io.leitstand.inventory.model.Element.findElementById;
+import static io.leitstand.inventory.model.ElementGroup.findElementGroupById;
 import static io.leitstand.inventory.model.ElementGroup.findElementGroupByName;
 import static io.leitstand.inventory.model.ElementRole.findRoleByName;
 import static io.leitstand.inventory.service.AdministrativeState.ACTIVE;
@@ -22,11 +26,14 @@ import static io.leitstand.inventory.service.Plane.DATA;
 import static io.leitstand.testing.ut.LeitstandCoreMatchers.hasSizeOf;
 import static io.leitstand.testing.ut.LeitstandCoreMatchers.isEmptyCollection;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 
 import java.util.List;
 
+import javax.enterprise.event.Event;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -38,6 +45,8 @@ import io.leitstand.inventory.service.ElementGroupService;
 import io.leitstand.inventory.service.ElementGroupSettings;
 import io.leitstand.inventory.service.ElementGroupStatistics;
 import io.leitstand.inventory.service.ElementGroupType;
+import io.leitstand.inventory.service.ElementId;
+import io.leitstand.inventory.service.ElementName;
 import io.leitstand.inventory.service.ElementRoleName;
 
 public class ElementGroupServiceIT extends InventoryIT {
@@ -50,13 +59,17 @@ public class ElementGroupServiceIT extends InventoryIT {
 	
 	private ElementGroupService service;
 	private ElementGroupManager manager;
+	private ElementGroupCounters counters;
 	private Repository repository;
 
 	@Before
 	public void initTestEnvironment() {
 		this.repository = new Repository(getEntityManager());
+		counters = new ElementGroupCounters(getDatabase());
 		manager = new ElementGroupManager(repository,
 				 						  getDatabase(),
+				 						  counters,
+				 						  mock(Event.class),
 				 						  mock(Messages.class));
 		service = new DefaultElementGroupService(manager);
 		
@@ -164,4 +177,100 @@ public class ElementGroupServiceIT extends InventoryIT {
 		});
 	}
 	
+	@Test
+	public void recount_group_statistics_after_operational_state_change() {
+		ElementGroupType groupType = groupType("counters");
+		ElementGroupId groupId = randomGroupId();
+		ElementGroupName groupName = groupName("counters");
+		ElementId elementId = randomElementId();
+		ElementName elementName = elementName(getClass().getSimpleName()+".counters");
+		
+		transaction(() -> {
+			ElementGroup group = new ElementGroup(groupId, groupType, groupName);
+			repository.add(group);
+			ElementRole role = repository.addIfAbsent(findRoleByName(ROLE_NAME),
+													  () -> {
+														  ElementRole newRole = new ElementRole(ROLE_NAME, DATA );
+														  newRole.setManageable(true);
+														  return newRole;
+													  });
+			Element element = new Element(group,role,elementId,elementName);
+			element.setAdministrativeState(ACTIVE);
+			element.setOperationalState(UP);
+			repository.add(element);
+		});
+		
+		transaction(() -> {
+			ElementGroupStatistics stats = service.getGroupStatistics(groupType, null).get(0);
+			assertEquals(1,stats.getActiveElements().get(UP).intValue());
+		});
+		
+		transaction(() -> {
+			repository.execute(findElementById(elementId)).setOperationalState(DOWN);
+		});
+		counters.onElementOperationalStateChanged(newElementOperationalStateChangedEvent()
+												  .withGroupId(groupId)
+												  .withGroupType(groupType)
+												  .withGroupName(groupName)
+												  .withElementId(elementId)
+												  .withElementName(elementName)
+												  .withElementRole(ROLE_NAME)
+												  .withPreviousState(UP)
+												  .withOperationalState(DOWN)
+												  .build());
+		
+		transaction(() -> {
+			ElementGroupStatistics stats = service.getGroupStatistics(groupType, null).get(0);
+			assertNull(stats.getActiveElements().get(UP));
+			assertEquals(1,stats.getActiveElements().get(DOWN).intValue());
+		});
+	}
+	
+	
+	@Test
+	public void recount_group_statistics_after_group_rename() {
+		ElementGroupType groupType = groupType("renamed_counters");
+		ElementGroupId groupId = randomGroupId();
+		ElementGroupName groupName = groupName("counters");
+		ElementGroupName renamed = groupName("renamed_counters");
+		ElementId elementId = randomElementId();
+		ElementName elementName = elementName(getClass().getSimpleName()+".renamed_counters");
+		
+		transaction(() -> {
+			ElementGroup group = new ElementGroup(groupId, groupType, groupName);
+			repository.add(group);
+			ElementRole role = repository.addIfAbsent(findRoleByName(ROLE_NAME),
+													  () -> {
+														  ElementRole newRole = new ElementRole(ROLE_NAME, DATA );
+														  newRole.setManageable(true);
+														  return newRole;
+													  });
+			Element element = new Element(group,role,elementId,elementName);
+			element.setAdministrativeState(ACTIVE);
+			element.setOperationalState(UP);
+			repository.add(element);
+		});
+		
+		transaction(() -> {
+			ElementGroupStatistics stats = service.getGroupStatistics(groupType, null).get(0);
+			assertEquals(groupName,stats.getGroupName());
+		});
+		
+		transaction(() -> {
+			repository.execute(findElementGroupById(groupId)).setElementGroupName(renamed);
+		});
+		counters.onElementGroupRenamed(newElementGroupRenamedEvent()
+									   .withGroupId(groupId)
+									   .withGroupType(groupType)
+									   .withGroupName(renamed)
+									   .withPreviousGroupName(groupName)
+									   .build());
+		
+		transaction(() -> {
+			ElementGroupStatistics stats = service.getGroupStatistics(groupType, null).get(0);
+			assertEquals(renamed,stats.getGroupName());
+			assertEquals(1,stats.getActiveElements().get(UP).intValue());
+		});
+	}
+	
 }
@@ -29,6 +29,8 @@ import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
+import javax.enterprise.event.Event;
+
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -59,7 +61,7 @@ public class ElementGroupSettingsServiceIT extends InventoryIT{
 	public void initTestEnvironment() {
 		messages = mock(Messages.class);
 		repository = new Repository(getEntityManager());
-		ElementGroupManager manager = new ElementGroupManager(repository, getDatabase(), messages);
+		ElementGroupManager manager = new ElementGroupManager(repository, getDatabase(), new ElementGroupCounters(getDatabase()), mock(Event.class), messages);
 		ElementGroupProvider groups = new ElementGroupProvider(repository);
 		service = new DefaultElementGroupSettingsService(manager, 
 														 groups);
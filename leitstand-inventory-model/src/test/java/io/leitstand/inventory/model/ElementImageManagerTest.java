@@ -34,6 +34,7 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import io.leitstand.commons.ConflictException;
@@ -73,6 +74,12 @@ public class ElementImageManagerTest {
 	@Mock
 	private SubtransactionService service;
 	
+	@Mock
+	private ImageRolloutManager rollouts;
+	
+	@Spy
+	private ImageStubRecords stubs = new ImageStubRecords();
+	
 	@InjectMocks
 	private ElementImageManager manager = new ElementImageManager();
 
@@ -165,7 +172,7 @@ public class ElementImageManagerTest {
 	@Test
 	public void attempt_to_register_an_unknown_image_fails_silently() {
 		Image image = mock(Image.class);
-		when(service.run(any(Flow.class))).thenReturn(image);
+		when(service.run(any(Flow.class))).thenReturn(asList(image));
 
 		when(repository.execute(any(Query.class)))
 		.thenReturn(emptyList())
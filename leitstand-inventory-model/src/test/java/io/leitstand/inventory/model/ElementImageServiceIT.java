@@ -5,6 +5,7 @@ package io.leitstand.inventory.model;
 
 import static io.leitstand.commons.db.DatabaseService.prepare;
 import static io.leitstand.inventory.model.ElementGroup.findElementGroupById;
+import static io.leitstand.inventory.model.Element.findElementById;
 import static io.leitstand.inventory.model.ElementRole.findRoleByName;
 import static io.leitstand.inventory.model.ElementSettingsMother.element;
 import static io.leitstand.inventory.model.Image.findElementRoleImage;
@@ -25,12 +26,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 
 import javax.enterprise.event.Event;
+import javax.inject.Provider;
 
 import org.junit.After;
 import org.junit.Before;
@@ -51,6 +54,9 @@ import io.leitstand.inventory.service.ElementSettings;
 import io.leitstand.inventory.service.ElementSettingsService;
 import io.leitstand.inventory.service.ImageId;
 import io.leitstand.inventory.service.ImageName;
+import io.leitstand.inventory.service.ImageRollout;
+import io.leitstand.inventory.service.ImageService;
+import io.leitstand.inventory.service.ImageStatistics;
 import io.leitstand.inventory.service.ImageType;
 import io.leitstand.inventory.service.Version;
 
@@ -145,10 +151,18 @@ public class ElementImageServiceIT extends InventoryIT{
 	}
 	
 	private ElementImagesService service;
+	private ImageService images;
+	private Repository repository;
+	private ImageRolloutManager rollouts;
 	
 	@Before
 	public void initTestEnvironment() {
-		Repository repository = new Repository(getEntityManager());
+		repository = new Repository(getEntityManager());
+		Provider<SubtransactionService> provider = mock(Provider.class);
+		SubtransactionService transactions = new InventorySubtransactionService(repository, provider);
+		when(provider.get()).thenReturn(transactions);
+		rollouts = new ImageRolloutManager(repository, 
+										   transactions);
 
 		ElementProvider elements = new ElementProvider(repository);
 		ElementGroupProvider groups = new ElementGroupProvider(repository);
@@ -169,8 +183,17 @@ public class ElementImageServiceIT extends InventoryIT{
 		ElementSettings settings = element(ELEMENT_ID, ELEMENT_NAME);
 		service = new DefaultElementImagesService(new ElementImageManager(repository,
 												  mock(SubtransactionService.class),
+												  new ImageVersionIndex(),
+												  rollouts,
+												  new ImageStubRecords(),
 												  mock(Messages.class)), 
 												  elements);
+		images = new DefaultImageService(transactions,
+										 new PackageVersionService(repository),
+										 repository,
+										 getDatabase(),
+										 mock(Messages.class),
+										 mock(Event.class));
 
 		
 		transaction(()->{
@@ -269,6 +292,7 @@ public class ElementImageServiceIT extends InventoryIT{
 	public void clearTestEnvironment() {
 		transaction(() -> {
 			getDatabase().executeUpdate(prepare("DELETE FROM inventory.element_image"));
+			getDatabase().executeUpdate(prepare("DELETE FROM inventory.image_rollout"));
 			
 		});
 		
@@ -560,6 +584,88 @@ public class ElementImageServiceIT extends InventoryIT{
 		});
 	}
 	
+	@Test
+	public void count_installed_images_per_group() {
+		transaction(()->{
+			service.storeInstalledImages(ELEMENT_ID, asList(ACTIVE_BASE_REF, 
+															CACHED_PATCH_UPGRADE_REF));
+		});
+		transaction(()->{
+			List<ImageRollout> rollouts = images.getImageRolloutMatrix(imageName("JUNIT"), 
+																	   element(ELEMENT_ID, ELEMENT_NAME).getElementRole(), 
+																	   LXC)
+												.getRollouts();
+			assertEquals(2,rollouts.size());
+			assertEquals(version("1.0.0"),rollouts.get(0).getImageVersion());
+			assertEquals(1,rollouts.get(0).getActiveCount());
+			assertEquals(0,rollouts.get(0).getCachedCount());
+			assertEquals(version("1.0.1"),rollouts.get(1).getImageVersion());
+			assertEquals(0,rollouts.get(1).getActiveCount());
+			assertEquals(1,rollouts.get(1).getCachedCount());
+		});
+		transaction(()->{
+			service.storeInstalledImages(ELEMENT_ID, asList(ACTIVE_PATCH_UPGRADE_REF));
+		});
+		transaction(()->{
+			List<ImageRollout> rollouts = images.getImageRolloutMatrix(imageName("JUNIT"), 
+																	   element(ELEMENT_ID, ELEMENT_NAME).getElementRole(), 
+																	   LXC)
+												.getRollouts();
+			assertEquals(1,rollouts.size());
+			assertEquals(version("1.0.1"),rollouts.get(0).getImageVersion());
+			assertEquals(1,rollouts.get(0).getActiveCount());
+			assertEquals(0,rollouts.get(0).getCachedCount());
+			
+			ImageStatistics statistics = images.getImageStatistics(rollouts.get(0).getImageId());
+			assertEquals(Integer.valueOf(1),statistics.getActiveCount().get(rollouts.get(0).getGroupName()));
+			assertTrue(statistics.getCachedCount().isEmpty());
+		});
+	}
+	
+	@Test
+	public void remove_installed_images_of_removed_element_from_group_counters() {
+		transaction(()->{
+			service.storeInstalledImages(ELEMENT_ID, asList(ACTIVE_BASE_REF, 
+															CACHED_PATCH_UPGRADE_REF));
+		});
+		transaction(()->{
+			rollouts.removeElement(repository.execute(findElementById(ELEMENT_ID)));
+		});
+		transaction(()->{
+			List<ImageRollout> rollouts = images.getImageRolloutMatrix(imageName("JUNIT"), 
+																	   element(ELEMENT_ID, ELEMENT_NAME).getElementRole(), 
+																	   LXC)
+												.getRollouts();
+			assertTrue(rollouts.isEmpty());
+		});
+	}
+	
+	@Test
+	public void rebuild_group_counters_from_installed_images() {
+		transaction(()->{
+			service.storeInstalledImages(ELEMENT_ID, asList(ACTIVE_BASE_REF, 
+															CACHED_PATCH_UPGRADE_REF));
+		});
+		transaction(()->{
+			// Let counters drift from the installed images.
+			getDatabase().executeUpdate(prepare("UPDATE inventory.image_rollout SET active=active+5"));
+		});
+		transaction(()->{
+			new ImageRolloutService(getDatabase()).rebuildImageRollouts();
+		});
+		transaction(()->{
+			List<ImageRollout> rollouts = images.getImageRolloutMatrix(imageName("JUNIT"), 
+																	   element(ELEMENT_ID, ELEMENT_NAME).getElementRole(), 
+																	   LXC)
+												.getRollouts();
+			assertEquals(2,rollouts.size());
+			assertEquals(1,rollouts.get(0).getActiveCount());
+			assertEquals(0,rollouts.get(0).getCachedCount());
+			assertEquals(0,rollouts.get(1).getActiveCount());
+			assertEquals(1,rollouts.get(1).getCachedCount());
+		});
+	}
+	
 	@Test
 	public void load_installed_image_by_element_id() {
 		transaction(()->{
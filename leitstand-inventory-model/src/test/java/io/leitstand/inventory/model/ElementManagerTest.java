@@ -10,9 +10,11 @@ import static io.leitstand.inventory.service.OperationalState.DOWN;
 import static io.leitstand.inventory.service.OperationalState.UP;
 import static io.leitstand.inventory.service.ReasonCode.IVT0303E_ELEMENT_NOT_REMOVABLE;
 import static io.leitstand.testing.ut.LeitstandCoreMatchers.reason;
+import static java.util.Collections.singleton;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
@@ -22,12 +24,12 @@ import static org.mockito.Mockito.when;
 
 import javax.enterprise.event.Event;
 
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
@@ -60,9 +62,23 @@ public class ElementManagerTest {
 
 	@Mock
 	private Messages messages;
+	
+	@Mock
+	private Event<ElementHeartbeats> heartbeats;
 
-	@InjectMocks
-	private ElementManager manager = new ElementManager();
+	private ElementManager manager;
+	
+	@Before
+	public void initManager() {
+		// Both events have the same raw type and are therefore passed explicitly.
+		manager = new ElementManager(repository, 
+									 mock(ElementSearchIndex.class), 
+									 heartbeats, 
+									 mock(ConfigBlobStore.class), 
+									 mock(ImageRolloutManager.class), 
+									 event, 
+									 messages);
+	}
 	
 	@Test
 	public void cannot_remove_active_element() {
@@ -112,6 +128,34 @@ public class ElementManagerTest {
 		assertThat(opStateChanged.getOperationalState(),is(UP));
 	}
 	
+	@Test
+	public void record_heartbeat_of_element_reporting_to_be_up() {
+		Element element = mock(Element.class);
+		when(element.getElementId()).thenReturn(ELEMENT_ID);
+		when(element.setOperationalState(UP)).thenReturn(UP);
+		ArgumentCaptor<ElementHeartbeats> firedHeartbeats = ArgumentCaptor.forClass(ElementHeartbeats.class);
+		doNothing().when(heartbeats).fire(firedHeartbeats.capture());
+		
+		manager.updateElementOperationalState(element, UP);
+		
+		assertEquals(singleton(ELEMENT_ID),firedHeartbeats.getValue().getAlive());
+		assertTrue(firedHeartbeats.getValue().getSilent().isEmpty());
+	}
+	
+	@Test
+	public void forget_heartbeats_of_element_reporting_to_be_down() {
+		Element element = mock(Element.class);
+		when(element.getElementId()).thenReturn(ELEMENT_ID);
+		when(element.setOperationalState(DOWN)).thenReturn(UP);
+		ArgumentCaptor<ElementHeartbeats> firedHeartbeats = ArgumentCaptor.forClass(ElementHeartbeats.class);
+		doNothing().when(heartbeats).fire(firedHeartbeats.capture());
+		
+		manager.updateElementOperationalState(element, DOWN);
+		
+		assertTrue(firedHeartbeats.getValue().getAlive().isEmpty());
+		assertEquals(singleton(ELEMENT_ID),firedHeartbeats.getValue().getSilent());
+	}
+	
 	@Test
 	public void do_not_fire_opstate_updated_event_when_operational_state_was_not_changed() {
 		Element element = mock(Element.class);
@@ -0,0 +1,104 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.event.ElementRemovedEvent.newElementRemovedEvent;
+import static io.leitstand.inventory.model.Element.findElementById;
+import static io.leitstand.inventory.model.ElementGroup.findElementGroupById;
+import static io.leitstand.inventory.model.ElementRole.findRoleByName;
+import static io.leitstand.inventory.service.ElementAlias.elementAlias;
+import static io.leitstand.inventory.service.ElementGroupId.randomGroupId;
+import static io.leitstand.inventory.service.ElementGroupName.groupName;
+import static io.leitstand.inventory.service.ElementGroupType.groupType;
+import static io.leitstand.inventory.service.ElementId.randomElementId;
+import static io.leitstand.inventory.service.ElementName.elementName;
+import static io.leitstand.inventory.service.ElementRoleName.elementRoleName;
+import static io.leitstand.inventory.service.Plane.DATA;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.inventory.service.ElementGroupId;
+import io.leitstand.inventory.service.ElementId;
+import io.leitstand.inventory.service.ElementName;
+
+public class ElementNameIndexIT extends InventoryIT {
+
+	private static final ElementGroupId GROUP_ID = randomGroupId();
+	private static final ElementId ELEMENT_ID = randomElementId();
+	private static final ElementName ELEMENT_NAME = elementName("name-index");
+	private static final ElementName ELEMENT_ALIAS = elementName("name-index-alias");
+	
+	private Repository repository;
+	private ElementNameIndex index;
+	private ElementProvider elements;
+	
+	@Before
+	public void initTestEnvironment() {
+		repository = new Repository(getEntityManager());
+		index = new ElementNameIndex();
+		elements = new ElementProvider(repository, index);
+		transaction(()->{
+			ElementGroup group = repository.addIfAbsent(findElementGroupById(GROUP_ID),
+														() -> new ElementGroup(GROUP_ID, 
+																			   groupType("pod"), 
+																			   groupName(ElementNameIndexIT.class.getSimpleName())));
+			ElementRole role = repository.addIfAbsent(findRoleByName(elementRoleName("name-index")),
+													  () -> new ElementRole(elementRoleName("name-index"),
+															  				DATA));
+			repository.addIfAbsent(findElementById(ELEMENT_ID),
+								   () -> {
+									   Element element = new Element(group,role,ELEMENT_ID,ELEMENT_NAME);
+									   element.setElementAlias(elementAlias(ELEMENT_ALIAS));
+									   return element;
+								   });
+		});
+	}
+	
+	@Test
+	public void index_element_id_name_and_alias() {
+		transaction(()->{
+			Element byId = elements.fetchElement(ELEMENT_ID);
+			assertEquals(byId,elements.fetchElement(ELEMENT_NAME));
+			assertEquals(byId,elements.fetchElement(ELEMENT_ALIAS));
+			assertEquals(3,index.size());
+		});
+		
+		transaction(()->{
+			assertEquals(ELEMENT_ID,elements.fetchElement(ELEMENT_ALIAS).getElementId());
+			assertEquals(3,index.size());
+		});
+		
+		index.onElementRemoved(newElementRemovedEvent()
+							   .withElementId(ELEMENT_ID)
+							   .withElementName(ELEMENT_NAME)
+							   .withElementAlias(elementAlias(ELEMENT_ALIAS))
+							   .build());
+		assertEquals(0,index.size());
+	}
+	
+	@Test
+	public void lookup_element_again_when_alias_was_modified_by_another_node() {
+		transaction(()->{
+			elements.fetchElement(ELEMENT_ALIAS);
+		});
+		
+		transaction(()->{
+			repository.execute(findElementById(ELEMENT_ID)).setElementAlias(elementAlias("name-index-renamed"));
+		});
+		
+		transaction(()->{
+			assertNull(elements.tryFetchElement(ELEMENT_ALIAS));
+			assertEquals(ELEMENT_ID,elements.fetchElement(elementName("name-index-renamed")).getElementId());
+		});
+		
+		transaction(()->{
+			repository.execute(findElementById(ELEMENT_ID)).setElementAlias(elementAlias(ELEMENT_ALIAS));
+		});
+	}
+	
+}
@@ -14,6 +14,7 @@ import static io.leitstand.inventory.service.ElementName.elementName;
 import static io.leitstand.inventory.service.ElementPhysicalInterfaceNeighbor.newPhysicalInterfaceNeighbor;
 import static io.leitstand.inventory.service.ElementPhysicalInterfaceSubmission.newPhysicalInterfaceSubmission;
 import static io.leitstand.inventory.service.Plane.DATA;
+import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -25,6 +26,8 @@ import static org.mockito.ArgumentCaptor.forClass;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
 
+import java.util.List;
+
 import javax.enterprise.event.Event;
 
 import org.junit.Before;
@@ -40,6 +43,7 @@ import io.leitstand.inventory.event.ElementPhysicalInterfaceStoredEvent;
 import io.leitstand.inventory.service.AdministrativeState;
 import io.leitstand.inventory.service.Bandwidth;
 import io.leitstand.inventory.service.ElementPhysicalInterface;
+import io.leitstand.inventory.service.ElementPhysicalInterfaceData;
 import io.leitstand.inventory.service.ElementPhysicalInterfaceNeighbor;
 import io.leitstand.inventory.service.ElementPhysicalInterfaceService;
 import io.leitstand.inventory.service.ElementPhysicalInterfaceSubmission;
@@ -53,6 +57,7 @@ public class ElementPhysicalInterfaceServiceIT extends InventoryIT{
 
 	private Element element;
 	private Element neighbor;
+	private Element bulkElement;
 	private ElementPhysicalInterfaceService service;
 	private Event<ElementPhysicalInterfaceEvent> event;
 	private Messages messages;
@@ -92,6 +97,12 @@ public class ElementPhysicalInterfaceServiceIT extends InventoryIT{
 			 		    							  			randomElementId(), 
 			 		    							  			elementName("ifc_neighbor_element")));	
 			
+			bulkElement = repository.addIfAbsent(findElementByName(elementName("ifc_bulk_test_element")),
+												 () -> new Element(group,
+														 		   role,
+														 		   randomElementId(), 
+														 		   elementName("ifc_bulk_test_element")));	
+			
 		});
 		
 	}
@@ -358,4 +369,96 @@ public class ElementPhysicalInterfaceServiceIT extends InventoryIT{
 	}
 	
 	
+	@Test
+	public void store_physical_interfaces_fires_events_for_modified_interfaces_only() {
+		ElementPhysicalInterfaceSubmission linked = newPhysicalInterfaceSubmission()
+													.withAdministrativeState(AdministrativeState.UP)
+													.withBandwidth(new Bandwidth("100.000 Mbps"))
+													.withIfpName(new InterfaceName("ifp-0/1/0"))
+													.withMtuSize(1500)
+													.withOperationalState(OperationalState.UP)
+													.withNeighbor(newPhysicalInterfaceNeighbor()
+																  .withElementId(neighbor.getElementId())
+																  .withElementName(neighbor.getElementName())
+																  .withInterfaceName(new InterfaceName("ifp-0/1/0")))
+													.build();
+		ElementPhysicalInterfaceSubmission up = newPhysicalInterfaceSubmission()
+												.withAdministrativeState(AdministrativeState.UP)
+												.withBandwidth(new Bandwidth("100.000 Mbps"))
+												.withIfpName(new InterfaceName("ifp-0/1/1"))
+												.withMtuSize(1500)
+												.withOperationalState(OperationalState.UP)
+												.build();
+		ElementPhysicalInterfaceSubmission down = newPhysicalInterfaceSubmission()
+												  .withAdministrativeState(AdministrativeState.UP)
+												  .withBandwidth(new Bandwidth("100.000 Mbps"))
+												  .withIfpName(new InterfaceName("ifp-0/1/1"))
+												  .withMtuSize(1500)
+												  .withOperationalState(OperationalState.DOWN)
+												  .build();
+		ArgumentCaptor<ElementPhysicalInterfaceEvent> eventCaptor = forClass(ElementPhysicalInterfaceEvent.class);
+		doNothing().when(event).fire(eventCaptor.capture());
+		
+		transaction(()->{
+			service.storePhysicalInterfaces(bulkElement.getElementName(), asList(linked,up));
+		});
+		int fired = eventCaptor.getAllValues().size();
+		
+		transaction(()->{
+			service.storePhysicalInterfaces(bulkElement.getElementName(), asList(linked,down));
+		});
+		
+		List<ElementPhysicalInterfaceEvent> events = eventCaptor.getAllValues().subList(fired, eventCaptor.getAllValues().size());
+		assertEquals(1,events.size());
+		assertThat(events.get(0),is(ElementPhysicalInterfaceStoredEvent.class));
+		assertEquals(down.getIfpName(),events.get(0).getInterfaceName());
+		
+		transaction(() -> {
+			ElementPhysicalInterface ifp = service.getPhysicalInterface(bulkElement.getElementName(), linked.getIfpName());
+			assertEquals(linked.getNeighbor(),ifp.getPhysicalInterface().getNeighbor());
+			ifp = service.getPhysicalInterface(bulkElement.getElementName(), down.getIfpName());
+			assertEquals(OperationalState.DOWN,ifp.getPhysicalInterface().getOperationalState());
+		});
+	}
+	
+	@Test
+	public void store_physical_interfaces_removes_missing_interfaces() {
+		ElementPhysicalInterfaceSubmission kept = newPhysicalInterfaceSubmission()
+												  .withAdministrativeState(AdministrativeState.UP)
+												  .withBandwidth(new Bandwidth("100.000 Mbps"))
+												  .withIfpName(new InterfaceName("ifp-0/2/0"))
+												  .withMtuSize(1500)
+												  .withOperationalState(OperationalState.UP)
+												  .build();
+		ElementPhysicalInterfaceSubmission removed = newPhysicalInterfaceSubmission()
+													 .withAdministrativeState(AdministrativeState.UP)
+													 .withBandwidth(new Bandwidth("100.000 Mbps"))
+													 .withIfpName(new InterfaceName("ifp-0/2/1"))
+													 .withMtuSize(1500)
+													 .withOperationalState(OperationalState.UP)
+													 .build();
+		ArgumentCaptor<ElementPhysicalInterfaceEvent> eventCaptor = forClass(ElementPhysicalInterfaceEvent.class);
+		doNothing().when(event).fire(eventCaptor.capture());
+		
+		transaction(()->{
+			service.storePhysicalInterfaces(bulkElement.getElementName(), asList(kept,removed));
+		});
+		int fired = eventCaptor.getAllValues().size();
+		
+		transaction(()->{
+			service.storePhysicalInterfaces(bulkElement.getElementName(), asList(kept));
+		});
+		
+		List<ElementPhysicalInterfaceEvent> events = eventCaptor.getAllValues().subList(fired, eventCaptor.getAllValues().size());
+		assertEquals(1,events.size());
+		assertThat(events.get(0),is(ElementPhysicalInterfaceRemovedEvent.class));
+		assertEquals(removed.getIfpName(),events.get(0).getInterfaceName());
+		
+		transaction(() -> {
+			List<ElementPhysicalInterfaceData> ifps = service.getPhysicalInterfaces(bulkElement.getElementName()).getPhysicalInterfaces();
+			assertEquals(1,ifps.size());
+			assertEquals(kept.getIfpName(),ifps.get(0).getName());
+		});
+	}
+	
 }
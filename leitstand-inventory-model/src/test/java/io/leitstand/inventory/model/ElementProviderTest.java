@@ -15,6 +15,7 @@ import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import io.leitstand.commons.EntityNotFoundException;
@@ -30,6 +31,9 @@ public class ElementProviderTest {
 	@Mock
 	private Repository repository;
 	
+	@Spy
+	private ElementNameIndex index = new ElementNameIndex();
+	
 	@InjectMocks
 	private ElementProvider elements = new ElementProvider();
 	
@@ -29,6 +29,9 @@ public class ElementRoleProviderTest {
 	@Mock
 	private Repository repository;
 	
+	@Mock
+	private ReferenceCatalog catalog;
+	
 	@InjectMocks
 	private ElementRoleProvider elements = new ElementRoleProvider();
 	
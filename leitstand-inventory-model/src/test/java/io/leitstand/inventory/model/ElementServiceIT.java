@@ -3,24 +3,43 @@
  */
 package io.leitstand.inventory.model;
 
+import static io.leitstand.commons.db.DatabaseService.prepare;
+import static io.leitstand.inventory.event.ElementGroupRenamedEvent.newElementGroupRenamedEvent;
 import static io.leitstand.inventory.model.Element.findElementById;
 import static io.leitstand.inventory.model.Element.findElementByName;
 import static io.leitstand.inventory.model.ElementGroup.findElementGroupById;
+import static io.leitstand.inventory.model.ElementManager.decodeCursor;
 import static io.leitstand.inventory.model.ElementRole.findRoleByName;
+import static io.leitstand.inventory.service.ElementAlias.elementAlias;
+import static io.leitstand.inventory.service.ElementFilterMode.PREFIX;
+import static io.leitstand.inventory.service.ElementFilterMode.SUBSTRING;
 import static io.leitstand.inventory.service.ElementGroupId.randomGroupId;
 import static io.leitstand.inventory.service.ElementGroupName.groupName;
 import static io.leitstand.inventory.service.ElementGroupType.groupType;
 import static io.leitstand.inventory.service.ElementId.randomElementId;
+import static io.leitstand.inventory.service.ElementName.elementName;
 import static io.leitstand.inventory.service.ElementRoleName.elementRoleName;
+import static io.leitstand.inventory.service.OperationalState.DOWN;
+import static io.leitstand.inventory.service.OperationalState.UP;
 import static io.leitstand.inventory.service.ReasonCode.IVT0303E_ELEMENT_NOT_REMOVABLE;
 import static io.leitstand.testing.ut.LeitstandCoreMatchers.isEmptyList;
 import static io.leitstand.testing.ut.LeitstandCoreMatchers.reason;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.enterprise.event.Event;
 
@@ -28,10 +47,13 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
 
 import io.leitstand.commons.ConflictException;
 import io.leitstand.commons.messages.Messages;
 import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.SubtransactionService;
+import io.leitstand.inventory.event.ElementOperationalStatesChangedEvent;
 import io.leitstand.inventory.service.AdministrativeState;
 import io.leitstand.inventory.service.ElementGroupId;
 import io.leitstand.inventory.service.ElementGroupName;
@@ -39,8 +61,10 @@ import io.leitstand.inventory.service.ElementGroupType;
 import io.leitstand.inventory.service.ElementId;
 import io.leitstand.inventory.service.ElementName;
 import io.leitstand.inventory.service.ElementRoleName;
+import io.leitstand.inventory.service.ElementSearchResult;
 import io.leitstand.inventory.service.ElementService;
 import io.leitstand.inventory.service.ElementSettings;
+import io.leitstand.inventory.service.OperationalState;
 import io.leitstand.inventory.service.Plane;
 
 public class ElementServiceIT extends InventoryIT {
@@ -60,18 +84,35 @@ public class ElementServiceIT extends InventoryIT {
 	public ExpectedException exception = ExpectedException.none();
 	
 	private ElementService service;
+	private ElementSearchIndex index;
 	private Repository repository;
+	private Event<ElementOperationalStatesChangedEvent> stateEvents;
+	private Event<ElementHeartbeats> heartbeatEvents;
 
 	@Before
 	public void initTestEnvironment() {
 		this.repository = new Repository(getEntityManager());
 		ElementProvider elements = new ElementProvider(repository);
+		this.index = new ElementSearchIndex(getDatabase());
 		ElementManager manager = new ElementManager(repository, 
+													index,
+													mock(Event.class),
+													new ConfigBlobStore(repository, 
+																		mock(SubtransactionService.class)),
+													new ImageRolloutManager(repository,
+																			mock(SubtransactionService.class)),
 													mock(Event.class),
 													mock(Messages.class));
 		
+		stateEvents = mock(Event.class);
+		heartbeatEvents = mock(Event.class);
+		ElementOperationalStateManager states = new ElementOperationalStateManager(getDatabase(),
+																				   heartbeatEvents,
+																				   stateEvents,
+																				   mock(Messages.class));
 		service = new DefaultElementService(manager,
-											elements);
+											elements,
+											states);
 		
 		transaction(()->{
 			ElementRole role = repository.addIfAbsent(findRoleByName(ROLE_NAME),
@@ -132,6 +173,73 @@ public class ElementServiceIT extends InventoryIT {
 		
 	}
 
+	@Test
+	public void search_elements_by_substring() {
+		transaction(()->{
+			ElementSearchResult result = service.searchElements("serviceit_act", SUBSTRING, null, 100);
+			assertEquals(1, result.getElements().size());
+			assertEquals(ACTIVE_ELEMENT_ID, result.getElements().get(0).getElementId());
+			assertEquals(GROUP_NAME, result.getElements().get(0).getGroupName());
+			assertNull(result.getNext());
+		});
+	}
+	
+	@Test
+	public void search_elements_page_by_page() {
+		transaction(()->{
+			List<ElementName> names = new ArrayList<>();
+			ElementSearchResult page = service.searchElements("elementserviceit_", PREFIX, null, 1);
+			assertNotNull(page.getNext());
+			while(page.getNext() != null) {
+				assertEquals(1, page.getElements().size());
+				names.add(page.getElements().get(0).getElementName());
+				page = service.searchElements("elementserviceit_", PREFIX, page.getNext(), 1);
+			}
+			page.getElements().forEach(element -> names.add(element.getElementName()));
+			assertEquals(3, names.size());
+			assertEquals(ACTIVE_ELEMENT_NAME, names.get(0));
+			assertEquals(NEW_ELEMENT_NAME, names.get(1));
+			assertEquals(RETIRED_ELEMENT_NAME, names.get(2));
+		});
+	}
+
+	@Test
+	public void return_empty_page_if_limit_is_not_positive() {
+		transaction(()->{
+			ElementSearchResult page = service.searchElements("elementserviceit_", PREFIX, null, 0);
+			assertTrue(page.getElements().isEmpty());
+			assertNull(page.getNext());
+		});
+	}
+	
+	@Test
+	public void search_position_reflects_renamed_group() {
+		transaction(()->{
+			// Build the index before the group is renamed.
+			service.searchElements("elementserviceit_", PREFIX, null, 1);
+		});
+		ElementGroupName renamed = groupName(GROUP_NAME+"_RENAMED");
+		transaction(()->{
+			repository.execute(findElementGroupById(GROUP_ID)).setElementGroupName(renamed);
+		});
+		index.onElementGroupRenamed(newElementGroupRenamedEvent()
+									.withGroupId(GROUP_ID)
+									.withGroupType(GROUP_TYPE)
+									.withGroupName(renamed)
+									.withPreviousGroupName(GROUP_NAME)
+									.build());
+		try {
+			transaction(()->{
+				ElementSearchResult page = service.searchElements("elementserviceit_", PREFIX, null, 1);
+				assertEquals(renamed.toString(), decodeCursor(page.getNext()).getGroupName());
+			});
+		} finally {
+			transaction(()->{
+				repository.execute(findElementGroupById(GROUP_ID)).setElementGroupName(GROUP_NAME);
+			});
+		}
+	}
+
 	@Test
 	public void cannot_remove_active_element_by_id() {
 		exception.expect(ConflictException.class);
@@ -197,4 +305,93 @@ public class ElementServiceIT extends InventoryIT {
 	}
 	
 	
+	@Test
+	public void update_operational_states_of_multiple_elements() {
+		ElementId upById = randomElementId();
+		ElementId upByName = randomElementId();
+		ElementId downByAlias = randomElementId();
+		transaction(()->{
+			ElementRole role = repository.execute(findRoleByName(ROLE_NAME));
+			ElementGroup group = repository.execute(findElementGroupById(GROUP_ID));
+			for(ElementId elementId : asList(upById,upByName,downByAlias)) {
+				Element element = new Element(group,role,elementId,elementName("bulk-"+elementId));
+				element.setElementAlias(elementAlias("alias-"+elementId));
+				repository.add(element);
+			}
+		});
+		
+		Map<String,OperationalState> states = new LinkedHashMap<>();
+		states.put(upById.toString(), UP);
+		states.put("bulk-"+upByName, UP);
+		states.put("alias-"+downByAlias, DOWN);
+		states.put("unknown-element", UP);
+		
+		transaction(()->{
+			service.updateElementOperationalStates(states);
+		});
+		
+		ArgumentCaptor<ElementOperationalStatesChangedEvent> event = ArgumentCaptor.forClass(ElementOperationalStatesChangedEvent.class);
+		verify(stateEvents).fire(event.capture());
+		// The new elements are down initially.
+		assertEquals(2,event.getValue().getChanges().size());
+		
+		// The states are read from the database as they have been updated without the entity manager.
+		transaction(()->{
+			assertEquals(asList("UP","ACTIVE"),readStates(upById));
+			assertEquals(asList("UP","ACTIVE"),readStates(upByName));
+			assertEquals(asList("DOWN","NEW"),readStates(downByAlias));
+		});
+		
+		// Unchanged states are neither written nor announced.
+		transaction(()->{
+			service.updateElementOperationalStates(states);
+		});
+		verify(stateEvents,times(1)).fire(any(ElementOperationalStatesChangedEvent.class));
+	}
+	
+	@Test
+	public void increment_version_and_report_heartbeats_of_multiple_elements() {
+		ElementId up = randomElementId();
+		ElementId down = randomElementId();
+		transaction(()->{
+			ElementRole role = repository.execute(findRoleByName(ROLE_NAME));
+			ElementGroup group = repository.execute(findElementGroupById(GROUP_ID));
+			for(ElementId elementId : asList(up,down)) {
+				Element element = new Element(group,role,elementId,elementName("heartbeat-"+elementId));
+				element.setOperationalState(DOWN);
+				repository.add(element);
+			}
+		});
+		long version = readVersion(up);
+		
+		Map<String,OperationalState> states = new LinkedHashMap<>();
+		states.put(up.toString(), UP);
+		states.put(down.toString(), DOWN);
+		transaction(()->{
+			service.updateElementOperationalStates(states);
+		});
+		
+		transaction(()->{
+			assertEquals(version+1,readVersion(up));
+		});
+		ArgumentCaptor<ElementHeartbeats> heartbeats = ArgumentCaptor.forClass(ElementHeartbeats.class);
+		verify(heartbeatEvents).fire(heartbeats.capture());
+		assertEquals(singleton(up),heartbeats.getValue().getAlive());
+		assertEquals(singleton(down),heartbeats.getValue().getSilent());
+	}
+	
+	private long readVersion(ElementId elementId) {
+		return getDatabase().executeQuery(prepare("SELECT modcount FROM inventory.element WHERE uuid=?", 
+												  elementId.toString()), 
+										  rs -> rs.getLong(1))
+							.get(0);
+	}
+	
+	private List<String> readStates(ElementId elementId){
+		return getDatabase().executeQuery(prepare("SELECT op_state, adm_state FROM inventory.element WHERE uuid=?", 
+												  elementId.toString()), 
+										  rs -> asList(rs.getString(1),rs.getString(2)))
+							.get(0);
+	}
+	
 }
@@ -99,7 +99,7 @@ public class ElementSettingsServiceIT extends InventoryIT {
 																    mock(Event.class));
 		
 		this.service = new DefaultElementSettingsService(manager,elements,mock(Event.class));
-		this.platforms = new DefaultPlatformService(repository,mock(Messages.class));
+		this.platforms = new DefaultPlatformService(repository,new ReferenceCatalog(),mock(Messages.class));
 		this.seed = element(ELEMENT_ID,"StoreElement");
 
 		transaction(() -> {
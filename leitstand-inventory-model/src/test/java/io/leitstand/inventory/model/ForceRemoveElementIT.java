@@ -273,6 +273,10 @@ public class ForceRemoveElementIT extends InventoryIT{
 		transaction(()->{
 			ElementConfigManager configManager = new ElementConfigManager(repository, 
 																		  database, 
+																		  new ConfigBlobStore(repository, 
+																				  			  mock(SubtransactionService.class)),
+																		  mock(SubtransactionService.class),
+																		  new ConfigDiffCache(),
 																		  UserId.valueOf("junit"), 
 																		  event, 
 																		  messages);	
@@ -351,10 +355,19 @@ public class ForceRemoveElementIT extends InventoryIT{
 		});
 		
 		
-		ElementManager elementManager = new ElementManager(repository,mock(Event.class),messages);
+		ElementManager elementManager = new ElementManager(repository,
+														   new ElementSearchIndex(getDatabase()),
+														   mock(Event.class),
+														   new ConfigBlobStore(repository, 
+																   			   mock(SubtransactionService.class)),
+														   new ImageRolloutManager(repository,
+														   						mock(SubtransactionService.class)),
+														   mock(Event.class),
+														   messages);
 
 		service = new DefaultElementService(elementManager, 
-											elements);
+											elements,
+											mock(ElementOperationalStateManager.class));
 
 
 	}
@@ -0,0 +1,115 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.service.ElementId.randomElementId;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import io.leitstand.inventory.service.ElementId;
+
+public class HeartbeatTrackerTest {
+
+	private static final long TIMEOUT = 30_000;
+	private static final long TICK = 1_000;
+	
+	private HeartbeatTracker tracker = new HeartbeatTracker(TIMEOUT, TICK);
+	
+	@Test
+	public void expire_element_after_missed_heartbeat() {
+		ElementId elementId = randomElementId();
+		tracker.heartbeat(elementId, 0);
+		
+		assertEquals(emptyList(),tracker.expired(TIMEOUT - 1));
+		List<ElementId> expired = tracker.expired(TIMEOUT + TICK);
+		assertEquals(asList(elementId),expired);
+		tracker.detached(expired, TIMEOUT + TICK);
+		assertEquals(0,tracker.size());
+		assertEquals(emptyList(),tracker.expired(2 * TIMEOUT));
+	}
+	
+	@Test
+	public void track_expired_element_until_detached() {
+		ElementId elementId = randomElementId();
+		tracker.heartbeat(elementId, 0);
+		
+		assertEquals(asList(elementId),tracker.expired(TIMEOUT + TICK));
+		// The element was not declared detached, e.g. because the transaction failed.
+		assertEquals(1,tracker.size());
+		assertEquals(asList(elementId),tracker.expired(TIMEOUT + 2 * TICK));
+	}
+	
+	@Test
+	public void do_not_detach_expired_element_that_sent_a_heartbeat_meanwhile() {
+		ElementId elementId = randomElementId();
+		tracker.heartbeat(elementId, 0);
+		
+		List<ElementId> expired = tracker.expired(TIMEOUT + TICK);
+		tracker.heartbeat(elementId, TIMEOUT + TICK);
+		tracker.detached(expired, TIMEOUT + TICK);
+		assertEquals(1,tracker.size());
+		assertEquals(emptyList(),tracker.expired(TIMEOUT + 2 * TICK));
+		assertEquals(asList(elementId),tracker.expired(2 * TIMEOUT + 2 * TICK));
+	}
+	
+	@Test
+	public void heartbeat_extends_deadline() {
+		ElementId elementId = randomElementId();
+		tracker.heartbeat(elementId, 0);
+		tracker.heartbeat(elementId, 10_000);
+		
+		assertEquals(emptyList(),tracker.expired(TIMEOUT + TICK));
+		assertEquals(asList(elementId),tracker.expired(10_000 + TIMEOUT + TICK));
+	}
+	
+	@Test
+	public void forgotten_element_does_not_expire() {
+		ElementId elementId = randomElementId();
+		tracker.heartbeat(elementId, 0);
+		tracker.forget(elementId);
+		
+		assertEquals(emptyList(),tracker.expired(TIMEOUT + TICK));
+		assertEquals(0,tracker.size());
+	}
+	
+	@Test
+	public void checkpoint_elements_that_sent_a_heartbeat_since_the_last_checkpoint() {
+		ElementId a = randomElementId();
+		ElementId b = randomElementId();
+		tracker.heartbeat(a, 0);
+		tracker.heartbeat(b, 0);
+		tracker.heartbeat(a, 1_000);
+		
+		Map<Long,Set<ElementId>> checkpoint = tracker.checkpoint();
+		assertEquals(2,checkpoint.size());
+		assertEquals(singleton(b),checkpoint.get(0L));
+		assertEquals(singleton(a),checkpoint.get(1_000L));
+		assertEquals(emptyMap(),tracker.checkpoint());
+		
+		tracker.heartbeat(b, 2_000);
+		assertEquals(singletonMap(2_000L,singleton(b)),tracker.checkpoint());
+	}
+	
+	@Test
+	public void checkpoint_start_of_the_tick_of_the_last_heartbeat() {
+		ElementId a = randomElementId();
+		ElementId b = randomElementId();
+		tracker.heartbeat(a, 1_500);
+		tracker.heartbeat(b, 1_999);
+		
+		assertEquals(singletonMap(1_000L,new HashSet<>(asList(a,b))),tracker.checkpoint());
+	}
+	
+}
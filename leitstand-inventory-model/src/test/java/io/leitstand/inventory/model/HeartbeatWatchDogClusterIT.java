@@ -0,0 +1,204 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.commons.db.DatabaseService.prepare;
+import static io.leitstand.inventory.model.ElementGroup.findElementGroupById;
+import static io.leitstand.inventory.model.ElementRole.findRoleByName;
+import static io.leitstand.inventory.service.ElementGroupId.randomGroupId;
+import static io.leitstand.inventory.service.ElementGroupName.groupName;
+import static io.leitstand.inventory.service.ElementGroupType.groupType;
+import static io.leitstand.inventory.service.ElementId.randomElementId;
+import static io.leitstand.inventory.service.ElementName.elementName;
+import static io.leitstand.inventory.service.ElementRoleName.elementRoleName;
+import static io.leitstand.inventory.service.OperationalState.UP;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.nCopies;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.enterprise.event.Event;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.inventory.event.ElementOperationalStateChangedEvent;
+import io.leitstand.inventory.service.ElementGroupId;
+import io.leitstand.inventory.service.ElementGroupName;
+import io.leitstand.inventory.service.ElementId;
+import io.leitstand.inventory.service.ElementRoleName;
+import io.leitstand.inventory.service.Plane;
+
+/**
+ * Runs the heartbeat watchdog of multiple nodes against the same database.
+ * <p>
+ * The elements of this test have missed their heartbeat long ago,
+ * such that overdue elements of other tests are not swept by the watchdog nodes.
+ * </p>
+ */
+public class HeartbeatWatchDogClusterIT extends InventoryIT {
+
+	private static final ElementGroupId GROUP_ID = randomGroupId();
+	private static final ElementGroupName GROUP_NAME = groupName(HeartbeatWatchDogClusterIT.class.getSimpleName());
+	private static final ElementRoleName ELEMENT_ROLE = elementRoleName(HeartbeatWatchDogClusterIT.class.getSimpleName());
+
+	private static final long LEASE_MILLIS = 15000;
+	private static final Date LAST_HEARTBEAT = new Date(DAYS.toMillis(1));
+	private static final Date OVERDUE = new Date(DAYS.toMillis(2));
+
+	private Repository repository;
+	private HeartbeatWatchDogService nodeA;
+	private HeartbeatWatchDogService nodeB;
+	private HeartbeatWatchDogService nodeC;
+
+	@Before
+	public void initTestEnvironment() {
+		repository = new Repository(getEntityManager());
+		nodeA = new HeartbeatWatchDogService(getDatabase(), mock(Event.class));
+		nodeB = new HeartbeatWatchDogService(getDatabase(), mock(Event.class));
+		nodeC = new HeartbeatWatchDogService(getDatabase(), mock(Event.class));
+
+		transaction(()->{
+			getDatabase().executeUpdate(prepare("DELETE FROM inventory.heartbeat_lease"));
+			repository.addIfAbsent(findRoleByName(ELEMENT_ROLE),
+								   () -> new ElementRole(ELEMENT_ROLE, Plane.DATA));
+			repository.addIfAbsent(findElementGroupById(GROUP_ID),
+								   () -> new ElementGroup(GROUP_ID, groupType("pod"), GROUP_NAME));
+		});
+	}
+
+	private Set<ElementId> createOverdueElements(int count) {
+		Set<ElementId> elements = new HashSet<>();
+		transaction(()->{
+			ElementRole role = repository.execute(findRoleByName(ELEMENT_ROLE));
+			ElementGroup group = repository.execute(findElementGroupById(GROUP_ID));
+			for(int i=0; i < count; i++) {
+				ElementId elementId = randomElementId();
+				Element element = new Element(group, role, elementId, elementName(elementId.toString()));
+				element.setOperationalState(UP);
+				repository.add(element);
+				elements.add(elementId);
+			}
+		});
+		List<Object> arguments = new ArrayList<>();
+		arguments.add(LAST_HEARTBEAT);
+		for(ElementId elementId : elements) {
+			arguments.add(elementId.toString());
+		}
+		transaction(()->{
+			getDatabase().executeUpdate(prepare("UPDATE inventory.element SET tsmodified = ? WHERE uuid IN ("+String.join(",", nCopies(count, "?"))+")",
+												arguments));
+		});
+		return elements;
+	}
+
+	private List<ElementId> sweep(HeartbeatWatchDogService node, HeartbeatShard shard) {
+		List<ElementId> detached = new ArrayList<>();
+		transaction(()->{
+			for(ElementOperationalStateChangedEvent change : node.markDetachedElements(emptyList(), OVERDUE, shard)) {
+				detached.add(change.getElementId());
+			}
+		});
+		return detached;
+	}
+
+	private HeartbeatShard renew(HeartbeatWatchDogService node, String nodeId, long now) {
+		HeartbeatShard[] shard = new HeartbeatShard[1];
+		transaction(()->{
+			shard[0] = node.renewLease(nodeId, new Date(now), new Date(now-LEASE_MILLIS));
+		});
+		return shard[0];
+	}
+
+	@Test
+	public void live_nodes_sweep_disjoint_shards() {
+		long now = 0;
+		renew(nodeA, "a", now);
+		renew(nodeB, "b", now);
+		renew(nodeC, "c", now);
+		// All nodes have joined the cluster.
+		HeartbeatShard a = renew(nodeA, "a", now);
+		HeartbeatShard b = renew(nodeB, "b", now);
+		HeartbeatShard c = renew(nodeC, "c", now);
+		assertEquals(3,a.getCount());
+		assertEquals(3,b.getCount());
+		assertEquals(3,c.getCount());
+		assertEquals(3,new HashSet<>(asList(a.getIndex(),b.getIndex(),c.getIndex())).size());
+
+		Set<ElementId> overdue = createOverdueElements(30);
+		List<ElementId> detached = new ArrayList<>();
+		detached.addAll(sweep(nodeA, a));
+		detached.addAll(sweep(nodeB, b));
+		detached.addAll(sweep(nodeC, c));
+
+		// No duplicate and no missed detection
+		assertEquals(overdue.size(),detached.size());
+		assertEquals(overdue,new HashSet<>(detached));
+	}
+
+	@Test
+	public void hand_over_shard_of_failed_node() {
+		long now = 0;
+		renew(nodeA, "a", now);
+		renew(nodeB, "b", now);
+		renew(nodeC, "c", now);
+
+		// Node C fails and does not renew its lease anymore
+		now += LEASE_MILLIS+1;
+		HeartbeatShard a = renew(nodeA, "a", now);
+		HeartbeatShard b = renew(nodeB, "b", now);
+		assertEquals(2,a.getCount());
+		assertEquals(2,b.getCount());
+		assertNotEquals(a.getIndex(),b.getIndex());
+
+		Set<ElementId> overdue = createOverdueElements(30);
+		List<ElementId> detached = new ArrayList<>();
+		detached.addAll(sweep(nodeA, a));
+		detached.addAll(sweep(nodeB, b));
+
+		assertEquals(overdue.size(),detached.size());
+		assertEquals(overdue,new HashSet<>(detached));
+	}
+
+	@Test
+	public void overlapping_shards_do_not_detach_elements_twice() {
+		Set<ElementId> overdue = createOverdueElements(30);
+
+		// Node A has not yet seen node B joining the cluster and sweeps all elements.
+		List<ElementId> detached = new ArrayList<>();
+		detached.addAll(sweep(nodeA, new HeartbeatShard(0,1)));
+		detached.addAll(sweep(nodeB, new HeartbeatShard(1,2)));
+
+		assertEquals(overdue.size(),detached.size());
+		assertEquals(overdue,new HashSet<>(detached));
+	}
+
+	@Test
+	public void detect_elements_missed_while_shard_is_handed_over() {
+		Set<ElementId> overdue = createOverdueElements(30);
+
+		// Node A still sees failed node B and sweeps half of the elements only.
+		List<ElementId> detached = new ArrayList<>();
+		detached.addAll(sweep(nodeA, new HeartbeatShard(0,2)));
+		assertTrue(detached.size() < overdue.size());
+
+		// Node A has taken over the shard of node B with its next sweep.
+		detached.addAll(sweep(nodeA, new HeartbeatShard(0,1)));
+
+		assertEquals(overdue.size(),detached.size());
+		assertEquals(overdue,new HashSet<>(detached));
+	}
+
+}
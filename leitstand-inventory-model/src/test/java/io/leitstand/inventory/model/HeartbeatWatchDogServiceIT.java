@@ -0,0 +1,169 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.commons.db.DatabaseService.prepare;
+import static io.leitstand.inventory.model.ElementGroup.findElementGroupById;
+import static io.leitstand.inventory.model.ElementRole.findRoleByName;
+import static io.leitstand.inventory.service.ElementGroupId.randomGroupId;
+import static io.leitstand.inventory.service.ElementGroupName.groupName;
+import static io.leitstand.inventory.service.ElementGroupType.groupType;
+import static io.leitstand.inventory.service.ElementId.randomElementId;
+import static io.leitstand.inventory.service.ElementName.elementName;
+import static io.leitstand.inventory.service.ElementRoleName.elementRoleName;
+import static io.leitstand.inventory.service.OperationalState.DETACHED;
+import static io.leitstand.inventory.service.OperationalState.DOWN;
+import static io.leitstand.inventory.service.OperationalState.UP;
+import static io.leitstand.inventory.service.OperationalState.operationalState;
+import static java.lang.System.currentTimeMillis;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.enterprise.event.Event;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.inventory.event.ElementOperationalStateChangedEvent;
+import io.leitstand.inventory.event.ElementOperationalStatesChangedEvent;
+import io.leitstand.inventory.service.ElementGroupId;
+import io.leitstand.inventory.service.ElementGroupName;
+import io.leitstand.inventory.service.ElementId;
+import io.leitstand.inventory.service.ElementRoleName;
+import io.leitstand.inventory.service.OperationalState;
+import io.leitstand.inventory.service.Plane;
+
+public class HeartbeatWatchDogServiceIT extends InventoryIT {
+
+	private static final ElementGroupId GROUP_ID = randomGroupId();
+	private static final ElementGroupName GROUP_NAME = groupName(HeartbeatWatchDogServiceIT.class.getSimpleName());
+	private static final ElementRoleName ELEMENT_ROLE = elementRoleName(HeartbeatWatchDogServiceIT.class.getSimpleName());
+	private static final long TIMEOUT = 60_000;
+	private static final long TICK = 1_000;
+
+	private Repository repository;
+	private HeartbeatWatchDogService service;
+	private Event<ElementOperationalStatesChangedEvent> sink;
+	private ArgumentCaptor<ElementOperationalStatesChangedEvent> events;
+	private ElementId up;
+	private ElementId down;
+
+	@Before
+	public void initTestEnvironment() {
+		repository = new Repository(getEntityManager());
+		sink = mock(Event.class);
+		events = ArgumentCaptor.forClass(ElementOperationalStatesChangedEvent.class);
+		doNothing().when(sink).fire(events.capture());
+		service = new HeartbeatWatchDogService(getDatabase(), sink);
+		up = randomElementId();
+		down = randomElementId();
+
+		transaction(()->{
+			ElementRole role = repository.addIfAbsent(findRoleByName(ELEMENT_ROLE),
+													  () -> new ElementRole(ELEMENT_ROLE, Plane.DATA));
+			ElementGroup group = repository.addIfAbsent(findElementGroupById(GROUP_ID),
+														() -> new ElementGroup(GROUP_ID, groupType("pod"), GROUP_NAME));
+			Element upElement = new Element(group, role, up, elementName(up.toString()));
+			upElement.setOperationalState(UP);
+			repository.add(upElement);
+			Element downElement = new Element(group, role, down, elementName(down.toString()));
+			downElement.setOperationalState(DOWN);
+			repository.add(downElement);
+		});
+	}
+
+	@Test
+	public void detach_expired_operational_elements_and_fire_one_event() {
+		Date overdue = new Date(currentTimeMillis()+HOURS.toMillis(1));
+		transaction(()->{
+			List<ElementOperationalStateChangedEvent> changes = service.markDetachedElements(asList(up,down), overdue, null);
+			assertEquals(1,changes.size());
+			ElementOperationalStateChangedEvent change = changes.get(0);
+			assertEquals(up,change.getElementId());
+			assertEquals(GROUP_ID,change.getGroupId());
+			assertEquals(ELEMENT_ROLE,change.getElementRole());
+			assertEquals(UP,change.getPreviousState());
+			assertEquals(DETACHED,change.getOperationalState());
+		});
+		verify(sink,times(1)).fire(any(ElementOperationalStatesChangedEvent.class));
+		assertEquals(1,events.getValue().getChanges().size());
+
+		transaction(()->{
+			assertEquals(DETACHED,readOperationalState(up));
+			assertEquals(DOWN,readOperationalState(down));
+		});
+	}
+
+	@Test
+	public void do_not_detach_elements_checkpointed_after_overdue_date() {
+		long now = currentTimeMillis();
+		transaction(()->{
+			service.storeHeartbeats(singletonMap(now+HOURS.toMillis(2), singleton(up)));
+		});
+		transaction(()->{
+			assertTrue(service.markDetachedElements(asList(up), new Date(now+HOURS.toMillis(1)), null).isEmpty());
+		});
+		verify(sink,never()).fire(any(ElementOperationalStatesChangedEvent.class));
+
+		transaction(()->{
+			assertEquals(UP,readOperationalState(up));
+		});
+	}
+
+	@Test
+	public void detach_element_one_timeout_after_its_last_heartbeat() {
+		HeartbeatTracker tracker = new HeartbeatTracker(TIMEOUT, TICK);
+		long lastHeartbeat = currentTimeMillis();
+		tracker.heartbeat(up, lastHeartbeat);
+		
+		// The watchdog checkpoints the heartbeat one checkpoint interval later.
+		transaction(()->{
+			service.storeHeartbeats(tracker.checkpoint());
+		});
+		
+		long beforeTimeout = lastHeartbeat + TIMEOUT - TICK;
+		List<ElementId> alive = tracker.expired(beforeTimeout);
+		assertTrue(alive.isEmpty());
+		transaction(()->{
+			assertTrue(service.markDetachedElements(alive, new Date(beforeTimeout - TIMEOUT), null).isEmpty());
+		});
+		
+		long afterTimeout = lastHeartbeat + TIMEOUT + TICK;
+		List<ElementId> expired = tracker.expired(afterTimeout);
+		assertEquals(asList(up),expired);
+		transaction(()->{
+			assertEquals(1,service.markDetachedElements(expired, new Date(afterTimeout - TIMEOUT), null).size());
+		});
+		tracker.detached(expired, afterTimeout);
+		assertEquals(0,tracker.size());
+		
+		transaction(()->{
+			assertEquals(DETACHED,readOperationalState(up));
+		});
+	}
+
+	private OperationalState readOperationalState(ElementId elementId) {
+		// The elements are updated without the entity manager.
+		return getDatabase().executeQuery(prepare("SELECT op_state FROM inventory.element WHERE uuid=?", 
+												  elementId.toString()), 
+										  rs -> operationalState(rs.getString(1)))
+							.get(0);
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.ElementRole.findRoleByName;
+import static io.leitstand.inventory.service.ElementPlatformInfo.newPlatformInfo;
+import static io.leitstand.inventory.service.ElementRoleName.elementRoleName;
+import static io.leitstand.inventory.service.ImageId.randomImageId;
+import static io.leitstand.inventory.service.ImageInfo.newImageInfo;
+import static io.leitstand.inventory.service.ImageState.NEW;
+import static io.leitstand.inventory.service.ImageType.LXC;
+import static io.leitstand.inventory.service.PackageVersionInfo.newPackageVersionInfo;
+import static io.leitstand.inventory.service.Plane.DATA;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import javax.enterprise.event.Event;
+import javax.inject.Provider;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.leitstand.commons.messages.Messages;
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.SubtransactionService;
+import io.leitstand.inventory.service.ApplicationName;
+import io.leitstand.inventory.service.ElementRoleName;
+import io.leitstand.inventory.service.ImageInfo;
+import io.leitstand.inventory.service.ImageName;
+import io.leitstand.inventory.service.ImageService;
+import io.leitstand.inventory.service.Version;
+
+public class ImageExportReaderIT extends InventoryIT {
+
+	private static final ElementRoleName ELEMENT_ROLE = elementRoleName("image-export");
+	
+	private ImageService service;
+	private ImageExportReader reader;
+	
+	@Before
+	public void initTestEnvironment() {
+		Repository repository = new Repository(getEntityManager());
+		Provider<SubtransactionService> provider = mock(Provider.class);
+		SubtransactionService transactions = new InventorySubtransactionService(repository, provider);
+		when(provider.get()).thenReturn(transactions);
+		service = new DefaultImageService(transactions,
+										  new PackageVersionService(repository),
+										  repository,
+										  getDatabase(),
+										  mock(Messages.class),
+										  mock(Event.class));
+		reader = new ImageExportReader(repository, getDatabase());
+		
+		transaction(()->{
+			repository.addIfAbsent(findRoleByName(ELEMENT_ROLE), 
+								   () -> new ElementRole(ELEMENT_ROLE,DATA));
+		});
+	}
+	
+	private ImageInfo image(String name) {
+		return newImageInfo()
+			   .withImageId(randomImageId())
+			   .withImageType(LXC)
+			   .withImageName(ImageName.valueOf(name))
+			   .withImageState(NEW)
+			   .withImageVersion(new Version(1,0,0))
+			   .withExtension("tar.gz")
+			   .withElementRole(ELEMENT_ROLE)
+			   .withOrganization("io.leitstand")
+			   .withCategory("unittest")
+			   .withChecksums(singletonMap("MD5","image-"+name))
+			   .withApplications(ApplicationName.valueOf("export-"+name))
+			   .withPackages(newPackageVersionInfo()
+					   		 .withOrganization("io.leitstand")
+					   		 .withPackageName("export-"+name)
+					   		 .withPackageExtension("so")
+					   		 .withPackageVersion(new Version(1,0,0))
+					   		 .withChecksums(singletonMap("MD5","package-"+name)))
+			   .withPlatform(newPlatformInfo()
+					   		 .withVendorName("unittest")
+					   		 .withModelName("export"))
+			   .build();
+	}
+	
+	@Test
+	public void read_images_page_by_page() {
+		transaction(()->{
+			for(String name : asList("export_c","export_a","export_b")) {
+				service.storeImage(image(name));
+			}
+		});
+		
+		transaction(()->{
+			List<ImageInfo> first = reader.readImages(null, ELEMENT_ROLE, null, null, null, null, 2);
+			assertEquals(2,first.size());
+			ImageInfo a = first.get(0);
+			assertEquals(ImageName.valueOf("export_a"),a.getImageName());
+			assertEquals(ImageName.valueOf("export_b"),first.get(1).getImageName());
+			assertEquals(ELEMENT_ROLE,a.getElementRole());
+			assertEquals("export",a.getPlatform().getModelName());
+			assertEquals("image-export_a",a.getChecksums().get("MD5"));
+			assertEquals(asList(ApplicationName.valueOf("export-export_a")),a.getApplications());
+			assertEquals(1,a.getPackages().size());
+			assertEquals("export-export_a",a.getPackages().get(0).getPackageName());
+			assertEquals("package-export_a",a.getPackages().get(0).getChecksums().get("MD5"));
+			
+			List<ImageInfo> second = reader.readImages(null, ELEMENT_ROLE, null, null, null, first.get(1), 2);
+			assertEquals(1,second.size());
+			assertEquals(ImageName.valueOf("export_c"),second.get(0).getImageName());
+		});
+	}
+	
+}
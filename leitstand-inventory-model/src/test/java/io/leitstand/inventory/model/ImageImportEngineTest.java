@@ -0,0 +1,131 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.model.ImageImportEngine.CHUNK_SIZE;
+import static io.leitstand.inventory.service.ImageId.randomImageId;
+import static io.leitstand.inventory.service.ImageImportJobState.COMPLETED;
+import static io.leitstand.inventory.service.ImageImportJobState.FAILED;
+import static io.leitstand.inventory.service.ImageInfo.newImageInfo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.concurrent.ManagedExecutorService;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.leitstand.inventory.service.ImageImportJob;
+import io.leitstand.inventory.service.ImageInfo;
+
+public class ImageImportEngineTest {
+
+	private static List<ImageInfo> images(int count){
+		List<ImageInfo> images = new ArrayList<>();
+		for(int i=0; i < count; i++) {
+			images.add(newImageInfo()
+					   .withImageId(randomImageId())
+					   .build());
+		}
+		return images;
+	}
+	
+	private ManagedExecutorService pool;
+	private AtomicInteger chunks;
+	
+	@Before
+	public void initTestEnvironment() {
+		pool = mock(ManagedExecutorService.class);
+		doAnswer(invocation -> {
+			((Runnable) invocation.getArguments()[0]).run();
+			return null;
+		}).when(pool).execute(any(Runnable.class));
+		chunks = new AtomicInteger();
+	}
+	
+	@Test
+	public void import_images_in_chunks() {
+		ImageImportEngine engine = new ImageImportEngine(pool, new ImageImportService(null) {
+			@Override
+			public void storeImages(List<ImageInfo> chunk) {
+				chunks.incrementAndGet();
+			}
+		});
+		
+		ImageImportJob job = engine.runImport(images(2*CHUNK_SIZE+1));
+		assertEquals(COMPLETED,job.getJobState());
+		assertEquals(3,job.getChunks());
+		assertEquals(3,job.getCompletedChunks());
+		assertEquals(3,chunks.get());
+		assertEquals(2*CHUNK_SIZE+1,job.getImportedImages());
+		assertNotNull(job.getDateCompleted());
+		assertEquals(COMPLETED,engine.getImportJob(job.getJobId()).getJobState());
+	}
+	
+	@Test
+	public void continue_import_when_a_chunk_fails() {
+		ImageImportEngine engine = new ImageImportEngine(pool, new ImageImportService(null) {
+			@Override
+			public void storeImages(List<ImageInfo> chunk) {
+				if(chunks.getAndIncrement() == 1) {
+					throw new IllegalStateException("Broken image");
+				}
+			}
+		});
+		
+		List<ImageInfo> images = images(3*CHUNK_SIZE);
+		ImageImportJob job = engine.runImport(images);
+		assertEquals(FAILED,job.getJobState());
+		assertEquals(3,job.getCompletedChunks());
+		assertEquals(2*CHUNK_SIZE,job.getImportedImages());
+		assertEquals(1,job.getFailures().size());
+		assertEquals(1,job.getFailures().get(0).getChunk());
+		assertEquals("Broken image",job.getFailures().get(0).getMessage());
+		assertEquals(images.get(CHUNK_SIZE).getImageId(),job.getFailures().get(0).getImages().get(0));
+	}
+	
+	
+	@Test
+	public void report_root_cause_of_failed_chunk() {
+		ImageImportEngine engine = new ImageImportEngine(pool, new ImageImportService(null) {
+			@Override
+			public void storeImages(List<ImageInfo> chunk) {
+				throw new IllegalStateException(new IllegalArgumentException("Unknown platform"));
+			}
+		});
+		
+		ImageImportJob job = engine.runImport(images(CHUNK_SIZE));
+		assertEquals(FAILED,job.getJobState());
+		assertEquals("Unknown platform",job.getFailures().get(0).getMessage());
+	}
+	
+	@Test
+	public void fail_job_if_executor_rejects_workers() {
+		ManagedExecutorService rejecting = mock(ManagedExecutorService.class);
+		doThrow(new RejectedExecutionException("Pool exhausted")).when(rejecting).execute(any(Runnable.class));
+		ImageImportEngine engine = new ImageImportEngine(rejecting, new ImageImportService(null) {
+			@Override
+			public void storeImages(List<ImageInfo> chunk) {
+				chunks.incrementAndGet();
+			}
+		});
+		
+		ImageImportJob job = engine.runImport(images(2*CHUNK_SIZE));
+		assertEquals(FAILED,job.getJobState());
+		assertEquals(0,chunks.get());
+		assertEquals(2,job.getCompletedChunks());
+		assertEquals(2,job.getFailures().size());
+		assertEquals("Image import rejected: Pool exhausted",job.getFailures().get(0).getMessage());
+	}
+	
+}
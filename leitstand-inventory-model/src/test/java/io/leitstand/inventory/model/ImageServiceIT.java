@@ -15,6 +15,8 @@ import static io.leitstand.inventory.service.ElementImageState.CACHED;
 import static io.leitstand.inventory.service.ElementName.elementName;
 import static io.leitstand.inventory.service.ElementPlatformInfo.newPlatformInfo;
 import static io.leitstand.inventory.service.ElementRoleName.elementRoleName;
+import static io.leitstand.inventory.service.ImageFilterMode.EXACT;
+import static io.leitstand.inventory.service.ImageFilterMode.PREFIX;
 import static io.leitstand.inventory.service.ImageId.randomImageId;
 import static io.leitstand.inventory.service.ImageInfo.newImageInfo;
 import static io.leitstand.inventory.service.ImageState.CANDIDATE;
@@ -27,10 +29,12 @@ import static io.leitstand.inventory.service.ReasonCode.IVT0201I_IMAGE_STATE_UPD
 import static io.leitstand.inventory.service.ReasonCode.IVT0202I_IMAGE_STORED;
 import static io.leitstand.inventory.service.ReasonCode.IVT0203I_IMAGE_REMOVED;
 import static io.leitstand.inventory.service.ReasonCode.IVT0204E_IMAGE_NOT_REMOVABLE;
+import static io.leitstand.inventory.service.ReasonCode.IVT0205E_IMAGE_SEARCH_CURSOR_INVALID;
 import static io.leitstand.inventory.service.ReasonCode.IVT0400E_ELEMENT_ROLE_NOT_FOUND;
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -53,6 +57,7 @@ import org.mockito.ArgumentCaptor;
 
 import io.leitstand.commons.ConflictException;
 import io.leitstand.commons.EntityNotFoundException;
+import io.leitstand.commons.UnprocessableEntityException;
 import io.leitstand.commons.messages.Message;
 import io.leitstand.commons.messages.Messages;
 import io.leitstand.commons.model.Repository;
@@ -70,6 +75,7 @@ import io.leitstand.inventory.service.ElementRoleName;
 import io.leitstand.inventory.service.ImageId;
 import io.leitstand.inventory.service.ImageInfo;
 import io.leitstand.inventory.service.ImageName;
+import io.leitstand.inventory.service.ImageSearchResult;
 import io.leitstand.inventory.service.ImageService;
 import io.leitstand.inventory.service.ImageStatistics;
 import io.leitstand.inventory.service.ImageType;
@@ -627,4 +633,58 @@ public class ImageServiceIT extends InventoryIT{
 		
 	}
 
+	@Test
+	public void search_images_by_name_prefix_page_by_page() {
+		transaction(()->{
+			for(String name : asList("keyset_search_c",
+									 "keyset_search_a",
+									 "keysetXsearch_b",
+									 "keyset_search_b")) {
+				service.storeImage(newImageInfo()
+								   .withImageId(randomImageId())
+								   .withImageType(LXC)
+								   .withImageName(ImageName.valueOf(name))
+								   .withImageState(NEW)
+								   .withImageVersion(new Version(1,0,0))
+								   .withExtension("tar.gz")
+								   .withElementRole(ELEMENT_ROLE)
+								   .withOrganization("io.leitstand")
+								   .withCategory("unittest")
+								   .withPlatform(newPlatformInfo()
+										   		 .withVendorName("unittest")
+										   		 .withModelName("on-demand"))
+								   .build());
+			}
+		});
+		
+		transaction(()->{
+			ImageSearchResult first = service.searchImages("keyset_search_", PREFIX, null, null, null, null, null, 2);
+			assertEquals(2,first.getImages().size());
+			assertEquals(ImageName.valueOf("keyset_search_a"),first.getImages().get(0).getImageName());
+			assertEquals(ImageName.valueOf("keyset_search_b"),first.getImages().get(1).getImageName());
+			assertNotNull(first.getNext());
+			
+			ImageSearchResult second = service.searchImages("keyset_search_", PREFIX, null, null, null, null, first.getNext(), 2);
+			assertEquals(1,second.getImages().size());
+			assertEquals(ImageName.valueOf("keyset_search_c"),second.getImages().get(0).getImageName());
+			assertNull(second.getNext());
+			
+			ImageSearchResult exact = service.searchImages("keyset_search_b", EXACT, null, null, null, null, null, 10);
+			assertEquals(1,exact.getImages().size());
+			assertEquals(ImageName.valueOf("keyset_search_b"),exact.getImages().get(0).getImageName());
+		});
+	}
+	
+	@Test
+	public void reject_malformed_search_cursor() {
+		transaction(()->{
+			try {
+				service.searchImages("", PREFIX, null, null, null, null, "malformed", 10);
+				fail("UnprocessableEntityException expected");
+			} catch (UnprocessableEntityException e) {
+				assertEquals(IVT0205E_IMAGE_SEARCH_CURSOR_INVALID,e.getReason());
+			}
+		});
+	}
+
 }
@@ -0,0 +1,155 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.service.ElementInstalledImageReference.newElementInstalledImageReference;
+import static io.leitstand.inventory.service.ImageName.imageName;
+import static io.leitstand.inventory.service.ImageType.LXC;
+import static io.leitstand.inventory.service.Version.version;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.leitstand.inventory.service.ElementInstalledImageReference;
+
+public class ImageStubRecordsTest {
+
+	private static final ElementInstalledImageReference UNKNOWN = newElementInstalledImageReference()
+																  .withImageType(LXC)
+																  .withImageName(imageName("stub-test"))
+																  .withImageVersion(version("1.0.0"))
+																  .build();
+	
+	private ImageStubRecords stubs = new ImageStubRecords();
+	private ExecutorService pool;
+	private ScheduledExecutorService scheduler;
+	private Element element;
+	
+	@Before
+	public void initTestEnvironment() {
+		pool = Executors.newSingleThreadExecutor();
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		element = mock(Element.class);
+		when(element.getElementRole()).thenReturn(mock(ElementRole.class));
+		when(element.getPlatform()).thenReturn(mock(Platform.class));
+	}
+	
+	@After
+	public void shutdownPools() {
+		pool.shutdownNow();
+		scheduler.shutdownNow();
+	}
+	
+	@Test
+	public void create_stub_record_once_for_concurrent_reports() throws Exception {
+		Image stub = mock(Image.class);
+		AtomicInteger creates = new AtomicInteger();
+		AtomicInteger reads = new AtomicInteger();
+		CountDownLatch creating = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		
+		Future<List<Image>> first = pool.submit(() -> stubs.fetchImageStubs(element, 
+																			asList(UNKNOWN), 
+																			images -> {
+																				creates.incrementAndGet();
+																				creating.countDown();
+																				await(release);
+																				return asList(stub);
+																			}, 
+																			image -> null));
+		assertTrue(creating.await(5, SECONDS));
+		
+		// Release the first request after the second request has started to wait for the stub record.
+		scheduler.schedule(release::countDown, 200, MILLISECONDS);
+		
+		List<Image> second = stubs.fetchImageStubs(element, 
+												   asList(UNKNOWN), 
+												   images -> {
+													   creates.incrementAndGet();
+													   return asList(mock(Image.class));
+												   },
+												   image -> {
+													   reads.incrementAndGet();
+													   return stub;
+												   });
+		
+		assertSame(stub,first.get(5, SECONDS).get(0));
+		assertSame(stub,second.get(0));
+		assertEquals(1,creates.get());
+		assertEquals(1,reads.get());
+		assertEquals(0,stubs.size());
+	}
+	
+	@Test
+	public void create_duplicate_reports_of_a_request_once() {
+		Image stub = mock(Image.class);
+		AtomicInteger creates = new AtomicInteger();
+		
+		List<Image> images = stubs.fetchImageStubs(element, 
+												   asList(UNKNOWN,UNKNOWN), 
+												   missing -> {
+													   creates.incrementAndGet();
+													   assertEquals(1,missing.size());
+													   return asList(stub);
+												   },
+												   image -> stub);
+		assertEquals(1,creates.get());
+		assertSame(stub,images.get(0));
+		assertSame(stub,images.get(1));
+	}
+	
+	@Test
+	public void read_or_create_stub_records_one_by_one_if_batch_creation_failed() {
+		ElementInstalledImageReference other = newElementInstalledImageReference()
+											   .withImageType(LXC)
+											   .withImageName(imageName("stub-test"))
+											   .withImageVersion(version("2.0.0"))
+											   .build();
+		Image existing = mock(Image.class);
+		Image created = mock(Image.class);
+		AtomicInteger creates = new AtomicInteger();
+		
+		List<Image> images = stubs.fetchImageStubs(element, 
+												   asList(UNKNOWN,other), 
+												   missing -> {
+													   if(creates.incrementAndGet() == 1) {
+														   // Simulate a unique key violation caused by another node.
+														   return null;
+													   }
+													   assertEquals(asList(other),missing);
+													   return asList(created);
+												   },
+												   image -> image == UNKNOWN ? existing : null);
+		assertEquals(2,creates.get());
+		assertSame(existing,images.get(0));
+		assertSame(created,images.get(1));
+		assertEquals(0,stubs.size());
+	}
+	
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+}
@@ -0,0 +1,132 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.event.ImageRemovedEvent.newImageRemovedEvent;
+import static io.leitstand.inventory.service.ElementRoleName.elementRoleName;
+import static io.leitstand.inventory.service.ImageId.randomImageId;
+import static io.leitstand.inventory.service.ImageName.imageName;
+import static io.leitstand.inventory.service.ImageState.REVOKED;
+import static io.leitstand.inventory.service.ImageType.LXC;
+import static io.leitstand.inventory.service.Plane.DATA;
+import static io.leitstand.inventory.service.PlatformId.randomPlatformId;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import io.leitstand.inventory.model.ImageVersionIndex.IndexedImage;
+import io.leitstand.inventory.service.Version;
+
+public class ImageVersionIndexTest {
+
+	private static final ElementRole ROLE = new ElementRole(elementRoleName("index-test"),DATA);
+	private static final Platform PLATFORM = new Platform(randomPlatformId(),"unittest","index");
+
+	private static Image image(String version) {
+		return new Image(randomImageId(),
+						 "io.leitstand",
+						 LXC,
+						 imageName("index-test"),
+						 ROLE,
+						 PLATFORM,
+						 Version.valueOf(version));
+	}
+
+	private ImageVersionIndex index = new ImageVersionIndex();
+
+	@Test
+	public void find_newer_versions_in_descending_order() {
+		Image installed = image("1.1.0");
+		Image revoked = image("3.0.0");
+		revoked.setImageState(REVOKED);
+		List<Image> images = asList(image("1.0.0"),
+									installed,
+									image("1.1.1-rc1"),
+									image("1.1.1"),
+									image("2.0.0"),
+									revoked);
+
+		List<IndexedImage> updates = index.findUpdates(installed, null, () -> images);
+		assertEquals(3,updates.size());
+		assertEquals(Version.valueOf("2.0.0"),updates.get(0).getImageVersion());
+		assertEquals(Version.valueOf("1.1.1"),updates.get(1).getImageVersion());
+		assertEquals(Version.valueOf("1.1.1-rc1"),updates.get(2).getImageVersion());
+	}
+
+	@Test
+	public void load_images_once_until_an_image_event_is_fired() {
+		Image installed = image("1.0.0");
+		AtomicInteger loads = new AtomicInteger();
+		List<Image> images = asList(installed, image("1.0.1"));
+
+		index.findUpdates(installed, null, () -> {loads.incrementAndGet(); return images;});
+		index.findUpdates(installed, null, () -> {loads.incrementAndGet(); return images;});
+		assertEquals(1,loads.get());
+
+		index.onImageEvent(newImageRemovedEvent()
+						   .withElementRole(ROLE.getRoleName())
+						   .withImageType(LXC)
+						   .withImageName(imageName("index-test"))
+						   .build());
+		assertEquals(0,index.size());
+
+		index.findUpdates(installed, null, () -> {loads.incrementAndGet(); return images;});
+		assertEquals(2,loads.get());
+	}
+	
+	@Test
+	public void do_not_retain_images_loaded_concurrently_to_an_image_event() {
+		Image installed = image("1.0.0");
+		AtomicInteger loads = new AtomicInteger();
+		List<Image> images = asList(installed, image("1.0.1"));
+
+		// The image event is fired while the images are loaded.
+		index.findUpdates(installed, null, () -> {
+			loads.incrementAndGet();
+			index.onImageEvent(newImageRemovedEvent()
+							   .withElementRole(ROLE.getRoleName())
+							   .withImageType(LXC)
+							   .withImageName(imageName("index-test"))
+							   .build());
+			return images;
+		});
+		assertEquals(0,index.size());
+
+		index.findUpdates(installed, null, () -> {loads.incrementAndGet(); return images;});
+		assertEquals(2,loads.get());
+	}
+	
+	@Test
+	public void reload_expired_images_modified_on_another_node() {
+		ImageVersionIndex index = new ImageVersionIndex(0);
+		Image installed = image("1.0.0");
+		AtomicInteger loads = new AtomicInteger();
+		
+		index.findUpdates(installed, null, () -> {loads.incrementAndGet(); return asList(installed);});
+		List<IndexedImage> updates = index.findUpdates(installed, null, () -> {loads.incrementAndGet(); return asList(installed, image("1.0.1"));});
+		assertEquals(2,loads.get());
+		assertEquals(1,updates.size());
+		assertEquals(1,index.size());
+	}
+	
+	@Test
+	public void reload_images_after_stub_records_were_created() {
+		Image installed = image("1.0.0");
+		AtomicInteger loads = new AtomicInteger();
+		List<Image> images = asList(installed);
+
+		index.findUpdates(installed, null, () -> {loads.incrementAndGet(); return images;});
+		index.invalidate(ROLE.getRoleName(), LXC, imageName("index-test"));
+		assertEquals(0,index.size());
+		
+		List<IndexedImage> updates = index.findUpdates(installed, null, () -> {loads.incrementAndGet(); return asList(installed, image("1.0.1"));});
+		assertEquals(2,loads.get());
+		assertEquals(1,updates.size());
+	}
+
+}
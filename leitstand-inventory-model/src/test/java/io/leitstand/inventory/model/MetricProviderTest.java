@@ -30,6 +30,9 @@ public class MetricProviderTest {
 	@Mock
 	private Repository repository;
 	
+	@Mock
+	private ReferenceCatalog catalog;
+	
 	@InjectMocks
 	private MetricProvider metrics = new MetricProvider();
 	
@@ -30,6 +30,9 @@ public class PlatformProviderTest {
 	@Mock
 	private Repository repository;
 	
+	@Mock
+	private ReferenceCatalog catalog;
+	
 	@InjectMocks
 	private PlatformProvider provider = new PlatformProvider();
 
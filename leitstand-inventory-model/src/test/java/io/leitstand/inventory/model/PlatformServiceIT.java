@@ -64,6 +64,7 @@ public class PlatformServiceIT extends InventoryIT{
 		messages = mock(Messages.class);
 		doNothing().when(messages).add(message.capture());
 		service = new DefaultPlatformService(repository,
+											 new ReferenceCatalog(),
 										     messages);
 		
 		ElementGroupProvider groups = new ElementGroupProvider(repository);
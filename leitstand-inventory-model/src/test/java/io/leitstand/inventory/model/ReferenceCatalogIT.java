@@ -0,0 +1,90 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.model;
+
+import static io.leitstand.inventory.service.ElementPlatformInfo.newPlatformInfo;
+import static io.leitstand.inventory.service.PlatformId.randomPlatformId;
+import static io.leitstand.inventory.service.PlatformSettings.newPlatformSettings;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.leitstand.commons.messages.Messages;
+import io.leitstand.commons.model.Repository;
+import io.leitstand.inventory.service.PlatformId;
+import io.leitstand.inventory.service.PlatformService;
+
+public class ReferenceCatalogIT extends InventoryIT {
+
+	private static final PlatformId PLATFORM_ID = randomPlatformId();
+
+	private ReferenceCatalog catalog;
+	private PlatformProvider platforms;
+	private PlatformService service;
+
+	@Before
+	public void initTestEnvironment() {
+		Repository repository = new Repository(getEntityManager());
+		catalog = new ReferenceCatalog();
+		platforms = new PlatformProvider(repository, catalog);
+		service = new DefaultPlatformService(repository,
+											 catalog,
+											 mock(Messages.class));
+		transaction(()->{
+			service.storePlatform(newPlatformSettings()
+								  .withPlatformId(PLATFORM_ID)
+								  .withVendorName("catalog")
+								  .withModelName("cached")
+								  .build());
+		});
+	}
+
+	@Test
+	public void cache_platform_by_id_and_by_name() {
+		transaction(()->{
+			Platform byId = platforms.fetchPlatform(PLATFORM_ID);
+			Platform byName = platforms.fetchPlatform(newPlatformInfo()
+													  .withVendorName("catalog")
+													  .withModelName("cached")
+													  .build());
+			assertEquals(byId,byName);
+			assertEquals(2,catalog.size(Platform.class));
+		});
+
+		transaction(()->{
+			assertEquals(PLATFORM_ID,platforms.fetchPlatform(PLATFORM_ID).getPlatformId());
+		});
+	}
+
+	@Test
+	public void invalidate_catalog_when_platform_is_modified() {
+		transaction(()->{
+			platforms.fetchPlatform(PLATFORM_ID);
+			long version = catalog.getVersion(Platform.class);
+			service.storePlatform(newPlatformSettings()
+								  .withPlatformId(PLATFORM_ID)
+								  .withVendorName("catalog")
+								  .withModelName("renamed")
+								  .build());
+			assertEquals(version+1,catalog.getVersion(Platform.class));
+			assertEquals(0,catalog.size(Platform.class));
+		});
+
+		transaction(()->{
+			assertNull(platforms.tryFetchPlatform(newPlatformInfo()
+												  .withVendorName("catalog")
+												  .withModelName("cached")
+												  .build()));
+			assertEquals(PLATFORM_ID,platforms.tryFetchPlatform(newPlatformInfo()
+																.withVendorName("catalog")
+																.withModelName("renamed")
+																.build())
+											  .getPlatformId());
+		});
+	}
+
+}
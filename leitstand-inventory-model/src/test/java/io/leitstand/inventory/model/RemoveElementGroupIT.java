@@ -11,6 +11,8 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
+import javax.enterprise.event.Event;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -31,7 +33,7 @@ public class RemoveElementGroupIT extends InventoryIT {
 		Repository repository = new Repository(getEntityManager());
 		groups = new ElementGroupProvider(repository);
 		messages = mock(Messages.class);
-		this.service = new ElementGroupManager(repository,getDatabase(),messages);
+		this.service = new ElementGroupManager(repository,getDatabase(),new ElementGroupCounters(getDatabase()),mock(Event.class),messages);
 	}
 	
 	@Test
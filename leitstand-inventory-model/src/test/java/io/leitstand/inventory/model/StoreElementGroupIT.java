@@ -9,6 +9,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.mockito.Mockito.mock;
 
+import javax.enterprise.event.Event;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -28,7 +30,7 @@ public class StoreElementGroupIT extends InventoryIT{
 		Repository repository = new Repository(getEntityManager());
 		groups = new ElementGroupProvider(repository);
 		messages = mock(Messages.class);
-		this.service = new ElementGroupManager(repository, getDatabase(),messages);
+		this.service = new ElementGroupManager(repository, getDatabase(),new ElementGroupCounters(getDatabase()),mock(Event.class),messages);
 	}
 	
 	@Test
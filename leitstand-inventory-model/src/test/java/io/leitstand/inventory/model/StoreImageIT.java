@@ -8,11 +8,13 @@ import static io.leitstand.inventory.model.ImageInfoMother.BAR_200;
 import static io.leitstand.inventory.model.ImageInfoMother.FOO_100;
 import static io.leitstand.inventory.model.ImageInfoMother.FOO_101;
 import static io.leitstand.inventory.model.ImageInfoMother.newLeafImage;
+import static io.leitstand.inventory.service.PackageVersionInfo.newPackageVersionInfo;
 import static io.leitstand.inventory.service.Plane.DATA;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.Date;
 import java.util.List;
 
 import javax.enterprise.event.Event;
@@ -35,8 +37,16 @@ import io.leitstand.inventory.service.Version;
 
 public class StoreImageIT extends InventoryIT{
 
+	private static final PackageVersionInfo BAZ_100 = newPackageVersionInfo().withOrganization("net.rtbrick")
+																			   .withPackageName("baz")
+																			   .withPackageVersion(new Version(1,0,0))
+																			   .withBuildDate(new Date())
+																			   .withPackageExtension("so")
+																			   .build();
+	
 	private ImageService service;
 	private PackageVersionService packages;
+	private SubtransactionService transactions;
 	private ImageInfo image;
 	
 	@Before
@@ -44,7 +54,7 @@ public class StoreImageIT extends InventoryIT{
 		Repository repository = new Repository(getEntityManager());
 		this.packages = new PackageVersionService(repository);
 		Provider<SubtransactionService> provider = mock(Provider.class);
-		SubtransactionService transactions = new InventorySubtransactionService(repository, provider);
+		transactions = new InventorySubtransactionService(repository, provider);
 		when(provider.get()).thenReturn(transactions);
 		
 		service = new DefaultImageService(transactions,
@@ -90,6 +100,26 @@ public class StoreImageIT extends InventoryIT{
 		});
 	}
 	
+	@Test
+	public void resolve_package_versions_shared_by_images(){
+		transaction(()->{
+			service.storeImage(newLeafImage(new Version(1,0,0),FOO_101,BAR_200));
+		});
+		transaction(()->{
+			image = newLeafImage(new Version(1,0,1),FOO_101,BAR_200,BAZ_100);
+			service.storeImage(image);
+		});
+		transaction(()->{
+			List<PackageVersion> versions = packages.storePackageVersions(transactions, image.getPackages());
+			assertEquals(3,versions.size());
+			assertEquals("baz",versions.get(2).getPackageName());
+			assertEquals(new Version(1,0,0),versions.get(2).getPackageVersion());
+			assertEquals(Long.valueOf(1),
+						 getEntityManager().createQuery("SELECT count(p) FROM Package p WHERE p.name='baz'",Long.class)
+						 				   .getSingleResult());
+		});
+	}
+	
 	@After
 	public void verify_created_container_image(){
 		transaction(()->{
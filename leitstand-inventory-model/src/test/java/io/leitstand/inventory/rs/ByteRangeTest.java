@@ -0,0 +1,80 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.inventory.rs;
+
+import static io.leitstand.inventory.rs.ByteRange.byteRange;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Test;
+
+public class ByteRangeTest {
+
+	private static final byte[] CONTENT = "0123456789".getBytes(US_ASCII);
+
+	private static String slice(ByteRange range) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		OutputStream slice = range.slice(out);
+		// Write in chunks to verify chunk boundary handling.
+		slice.write(CONTENT, 0, 3);
+		slice.write(CONTENT[3]);
+		slice.write(CONTENT, 4, 6);
+		slice.flush();
+		return new String(out.toByteArray(), US_ASCII);
+	}
+
+	@Test
+	public void ignore_absent_and_unsupported_ranges() {
+		assertNull(byteRange(null, 10));
+		assertNull(byteRange("items=0-1", 10));
+		assertNull(byteRange("bytes=0-1,4-5", 10));
+		assertNull(byteRange("bytes=5-1", 10));
+		assertNull(byteRange("bytes=a-b", 10));
+	}
+
+	@Test
+	public void slice_bounded_range() throws IOException {
+		ByteRange range = byteRange("bytes=2-5", 10);
+		assertTrue(range.isSatisfiable());
+		assertEquals(4,range.getRangeLength());
+		assertEquals("bytes 2-5/10",range.getContentRange());
+		assertEquals("2345",slice(range));
+	}
+
+	@Test
+	public void slice_open_range() throws IOException {
+		ByteRange range = byteRange("bytes=7-", 10);
+		assertEquals("bytes 7-9/10",range.getContentRange());
+		assertEquals("789",slice(range));
+	}
+
+	@Test
+	public void slice_suffix_range() throws IOException {
+		ByteRange range = byteRange("bytes=-4", 10);
+		assertEquals("bytes 6-9/10",range.getContentRange());
+		assertEquals("6789",slice(range));
+	}
+
+	@Test
+	public void truncate_range_exceeding_content() throws IOException {
+		ByteRange range = byteRange("bytes=8-20", 10);
+		assertEquals("bytes 8-9/10",range.getContentRange());
+		assertEquals("89",slice(range));
+	}
+
+	@Test
+	public void range_beyond_content_is_not_satisfiable() {
+		ByteRange range = byteRange("bytes=10-20", 10);
+		assertFalse(range.isSatisfiable());
+		assertEquals("bytes */10",range.getContentRange());
+	}
+
+}
@@ -6,10 +6,22 @@ package io.leitstand.inventory.rs;
 import static io.leitstand.inventory.service.ElementConfigId.randomConfigId;
 import static io.leitstand.inventory.service.ElementId.randomElementId;
 import static io.leitstand.inventory.service.ElementName.elementName;
+import static io.leitstand.inventory.service.ConfigurationState.ACTIVE;
+import static io.leitstand.inventory.service.ElementConfigReference.newElementConfigReference;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Date;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -19,6 +31,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import io.leitstand.commons.messages.Messages;
 import io.leitstand.inventory.service.ElementConfigId;
+import io.leitstand.inventory.service.ElementConfigReference;
 import io.leitstand.inventory.service.ElementConfigService;
 import io.leitstand.inventory.service.ElementId;
 import io.leitstand.inventory.service.ElementName;
@@ -38,6 +51,9 @@ public class ElementConfigResourceTest {
 	@Mock
 	private Messages messages;
 	
+	@Mock
+	private Request request;
+	
 	@InjectMocks
 	private ElementConfigResource resource = new ElementConfigResource();
 	
@@ -98,4 +114,43 @@ public class ElementConfigResourceTest {
 	}
 	
 	
+	@Test
+	public void send_not_modified_response_when_element_configs_are_unmodified() {
+		when(service.getElementConfigsVersion(ELEMENT_ID)).thenReturn("1.1");
+		when(request.evaluatePreconditions(any(EntityTag.class))).thenReturn(Response.notModified());
+		
+		Response response = resource.findElementConfigs(ELEMENT_ID, null);
+		assertEquals(304,response.getStatus());
+		assertEquals(new EntityTag("1.1",true),response.getEntityTag());
+		verify(service,never()).findElementConfigs(ELEMENT_ID, null);
+	}
+
+	@Test
+	public void send_element_configs_with_entity_tag_when_element_configs_are_modified() {
+		when(service.getElementConfigsVersion(ELEMENT_NAME)).thenReturn("1.2");
+		
+		Response response = resource.findElementConfigs(ELEMENT_NAME, null);
+		assertEquals(200,response.getStatus());
+		assertEquals(new EntityTag("1.2",true),response.getEntityTag());
+		verify(service).findElementConfigs(ELEMENT_NAME, null);
+	}
+	
+	@Test
+	public void send_not_modified_response_when_element_config_is_unmodified() {
+		ElementConfigReference ref = newElementConfigReference()
+									 .withConfigId(CONFIG_ID)
+									 .withConfigState(ACTIVE)
+									 .withContentHash("hash")
+									 .withDateModified(new Date())
+									 .build();
+		when(service.getElementConfigReference(ELEMENT_ID, CONFIG_ID)).thenReturn(ref);
+		when(request.evaluatePreconditions(any(EntityTag.class))).thenReturn(Response.notModified());
+		
+		Response response = resource.getElementConfig(ELEMENT_ID, CONFIG_ID);
+		assertEquals(304,response.getStatus());
+		assertTrue(response.getEntityTag().isWeak());
+		assertTrue(response.getEntityTag().getValue().startsWith("hash."));
+		verify(service,never()).getElementConfig(ELEMENT_ID, CONFIG_ID);
+	}
+	
 }